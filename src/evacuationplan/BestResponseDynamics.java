@@ -5,11 +5,8 @@
  */
 package evacuationplan;
 
-import java.util.ArrayList;
 import java.util.List;
-import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
 import org.zet.cellularautomaton.Individual;
-import org.zet.cellularautomaton.Room;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.algorithm.state.EvacuationState;
 import org.zet.cellularautomaton.EvacuationCellularAutomaton;
@@ -30,30 +27,34 @@ public class BestResponseDynamics {
 
     /**
      * Creates a new instance of {@code BestResponseDynamics}.
+     *
+     * @param es the evacuation state containing the individuals
      */
-    public BestResponseDynamics() {
-
+    public BestResponseDynamics(EvacuationState es) {
+        this.es = es;
     }
 
-    public void computeAssignmentBasedOnBestResponseDynamics(MultiFloorEvacuationCellularAutomaton ca, List<Individual> individuals) {
-        int c = 0;
-        while (true) {
-            c++;
-            int swapped = 0;
-            for (Individual i : individuals) {
-                swapped += computePotential(es.propertyFor(i).getCell(), ca);
-            }
-            System.out.println("Swapped in iteration " + c + ": " + swapped);
-            if (swapped == 0) {
-                break;
+    /**
+     * Assigns the individuals to the exits of a best response assignment computed by {@link BestResponseSolver}.
+     *
+     * @param ca the cellular automaton
+     * @param individuals the individuals
+     * @return the number of rounds needed to compute the assignment
+     */
+    public int computeAssignmentBasedOnBestResponseDynamics(EvacuationCellularAutomaton ca,
+            List<Individual> individuals) {
+        BestResponseSolver solver = new BestResponseSolver(es);
+        solver.solve(individuals);
+        for (Individual i : individuals) {
+            Exit exit = solver.getAssignedExit(i);
+            if (exit != null) {
+                es.propertyFor(i).setStaticPotential(ca.getPotentialFor(exit));
             }
         }
-        System.out.println("Best Response Rounds: " + c);
+        return solver.getRounds();
     }
 
     public int computePotential(EvacCellInterface cell, EvacuationCellularAutomaton ca) {
-        ArrayList<Potential> exits = new ArrayList<>();
-        //exits.addAll(ca.getExits());
         Potential newPot = es.propertyFor(cell.getState().getIndividual()).getStaticPotential();
         double response = Double.MAX_VALUE;
         for (Exit exit : es.getCellularAutomaton().getExits()) {
@@ -91,28 +92,7 @@ public class BestResponseDynamics {
         //System.out.println("Exit: " + pot.getID() + " : " + exitCapacity);
 
         // calculate number of individuals that are heading to the same exit and closer to it
-        ArrayList<Individual> otherInds = new ArrayList<>();
-        //cell.getRoom().getIndividuals();
-        ArrayList<Room> rooms = new ArrayList<>();
-        rooms.addAll(ca.getRooms());
-        for (Room room : rooms) {
-            for (Individual i : room.getIndividuals()) {
-                otherInds.add(i);
-            }
-        }
-
-        int queueLength = 0;
-        for (Individual otherInd : otherInds) {
-            if (!otherInd.equals(ind)) {
-                if (es.propertyFor(otherInd).getStaticPotential() == pot) {
-                    if (es.propertyFor(otherInd).getStaticPotential().getPotentialDouble(es.propertyFor(otherInd).getCell()) >= 0) {
-                        if (es.propertyFor(otherInd).getStaticPotential().getPotentialDouble(es.propertyFor(otherInd).getCell()) < distance) {
-                            queueLength++;
-                        }
-                    }
-                }
-            }
-        }
+        int queueLength = es.getIndividualIndex().countIndividuals(pot, distance);
         //System.out.println("Potential = " + pot.getID());
         //System.out.println("Queue / Kapa = " + queueLength + " / " + exitCapacity + " = " + (queueLength / exitCapacity));
         //System.out.println("Dist / Speed = " + distance + " / " + speed + " = " + (distance / speed));
@@ -0,0 +1,416 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package evacuationplan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.ExitCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.IndividualToExitMapping;
+import org.zet.cellularautomaton.TargetCell;
+import org.zet.cellularautomaton.algorithm.state.EvacuationState;
+import org.zet.cellularautomaton.algorithm.state.IndividualProperty;
+import org.zet.cellularautomaton.potential.Potential;
+
+/**
+ * Computes an assignment of individuals to exits by best response dynamics. The estimated evacuation time of an
+ * individual for an exit is a weighted sum of the time needed to walk to the exit and the time spent in the queue of
+ * the individuals heading to the same exit that are strictly closer to it, as counted by
+ * {@link org.zet.cellularautomaton.algorithm.state.IndividualIndex#countIndividuals}.
+ *
+ * The solver proceeds in rounds. In each round the best responses of the individuals are evaluated in parallel on the
+ * assignment of the previous round. The proposed changes are then committed in the order of the individuals, each
+ * change only if it is still an improvement with respect to the changes committed before, such that individuals do
+ * not all switch to the same exit at once. Ties are broken in favour of the current exit and then of the exit that
+ * comes first in the cellular automaton. Afterwards only the individuals whose queue lengths have changed are
+ * evaluated again. The solver stops when no individual changes its exit, or when the time budget is exhausted.
+ *
+ * The static potentials of the individuals are used as initial assignment, thus solving a slightly changed state
+ * again usually needs only few rounds. If the same individuals are solved again, the individuals sorted by their
+ * distances to the exits are kept and only the individuals that have moved to another cell are sorted in again.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class BestResponseSolver {
+
+    private static final double QUEUEING_TIME_WEIGHT_FACTOR = 0.5;
+    private static final double MOVING_TIME_WEIGHT_FACTOR = 0.5;
+    private final EvacuationState es;
+    private final List<Exit> exits;
+    private final Map<Exit, Double> capacities = new HashMap<>();
+    private long timeBudget = Long.MAX_VALUE;
+    /** The number of rounds of the last run. */
+    private int rounds;
+    private boolean converged;
+    private Map<Individual, Exit> assignment = Collections.emptyMap();
+
+    /** The individuals of the last run, whose distances and orders are kept. */
+    private List<Individual> individuals = Collections.emptyList();
+    /** The cell of each individual in the last run. */
+    private EvacCellInterface[] cells;
+    /** The distance of each individual to each exit, indexed by exit and individual. */
+    private double[][] distance;
+    private double[] speed;
+    /** The individuals sorted by their distance to each exit. */
+    private int[][] order;
+    /** The first position in {@link #order} of an individual having the same distance, by exit and individual. */
+    private int[][] lower;
+    /** The last position in {@link #order} of an individual having the same distance, by exit and individual. */
+    private int[][] upper;
+    /** Fenwick trees over the positions in {@link #order} counting the individuals assigned to each exit. */
+    private int[][] queues;
+    private int[] current;
+
+    /**
+     * Creates a new solver for the individuals of an evacuation state.
+     *
+     * @param es the evacuation state providing the positions, speeds and potentials of the individuals
+     */
+    public BestResponseSolver(EvacuationState es) {
+        this.es = es;
+        this.exits = new ArrayList<>(es.getCellularAutomaton().getExits());
+    }
+
+    /**
+     * Sets the maximal time a run of the solver may take. The current round is completed when the time is exceeded.
+     *
+     * @param time the time budget
+     * @param unit the unit of the time budget
+     */
+    public void setTimeBudget(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Negative time budget: " + time);
+        }
+        this.timeBudget = unit.toNanos(time);
+    }
+
+    /**
+     * Sets the capacity of an exit, i.e. the number of individuals leaving through the exit per time unit. If not set,
+     * the capacity of the exit itself is used.
+     *
+     * @param exit the exit
+     * @param capacity the capacity
+     */
+    public void setCapacity(Exit exit, double capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        capacities.put(exit, capacity);
+    }
+
+    /**
+     * Computes the assignment of the individuals to exits. Only the given individuals are taken into account for the
+     * queues, individuals that have not been placed on a cell or that cannot reach any exit are not assigned.
+     *
+     * @param individuals the individuals
+     * @return the mapping of the individuals to a cell of their assigned exit
+     */
+    public IndividualToExitMapping solve(List<Individual> individuals) {
+        long start = System.nanoTime();
+        init(individuals);
+        int n = individuals.size();
+        int[] dirty = IntStream.range(0, n).toArray();
+        int[] proposal = new int[n];
+        rounds = 0;
+        converged = false;
+        while (dirty.length > 0) {
+            if (System.nanoTime() - start > timeBudget) {
+                break;
+            }
+            rounds++;
+            int[] evaluate = dirty;
+            IntStream.range(0, evaluate.length).parallel().forEach(k -> proposal[k] = bestResponse(evaluate[k]));
+
+            int[] minChanged = new int[exits.size()];
+            Arrays.fill(minChanged, n);
+            for (int k = 0; k < evaluate.length; ++k) {
+                int i = evaluate[k];
+                int from = current[i];
+                int to = proposal[k];
+                if (to == from || (from != -1 && response(i, to) >= response(i, from))) {
+                    continue;
+                }
+                if (from != -1) {
+                    update(from, i, -1);
+                    minChanged[from] = Math.min(minChanged[from], upper[from][i] + 1);
+                }
+                update(to, i, 1);
+                minChanged[to] = Math.min(minChanged[to], upper[to][i] + 1);
+                current[i] = to;
+            }
+            dirty = affected(minChanged, n);
+        }
+        converged = dirty.length == 0;
+
+        Map<Individual, Exit> result = new HashMap<>();
+        Map<Individual, TargetCell> targets = new HashMap<>();
+        for (int i = 0; i < n; ++i) {
+            if (current[i] != -1) {
+                Exit exit = exits.get(current[i]);
+                result.put(individuals.get(i), exit);
+                Iterator<ExitCell> cells = exit.getExitCluster().iterator();
+                targets.put(individuals.get(i), cells.hasNext() ? cells.next() : null);
+            }
+        }
+        assignment = result;
+        return targets::get;
+    }
+
+    /**
+     * Returns the exit assigned to an individual in the last run.
+     *
+     * @param individual the individual
+     * @return the exit or {@code null} if the individual has not been assigned
+     */
+    public Exit getAssignedExit(Individual individual) {
+        return assignment.get(individual);
+    }
+
+    /**
+     * Returns the number of rounds of the last run.
+     *
+     * @return the number of rounds of the last run
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Returns whether the last run has reached an assignment in which no individual can improve by changing its exit.
+     *
+     * @return {@code true} if the last run has converged, {@code false} if it has been stopped by the time budget
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Computes the distances of the individuals and sorts them by their distances to each exit. If the individuals are
+     * the same as in the last run, only the individuals whose cell has changed are sorted in again.
+     */
+    private void init(List<Individual> individuals) {
+        int n = individuals.size();
+        int m = exits.size();
+        boolean known = individuals.equals(this.individuals) && cells != null;
+        if (!known) {
+            this.individuals = new ArrayList<>(individuals);
+            cells = new EvacCellInterface[n];
+            distance = new double[m][n];
+            order = new int[m][0];
+            lower = new int[m][n];
+            upper = new int[m][n];
+        }
+        Map<Potential, Integer> exitOf = new HashMap<>();
+        for (int e = 0; e < m; ++e) {
+            exitOf.put(es.getCellularAutomaton().getPotentialFor(exits.get(e)), e);
+        }
+        speed = new double[n];
+        current = new int[n];
+        int[] moved = new int[n];
+        int movedCount = 0;
+        for (int i = 0; i < n; ++i) {
+            IndividualProperty property = es.propertyFor(individuals.get(i));
+            EvacCellInterface cell = property.getCell();
+            speed[i] = property.getRelativeSpeed();
+            if (!known || cell != cells[i]) {
+                cells[i] = cell;
+                moved[movedCount++] = i;
+                for (int e = 0; e < m; ++e) {
+                    Potential potential = es.getCellularAutomaton().getPotentialFor(exits.get(e));
+                    distance[e][i] = cell != null && potential.hasValidPotential(cell)
+                            && potential.getPotentialDouble(cell) >= 0
+                            ? potential.getPotentialDouble(cell) : Double.POSITIVE_INFINITY;
+                }
+            }
+            Integer initial = property.getStaticPotential() == null ? null : exitOf.get(property.getStaticPotential());
+            current[i] = initial != null && distance[initial][i] < Double.POSITIVE_INFINITY ? initial : -1;
+        }
+
+        if (movedCount > 0) {
+            moved = Arrays.copyOf(moved, movedCount);
+            boolean[] isMoved = new boolean[n];
+            for (int i : moved) {
+                isMoved[i] = true;
+            }
+            for (int e = 0; e < m; ++e) {
+                sortIn(e, moved, isMoved);
+            }
+        }
+        queues = new int[m][n + 1];
+        for (int i = 0; i < n; ++i) {
+            if (current[i] != -1) {
+                update(current[i], i, 1);
+            }
+        }
+    }
+
+    /**
+     * Removes the moved individuals from the order of an exit and merges them in again at the positions of their new
+     * distances. Afterwards the positions of the individuals with equal distances are updated.
+     *
+     * @param e the index of the exit
+     * @param moved the moved individuals
+     * @param isMoved whether each individual has moved
+     */
+    private void sortIn(int e, int[] moved, boolean[] isMoved) {
+        double[] d = distance[e];
+        int n = isMoved.length;
+        int[] kept = new int[n - moved.length];
+        int keptCount = 0;
+        for (int i : order[e]) {
+            if (!isMoved[i]) {
+                kept[keptCount++] = i;
+            }
+        }
+        int[] sorted = moved.clone();
+        int[] buffer = new int[sorted.length];
+        for (int width = 1; width < sorted.length; width *= 2) {
+            for (int from = 0; from < sorted.length; from += 2 * width) {
+                int middle = Math.min(from + width, sorted.length);
+                int to = Math.min(from + 2 * width, sorted.length);
+                merge(sorted, from, middle, sorted, middle, to, buffer, from, d);
+            }
+            int[] swap = sorted;
+            sorted = buffer;
+            buffer = swap;
+        }
+        int[] result = new int[n];
+        merge(kept, 0, keptCount, sorted, 0, sorted.length, result, 0, d);
+        order[e] = result;
+
+        for (int p = 0; p < n; ++p) {
+            int i = result[p];
+            lower[e][i] = p > 0 && d[result[p - 1]] == d[i] ? lower[e][result[p - 1]] : p;
+        }
+        for (int p = n - 1; p >= 0; --p) {
+            int i = result[p];
+            upper[e][i] = p < n - 1 && d[result[p + 1]] == d[i] ? upper[e][result[p + 1]] : p;
+        }
+    }
+
+    /**
+     * Merges two ranges of individuals sorted by distance.
+     */
+    private static void merge(int[] a, int aFrom, int aTo, int[] b, int bFrom, int bTo, int[] target, int targetFrom,
+            double[] d) {
+        int k = targetFrom;
+        while (aFrom < aTo && bFrom < bTo) {
+            target[k++] = d[b[bFrom]] < d[a[aFrom]] ? b[bFrom++] : a[aFrom++];
+        }
+        while (aFrom < aTo) {
+            target[k++] = a[aFrom++];
+        }
+        while (bFrom < bTo) {
+            target[k++] = b[bFrom++];
+        }
+    }
+
+    /**
+     * Computes the exit with the least estimated evacuation time for an individual.
+     *
+     * @param i the index of the individual
+     * @return the index of the best exit, or {@code -1} if no exit is reachable
+     */
+    private int bestResponse(int i) {
+        int best = current[i];
+        double bestResponse = best == -1 ? Double.POSITIVE_INFINITY : response(i, best);
+        for (int e = 0; e < exits.size(); ++e) {
+            if (e != current[i] && distance[e][i] < Double.POSITIVE_INFINITY) {
+                double response = response(i, e);
+                if (response < bestResponse) {
+                    best = e;
+                    bestResponse = response;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Computes the estimated evacuation time of an individual if it uses an exit.
+     *
+     * @param i the index of the individual
+     * @param e the index of the exit
+     * @return the estimated evacuation time
+     */
+    private double response(int i, int e) {
+        int queueLength = prefix(e, lower[e][i] - 1);
+        Exit exit = exits.get(e);
+        double capacity = capacities.getOrDefault(exit, exit.getCapacity());
+        double movingTime = distance[e][i] / speed[i];
+        return QUEUEING_TIME_WEIGHT_FACTOR * (queueLength / capacity) + MOVING_TIME_WEIGHT_FACTOR * movingTime;
+    }
+
+    /**
+     * Collects the individuals whose queue length for some exit has changed. These are the individuals that are
+     * farther away than the closest individual that has left or joined the exit.
+     *
+     * @param minChanged the first changed position in {@link #order} for each exit
+     * @param n the number of individuals
+     * @return the indices of the affected individuals in increasing order
+     */
+    private int[] affected(int[] minChanged, int n) {
+        boolean[] marked = new boolean[n];
+        for (int e = 0; e < minChanged.length; ++e) {
+            for (int p = minChanged[e]; p < n; ++p) {
+                marked[order[e][p]] = true;
+            }
+        }
+        return IntStream.range(0, n).filter(i -> marked[i]).toArray();
+    }
+
+    private void update(int e, int i, int delta) {
+        int[] tree = queues[e];
+        for (int p = lower[e][i] + 1; p < tree.length; p += p & -p) {
+            tree[p] += delta;
+        }
+    }
+
+    /**
+     * Counts the individuals assigned to an exit up to a position in {@link #order}.
+     *
+     * @param e the index of the exit
+     * @param position the last position that is counted
+     * @return the number of individuals at the positions up to {@code position} that are assigned to the exit
+     */
+    private int prefix(int e, int position) {
+        int[] tree = queues[e];
+        int count = 0;
+        for (int p = position + 1; p > 0; p -= p & -p) {
+            count += tree[p];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the name of the class.
+     *
+     * @return the name of the class
+     */
+    @Override
+    public String toString() {
+        return "BestResponseSolver";
+    }
+}
@@ -0,0 +1,82 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package evacuationplan;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.Room;
+
+/**
+ * A direction checker that uses {@link DirectionMasks} compiled for groups of individuals that follow the same plan.
+ * Individuals that do not belong to a compiled group are checked by the original checker.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class CompiledDirectionChecker implements CellularAutomatonDirectionChecker {
+
+    private final CellularAutomatonDirectionChecker checker;
+    private final Collection<? extends Room> rooms;
+    private final Map<Individual, DirectionMasks> groups = new HashMap<>();
+
+    /**
+     * Creates a checker compiling the masks of the cells of some rooms.
+     *
+     * @param checker the original checker
+     * @param rooms the rooms
+     */
+    public CompiledDirectionChecker(CellularAutomatonDirectionChecker checker, Collection<? extends Room> rooms) {
+        this.checker = checker;
+        this.rooms = rooms;
+    }
+
+    /**
+     * Compiles the masks for a group of individuals. The original checker has to behave in the same way for all
+     * individuals of the group, the masks are compiled for the first individual.
+     *
+     * @param group the individuals of the group
+     * @return the masks for the group
+     * @throws IllegalArgumentException if the group is empty
+     */
+    public DirectionMasks compile(Collection<Individual> group) {
+        if (group.isEmpty()) {
+            throw new IllegalArgumentException("Group is empty.");
+        }
+        DirectionMasks masks = DirectionMasks.compile(checker, group.iterator().next(), rooms);
+        for (Individual i : group) {
+            groups.put(i, masks);
+        }
+        return masks;
+    }
+
+    /**
+     * Returns the masks for the group of an individual.
+     *
+     * @param i the individual
+     * @return the masks or {@code null} if no masks have been compiled for the individual
+     */
+    public DirectionMasks getMasks(Individual i) {
+        return groups.get(i);
+    }
+
+    @Override
+    public boolean canPass(Individual i, EvacCellInterface from, EvacCellInterface to) {
+        DirectionMasks masks = groups.get(i);
+        return masks == null ? checker.canPass(i, from, to) : masks.canPass(i, from, to);
+    }
+}
@@ -0,0 +1,118 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package evacuationplan;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.Room;
+import org.zetool.common.util.Direction8;
+
+/**
+ * The directions in which the individuals of a group may leave each cell, compiled from a
+ * {@link CellularAutomatonDirectionChecker}. For each cell the allowed directions are stored as a mask of 8 bits, one
+ * for each {@link Direction8}, such that a step to a neighbour in the same room is checked by a bitwise and. Steps that
+ * cannot be expressed by a direction in the room, e.g. through a door into another room, are checked by the original
+ * checker.
+ *
+ * The masks are valid for all individuals for which the original checker behaves like for the individual the masks
+ * have been compiled for.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class DirectionMasks implements CellularAutomatonDirectionChecker {
+
+    private static final Direction8[] DIRECTIONS = Direction8.values();
+    /** The bit of the direction for each offset, indexed by {@code 3 * (y + 1) + x + 1}. */
+    private static final int[] BITS = new int[9];
+
+    static {
+        for (Direction8 direction : DIRECTIONS) {
+            BITS[3 * (direction.yOffset() + 1) + direction.xOffset() + 1] = 1 << direction.ordinal();
+        }
+    }
+    private final CellularAutomatonDirectionChecker checker;
+    /** The masks of the cells of each room, indexed by {@code y * width + x}. */
+    private final Map<Room, byte[]> masks = new IdentityHashMap<>();
+
+    private DirectionMasks(CellularAutomatonDirectionChecker checker) {
+        this.checker = checker;
+    }
+
+    /**
+     * Compiles the masks of the cells of some rooms for an individual.
+     *
+     * @param checker the checker deciding whether the individual may move from one cell to another
+     * @param individual the individual
+     * @param rooms the rooms
+     * @return the masks of the cells of the rooms
+     */
+    public static DirectionMasks compile(CellularAutomatonDirectionChecker checker, Individual individual,
+            Collection<? extends Room> rooms) {
+        DirectionMasks result = new DirectionMasks(checker);
+        for (Room room : rooms) {
+            byte[] roomMasks = new byte[room.getWidth() * room.getHeight()];
+            for (EvacCellInterface cell : room.getAllCells()) {
+                int mask = 0;
+                for (Direction8 direction : DIRECTIONS) {
+                    EvacCellInterface neighbour = cell.getNeighbor(direction);
+                    if (neighbour != null && checker.canPass(individual, cell, neighbour)) {
+                        mask |= 1 << direction.ordinal();
+                    }
+                }
+                roomMasks[cell.getY() * room.getWidth() + cell.getX()] = (byte) mask;
+            }
+            result.masks.put(room, roomMasks);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bit of the direction from a cell to a neighbour in the same room.
+     *
+     * @param from the cell
+     * @param to the neighbour
+     * @return the bit of the direction, or 0 if {@code to} is not a neighbour of {@code from} in the same room
+     */
+    public static int bit(EvacCellInterface from, EvacCellInterface to) {
+        int x = to.getX() - from.getX();
+        int y = to.getY() - from.getY();
+        if (to.getRoom() != from.getRoom() || x < -1 || x > 1 || y < -1 || y > 1) {
+            return 0;
+        }
+        return BITS[3 * (y + 1) + x + 1];
+    }
+
+    /**
+     * Returns the mask of the directions in which a cell may be left.
+     *
+     * @param cell the cell
+     * @return the mask, or {@code -1} if the room of the cell has not been compiled
+     */
+    public int getMask(EvacCellInterface cell) {
+        byte[] roomMasks = masks.get(cell.getRoom());
+        return roomMasks == null ? -1 : roomMasks[cell.getY() * cell.getRoom().getWidth() + cell.getX()] & 0xff;
+    }
+
+    @Override
+    public boolean canPass(Individual i, EvacCellInterface from, EvacCellInterface to) {
+        int bit = bit(from, to);
+        int mask = bit == 0 ? -1 : getMask(from);
+        return mask == -1 ? checker.canPass(i, from, to) : (mask & bit) != 0;
+    }
+}
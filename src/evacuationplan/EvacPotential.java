@@ -30,10 +30,14 @@ public class EvacPotential extends StaticPotential {
     Individual ind;
     CellularAutomatonDirectionChecker checker;
     PropertyAccess es;
+    /** The compiled masks of the individual, if the checker provides them. */
+    private final DirectionMasks masks;
 
     public EvacPotential(StaticPotential sp, Individual i, CellularAutomatonDirectionChecker checker) {
         this.ind = i;
         this.checker = checker;
+        this.masks = checker instanceof CompiledDirectionChecker
+                ? ((CompiledDirectionChecker) checker).getMasks(i) : null;
         sp.getMappedCells().stream().forEach(c -> setPotential(c, sp.getPotential(c)));
         setAssociatedExitCells(sp.getAssociatedExitCells());
         setAttractivity(sp.getAttractivity());
@@ -48,7 +52,8 @@ public class EvacPotential extends StaticPotential {
     @Override
     public int getPotential(EvacCellInterface cell) {
         if (hasValidPotential(cell)) {
-            if (checker.canPass(ind, es.propertyFor(ind).getCell(), cell)) {
+            EvacCellInterface from = es.propertyFor(ind).getCell();
+            if (masks != null ? masks.canPass(ind, from, cell) : checker.canPass(ind, from, cell)) {
                 return super.getPotential(cell);
             } else {
                 return Integer.MAX_VALUE;
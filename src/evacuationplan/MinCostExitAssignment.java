@@ -0,0 +1,388 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package evacuationplan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.ExitCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.IndividualToExitMapping;
+import org.zet.cellularautomaton.TargetCell;
+import org.zet.cellularautomaton.algorithm.state.EvacuationState;
+import org.zet.cellularautomaton.algorithm.state.IndividualProperty;
+import org.zet.cellularautomaton.potential.Potential;
+
+/**
+ * Computes an assignment of individuals to exits with minimal total cost such that no exit is assigned more
+ * individuals than its capacity. The cost of an individual for an exit is the distance given by the static potential of
+ * the exit divided by the speed of the individual. Each individual may only be assigned to one of its nearest exits.
+ *
+ * The assignment is a transportation problem which is solved by successive shortest paths. The individuals are added
+ * one after another, ordered by the cost to their nearest exit. An individual is added along a shortest path in the
+ * residual network on the exits, in which an arc from one exit to another corresponds to moving the individual
+ * assigned to the first exit that has the least additional cost for the second. For each pair of exits the candidates
+ * are kept in a priority queue. With {@code m} exits, an augmentation builds the {@code m * m} arcs from the tops of
+ * the queues in {@code O(m^2)} and computes the shortest paths with the Bellman-Ford algorithm in up to
+ * {@code O(m^3)}.
+ * Reassigning the individuals along the path adds their moves to the queues in {@code O(k log n)} each, where
+ * {@code k} is the number of nearest exits and {@code n} the number of individuals.
+ *
+ * The capacity of an exit is the number of individuals that can leave through it within a time horizon. Each cell of
+ * an exit lets one individual leave per time step, thus the flow rate of an exit is its width, i.e. the number of its
+ * cells. By default the horizon is the least number of steps in which all exits together can let all individuals
+ * leave. Individuals that cannot be assigned to one of their nearest exits without exceeding a capacity are not
+ * assigned.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class MinCostExitAssignment {
+
+    private static final int DEFAULT_NEAREST_EXITS = 4;
+    private final EvacuationState es;
+    private final List<Exit> exits;
+    private final Map<Exit, Integer> capacities = new HashMap<>();
+    private int nearestExits = DEFAULT_NEAREST_EXITS;
+    /** The number of time steps for which the capacities of the exits are computed, or {@code -1} for the default. */
+    private int timeHorizon = -1;
+    private Map<Individual, Exit> assignment = Collections.emptyMap();
+    private double totalCost;
+    private int unassigned;
+
+    /** The cost of each individual for its nearest exits, indexed like {@link #candidates}. */
+    private double[][] cost;
+    /** The indices of the nearest exits of each individual, ordered by cost. */
+    private int[][] candidates;
+    private int[] current;
+    private int[] version;
+    private int[] load;
+    private int[] capacity;
+    /** The individuals that may be moved from one exit to another, indexed by the two exits. */
+    private List<List<PriorityQueue<Move>>> moves;
+
+    /**
+     * Creates a new assignment for the individuals of an evacuation state.
+     *
+     * @param es the evacuation state providing the positions, speeds and potentials of the individuals
+     */
+    public MinCostExitAssignment(EvacuationState es) {
+        this.es = es;
+        this.exits = new ArrayList<>(es.getCellularAutomaton().getExits());
+    }
+
+    /**
+     * Sets the number of exits with least cost to which an individual may be assigned.
+     *
+     * @param nearestExits the number of exits
+     */
+    public void setNearestExits(int nearestExits) {
+        if (nearestExits < 1) {
+            throw new IllegalArgumentException("At least one exit must be allowed: " + nearestExits);
+        }
+        this.nearestExits = nearestExits;
+    }
+
+    /**
+     * Sets the number of time steps within which the individuals assigned to an exit must be able to leave through it.
+     * The capacity of an exit without explicitly set capacity is its width times the horizon.
+     *
+     * @param timeHorizon the number of time steps
+     */
+    public void setTimeHorizon(int timeHorizon) {
+        if (timeHorizon < 0) {
+            throw new IllegalArgumentException("Negative time horizon: " + timeHorizon);
+        }
+        this.timeHorizon = timeHorizon;
+    }
+
+    /**
+     * Sets the maximal number of individuals assigned to an exit. If not set, the capacity is the number of
+     * individuals that can leave through the exit within the time horizon.
+     *
+     * @param exit the exit
+     * @param capacity the capacity
+     */
+    public void setCapacity(Exit exit, int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        capacities.put(exit, capacity);
+    }
+
+    /**
+     * Computes the assignment of the individuals to exits. Individuals that have not been placed on a cell are not
+     * assigned.
+     *
+     * @param individuals the individuals
+     * @return the mapping of the individuals to a cell of their assigned exit
+     */
+    public IndividualToExitMapping solve(List<Individual> individuals) {
+        int n = individuals.size();
+        int m = exits.size();
+        init(individuals);
+
+        totalCost = 0;
+        unassigned = 0;
+        int[] order = IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> candidates[i].length == 0
+                        ? Double.POSITIVE_INFINITY : cost[i][0]).thenComparingInt(i -> i))
+                .mapToInt(Integer::intValue).toArray();
+        double[] distance = new double[m];
+        int[] predecessor = new int[m];
+        double[][] arcs = new double[m][m];
+        for (int i : order) {
+            double added = augment(i, distance, predecessor, arcs);
+            if (Double.isNaN(added)) {
+                unassigned++;
+            } else {
+                totalCost += added;
+            }
+        }
+
+        Map<Individual, Exit> result = new HashMap<>();
+        Map<Individual, TargetCell> targets = new HashMap<>();
+        for (int i = 0; i < n; ++i) {
+            if (current[i] != -1) {
+                Exit exit = exits.get(current[i]);
+                result.put(individuals.get(i), exit);
+                Iterator<ExitCell> cells = exit.getExitCluster().iterator();
+                targets.put(individuals.get(i), cells.hasNext() ? cells.next() : null);
+            }
+        }
+        assignment = result;
+        return targets::get;
+    }
+
+    /**
+     * Returns the exit assigned to an individual in the last run.
+     *
+     * @param individual the individual
+     * @return the exit or {@code null} if the individual has not been assigned
+     */
+    public Exit getAssignedExit(Individual individual) {
+        return assignment.get(individual);
+    }
+
+    /**
+     * Returns the total cost of the assignment of the last run.
+     *
+     * @return the total cost of the assignment of the last run
+     */
+    public double getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Returns the number of individuals that have not been assigned in the last run.
+     *
+     * @return the number of individuals that have not been assigned in the last run
+     */
+    public int getUnassignedCount() {
+        return unassigned;
+    }
+
+    private void init(List<Individual> individuals) {
+        int n = individuals.size();
+        int m = exits.size();
+        Potential[] potentials = new Potential[m];
+        for (int e = 0; e < m; ++e) {
+            potentials[e] = es.getCellularAutomaton().getPotentialFor(exits.get(e));
+        }
+        cost = new double[n][];
+        candidates = new int[n][];
+        double[] all = new double[m];
+        for (int i = 0; i < n; ++i) {
+            IndividualProperty property = es.propertyFor(individuals.get(i));
+            EvacCellInterface cell = property.getCell();
+            for (int e = 0; e < m; ++e) {
+                all[e] = cell != null && potentials[e].hasValidPotential(cell)
+                        && potentials[e].getPotentialDouble(cell) >= 0
+                        ? potentials[e].getPotentialDouble(cell) / property.getRelativeSpeed()
+                        : Double.POSITIVE_INFINITY;
+            }
+            candidates[i] = IntStream.range(0, m).filter(e -> all[e] < Double.POSITIVE_INFINITY).boxed()
+                    .sorted(Comparator.comparingDouble((Integer e) -> all[e]).thenComparingInt(e -> e))
+                    .limit(nearestExits).mapToInt(Integer::intValue).toArray();
+            cost[i] = Arrays.stream(candidates[i]).mapToDouble(e -> all[e]).toArray();
+        }
+
+        current = new int[n];
+        Arrays.fill(current, -1);
+        version = new int[n];
+        load = new int[m];
+        capacity = new int[m];
+        int totalWidth = 0;
+        for (Exit exit : exits) {
+            totalWidth += exit.getExitCluster().size();
+        }
+        long horizon = timeHorizon >= 0 ? timeHorizon : (n + Math.max(totalWidth, 1) - 1) / Math.max(totalWidth, 1);
+        for (int e = 0; e < m; ++e) {
+            Exit exit = exits.get(e);
+            capacity[e] = capacities.containsKey(exit) ? capacities.get(exit)
+                    : (int) Math.min(Integer.MAX_VALUE, exit.getExitCluster().size() * horizon);
+        }
+        moves = new ArrayList<>(m);
+        for (int e = 0; e < m; ++e) {
+            List<PriorityQueue<Move>> queues = new ArrayList<>(m);
+            for (int f = 0; f < m; ++f) {
+                queues.add(new PriorityQueue<>());
+            }
+            moves.add(queues);
+        }
+    }
+
+    /**
+     * Adds an individual to the assignment along a shortest path in the residual network. The shortest paths are
+     * computed by the Bellman-Ford algorithm, as the arcs between exits may have negative costs.
+     *
+     * @param i the index of the individual
+     * @param distance the length of the shortest path to each exit
+     * @param predecessor the previous exit on the shortest path to each exit, or {@code -1}
+     * @param arcs the array for the costs of the arcs between the exits
+     * @return the increase of the total cost, or {@code NaN} if the individual cannot be assigned
+     */
+    private double augment(int i, double[] distance, int[] predecessor, double[][] arcs) {
+        int m = exits.size();
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessor, -1);
+        for (int k = 0; k < candidates[i].length; ++k) {
+            distance[candidates[i][k]] = cost[i][k];
+        }
+        for (int e = 0; e < m; ++e) {
+            for (int f = 0; f < m; ++f) {
+                Move top = e == f ? null : top(e, f);
+                arcs[e][f] = top == null ? Double.POSITIVE_INFINITY : top.cost;
+            }
+        }
+        boolean changed = true;
+        for (int round = 0; round < m && changed; ++round) {
+            changed = false;
+            for (int e = 0; e < m; ++e) {
+                if (distance[e] == Double.POSITIVE_INFINITY || load[e] < capacity[e]) {
+                    continue;
+                }
+                for (int f = 0; f < m; ++f) {
+                    if (distance[e] + arcs[e][f] < distance[f]) {
+                        distance[f] = distance[e] + arcs[e][f];
+                        predecessor[f] = e;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        int target = -1;
+        for (int e = 0; e < m; ++e) {
+            if (load[e] < capacity[e] && distance[e] < Double.POSITIVE_INFINITY
+                    && (target == -1 || distance[e] < distance[target])) {
+                target = e;
+            }
+        }
+        if (target == -1) {
+            return Double.NaN;
+        }
+        load[target]++;
+        for (int f = target; predecessor[f] != -1; f = predecessor[f]) {
+            Move move = top(predecessor[f], f);
+            assign(move.individual, f);
+        }
+        int first = target;
+        while (predecessor[first] != -1) {
+            first = predecessor[first];
+        }
+        assign(i, first);
+        return distance[target];
+    }
+
+    /**
+     * Assigns an individual to an exit and registers the possible moves to its other nearest exits.
+     *
+     * @param i the index of the individual
+     * @param e the index of the exit
+     */
+    private void assign(int i, int e) {
+        current[i] = e;
+        version[i]++;
+        double own = 0;
+        for (int k = 0; k < candidates[i].length; ++k) {
+            if (candidates[i][k] == e) {
+                own = cost[i][k];
+            }
+        }
+        for (int k = 0; k < candidates[i].length; ++k) {
+            if (candidates[i][k] != e) {
+                moves.get(e).get(candidates[i][k]).add(new Move(cost[i][k] - own, i, version[i]));
+            }
+        }
+    }
+
+    /**
+     * Returns the individual assigned to an exit whose move to another exit has the least cost. Outdated moves of
+     * individuals that have been reassigned in the meantime are removed.
+     *
+     * @param e the index of the exit the individual is assigned to
+     * @param f the index of the other exit
+     * @return the cheapest move or {@code null} if no individual can be moved
+     */
+    private Move top(int e, int f) {
+        PriorityQueue<Move> queue = moves.get(e).get(f);
+        while (!queue.isEmpty() && queue.peek().version != version[queue.peek().individual]) {
+            queue.poll();
+        }
+        return queue.peek();
+    }
+
+    /**
+     * A possible move of an individual to another exit.
+     */
+    private static final class Move implements Comparable<Move> {
+
+        private final double cost;
+        private final int individual;
+        private final int version;
+
+        private Move(double cost, int individual, int version) {
+            this.cost = cost;
+            this.individual = individual;
+            this.version = version;
+        }
+
+        @Override
+        public int compareTo(Move o) {
+            int result = Double.compare(cost, o.cost);
+            return result != 0 ? result : Integer.compare(individual, o.individual);
+        }
+    }
+
+    /**
+     * Returns the name of the class.
+     *
+     * @return the name of the class
+     */
+    @Override
+    public String toString() {
+        return "MinCostExitAssignment";
+    }
+}
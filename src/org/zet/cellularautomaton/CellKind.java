@@ -0,0 +1,59 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton;
+
+/**
+ * The different kinds of cells of an evacuation cellular automaton. Rules can be restricted to some kinds of cells,
+ * such that they are not evaluated on cells they are never executable on.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public enum CellKind {
+
+    /** Normal cells inside of rooms, also used for all cells of unknown type. */
+    ROOM,
+    /** Door cells connecting two rooms. */
+    DOOR,
+    /** Exit cells where individuals are evacuated. */
+    EXIT,
+    /** Save cells where individuals are safe but not evacuated. */
+    SAVE,
+    /** Cells on stairs. */
+    STAIR,
+    /** Teleport cells connecting two floors. */
+    TELEPORT;
+
+    /**
+     * Returns the kind of a given cell.
+     *
+     * @param cell the cell
+     * @return the kind of the cell
+     */
+    public static CellKind of(EvacCellInterface cell) {
+        if (cell instanceof ExitCell) {
+            return EXIT;
+        } else if (cell instanceof SaveCell) {
+            return SAVE;
+        } else if (cell instanceof DoorCell) {
+            return DOOR;
+        } else if (cell instanceof TeleportCell) {
+            return TELEPORT;
+        } else if (cell instanceof Stairs) {
+            return STAIR;
+        }
+        return ROOM;
+    }
+}
@@ -0,0 +1,194 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton;
+
+/**
+ * A counter based random number generator. Each random number is a pure function of the seed of the run, the time
+ * step, a key identifying the decision maker (e.g. the number of an individual), the {@link RandomSource.Purpose
+ * purpose} of the decision and a counter for multiple numbers within the same decision. The numbers are computed by
+ * repeatedly mixing the inputs with the SplitMix64 finalizer.
+ *
+ * In contrast to a sequential generator, the numbers do not depend on the order in which decisions are made. Thus
+ * simulation runs are reproducible independent of the iteration order and the number of threads.
+ *
+ * The generator itself is immutable and can be shared. Numbers are drawn from {@link Stream}s that are not thread
+ * safe and should be reused by their owner:
+ * <pre>
+ * {@code
+ * CounterBasedRandom.Stream stream = random.stream();
+ * double d = stream.reset(step, individual.getNumber(), Purpose.MOVE_DECISION).nextDouble();
+ * }
+ * </pre>
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class CounterBasedRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+    private final long seed;
+
+    /**
+     * Creates a new generator for a run with the given seed.
+     *
+     * @param seed the seed of the run
+     */
+    public CounterBasedRandom(long seed) {
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a random number for a decision.
+     *
+     * @param step the time step
+     * @param key the key of the decision maker
+     * @param purpose the purpose of the decision
+     * @param counter the number of the draw within the decision
+     * @return a random number
+     */
+    public long nextLong(int step, int key, RandomSource.Purpose purpose, int counter) {
+        return mix(base(step, key, purpose) + (counter + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns a random number in {@code [0,1)} for a decision.
+     *
+     * @param step the time step
+     * @param key the key of the decision maker
+     * @param purpose the purpose of the decision
+     * @param counter the number of the draw within the decision
+     * @return a random number in {@code [0,1)}
+     */
+    public double nextDouble(int step, int key, RandomSource.Purpose purpose, int counter) {
+        return toDouble(nextLong(step, key, purpose, counter));
+    }
+
+    /**
+     * Creates a new stream. The stream has to be {@link Stream#reset(int, int, RandomSource.Purpose) reset} to a
+     * decision before numbers are drawn.
+     *
+     * @return a new stream
+     */
+    public Stream stream() {
+        return new Stream();
+    }
+
+    private long base(int step, int key, RandomSource.Purpose purpose) {
+        long h = mix(seed + GOLDEN_GAMMA);
+        h = mix(h ^ (step * GOLDEN_GAMMA));
+        h = mix(h ^ ((key & 0xffffffffL) | ((long) purpose.ordinal() << 32)));
+        return h;
+    }
+
+    private long base(int step, long key, RandomSource.Purpose purpose) {
+        return mix(base(step, (int) key, purpose) ^ ((key >>> 32) + 1) * GOLDEN_GAMMA);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double toDouble(long x) {
+        return (x >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * The random numbers of a single decision. The numbers are drawn in the order of the counter, starting with 0.
+     */
+    public final class Stream implements RandomSource {
+
+        private long base;
+        private int counter;
+
+        private Stream() {
+        }
+
+        /**
+         * Starts drawing numbers for a decision.
+         *
+         * @param step the time step
+         * @param key the key of the decision maker
+         * @param purpose the purpose of the decision
+         * @return this stream
+         */
+        public Stream reset(int step, int key, RandomSource.Purpose purpose) {
+            base = base(step, key, purpose);
+            counter = 0;
+            return this;
+        }
+
+        /**
+         * Starts drawing numbers for a decision whose maker is identified by a 64 bit key, e.g. a cell identified by
+         * its room and position.
+         *
+         * @param step the time step
+         * @param key the key of the decision maker
+         * @param purpose the purpose of the decision
+         * @return this stream
+         */
+        public Stream reset(int step, long key, RandomSource.Purpose purpose) {
+            base = base(step, key, purpose);
+            counter = 0;
+            return this;
+        }
+
+        public long nextLong() {
+            return mix(base + (++counter) * GOLDEN_GAMMA);
+        }
+
+        @Override
+        public double nextDouble() {
+            return toDouble(nextLong());
+        }
+
+        @Override
+        public int nextInt(int bound) {
+            if (bound <= 0) {
+                throw new IllegalArgumentException("Bound must be positive: " + bound);
+            }
+            return (int) (((nextLong() >>> 33) * bound) >>> 31);
+        }
+
+        @Override
+        public int chooseRandomlyAbsolute(double[] probabilities) {
+            double sum = 0;
+            for (double p : probabilities) {
+                sum += p;
+            }
+            if (!(sum > 0)) {
+                return nextInt(probabilities.length);
+            }
+            double r = nextDouble() * sum;
+            int last = 0;
+            for (int i = 0; i < probabilities.length; ++i) {
+                if (probabilities[i] > 0) {
+                    last = i;
+                    r -= probabilities[i];
+                    if (r < 0) {
+                        return i;
+                    }
+                }
+            }
+            return last;
+        }
+    }
+}
@@ -33,6 +33,14 @@ public interface EvacuationCellularAutomaton extends CellularAutomaton<EvacCellI
      */
     public Collection<Room> getRooms();
 
+    /**
+     * Returns the numbering of all cells along a Hilbert curve. Per cell arrays indexed by these numbers, such as the
+     * values of the potentials, are laid out in the order of the cells on the floors.
+     *
+     * @return the numbering of the cells of all rooms
+     */
+    public SpatialCellIndex getCellIndex();
+
     // new
     public Collection<Exit> getExits();
     
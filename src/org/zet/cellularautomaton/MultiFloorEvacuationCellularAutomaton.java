@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
+import org.zet.cellularautomaton.potential.AbstractPotential;
 import org.zet.cellularautomaton.potential.Potential;
 import org.zet.cellularautomaton.potential.StaticPotential;
 import org.zetool.simulation.cellularautomaton.CompositeCellMatrix;
@@ -71,6 +72,8 @@ public class MultiFloorEvacuationCellularAutomaton implements EvacuationCellular
      */
     private StaticPotential safePotential;
     private final Collection<Room> rooms = new LinkedList<>();
+    /** The numbering of the cells of all rooms, defining the layout of the potentials. */
+    private final SpatialCellIndex cellIndex;
 
     /**
      * Constructs a EvacuationCellularAutomaton object with empty default objects.
@@ -84,6 +87,7 @@ public class MultiFloorEvacuationCellularAutomaton implements EvacuationCellular
 
         staticPotentials = new HashMap<>();
         safePotential = new StaticPotential();
+        cellIndex = new SpatialCellIndex(rooms);
     }
 
     private MultiFloorEvacuationCellularAutomaton(Map<Integer, RoomCollection> floorRoomMapping, Map<Integer, String> floorNames,
@@ -97,6 +101,13 @@ public class MultiFloorEvacuationCellularAutomaton implements EvacuationCellular
         for (RoomCollection fr : floorRoomMapping.values()) {
             rooms.addAll(fr.getRooms());
         }
+        cellIndex = new SpatialCellIndex(rooms);
+        safePotential.setCellIndex(cellIndex);
+        for (Potential potential : potentials.values()) {
+            if (potential instanceof AbstractPotential) {
+                ((AbstractPotential) potential).setCellIndex(cellIndex);
+            }
+        }
     }
 
     /**
@@ -161,6 +172,11 @@ public class MultiFloorEvacuationCellularAutomaton implements EvacuationCellular
         return Collections.unmodifiableCollection(rooms);
     }
 
+    @Override
+    public SpatialCellIndex getCellIndex() {
+        return cellIndex;
+    }
+
     @Override
     public Potential minPotentialFor(EvacCellInterface c) {
         // assign shortest path potential to individual, so it is not null.
@@ -0,0 +1,105 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton;
+
+import org.zetool.rndutils.RandomUtils;
+
+/**
+ * A source of random numbers used for the stochastic decisions of the simulation. The decisions either use the
+ * process-wide generator of {@link RandomUtils}, or a {@link CounterBasedRandom} whose numbers only depend on the seed
+ * and the decision that is made.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public interface RandomSource {
+
+    /**
+     * Returns a uniformly distributed random number in the interval {@code [0,1)}.
+     *
+     * @return a random number in {@code [0,1)}
+     */
+    double nextDouble();
+
+    /**
+     * Returns a uniformly distributed random number in the interval {@code [0,bound)}.
+     *
+     * @param bound the (exclusive) upper bound, must be positive
+     * @return a random number in {@code [0,bound)}
+     */
+    int nextInt(int bound);
+
+    /**
+     * Chooses an index at random. The probability of each index is proportional to the given (absolute) value.
+     *
+     * @param probabilities the absolute probabilities
+     * @return the chosen index
+     */
+    int chooseRandomlyAbsolute(double[] probabilities);
+
+    /**
+     * Returns the source using the process-wide generator of {@link RandomUtils}. The generator is requested for each
+     * number, such that a changed generator is used immediately.
+     *
+     * @return the source using the process-wide generator
+     */
+    static RandomSource global() {
+        return GlobalRandomSource.INSTANCE;
+    }
+
+    /**
+     * Purposes of random decisions. Numbers drawn by a {@link CounterBasedRandom} for different purposes are
+     * independent.
+     */
+    enum Purpose {
+        /** Whether an individual wants to move. */
+        MOVE_DECISION,
+        /** The selection of a target cell. */
+        TARGET_SELECTION,
+        /** The viewing direction of an individual that does not move. */
+        DIRECTION,
+        /** The update of the panic. */
+        PANIC,
+        /** The selection of a static potential. */
+        POTENTIAL_SELECTION,
+        /** The update of the dynamic potential on a cell. */
+        DYNAMIC_POTENTIAL,
+        /** The order in which individuals are processed. */
+        ORDERING
+    }
+}
+
+/**
+ * Delegates to the process-wide generator.
+ */
+enum GlobalRandomSource implements RandomSource {
+
+    INSTANCE;
+
+    @Override
+    public double nextDouble() {
+        return RandomUtils.getInstance().getRandomGenerator().nextDouble();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return RandomUtils.getInstance().getRandomGenerator().nextInt(bound);
+    }
+
+    @Override
+    public int chooseRandomlyAbsolute(double[] probabilities) {
+        return RandomUtils.getInstance().chooseRandomlyAbsolute(probabilities);
+    }
+}
@@ -0,0 +1,159 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A consecutive numbering of the cells of a cellular automaton along a Hilbert curve. The cells of each floor are
+ * numbered by the position of their absolute coordinates on a Hilbert curve covering the floor, the floors are
+ * numbered one after another. Cells that are close to each other on a floor thus mostly get close numbers, such that
+ * arrays indexed by the numbers are accessed locally if neighbouring cells are accessed, regardless of the order in
+ * which the rooms have been created.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class SpatialCellIndex {
+
+    /** The maximal side length of the square covering a floor, such that the curve index fits into 32 bits. */
+    private static final int MAX_SIDE = 1 << 16;
+    private final EvacCellInterface[] cells;
+    /** The numbers of the cells of each room, indexed by {@code y * width + x}, {@code -1} for missing cells. */
+    private final Map<Room, int[]> numbers = new IdentityHashMap<>();
+
+    /**
+     * Numbers the cells of some rooms.
+     *
+     * @param rooms the rooms
+     * @throws IllegalArgumentException if a floor is wider or higher than 65536 cells
+     */
+    public SpatialCellIndex(Collection<? extends Room> rooms) {
+        Map<Integer, List<Room>> floors = new TreeMap<>();
+        int count = 0;
+        for (Room room : rooms) {
+            floors.computeIfAbsent(room.getFloor(), floor -> new ArrayList<>()).add(room);
+            count += room.getAllCells().size();
+        }
+        cells = new EvacCellInterface[count];
+        int next = 0;
+        for (List<Room> floor : floors.values()) {
+            next = numberFloor(floor, next);
+        }
+    }
+
+    private int numberFloor(List<Room> rooms, int first) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        List<EvacCellInterface> floorCells = new ArrayList<>();
+        for (Room room : rooms) {
+            int[] roomNumbers = new int[room.getWidth() * room.getHeight()];
+            Arrays.fill(roomNumbers, -1);
+            numbers.put(room, roomNumbers);
+            for (EvacCellInterface cell : room.getAllCells()) {
+                floorCells.add(cell);
+                minX = Math.min(minX, cell.getAbsoluteX());
+                minY = Math.min(minY, cell.getAbsoluteY());
+                maxX = Math.max(maxX, cell.getAbsoluteX());
+                maxY = Math.max(maxY, cell.getAbsoluteY());
+            }
+        }
+        if (floorCells.isEmpty()) {
+            return first;
+        }
+        int side = Integer.highestOneBit(Math.max(Math.max(maxX - minX, maxY - minY), 1)) << 1;
+        if (side > MAX_SIDE) {
+            throw new IllegalArgumentException("Floor is too large: " + side);
+        }
+        // the curve index in the upper bits, the position in the list in the lower bits
+        long[] keys = new long[floorCells.size()];
+        for (int k = 0; k < keys.length; ++k) {
+            EvacCellInterface cell = floorCells.get(k);
+            keys[k] = curveIndex(side, cell.getAbsoluteX() - minX, cell.getAbsoluteY() - minY) << 31 | k;
+        }
+        Arrays.sort(keys);
+        for (int k = 0; k < keys.length; ++k) {
+            EvacCellInterface cell = floorCells.get((int) (keys[k] & Integer.MAX_VALUE));
+            cells[first + k] = cell;
+            numbers.get(cell.getRoom())[cell.getY() * cell.getRoom().getWidth() + cell.getX()] = first + k;
+        }
+        return first + keys.length;
+    }
+
+    /**
+     * Computes the position of a point on the Hilbert curve covering a square.
+     *
+     * @param side the side length of the square, a power of two
+     * @param x the x-coordinate of the point
+     * @param y the y-coordinate of the point
+     * @return the position of the point on the curve
+     */
+    static long curveIndex(int side, int x, int y) {
+        long index = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of cells.
+     *
+     * @return the number of cells
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * Returns the number of a cell.
+     *
+     * @param cell the cell
+     * @return the number of the cell, or {@code -1} if the cell does not belong to the numbered rooms
+     */
+    public int indexOf(EvacCellInterface cell) {
+        int[] roomNumbers = cell.getRoom() == null ? null : numbers.get(cell.getRoom());
+        return roomNumbers == null ? -1 : roomNumbers[cell.getY() * cell.getRoom().getWidth() + cell.getX()];
+    }
+
+    /**
+     * Returns the cell with a given number.
+     *
+     * @param index the number of the cell
+     * @return the cell
+     */
+    public EvacCellInterface getCell(int index) {
+        return cells[index];
+    }
+}
@@ -0,0 +1,142 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.algorithm;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.zet.cellularautomaton.CellKind;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.algorithm.rule.AbstractEvacuationRule;
+import org.zet.cellularautomaton.algorithm.rule.EvacuationRule;
+import org.zet.cellularautomaton.results.Action;
+
+/**
+ * A compiled form of a list of rules that allows to iterate only the rules applicable to a given {@link CellKind}. For
+ * each kind of cells, the position of the next applicable rule is stored for every position in the list. As the
+ * individual may change the cell (and thus the kind of cell) while the rules are executed, the rules are not split
+ * into separate lists, but the next rule is always found for the current cell:
+ * <pre>
+ * {@code
+ * for (int r = table.next(cell, 0); r < table.size(); r = table.next(cell, r + 1)) {
+ *     Action a = table.execute(r, cell);
+ *     ...
+ * }
+ * }
+ * </pre>
+ * Rules extending {@link AbstractEvacuationRule} are restricted to their
+ * {@link AbstractEvacuationRule#getCellKinds() declared cell kinds} and are executed without wrapping the result in
+ * an {@link java.util.Optional}. Other rules are applicable to all kinds of cells.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class CellKindRuleTable {
+
+    private static final CellKind[] KINDS = CellKind.values();
+    /** The rules in execution order. */
+    private final EvacuationRule<?>[] rules;
+    /** The rules that can be executed without wrapping, {@code null} for other rules. */
+    private final AbstractEvacuationRule<?>[] unwrapped;
+    /** The position of the next applicable rule for each kind of cell and each position. */
+    private final int[][] next;
+
+    CellKindRuleTable(List<EvacuationRule<?>> ruleList) {
+        rules = ruleList.toArray(new EvacuationRule<?>[ruleList.size()]);
+        unwrapped = new AbstractEvacuationRule<?>[rules.length];
+        boolean[][] applicable = new boolean[KINDS.length][rules.length];
+        for (int r = 0; r < rules.length; ++r) {
+            if (rules[r] instanceof AbstractEvacuationRule) {
+                unwrapped[r] = (AbstractEvacuationRule<?>) rules[r];
+                Set<CellKind> kinds = unwrapped[r].getCellKinds();
+                for (CellKind kind : kinds) {
+                    applicable[kind.ordinal()][r] = true;
+                }
+            } else {
+                for (CellKind kind : KINDS) {
+                    applicable[kind.ordinal()][r] = true;
+                }
+            }
+        }
+        next = new int[KINDS.length][rules.length + 1];
+        for (CellKind kind : KINDS) {
+            int[] kindNext = next[kind.ordinal()];
+            kindNext[rules.length] = rules.length;
+            for (int r = rules.length - 1; r >= 0; --r) {
+                kindNext[r] = applicable[kind.ordinal()][r] ? r : kindNext[r + 1];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rules in the table.
+     *
+     * @return the number of rules in the table
+     */
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * Returns the rule at a given position.
+     *
+     * @param index the position
+     * @return the rule at the position
+     */
+    public EvacuationRule<?> getRule(int index) {
+        return rules[index];
+    }
+
+    /**
+     * Returns the position of the first rule at or after a given position that is applicable to the kind of a cell.
+     *
+     * @param cell the cell
+     * @param index the position where the search starts
+     * @return the position of the next applicable rule, or {@link #size()} if no such rule exists
+     */
+    public int next(EvacCellInterface cell, int index) {
+        return next(CellKind.of(cell), index);
+    }
+
+    /**
+     * Returns the position of the first rule at or after a given position that is applicable to a kind of cells.
+     *
+     * @param kind the kind of cells
+     * @param index the position where the search starts
+     * @return the position of the next applicable rule, or {@link #size()} if no such rule exists
+     */
+    public int next(CellKind kind, int index) {
+        return next[kind.ordinal()][Math.min(index, rules.length)];
+    }
+
+    /**
+     * Executes the rule at a given position on a cell.
+     *
+     * @param index the position of the rule
+     * @param cell the cell
+     * @return the action created by the rule, or {@code null} if the rule did not create an action
+     */
+    public Action execute(int index, EvacCellInterface cell) {
+        if (unwrapped[index] != null) {
+            return unwrapped[index].executeOrNull(cell);
+        }
+        return rules[index].execute(cell).orElse(null);
+    }
+
+    @Override
+    public String toString() {
+        return "CellKindRuleTable" + Arrays.toString(rules);
+    }
+}
@@ -1,34 +1,44 @@
 package org.zet.cellularautomaton.algorithm;
 
-import static org.zetool.common.util.Helper.in;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.logging.Level;
+import org.zet.cellularautomaton.algorithm.rule.AbstractEvacuationRule;
 import org.zet.cellularautomaton.algorithm.rule.EvacuationRule;
+import org.zet.cellularautomaton.CounterBasedRandom;
 import org.zet.cellularautomaton.DeathCause;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.EvacuationCellularAutomaton;
 import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
-import org.zet.cellularautomaton.algorithm.computation.Computation;
+import org.zet.cellularautomaton.SpatialCellIndex;
 import org.zet.cellularautomaton.algorithm.computation.DefaultComputation;
 import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+import org.zet.cellularautomaton.algorithm.state.StateSnapshot;
 import org.zet.cellularautomaton.algorithm.state.EvacuationState;
+import org.zet.cellularautomaton.algorithm.state.DensityField;
 import org.zet.cellularautomaton.algorithm.state.EvacuationStateController;
 import org.zet.cellularautomaton.algorithm.state.EvacuationStateControllerInterface;
 import org.zet.cellularautomaton.results.Action;
+import org.zet.cellularautomaton.results.ActionBuffer;
 import org.zet.cellularautomaton.results.InconsistentPlaybackStateException;
+import org.zet.cellularautomaton.statistic.StatisticLevel;
+import org.zet.cellularautomaton.statistic.DynamicStatistics;
+import org.zet.cellularautomaton.statistic.FlowMeasurement;
+import org.zet.cellularautomaton.statistic.StatisticSink;
 import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResults;
 import org.zetool.algorithm.simulation.cellularautomaton.AbstractCellularAutomatonSimulationAlgorithm;
+import org.zetool.common.algorithm.AlgorithmListener;
 
 /**
  * An implementation of a general cellular automaton algorithm specialized for evacuation simulation. The cells of the
@@ -53,8 +63,27 @@ public class EvacuationCellularAutomatonAlgorithm
     protected MutableEvacuationState es = new MutableEvacuationState(new MultiFloorEvacuationCellularAutomaton(),
             Collections.emptyList());
     protected EvacuationStateController ec = null;
-    private List<Action> lastStepActions = new LinkedList<>();
-    
+    /** The actions of the current step. The buffer is reused for all steps. */
+    private final ActionBuffer lastStepActions = new ActionBuffer();
+    /** Delivers the step events if set, otherwise they are sent to the listeners of the algorithm. */
+    private EvacuationEventDispatcher eventDispatcher;
+    /** The generator for all random decisions, or {@code null} if the process-wide generator is used. */
+    private CounterBasedRandom random;
+    private StatisticLevel statisticLevel = StatisticLevel.FULL;
+    private StatisticSink statistics;
+    private boolean collectDynamicStatistics;
+    /** The time series of the current run, or {@code null} if they are not collected. */
+    private DynamicStatistics dynamicStatistics;
+    private FlowMeasurement flowMeasurement;
+    /** The radius of the density field, negative if no density field is maintained. */
+    private int densityRadius = -1;
+    private DensityField densityField;
+    /** The listeners registered at the algorithm, used to skip the step events if there are none. */
+    private final Set<AlgorithmListener> algorithmListeners = new HashSet<>();
+    /** The cells of the state snapshots attached to step events, or {@code null} if no snapshots are taken. */
+    private List<? extends EvacCellInterface> snapshotCells;
+    private int snapshotInterval;
+
     public EvacuationCellularAutomatonAlgorithm() {
         this(DEFAULT_ORDER);
     }
@@ -76,6 +105,9 @@ public class EvacuationCellularAutomatonAlgorithm
             EvacCellInterface c = es.propertyFor(i).getCell();
             c.getState().setIndividual(i);
             c.getRoom().addIndividual(c, i);
+            if (densityField != null) {
+                densityField.add(c);
+            }
             while (primary.hasNext()) {
                 EvacuationRule r = primary.next();
                 Optional<Action> a = r.execute(c);
@@ -83,8 +115,176 @@ public class EvacuationCellularAutomatonAlgorithm
             }
         }
 
-        fireEvent(new EvacuationInitializationCompleteEvent(this, lastStepActions));
-        lastStepActions = new LinkedList<>();
+        if (densityField != null) {
+            densityField.completeStep();
+        }
+
+        if (eventDispatcher == null) {
+            fireEvent(new EvacuationInitializationCompleteEvent(this, lastStepActions.asList(), snapshotFor(0)));
+        } else {
+            eventDispatcher.start();
+            eventDispatcher.initializationCompleted(this, lastStepActions.asList());
+        }
+        lastStepActions.clear();
+    }
+
+    @Override
+    public void addAlgorithmListener(AlgorithmListener listener) {
+        super.addAlgorithmListener(listener);
+        algorithmListeners.add(listener);
+    }
+
+    @Override
+    public void removeAlgorithmListener(AlgorithmListener listener) {
+        super.removeAlgorithmListener(listener);
+        algorithmListeners.remove(listener);
+    }
+
+    /**
+     * Sets a dispatcher that delivers the progress, step and initialization events instead of the listeners of the
+     * algorithm. The events are only created if the dispatcher has listeners. Setting {@code null} restores delivery to
+     * the listeners of the algorithm.
+     *
+     * @param eventDispatcher the dispatcher, or {@code null}
+     */
+    public void setEventDispatcher(EvacuationEventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    public EvacuationEventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    /**
+     * Attaches {@link StateSnapshot snapshots} of some cells to the initialization and step complete events. Counting
+     * the initialization as step 0 and numbering the following steps by {@link #getStep()}, the last step of each group
+     * of {@code interval} steps carries a snapshot, i.e. each step whose number plus one is a multiple of
+     * {@code interval}. The snapshots depend on the step numbers only, an {@link EvacuationEventDispatcher} sending
+     * events in batches sends an event for each step carrying a snapshot. The snapshot is taken on the simulation thread
+     * when the event is created, thus it belongs to the actions of the event even if events are delivered
+     * asynchronously.
+     *
+     * @param interval the number of events per snapshot
+     * @param cells the cells contained in the snapshots, or {@code null} to take no snapshots
+     */
+    public void setStateSnapshots(int interval, List<? extends EvacCellInterface> cells) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Snapshot interval must be positive: " + interval);
+        }
+        this.snapshotInterval = interval;
+        this.snapshotCells = cells;
+    }
+
+    /**
+     * Returns whether a snapshot is attached to the event of a step.
+     *
+     * @param step the number of the step, the initialization being step 0
+     * @return {@code true} if a snapshot is due
+     */
+    boolean snapshotDue(int step) {
+        return snapshotCells != null && (step + 1) % snapshotInterval == 0;
+    }
+
+    /**
+     * Returns the snapshot that is attached to the event of a step.
+     *
+     * @param step the number of the step, the initialization being step 0
+     * @return the snapshot, or {@code null} if no snapshot is due
+     */
+    StateSnapshot snapshotFor(int step) {
+        return snapshotDue(step) ? new StateSnapshot(es, snapshotCells) : null;
+    }
+
+    /**
+     * Sets a counter based generator that is used for all random decisions of the rules, the computation, the dynamic
+     * potential and a {@link RandomOrdering}. The results of a run then only depend on the seed of the generator, but
+     * not on the order in which the decisions are made. If no generator is set, the process-wide generator is used.
+     *
+     * @param random the generator, or {@code null}
+     */
+    public void setRandom(CounterBasedRandom random) {
+        this.random = random;
+    }
+
+    public CounterBasedRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Sets the amount of statistics that is collected by the rules in the next run. By default, all statistics are
+     * stored.
+     *
+     * @param statisticLevel the statistic level
+     */
+    public void setStatisticLevel(StatisticLevel statisticLevel) {
+        this.statisticLevel = Objects.requireNonNull(statisticLevel);
+    }
+
+    public StatisticLevel getStatisticLevel() {
+        return statisticLevel;
+    }
+
+    /**
+     * Returns the sink that received the statistic events of the current run. Its type depends on the
+     * {@link #setStatisticLevel(StatisticLevel) statistic level}.
+     *
+     * @return the sink of the statistic events, or {@code null} if no run has been initialized
+     */
+    public StatisticSink getStatisticSink() {
+        return statistics;
+    }
+
+    /**
+     * Sets whether the time series of the cells and individuals are rolled up in the next run, independently of the
+     * statistic level. By default, they are not collected.
+     *
+     * @param collectDynamicStatistics whether the time series are collected
+     */
+    public void setCollectDynamicStatistics(boolean collectDynamicStatistics) {
+        this.collectDynamicStatistics = collectDynamicStatistics;
+    }
+
+    /**
+     * Returns the time series of the cells and individuals of the current run.
+     *
+     * @return the time series, or {@code null} if they are not collected
+     */
+    public DynamicStatistics getDynamicStatistics() {
+        return dynamicStatistics;
+    }
+
+    /**
+     * Sets a measurement counting the individuals crossing its lines in the next run. The counters of the measurement
+     * are reset when the run is initialized.
+     *
+     * @param flowMeasurement the flow measurement, or {@code null}
+     */
+    public void setFlowMeasurement(FlowMeasurement flowMeasurement) {
+        this.flowMeasurement = flowMeasurement;
+    }
+
+    public FlowMeasurement getFlowMeasurement() {
+        return flowMeasurement;
+    }
+
+    /**
+     * Sets the radius of the density field that is maintained in the next run. A negative radius disables the
+     * density field, which is the default.
+     *
+     * @param densityRadius the number of cells around a cell that are taken into account, or a negative value
+     */
+    public void setDensityRadius(int densityRadius) {
+        this.densityRadius = densityRadius;
+    }
+
+    /**
+     * Returns the density field of the current run. The rules read the densities of the last completed step through
+     * {@link EvacuationState#getDensityView()}.
+     *
+     * @return the density field, or {@code null} if no density field is maintained
+     */
+    public DensityField getDensityField() {
+        return densityField;
     }
 
     public void setNeededTime(int i) {
@@ -94,17 +294,39 @@ public class EvacuationCellularAutomatonAlgorithm
     private void initRulesAndState() {
         es = new MutableEvacuationState(getProblem().getCellularAutomaton(), getProblem().getIndividuals());
         EvacuationCellularAutomaton eca = getProblem().getCellularAutomaton();
+        es.setCellIndex(eca.getCellIndex());
         for (Map.Entry<Individual, ? extends EvacCellInterface> e : getProblem().individualStartPositions().entrySet()) {
             es.propertyFor(e.getKey()).setCell(e.getValue());
             es.propertyFor(e.getKey()).setStaticPotential(eca.minPotentialFor(e.getValue()));
         }
         ec = new EvacuationStateController((MutableEvacuationState) es);
+        if (flowMeasurement != null) {
+            flowMeasurement.reset();
+            ec.setFlowMeasurement(flowMeasurement);
+        }
+        densityField = densityRadius < 0 ? null : new DensityField(eca.getRooms(), densityRadius);
+        ec.setDensityField(densityField);
+        es.setDensityField(densityField);
         EvacuationSimulationSpeed sp = new EvacuationSimulationSpeed(getProblem().getParameterSet().getAbsoluteMaxSpeed());
-        Computation c = new DefaultComputation(es, getProblem().getParameterSet());
+        MutableEvacuationState state = es;
+        DefaultComputation c = new DefaultComputation(es, getProblem().getParameterSet());
+        c.setRandom(random, state::getTimeStep);
+        es.setRandom(random);
+        if (reorder instanceof RandomOrdering) {
+            ((RandomOrdering) reorder).setRandom(random);
+        }
+        statistics = statisticLevel.createSink(es);
+        dynamicStatistics = collectDynamicStatistics ? new DynamicStatistics(es, statistics) : null;
+        StatisticSink sink = dynamicStatistics == null ? statistics : dynamicStatistics;
+        ec.setStatisticSink(sink);
         for (EvacuationRule r : getProblem().getRuleSet()) {
             r.setEvacuationState(es);
             r.setEvacuationSimulationSpeed(sp);
             r.setComputation(c);
+            if (r instanceof AbstractEvacuationRule) {
+                ((AbstractEvacuationRule<?>) r).setRandom(random);
+                ((AbstractEvacuationRule<?>) r).setStatisticSink(sink);
+            }
         }
         setMaxSteps((int)(getProblem().getEvacuationStepLimit() * sp.getStepsPerSecond()));
     }
@@ -112,28 +334,61 @@ public class EvacuationCellularAutomatonAlgorithm
     @Override
     protected void performStep() {
         super.performStep();
-        lastStepActions.forEach(a -> a.executeDelayed(es, ec));
+        completeStep();
+    }
+
+    /**
+     * Completes a simulation step after the loop rules have been executed for all individuals. The delayed actions
+     * are executed, the step counters are increased and the dynamic potential is updated. Afterwards the listeners are
+     * informed about the progress.
+     */
+    protected final void completeStep() {
+        for (int k = 0; k < lastStepActions.size(); ++k) {
+            lastStepActions.get(k).executeDelayed(es, ec);
+        }
+        if (dynamicStatistics != null) {
+            dynamicStatistics.addStep(es.getTimeStep(), lastStepActions.asList());
+        }
         super.increaseStep();
         es.increaseStep();
 
         ec.updateDynamicPotential(getProblem().getParameterSet().probabilityDynamicIncrease(),
                 getProblem().getParameterSet().probabilityDynamicDecrease());
+        if (densityField != null) {
+            densityField.completeStep();
+        }
+
+        if (eventDispatcher == null) {
+            if (!algorithmListeners.isEmpty()) {
+                fireProgressEvent(getProgress(), getProgressMessage());
+                fireEvent(new EvacuationStepCompleteEvent(this, getProgress(), lastStepActions.asList(), getStep(),
+                        snapshotFor(getStep())));
+            }
+        } else {
+            eventDispatcher.stepCompleted(this, getStep(), getProgress(), lastStepActions.asList());
+        }
+        lastStepActions.clear();
+    }
 
-        
-        fireProgressEvent(getProgress(), String.format("%1$s von %2$s individuals evacuated.",
-                es.getInitialIndividualCount() - es.getRemainingIndividualCount(),
-                es.getInitialIndividualCount()));
-        fireEvent(new EvacuationStepCompleteEvent(this, getProgress(), lastStepActions));
-        lastStepActions = new LinkedList<>();
+    String getProgressMessage() {
+        return String.format("%1$s von %2$s individuals evacuated.",
+                es.getInitialIndividualCount() - es.getRemainingIndividualCount(), es.getInitialIndividualCount());
     }
 
     @Override
     protected final void execute(EvacCellInterface cell) {
         Individual i = Objects.requireNonNull(cell.getState().getIndividual(),
                 "Execute called on EvacCell that does not contain an individual!");
-        for (EvacuationRule r : in(getProblem().getRuleSet().loopIterator())) {
-            Optional<Action> a = r.execute(es.propertyFor(i).getCell());
-            a.ifPresent(this::handleAction);
+        CellKindRuleTable rules = getProblem().getRuleSet().getLoopRuleTable();
+        for (int r = rules.next(cell, 0); r < rules.size(); r = rules.next(cell, r + 1)) {
+            Action a = rules.execute(r, cell);
+            if (a != null) {
+                handleAction(a);
+            }
+            cell = es.propertyFor(i).getCell();
+            if (cell == null) {
+                return;
+            }
         }
     }
 
@@ -149,7 +404,11 @@ public class EvacuationCellularAutomatonAlgorithm
                 }
             }
         }
-        fireProgressEvent(1, "Simulation complete.");
+        if (eventDispatcher == null) {
+            fireProgressEvent(1, "Simulation complete.");
+        } else {
+            eventDispatcher.finish(this, "Simulation complete.");
+        }
 
         EvacuationSimulationProblem p = getProblem();
         log("Time steps: " + getStep());
@@ -199,7 +458,12 @@ public class EvacuationCellularAutomatonAlgorithm
         return new CellIterator(reorder.apply(es.getRemainingIndividuals()), es);
     }
 
-    private void handleAction(Action a) {
+    /**
+     * Stores an {@link Action} created by a rule as part of the current step and executes it immediately.
+     *
+     * @param a the action
+     */
+    protected final void handleAction(Action a) {
         lastStepActions.add(a);
         try {
             a.execute (es, ec);
@@ -292,6 +556,50 @@ public class EvacuationCellularAutomatonAlgorithm
         };
     }
 
+    /**
+     * Iterates the individuals in the order of their cells along a Hilbert curve, see {@link SpatialCellIndex}.
+     * Individuals standing close to each other are processed one after another, such that the data of neighbouring
+     * cells is accessed locally. In contrast to the default order the order changes if the individuals move, thus the
+     * results of a run differ from runs using the default order.
+     *
+     * @return returns an instance of the algorithm
+     */
+    public static EvacuationCellularAutomatonAlgorithm getSpatialOrderAlgorithm() {
+        SpatialOrder order = new SpatialOrder();
+        EvacuationCellularAutomatonAlgorithm algo = new EvacuationCellularAutomatonAlgorithm(order);
+        order.algorithm = algo;
+        return algo;
+    }
+
+    /**
+     * Orders the individuals by the numbers of their cells in the {@link SpatialCellIndex} of the cellular automaton of
+     * the current run.
+     */
+    private static class SpatialOrder implements Function<List<Individual>, Iterator<Individual>> {
+
+        EvacuationCellularAutomatonAlgorithm algorithm;
+
+        @Override
+        public Iterator<Individual> apply(List<Individual> t) {
+            EvacuationState es = algorithm.es;
+            SpatialCellIndex index = es.getCellularAutomaton().getCellIndex();
+            Individual[] individuals = t.toArray(new Individual[t.size()]);
+            // the number of the cell in the upper bits, the position in the list in the lower bits
+            long[] keys = new long[individuals.length];
+            for (int i = 0; i < individuals.length; ++i) {
+                EvacCellInterface cell = es.propertyFor(individuals[i]).getCell();
+                long number = cell == null ? -1 : index.indexOf(cell);
+                keys[i] = (number == -1 ? index.size() : number) << 31 | i;
+            }
+            Arrays.sort(keys);
+            List<Individual> result = new ArrayList<>(individuals.length);
+            for (long key : keys) {
+                result.add(individuals[(int) (key & Integer.MAX_VALUE)]);
+            }
+            return result.iterator();
+        }
+    }
+
     /**
      * The class {@code IndividualDistanceComparator} compares two individuals in means of their distance to the exit
      * using their currently selected potential field.
@@ -0,0 +1,294 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.zet.cellularautomaton.algorithm.state.StateSnapshot;
+import org.zet.cellularautomaton.results.Action;
+import org.zetool.common.algorithm.AbstractAlgorithmEvent;
+import org.zetool.common.algorithm.AlgorithmDetailedProgressEvent;
+import org.zetool.common.algorithm.AlgorithmListener;
+
+/**
+ * Delivers the events of an {@link EvacuationCellularAutomatonAlgorithm} to its own subscribers. In contrast to the
+ * listeners of the algorithm, the events (including the action lists and progress messages) are only created if
+ * subscribers exist and an event is due. The delivery can be configured:
+ * <ul>
+ * <li>Batching: an event is sent only every {@link #everySteps(int) n steps} and/or after a
+ * {@link #everyMillis(long) time interval} has passed. The actions of all steps since the last event are collected and
+ * sent together. If the algorithm attaches {@link EvacuationCellularAutomatonAlgorithm#setStateSnapshots snapshots}
+ * to some steps, an event is also sent for each of these steps, such that the snapshots are taken by step number.</li>
+ * <li>Asynchronous delivery: the events are passed through a {@link #async(int) bounded queue} to a separate thread.
+ * If the queue is full, the simulation waits until the listeners have caught up. The delivery thread is only started
+ * once the dispatcher has listeners during a run.</li>
+ * </ul>
+ * Once set to an algorithm using {@link EvacuationCellularAutomatonAlgorithm#setEventDispatcher}, the progress, step
+ * and initialization events are no longer sent to the listeners of the algorithm. The dispatcher can be used for only
+ * one run at a time.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class EvacuationEventDispatcher {
+
+    private static final Logger LOG = Logger.getLogger(EvacuationEventDispatcher.class.getName());
+    /** Marks the end of the asynchronous event queue. */
+    private static final Object END = new Object();
+    private final List<AlgorithmListener> listeners = new CopyOnWriteArrayList<>();
+    /** The number of steps between two events. */
+    private int stepInterval = 1;
+    /** The minimal time between two events in nano seconds. */
+    private long timeInterval = 0;
+    /** The capacity of the queue for asynchronous delivery, or 0 for synchronous delivery. */
+    private int queueCapacity = 0;
+    /** Actions of steps without event. */
+    private final List<Action> pendingActions = new ArrayList<>();
+    private int lastEventStep;
+    private long lastEventTime;
+    /** The last completed step of the current run. */
+    private int lastStep;
+    /** Whether a run has been started and not yet finished. */
+    private volatile boolean running;
+    private volatile BlockingQueue<Object> queue;
+    private volatile Thread worker;
+
+    /**
+     * Sends an event only every {@code steps} steps.
+     *
+     * @param steps the number of steps between two events
+     * @return this dispatcher
+     */
+    public EvacuationEventDispatcher everySteps(int steps) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("Step interval must be positive: " + steps);
+        }
+        this.stepInterval = steps;
+        return this;
+    }
+
+    /**
+     * Sends an event only if at least {@code millis} milli seconds have passed since the last event.
+     *
+     * @param millis the minimal time between two events in milli seconds
+     * @return this dispatcher
+     */
+    public EvacuationEventDispatcher everyMillis(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Time interval must not be negative: " + millis);
+        }
+        this.timeInterval = TimeUnit.MILLISECONDS.toNanos(millis);
+        return this;
+    }
+
+    /**
+     * Delivers the events on a separate thread. The events are stored in a queue of the given capacity.
+     *
+     * @param capacity the capacity of the queue
+     * @return this dispatcher
+     */
+    public EvacuationEventDispatcher async(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive: " + capacity);
+        }
+        this.queueCapacity = capacity;
+        return this;
+    }
+
+    /**
+     * Adds a listener. If a run with asynchronous delivery is in progress and this is the first listener, the delivery
+     * thread is started.
+     *
+     * @param listener the listener
+     */
+    public void addListener(AlgorithmListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "Listener must not be null."));
+        if (running) {
+            startWorker();
+        }
+    }
+
+    public void removeListener(AlgorithmListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Starts a new run. Called by the algorithm during initialization. If the previous run has been aborted without
+     * being finished, its delivery thread is stopped and its undelivered events are discarded. The delivery thread of
+     * the new run is started when the first listener is present.
+     */
+    void start() {
+        pendingActions.clear();
+        lastEventStep = 0;
+        lastEventTime = System.nanoTime();
+        lastStep = 0;
+        if (worker != null) {
+            worker.interrupt();
+            awaitWorker();
+        }
+        running = true;
+        if (hasListeners()) {
+            startWorker();
+        }
+    }
+
+    /**
+     * Starts the delivery thread if events are delivered asynchronously and the thread is not yet running.
+     */
+    private synchronized void startWorker() {
+        if (queueCapacity > 0 && worker == null) {
+            BlockingQueue<Object> events = new ArrayBlockingQueue<>(queueCapacity);
+            Thread thread = new Thread(() -> deliverQueued(events), "EvacuationEventDispatcher");
+            thread.setDaemon(true);
+            worker = thread;
+            queue = events;
+            thread.start();
+        }
+    }
+
+    void initializationCompleted(EvacuationCellularAutomatonAlgorithm algorithm, List<Action> actions) {
+        if (hasListeners()) {
+            deliver(new EvacuationInitializationCompleteEvent(algorithm, copyIfAsync(actions),
+                    algorithm.snapshotFor(0)));
+        }
+    }
+
+    /**
+     * Handles the end of a step. If an event is due, the progress event and a step complete event containing all actions
+     * since the last event are sent. The progress message is only computed in this case. An event is always due if the
+     * algorithm attaches a snapshot to the step.
+     *
+     * @param algorithm the algorithm
+     * @param step the step that has been completed
+     * @param progress the current progress
+     * @param actions the actions of the step, only valid during the call
+     */
+    void stepCompleted(EvacuationCellularAutomatonAlgorithm algorithm, int step, double progress, List<Action> actions) {
+        if (!hasListeners()) {
+            return;
+        }
+        lastStep = step;
+        boolean batched = stepInterval > 1 || timeInterval > 0;
+        if (batched) {
+            pendingActions.addAll(actions);
+        }
+        long now = timeInterval > 0 ? System.nanoTime() : 0;
+        boolean due = step - lastEventStep >= stepInterval && (timeInterval == 0 || now - lastEventTime >= timeInterval);
+        if (!due && !algorithm.snapshotDue(step)) {
+            return;
+        }
+        lastEventStep = step;
+        lastEventTime = now;
+        deliver(new AlgorithmDetailedProgressEvent<>(algorithm, progress, algorithm.getProgressMessage()));
+        StateSnapshot snapshot = algorithm.snapshotFor(step);
+        if (batched) {
+            deliver(new EvacuationStepCompleteEvent(algorithm, progress, new ArrayList<>(pendingActions), step,
+                    snapshot));
+            pendingActions.clear();
+        } else {
+            deliver(new EvacuationStepCompleteEvent(algorithm, progress, copyIfAsync(actions), step, snapshot));
+        }
+    }
+
+    /**
+     * Finishes a run. Actions of steps without event are sent, the final progress is sent and the asynchronous delivery
+     * is completed.
+     *
+     * @param algorithm the algorithm
+     * @param message the final progress message
+     */
+    void finish(EvacuationCellularAutomatonAlgorithm algorithm, String message) {
+        if (hasListeners()) {
+            if (!pendingActions.isEmpty()) {
+                deliver(new EvacuationStepCompleteEvent(algorithm, 1, new ArrayList<>(pendingActions), lastStep,
+                        null));
+            }
+            deliver(new AlgorithmDetailedProgressEvent<>(algorithm, 1, message));
+        }
+        pendingActions.clear();
+        running = false;
+        if (worker != null) {
+            put(END);
+            awaitWorker();
+        }
+    }
+
+    private void awaitWorker() {
+        try {
+            worker.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+        queue = null;
+    }
+
+    private List<Action> copyIfAsync(List<Action> actions) {
+        return queueCapacity > 0 ? new ArrayList<>(actions) : actions;
+    }
+
+    private void deliver(AbstractAlgorithmEvent event) {
+        if (queue == null) {
+            fire(event);
+        } else {
+            put(event);
+        }
+    }
+
+    private void put(Object event) {
+        try {
+            queue.put(event);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for event delivery.", ex);
+        }
+    }
+
+    private void fire(AbstractAlgorithmEvent event) {
+        for (AlgorithmListener listener : listeners) {
+            listener.eventOccurred(event);
+        }
+    }
+
+    private void deliverQueued(BlockingQueue<Object> events) {
+        while (true) {
+            Object event;
+            try {
+                event = events.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (event == END) {
+                return;
+            }
+            try {
+                fire((AbstractAlgorithmEvent) event);
+            } catch (RuntimeException ex) {
+                LOG.log(Level.WARNING, "Listener failed to handle event " + event, ex);
+            }
+        }
+    }
+}
@@ -2,25 +2,52 @@ package org.zet.cellularautomaton.algorithm;
 
 import java.util.Collections;
 import java.util.List;
+import org.zet.cellularautomaton.algorithm.state.StateSnapshot;
 import org.zet.cellularautomaton.results.Action;
 import org.zetool.common.algorithm.Algorithm;
 import org.zetool.common.algorithm.AlgorithmProgressEvent;
 
 /**
+ * Informs about the actions of a completed initialization. The list of actions may be a view of the buffer the simulation reuses
+ * for the next step. It is only valid while the event is delivered and is cleared afterwards, listeners keeping the
+ * actions have to copy them. Events delivered asynchronously by an {@link EvacuationEventDispatcher} contain a copy.
+ * Like the {@link EvacuationStepCompleteEvent step events}, the event may carry a {@link StateSnapshot} of the state
+ * after the initialization.
  *
  * @author Jan-Philipp Kappmeier
  */
 public class EvacuationInitializationCompleteEvent extends AlgorithmProgressEvent<EvacuationSimulationProblem, EvacuationSimulationResult> {
 
     private final List<Action> initializationActions;
+    private final StateSnapshot snapshot;
 
     public EvacuationInitializationCompleteEvent(Algorithm<EvacuationSimulationProblem, EvacuationSimulationResult> algorithm, List<Action> initializationActions) {
+        this(algorithm, initializationActions, null);
+    }
+
+    public EvacuationInitializationCompleteEvent(Algorithm<EvacuationSimulationProblem, EvacuationSimulationResult> algorithm,
+            List<Action> initializationActions, StateSnapshot snapshot) {
         super(algorithm, 0);
         this.initializationActions = initializationActions;
+        this.snapshot = snapshot;
     }
 
+    /**
+     * Returns the actions. The list is only valid while the event is delivered, see the class documentation.
+     *
+     * @return a read-only list of the actions
+     */
     public List<Action> getInitializationActions() {
         return Collections.unmodifiableList(initializationActions);
     }
 
+    /**
+     * Returns the snapshot of the state after the initialization.
+     *
+     * @return the snapshot, or {@code null} if no snapshot is attached to this event
+     */
+    public StateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
 }
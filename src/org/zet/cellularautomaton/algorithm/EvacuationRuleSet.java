@@ -40,6 +40,8 @@ public abstract class EvacuationRuleSet implements RuleSet<EvacuationRule<? exte
     private final List<EvacuationRule<?>> primaryRules;
     /** The {@code ArrayList} containing all loop rules, maybe twice or more often. */
     private final List<EvacuationRule<?>> loopRules;
+    /** The loop rules compiled for fast access by kind of cell. Created on demand. */
+    private CellKindRuleTable loopRuleTable;
 
     /**
      * Creates a new instance of {@code RuleSet} and initializes the container.
@@ -71,6 +73,7 @@ public abstract class EvacuationRuleSet implements RuleSet<EvacuationRule<? exte
         }
         primaryRules.add(rule);
         loopRules.add(rule);
+        loopRuleTable = null;
     }
 
     /**
@@ -90,6 +93,7 @@ public abstract class EvacuationRuleSet implements RuleSet<EvacuationRule<? exte
         }
         if (useInLoopSet) {
             loopRules.add(rule);
+            loopRuleTable = null;
         }
     }
 
@@ -103,6 +107,19 @@ public abstract class EvacuationRuleSet implements RuleSet<EvacuationRule<? exte
         return loopRules.iterator();
     }
 
+    /**
+     * Returns the loop rules compiled into a {@link CellKindRuleTable}. The table is created when it is accessed first
+     * and is recreated if rules are added afterwards.
+     *
+     * @return the loop rules by kind of cell
+     */
+    public CellKindRuleTable getLoopRuleTable() {
+        if (loopRuleTable == null) {
+            loopRuleTable = new CellKindRuleTable(loopRules);
+        }
+        return loopRuleTable;
+    }
+
     /**
      * Returns an {@code Iterator} that iterates through the loop rules. These rules can be added twice or more often.
      *
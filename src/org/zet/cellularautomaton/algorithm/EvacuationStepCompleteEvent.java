@@ -2,26 +2,75 @@ package org.zet.cellularautomaton.algorithm;
 
 import java.util.Collections;
 import java.util.List;
+import org.zet.cellularautomaton.algorithm.state.StateSnapshot;
 import org.zet.cellularautomaton.results.Action;
 import org.zetool.common.algorithm.Algorithm;
 import org.zetool.common.algorithm.AlgorithmProgressEvent;
 
 /**
+ * Informs about the actions of a completed step. The list of actions may be a view of the buffer the simulation reuses
+ * for the next step. It is only valid while the event is delivered and is cleared afterwards, listeners keeping the
+ * actions have to copy them. Events delivered asynchronously by an {@link EvacuationEventDispatcher} contain a copy.
+ *
+ * If {@link EvacuationCellularAutomatonAlgorithm#setStateSnapshots(int, List) requested}, some events carry a
+ * {@link StateSnapshot} taken when the event was created. In contrast to the live state of the simulation, which may
+ * already be ahead of an event that is delivered asynchronously, the snapshot belongs to the actions of the event.
+ * Events sent in batches contain the actions of several steps, the {@link #getStep() step} is the last of them.
  *
  * @author Jan-Philipp Kappmeier
  */
 public class EvacuationStepCompleteEvent extends AlgorithmProgressEvent<EvacuationSimulationProblem, EvacuationSimulationResult> {
 
     private final List<Action> initializationActions;
+    /** The number of the last step whose actions are contained, or {@code -1} if unknown. */
+    private final int step;
+    private final StateSnapshot snapshot;
 
     public EvacuationStepCompleteEvent(Algorithm<EvacuationSimulationProblem, EvacuationSimulationResult> algorithm,
             double progress, List<Action> initializationActions) {
+        this(algorithm, progress, initializationActions, null);
+    }
+
+    public EvacuationStepCompleteEvent(Algorithm<EvacuationSimulationProblem, EvacuationSimulationResult> algorithm,
+            double progress, List<Action> initializationActions, StateSnapshot snapshot) {
+        this(algorithm, progress, initializationActions, -1, snapshot);
+    }
+
+    public EvacuationStepCompleteEvent(Algorithm<EvacuationSimulationProblem, EvacuationSimulationResult> algorithm,
+            double progress, List<Action> initializationActions, int step, StateSnapshot snapshot) {
         super(algorithm, progress);
         this.initializationActions = initializationActions;
+        this.step = step;
+        this.snapshot = snapshot;
     }
 
+    /**
+     * Returns the actions. The list is only valid while the event is delivered, see the class documentation.
+     *
+     * @return a read-only list of the actions
+     */
     public List<Action> getInitializationActions() {
         return Collections.unmodifiableList(initializationActions);
     }
 
+    /**
+     * Returns the number of the last step whose actions are contained in this event. The initialization is step
+     * {@code 0}, the following steps are numbered as {@link EvacuationCellularAutomatonAlgorithm#getStep()} after they
+     * have been completed.
+     *
+     * @return the number of the step, or {@code -1} if unknown
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Returns the snapshot of the state after the actions of this event.
+     *
+     * @return the snapshot, or {@code null} if no snapshot is attached to this event
+     */
+    public StateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
 }
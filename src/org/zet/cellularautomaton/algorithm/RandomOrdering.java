@@ -15,29 +15,84 @@
  */
 package org.zet.cellularautomaton.algorithm;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Function;
+import org.zet.cellularautomaton.CounterBasedRandom;
 import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.RandomSource;
 import org.zetool.rndutils.generators.GeneralRandomWrapper;
 import org.zetool.rndutils.RandomUtils;
 import org.zetool.rndutils.generators.GeneralRandom;
 
 /**
+ * Orders the individuals randomly. By default the individuals are shuffled using the process-wide generator. If a
+ * {@link CounterBasedRandom} is set, each individual gets a random key that only depends on the individual and the
+ * number of the ordering, and the individuals are sorted by their keys. Thus the order does not depend on any other
+ * random decision.
  *
  * @author Jan-Philipp Kappmeier
  */
 public class RandomOrdering implements Function<List<Individual>, Iterator<Individual>> {
 
+    private CounterBasedRandom random;
+    /** The number of orderings created since the generator was set, used as time step for the keys. */
+    private int round;
+
     @Override
     public Iterator<Individual> apply(List<Individual> t) {
+        if (random != null) {
+            return orderByKey(t);
+        }
         List<Individual> individualsCopy = new LinkedList<>(t);
         Collections.shuffle(individualsCopy, new GeneralRandomWrapper(getRandomGenerator()));
         return individualsCopy.iterator();
     }
-    
+
+    /**
+     * Sets a counter based generator. The numbering of the orderings starts again.
+     *
+     * @param random the generator, or {@code null} to use the process-wide generator
+     */
+    public void setRandom(CounterBasedRandom random) {
+        this.random = random;
+        this.round = 0;
+    }
+
+    /**
+     * Sorts the individuals by their keys. The keys are a bijective function of the individual number, thus different
+     * individuals have different keys and the position of an individual is found by a binary search in the sorted keys.
+     * Individuals sharing a number keep their relative order.
+     *
+     * @param t the individuals
+     * @return the individuals in the order of their keys
+     */
+    private Iterator<Individual> orderByKey(List<Individual> t) {
+        int step = round++;
+        long[] keys = new long[t.size()];
+        Individual[] individuals = t.toArray(new Individual[t.size()]);
+        for (int i = 0; i < individuals.length; ++i) {
+            keys[i] = random.nextLong(step, individuals[i].getNumber(), RandomSource.Purpose.ORDERING, 0);
+        }
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        Individual[] result = new Individual[individuals.length];
+        for (int i = 0; i < individuals.length; ++i) {
+            int position = Arrays.binarySearch(sorted, keys[i]);
+            while (position > 0 && sorted[position - 1] == keys[i]) {
+                position--;
+            }
+            while (result[position] != null) {
+                position++;
+            }
+            result[position] = individuals[i];
+        }
+        return Arrays.asList(result).iterator();
+    }
+
     protected GeneralRandom getRandomGenerator() {
         return (RandomUtils.getInstance()).getRandomGenerator();
     }
@@ -16,18 +16,30 @@
 package org.zet.cellularautomaton.algorithm;
 
 import org.zet.cellularautomaton.algorithm.rule.AbstractMovementRule;
-import org.zet.cellularautomaton.algorithm.rule.EvacuationRule;
-import org.zetool.common.util.Direction8;
 import org.zet.cellularautomaton.Individual;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.function.Function;
 import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.SpatialCellIndex;
+import org.zet.cellularautomaton.results.Action;
+import org.zet.cellularautomaton.results.MoveAction;
 
 /**
+ * A cellular automaton that allows individuals standing on neighboring cells to swap their positions. A step is
+ * performed in three passes:
+ * <ol>
+ * <li>The loop rules are executed up to the movement rule which does not move, but only proposes a target cell for
+ * each individual. Individuals that do not want to move execute the remaining rules immediately.</li>
+ * <li>Pairs of individuals proposing the cell of each other are detected using a reverse map from cells to proposing
+ * individuals and are swapped.</li>
+ * <li>The remaining rules are executed in one pass. Individuals that have not been swapped execute the movement rule
+ * again. If the proposed target is occupied by another individual that is about to move, the other individual is
+ * processed first, such that chains of individuals following each other can move in one step.</li>
+ * </ol>
+ * All intermediate data is stored in arrays that are reused over all steps.
+ *
  * By default swap cellular automaton are randomized.
  *
  * @see RandomOrdering
@@ -35,6 +47,34 @@ import org.zet.cellularautomaton.EvacCellInterface;
  */
 public class SwapCellularAutomaton extends EvacuationCellularAutomatonAlgorithm {
 
+    /** Status of an individual whose proposal has not been processed. */
+    private static final byte PENDING = 0;
+    /** Status of an individual that is currently followed in a chain of proposals. */
+    private static final byte IN_CHAIN = 1;
+    /** Status of an individual that has been swapped with another individual. */
+    private static final byte SWAPPED = 2;
+    /** Status of an individual whose remaining rules have been executed. */
+    private static final byte DONE = 3;
+
+    /** Loop rules of the rule set, refreshed at the beginning of each step. */
+    private CellKindRuleTable loopRules;
+    /** The position of the movement rule in the loop rules. */
+    private int movementIndex;
+    /** Consecutive numbering of all cells of the cellular automaton along a Hilbert curve, indexing the reverse map. */
+    private SpatialCellIndex cellIndex;
+    /** Maps a cell index to the proposal of the individual standing on the cell, or {@code -1}. */
+    private int[] proposalOnCell;
+    /** The cells of the individuals that propose a movement. */
+    private EvacCellInterface[] proposalFrom = new EvacCellInterface[0];
+    /** The proposed target cells. */
+    private EvacCellInterface[] proposalTarget = new EvacCellInterface[0];
+    /** The individuals that propose a movement. */
+    private Individual[] proposalIndividual = new Individual[0];
+    private byte[] proposalStatus = new byte[0];
+    /** Stack used to follow chains of proposals. */
+    private int[] chain = new int[0];
+    private int proposalCount;
+
     public SwapCellularAutomaton() {
         super(new RandomOrdering());
     }
@@ -43,179 +83,208 @@ public class SwapCellularAutomaton extends EvacuationCellularAutomatonAlgorithm
         super(reorder);
     }
 
-    /**
-     *
-     */
     @Override
-    protected void performStep() {
-//	protected void executeStep() {
-        //if( !isInitialized() ) {
-        //	throw new IllegalArgumentException( DefaultLoc.getSingleton().getString( "algo.ca.NotInitializedException" ) );
-        //}
-        increaseStep();
-
-        // Suche movement rule und setze auf not direct action
-        setDirectExecute(false);
+    protected void initialize() {
+        super.initialize();
+        cellIndex = null;
+    }
 
-        AbstractMovementRule movement = null;
-        // erster Lauf: bis zur movement-rule und dann anmelden lassen.
-        ArrayList<Individual> unfinished = new ArrayList<>();
-        HashMap<Individual, List<EvacCellInterface>> individualPossibleMapping = new HashMap<>();
-        HashSet<Individual> individualSwapped = new HashSet<>();
+    @Override
+    protected void performStep() {
+        AbstractMovementRule movement = prepareStep();
+        if (movement == null) {
+            super.performStep();
+            return;
+        }
 
+        movement.setDirectExecute(false);
         for (EvacCellInterface cell : this) {
-            Iterator<EvacuationRule<?>> loop = getProblem().getRuleSet().loopIterator();
-
-            while (loop.hasNext()) {
-                EvacuationRule r = loop.next();
-                r.execute(cell);
-                if (r instanceof AbstractMovementRule) {
-                    movement = (AbstractMovementRule) r;
-                    break;
-                }
-            }
+            propose(cell, movement);
+        }
+        movement.setDirectExecute(true);
 
-            // hier ist movementrule die aktuelle movement rule.
-            if (movement.isMoveCompleted() && movement.executableOn(cell)) {
-                unfinished.add(cell.getState().getIndividual());
-
-                List<EvacCellInterface> possibleTargets = movement.getPossibleTargets();
-
-                for (EvacCellInterface c : possibleTargets) {
-                    try {
-                        if (cell != c) {
-                            Direction8 dir = cell.getRelative(c);
-
-                        }
-                    } catch (AssertionError e) {
-                        System.out.println(e);
-                        EvacCellInterface target2 = movement.selectTargetCell(cell, possibleTargets);
-                        movement.getPossibleTargets();
-                    }
-
-                }
-
-                individualPossibleMapping.put(cell.getState().getIndividual(), movement.getPossibleTargets());
-                //movement.move( i, movement.selectTargetCell( es.propertyFor(i).getCell(), movement.getPossibleTargets() ) );
-            } else {
-                // perform the other rules because this individual has finished its movement for this round
-                while (loop.hasNext()) {
-                    EvacuationRule r = loop.next();
-                    r.execute(cell);
-                }
+        for (int k = 0; k < proposalCount; ++k) {
+            if (proposalStatus[k] == PENDING) {
+                trySwap(k, movement);
             }
         }
 
-        setDirectExecute(true);
+        for (int k = 0; k < proposalCount; ++k) {
+            if (proposalStatus[k] == SWAPPED) {
+                executeRules(proposalIndividual[k], movementIndex + 1, loopRules.size());
+                proposalStatus[k] = DONE;
+            } else if (proposalStatus[k] == PENDING) {
+                executeChain(k);
+            }
+        }
 
-        ArrayList<Individual> unfinished2 = new ArrayList<>();
+        clearProposals();
+        completeStep();
+    }
 
-        // erster Lauf ist beendet. Versuche nun ob welche swappen können
-        for (Individual i : unfinished) {
-            if (individualSwapped.contains(i)) {
-                continue;
+    /**
+     * Reads the loop rules from the rule set and finds the movement rule. Also makes sure that the data structures are
+     * large enough for all remaining individuals.
+     *
+     * @return the movement rule, or {@code null} if the rule set does not contain one
+     */
+    private AbstractMovementRule prepareStep() {
+        loopRules = getProblem().getRuleSet().getLoopRuleTable();
+        movementIndex = -1;
+        for (int r = 0; r < loopRules.size() && movementIndex == -1; ++r) {
+            if (loopRules.getRule(r) instanceof AbstractMovementRule) {
+                movementIndex = r;
             }
-            List<EvacCellInterface> possibleTargets = individualPossibleMapping.get(i);
-            EvacCellInterface target = movement.selectTargetCell(es.propertyFor(i).getCell(), possibleTargets);
+        }
+        if (movementIndex == -1) {
+            return null;
+        }
 
-            try {
-                if (es.propertyFor(i).getCell() != target) {
-                    Direction8 dir = es.propertyFor(i).getCell().getRelative(target);
+        if (cellIndex == null) {
+            initCellIndex();
+        }
+        int individuals = es.getRemainingIndividualCount();
+        if (proposalFrom.length < individuals) {
+            proposalFrom = new EvacCellInterface[individuals];
+            proposalTarget = new EvacCellInterface[individuals];
+            proposalIndividual = new Individual[individuals];
+            proposalStatus = new byte[individuals];
+            chain = new int[individuals];
+        }
+        return (AbstractMovementRule) loopRules.getRule(movementIndex);
+    }
 
-                }
-            } catch (AssertionError e) {
-                System.out.println(e);
-                EvacCellInterface target2 = movement.selectTargetCell(es.propertyFor(i).getCell(), possibleTargets);
-            }
+    private void initCellIndex() {
+        cellIndex = getProblem().getCellularAutomaton().getCellIndex();
+        proposalOnCell = new int[cellIndex.size()];
+        Arrays.fill(proposalOnCell, -1);
+    }
 
-            if (target.getState().isEmpty()) {
-                // Klappt alles
-                movement.move(es.propertyFor(i).getCell(), target);
-                //individualSwapped.add( i );
-                unfinished2.add(i);
-            } else {
-                if (target.equals(es.propertyFor(i).getCell())) {
-                    unfinished2.add(i);
-                } else {
-                    // steht ein individual drauf.
-                    Individual i2 = target.getState().getIndividual();
-                    if (individualSwapped.contains(i2)) {
-                        unfinished2.add(i);
-                    } else {
-                        List<EvacCellInterface> possibleTargets2 = individualPossibleMapping.get(i2);
-                        if (possibleTargets2 == null) {
-                            // das andere individual hat wohl seinen weg ausgeführt!
-                            unfinished2.add(i);
-                        } else {
-                            EvacCellInterface target2 = movement.selectTargetCell(es.propertyFor(i2).getCell(), possibleTargets2);
-                            if (es.propertyFor(i).getCell().equals(target2) && es.propertyFor(i2).getCell().equals(target)) {
-                                //if( util.DebugFlags.CA_SWAP )
-                                System.out.println("SWAP Individual " + i.id() + " und Individual " + i2.id());
-                                movement.swap(es.propertyFor(i).getCell(), es.propertyFor(i2).getCell());
-                                individualSwapped.add(i2);
-                                individualSwapped.add(i);
-                                if (unfinished2.contains(i2)) {
-                                    unfinished2.remove(i2); // perform last rules for them
-                                }
-                                Iterator<EvacuationRule<?>> loop = getProblem().getRuleSet().loopIterator();
-                                boolean movementFound = false;
-                                while (loop.hasNext()) {
-                                    EvacuationRule r = loop.next();
-                                    if (r instanceof AbstractMovementRule) {
-                                        movementFound = true;
-                                    } else if (movementFound) {
-                                        r.execute(es.propertyFor(i).getCell());
-                                    }
-                                }
-                                // perform last rules for them
-                                loop = getProblem().getRuleSet().loopIterator();
-                                movementFound = false;
-                                while (loop.hasNext()) {
-                                    EvacuationRule r = loop.next();
-                                    if (r instanceof AbstractMovementRule) {
-                                        movementFound = true;
-                                    } else if (movementFound) {
-                                        r.execute(es.propertyFor(i2).getCell());
-                                    }
-                                }
-                            } else {
-                                // perform movement rule a second time with direct execute on
-                                unfinished2.add(i);
-                            }
-                        }
-                    }
-                }
+    /**
+     * Executes the loop rules up to the movement rule on a cell. If the individual wants to move, its target cell is
+     * stored as proposal, otherwise the remaining rules are executed.
+     *
+     * @param cell the cell of the individual
+     * @param movement the movement rule
+     */
+    private void propose(EvacCellInterface cell, AbstractMovementRule movement) {
+        Individual i = cell.getState().getIndividual();
+        executeRules(i, 0, movementIndex);
+        cell = es.propertyFor(i).getCell();
+        if (cell == null) {
+            return;
+        }
+        MoveAction a = movement.executeOrNull(cell);
+        if (a == MoveAction.NO_MOVE && movement.isMoveCompleted()) {
+            List<EvacCellInterface> possibleTargets = movement.getPossibleTargets();
+            int k = proposalCount++;
+            proposalIndividual[k] = i;
+            proposalFrom[k] = cell;
+            proposalTarget[k] = possibleTargets.isEmpty() ? cell : movement.selectTargetCell(cell, possibleTargets);
+            proposalStatus[k] = PENDING;
+            int index = indexOf(cell);
+            if (index >= 0) {
+                proposalOnCell[index] = k;
             }
+        } else {
+            if (a != null) {
+                handleAction(a);
+            }
+            executeRules(i, movementIndex + 1, loopRules.size());
+        }
+    }
+
+    /**
+     * Swaps two individuals if the individual of the proposal wants to move to the cell of another individual which in
+     * turn wants to move to the cell of the first individual.
+     *
+     * @param k the proposal
+     * @param movement the movement rule performing the swap
+     */
+    private void trySwap(int k, AbstractMovementRule movement) {
+        int other = proposalAt(proposalTarget[k]);
+        if (other == -1 || other == k || proposalStatus[other] != PENDING || proposalTarget[other] != proposalFrom[k]) {
+            return;
+        }
+        handleAction(movement.swap(proposalFrom[k], proposalFrom[other]));
+        proposalStatus[k] = SWAPPED;
+        proposalStatus[other] = SWAPPED;
+    }
+
+    /**
+     * Executes the movement rule and the remaining rules for the individual of a proposal. If the target cell is
+     * occupied by an individual that still has to move, this is done first. Cycles in the chain are broken at the
+     * proposal where the chain started.
+     *
+     * @param k the proposal
+     */
+    private void executeChain(int k) {
+        int size = 0;
+        int current = k;
+        while (current != -1) {
+            chain[size++] = current;
+            proposalStatus[current] = IN_CHAIN;
+            int next = proposalAt(proposalTarget[current]);
+            current = next != -1 && proposalStatus[next] == PENDING ? next : -1;
+        }
+        while (size > 0) {
+            int p = chain[--size];
+            executeRules(proposalIndividual[p], movementIndex, loopRules.size());
+            proposalStatus[p] = DONE;
         }
+    }
 
-        // Führe alle übrigen Individuals aus (Individuen, die nicht geswappt haben
-        for (Individual i : unfinished2) {
-            Iterator<EvacuationRule<?>> loop = getProblem().getRuleSet().loopIterator();
-            boolean movementFound = false;
-            while (loop.hasNext()) {
-                EvacuationRule r = loop.next();
-                if (r instanceof AbstractMovementRule) {
-                    r.execute(es.propertyFor(i).getCell());
-                    movementFound = true;
-                } else if (movementFound) {
-                    r.execute(es.propertyFor(i).getCell());
-                }
+    /**
+     * Executes the loop rules starting at a given position for an individual. The rules are executed on the current
+     * cell of the individual, which may change during execution.
+     *
+     * @param i the individual
+     * @param first the position of the first rule that is executed
+     * @param last the position after the last rule that is executed
+     */
+    private void executeRules(Individual i, int first, int last) {
+        EvacCellInterface cell = es.propertyFor(i).getCell();
+        if (cell == null) {
+            return;
+        }
+        for (int r = loopRules.next(cell, first); r < last; r = loopRules.next(cell, r + 1)) {
+            Action a = loopRules.execute(r, cell);
+            if (a != null) {
+                handleAction(a);
+            }
+            cell = es.propertyFor(i).getCell();
+            if (cell == null) {
+                return;
             }
         }
+    }
+
+    private int indexOf(EvacCellInterface cell) {
+        return cellIndex.indexOf(cell);
+    }
 
-        //setDirectExecute( true );
-        ec.updateDynamicPotential(getProblem().getParameterSet().probabilityDynamicIncrease(),
-                getProblem().getParameterSet().probabilityDynamicDecrease());
+    /**
+     * Returns the proposal of the individual standing on a cell.
+     *
+     * @param cell the cell
+     * @return the proposal of the individual on the cell or {@code -1} if no proposal exists
+     */
+    private int proposalAt(EvacCellInterface cell) {
+        int index = indexOf(cell);
+        return index == -1 ? -1 : proposalOnCell[index];
     }
 
-    private void setDirectExecute(boolean val) {
-        Iterator<EvacuationRule<?>> loop = getProblem().getRuleSet().loopIterator();
-        while (loop.hasNext()) {
-            EvacuationRule r = loop.next();
-            if (r instanceof AbstractMovementRule) {
-                ((AbstractMovementRule) r).setDirectExecute(val);
+    private void clearProposals() {
+        for (int k = 0; k < proposalCount; ++k) {
+            int index = indexOf(proposalFrom[k]);
+            if (index >= 0) {
+                proposalOnCell[index] = -1;
             }
+            proposalFrom[k] = null;
+            proposalTarget[k] = null;
+            proposalIndividual[k] = null;
         }
+        proposalCount = 0;
     }
 
     @Override
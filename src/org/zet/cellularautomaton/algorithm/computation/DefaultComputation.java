@@ -3,13 +3,17 @@ package org.zet.cellularautomaton.algorithm.computation;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
+import org.zet.cellularautomaton.CounterBasedRandom;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.RandomSource;
 import org.zet.cellularautomaton.algorithm.parameter.ParameterSet;
+import org.zet.cellularautomaton.algorithm.state.IndividualProperty;
 import org.zet.cellularautomaton.algorithm.state.PropertyAccess;
 import org.zet.cellularautomaton.potential.Potential;
+import org.zet.cellularautomaton.potential.StaticPotentialWeights;
 import org.zetool.math.averaging.NonLinearAverages;
-import org.zetool.rndutils.RandomUtils;
 
 /**
  *
@@ -23,12 +27,34 @@ public class DefaultComputation implements Computation {
     private static final double MAXIMUM_PANIC = 1.0d;
     private static final double MIN_EXHAUSTION = 0d;
     private static final double MAX_EXHAUSTION = 0.999d;
+    /** The stream of the counter based generator, or {@code null} if the process-wide generator is used. */
+    private CounterBasedRandom.Stream randomStream;
+    private IntSupplier timeStep;
 
     public DefaultComputation(PropertyAccess es, ParameterSet parameterSet) {
         this.es = es;
         this.parameterSet = parameterSet;
     }
 
+    /**
+     * Sets a counter based generator for the random decisions. If no generator is set, the process-wide generator is
+     * used.
+     *
+     * @param random the generator, or {@code null}
+     * @param timeStep supplies the current time step
+     */
+    public void setRandom(CounterBasedRandom random, IntSupplier timeStep) {
+        this.randomStream = random == null ? null : random.stream();
+        this.timeStep = timeStep;
+    }
+
+    private RandomSource random(Individual individual, RandomSource.Purpose purpose) {
+        if (randomStream == null) {
+            return RandomSource.global();
+        }
+        return randomStream.reset(timeStep.getAsInt(), individual.getNumber(), purpose);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -67,13 +93,11 @@ public class DefaultComputation implements Computation {
         if (dynamicPotential != null) {
             final double dynPotDiff = dynamicPotential.apply(referenceCell)
                     - dynamicPotential.apply(targetCell);
-            final double statPotlDiff = (double)staticPotential.getPotential(referenceCell)
-                    - staticPotential.getPotential(targetCell);
+            final double statPotlDiff = StaticPotentialWeights.differenceOf(staticPotential, referenceCell, targetCell);
             return NonLinearAverages.logisticAverage(panic, statPotlDiff * parameterSet.staticPotentialWeight(),
                     dynPotDiff * parameterSet.dynamicPotentialWeight());
         } else {
-            final double statPotlDiff = (double)staticPotential.getPotential(referenceCell)
-                    - staticPotential.getPotential(targetCell);
+            final double statPotlDiff = StaticPotentialWeights.differenceOf(staticPotential, referenceCell, targetCell);
             return statPotlDiff * parameterSet.staticPotentialWeight();
         }
     }
@@ -135,31 +159,32 @@ public class DefaultComputation implements Computation {
 
     @Override
     public double updatePanic(Individual individual, EvacCellInterface targetCell, Collection<EvacCellInterface> preferedCells) {
-        List<EvacCellInterface> possibleNeighbours = es.propertyFor(individual).getCell().getNeighbours();
+        IndividualProperty property = es.propertyFor(individual);
+        List<EvacCellInterface> possibleNeighbours = property.getCell().getNeighbours();
         if (possibleNeighbours.isEmpty()) {
-            return es.propertyFor(individual).getPanic();
+            return property.getPanic();
         }
 
+        Potential staticPotential = property.getStaticPotential();
+        EvacCellInterface referenceCell = property.getCell();
         double[] potentials = new double[possibleNeighbours.size()];
         int idx = 0;
         for (EvacCellInterface cell : possibleNeighbours) {
-            double potentialDifference = (double)es.propertyFor(individual).getStaticPotential().getPotential(
-                    es.propertyFor(individual).getCell())
-                    - es.propertyFor(individual).getStaticPotential().getPotential(cell);
-            potentials[idx] = Math.exp(potentialDifference);
+            potentials[idx] = StaticPotentialWeights.weightOf(staticPotential, referenceCell, cell);
             idx++;
         }
 
         int failures = 0;
 
-        int chosenNeighbour = RandomUtils.getInstance().chooseRandomlyAbsolute(potentials);
+        RandomSource random = random(individual, RandomSource.Purpose.PANIC);
+        int chosenNeighbour = random.chooseRandomlyAbsolute(potentials);
         while (!possibleNeighbours.get(chosenNeighbour).getState().isEmpty() && failures < possibleNeighbours.size()) {
             failures++;
             potentials[chosenNeighbour] = 0;
-            chosenNeighbour = RandomUtils.getInstance().chooseRandomlyAbsolute(potentials);
+            chosenNeighbour = random.chooseRandomlyAbsolute(potentials);
         }
 
-        double newPanic = es.propertyFor(individual).getPanic();
+        double newPanic = property.getPanic();
         if (failures < parameterSet.getPanicThreshold()) {
             newPanic = newPanic - individual.getPanicFactor() * parameterSet.getPanicDecrease()
                     * (parameterSet.getPanicThreshold() - failures);
@@ -171,7 +196,7 @@ public class DefaultComputation implements Computation {
         newPanic = Math.max(MINIMUM_PANIC, newPanic);
         newPanic = Math.min(MAXIMUM_PANIC, newPanic);
 
-        es.propertyFor(individual).setPanic(newPanic);
+        property.setPanic(newPanic);
         return newPanic;
     }
 
@@ -7,6 +7,7 @@ import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.algorithm.state.PropertyAccess;
 import org.zet.cellularautomaton.localization.CellularAutomatonLocalization;
 import org.zet.cellularautomaton.potential.Potential;
+import org.zet.cellularautomaton.potential.StaticPotentialWeights;
 
 /**
  *
@@ -23,8 +24,24 @@ public class ICEM09Computation implements Computation {
             throw new IllegalArgumentException(CellularAutomatonLocalization.LOC.getString("algo.ca.parameter.NoIndividualOnReferenceCellException"));
         }
         Potential staticPotential = es.propertyFor(referenceCell.getState().getIndividual()).getStaticPotential();
-        final double statPotlDiff = staticPotential.getPotential(referenceCell) - staticPotential.getPotential(targetCell);
-        return statPotlDiff;
+        return StaticPotentialWeights.differenceOf(staticPotential, referenceCell, targetCell);
+    }
+
+    /**
+     * Returns {@code exp(effectivePotential)} for a target cell. As the effective potential only depends on the static
+     * potential, the weight is taken from the precomputed table of the potential.
+     *
+     * @param individual the individual
+     * @param targetCell a neighbour of the cell of the individual
+     * @return the exponential of the effective potential
+     */
+    public double effectiveWeight(Individual individual, EvacCellInterface targetCell) {
+        EvacCellInterface referenceCell = es.propertyFor(individual).getCell();
+        if (referenceCell.getState().isEmpty()) {
+            throw new IllegalArgumentException(CellularAutomatonLocalization.LOC.getString("algo.ca.parameter.NoIndividualOnReferenceCellException"));
+        }
+        Potential staticPotential = es.propertyFor(referenceCell.getState().getIndividual()).getStaticPotential();
+        return StaticPotentialWeights.weightOf(staticPotential, referenceCell, targetCell);
     }
 
     //////////////////////////////////ab hier: nicht benutzt////////////////////////////////////////////////////////
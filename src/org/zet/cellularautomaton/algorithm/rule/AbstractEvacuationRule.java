@@ -15,12 +15,17 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
+import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import org.zet.cellularautomaton.CellKind;
+import org.zet.cellularautomaton.CounterBasedRandom;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.EvacuationCellularAutomaton;
 import org.zet.cellularautomaton.Exit;
 import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.RandomSource;
 import org.zet.cellularautomaton.algorithm.EvacuationSimulationSpeed;
 import org.zet.cellularautomaton.algorithm.computation.Computation;
 import org.zet.cellularautomaton.algorithm.state.EvacuationState;
@@ -28,6 +33,7 @@ import org.zet.cellularautomaton.algorithm.state.EvacuationStateControllerInterf
 import org.zet.cellularautomaton.localization.CellularAutomatonLocalization;
 import org.zet.cellularautomaton.potential.Potential;
 import org.zet.cellularautomaton.results.Action;
+import org.zet.cellularautomaton.statistic.StatisticSink;
 
 /**
  * @author Daniel R. Schmidt
@@ -38,6 +44,10 @@ public abstract class AbstractEvacuationRule<R extends Action> implements Evacua
     protected EvacuationState es;
     protected Computation c;
     protected EvacuationSimulationSpeed sp;
+    /** The stream of the counter based generator, or {@code null} if the process-wide generator is used. */
+    private CounterBasedRandom.Stream randomStream;
+    /** The sink receiving the statistic events, or {@code null} if the statistic writer of the state is used. */
+    private StatisticSink statistics;
 
     /**
      * Returns if the rule is executable on the cell. The default behavior is, that a rule is
@@ -51,14 +61,34 @@ public abstract class AbstractEvacuationRule<R extends Action> implements Evacua
         return !cell.getState().isEmpty();
     }
 
+    /**
+     * Returns the kinds of cells on which the rule may be executable. The rule is not evaluated on cells of other
+     * kinds. Rules that restrict {@link #executableOn(EvacCellInterface)} to certain types of cells should return
+     * these kinds. By default, all kinds of cells are returned.
+     *
+     * @return the kinds of cells on which the rule may be executable
+     */
+    public Set<CellKind> getCellKinds() {
+        return EnumSet.allOf(CellKind.class);
+    }
+
     @Override
     public final Optional<R> execute(EvacCellInterface cell) {
+        return Optional.ofNullable(executeOrNull(cell));
+    }
+
+    /**
+     * Executes the rule on the cell if it is executable. In contrast to {@link #execute(EvacCellInterface)} the result
+     * is not wrapped.
+     *
+     * @param cell the cell on which the rule is executed
+     * @return the resulting action or {@code null} if the rule is not executable or does not create an action
+     */
+    public final R executeOrNull(EvacCellInterface cell) {
         if (executableOn(cell)) {
-            R a = onExecute(cell);
-            return Optional.ofNullable(a);
+            return onExecute(cell);
         }
-
-        return Optional.empty();
+        return null;
     }
 
     protected abstract R onExecute(EvacCellInterface cell);
@@ -73,6 +103,50 @@ public abstract class AbstractEvacuationRule<R extends Action> implements Evacua
                 "algo.ca.rule.CAControllerIsNullException"));
     }
 
+    /**
+     * Sets a counter based generator for the random decisions of the rule. If no generator is set, the process-wide
+     * generator is used.
+     *
+     * @param random the generator, or {@code null}
+     */
+    public void setRandom(CounterBasedRandom random) {
+        this.randomStream = random == null ? null : random.stream();
+    }
+
+    /**
+     * Returns the source of random numbers for a decision of an individual in the current time step. If a counter based
+     * generator is set, the numbers only depend on the individual, the time step and the purpose.
+     *
+     * @param individual the individual
+     * @param purpose the purpose of the decision
+     * @return the source of random numbers
+     */
+    protected RandomSource random(Individual individual, RandomSource.Purpose purpose) {
+        if (randomStream == null) {
+            return RandomSource.global();
+        }
+        return randomStream.reset(es.getTimeStep(), individual.getNumber(), purpose);
+    }
+
+    /**
+     * Sets the sink receiving the statistic events of the rule. If no sink is set, all events are stored by the
+     * statistic writer of the evacuation state.
+     *
+     * @param statistics the sink, or {@code null}
+     */
+    public void setStatisticSink(StatisticSink statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the sink receiving the statistic events of the rule.
+     *
+     * @return the sink receiving the statistic events
+     */
+    protected StatisticSink statistics() {
+        return statistics == null ? es.getStatisticWriter() : statistics;
+    }
+
     @Override
     public void setComputation(Computation c) {
         this.c = c;
@@ -15,6 +15,9 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
+import java.util.EnumSet;
+import java.util.Set;
+import org.zet.cellularautomaton.CellKind;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.ExitCell;
 import org.zet.cellularautomaton.SaveCell;
@@ -25,6 +28,11 @@ import org.zet.cellularautomaton.results.Action;
  *
  */
 public abstract class AbstractSaveRule extends AbstractEvacuationRule<Action> {
+    @Override
+    public Set<CellKind> getCellKinds() {
+        return EnumSet.of(CellKind.EXIT, CellKind.SAVE);
+    }
+
     /**
      * The rule is applicable if it is an exit or save cell and is occupied by an individual.
      * 
@@ -15,12 +15,19 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
-import evacuationplan.BestResponseDynamics;
+import evacuationplan.BestResponseSolver;
+import java.util.ArrayList;
+import java.util.List;
 import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
 import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.algorithm.state.IndividualProperty;
 import org.zet.cellularautomaton.results.VoidAction;
 
 /**
+ * Assigns the individuals to the exits of a best response assignment during the first time steps. The assignment is
+ * computed once per time step by a {@link BestResponseSolver} for all individuals that are not yet safe, starting from
+ * the assignment of the previous step.
  *
  * @author Jan-Philipp Kappmeier
  * @author Joscha Kulbatzki
@@ -28,6 +35,9 @@ import org.zet.cellularautomaton.results.VoidAction;
 public class ChangePotentialBestResponseOptimizedRule extends AbstractPotentialChangeRule {
 
     private static final int TIME_STEP_LIMIT_FOR_NASH_EQUILIBRIUM = 25;
+    private BestResponseSolver solver;
+    /** The time step for which the assignment has been computed last. */
+    private int solvedTimeStep = -1;
 
     @Override
     protected boolean wantsToChange(Individual i) {
@@ -41,9 +51,29 @@ public class ChangePotentialBestResponseOptimizedRule extends AbstractPotentialC
      */
     @Override
     protected VoidAction onExecute(EvacCellInterface cell) {
-        // perform initial best response dynamics exit selection
-        BestResponseDynamics brd = new BestResponseDynamics();
-        brd.computePotential(cell, es.getCellularAutomaton());
+        if (solvedTimeStep != es.getTimeStep()) {
+            solve();
+        }
+        Exit exit = solver.getAssignedExit(cell.getState().getIndividual());
+        if (exit != null) {
+            es.propertyFor(cell.getState().getIndividual()).setStaticPotential(
+                    es.getCellularAutomaton().getPotentialFor(exit));
+        }
         return VoidAction.VOID_ACTION;
     }
+
+    private void solve() {
+        if (solver == null) {
+            solver = new BestResponseSolver(es);
+        }
+        List<Individual> individuals = new ArrayList<>();
+        for (Individual i : es) {
+            IndividualProperty property = es.propertyFor(i);
+            if (property.getCell() != null && !property.isSafe() && !property.isDead()) {
+                individuals.add(i);
+            }
+        }
+        solver.solve(individuals);
+        solvedTimeStep = es.getTimeStep();
+    }
 }
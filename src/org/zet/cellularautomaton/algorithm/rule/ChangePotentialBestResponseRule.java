@@ -15,13 +15,11 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Exit;
 import org.zet.cellularautomaton.ExitCell;
 import org.zet.cellularautomaton.Individual;
-import org.zet.cellularautomaton.Room;
 import org.zet.cellularautomaton.potential.Potential;
 import org.zet.cellularautomaton.results.VoidAction;
 
@@ -55,29 +53,9 @@ public class ChangePotentialBestResponseRule extends AbstractPotentialChangeRule
         Collection<ExitCell> exitCells = exit.getExitCluster();
         int exitCapacity = exitCells.size();
 
-        // calculate number of individuals that are heading to the same exit and closer to it            
-        ArrayList<Individual> otherInds = new ArrayList<>();
-        ArrayList<Room> rooms = new ArrayList<>();
-        rooms.addAll(es.getCellularAutomaton().getRooms());
-        for (Room room : rooms) {
-            for (Individual i : room.getIndividuals()) {
-                otherInds.add(i);
-            }
-        }
-        int queueLength = 0;
-        if (otherInds != null) {
-            for (Individual otherInd : otherInds) {
-                if (!otherInd.equals(ind)) {
-                    if (es.propertyFor(otherInd).getStaticPotential() == pot) {
-                        if (es.propertyFor(otherInd).getStaticPotential().getPotentialDouble(es.propertyFor(otherInd).getCell()) > 0) {
-                            if (es.propertyFor(otherInd).getStaticPotential().getPotentialDouble(es.propertyFor(otherInd).getCell()) < distance) {
-                                queueLength++;
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        // calculate number of individuals that are heading to the same exit and closer to it, without those standing
+        // on the exit itself
+        int queueLength = es.getIndividualIndex().countIndividualsBetween(pot, 0, distance);
 
         int wrongDirectedNeighbours = 0;
         for (EvacCellInterface neighbour : cell.getDirectNeighbors()) {
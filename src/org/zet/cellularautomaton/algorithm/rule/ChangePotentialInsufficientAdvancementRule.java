@@ -167,7 +167,7 @@ public class ChangePotentialInsufficientAdvancementRule extends AbstractPotentia
 
             if (promisingNeighbours > CHANGE_THRESHOLD) {
                 es.propertyFor(individual).setStaticPotential(minWayLengthPotential);
-                es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addChangedPotentialToStatistic(individual, es.getTimeStep());
+                statistics().addChangedPotentialToStatistic(individual, es.getTimeStep());
             }
         }
 
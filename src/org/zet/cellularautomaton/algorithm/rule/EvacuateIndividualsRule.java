@@ -15,6 +15,9 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
+import java.util.EnumSet;
+import java.util.Set;
+import org.zet.cellularautomaton.CellKind;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Exit;
 import org.zet.cellularautomaton.ExitCell;
@@ -41,11 +44,16 @@ public class EvacuateIndividualsRule extends AbstractEvacuationRule<ExitAction>
         //es.markIndividualForRemoval(cell.getState().getIndividual());
         // Potential needed for statistics:
         Exit exit = getNearestExit(es.getCellularAutomaton(), cell);
-        es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addExitToStatistic(cell.getState().getIndividual(), exit);
+        statistics().addExitToStatistic(cell.getState().getIndividual(), exit);
         // safetyTime etc will be set in the SaveIndividualsRule
         return new ExitAction((ExitCell)cell, es.getTimeStep());
     }
 
+    @Override
+    public Set<CellKind> getCellKinds() {
+        return EnumSet.of(CellKind.EXIT);
+    }
+
     /**
      * Evacuation rule is applicable if the cell it is standing on is an exit cell. Additionally, as for all evacuation
      * rules the cell must be occupied by an individual.
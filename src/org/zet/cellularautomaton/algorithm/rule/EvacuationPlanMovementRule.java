@@ -18,7 +18,10 @@ package org.zet.cellularautomaton.algorithm.rule;
 import java.util.Iterator;
 import java.util.List;
 import evacuationplan.CellularAutomatonDirectionChecker;
+import evacuationplan.CompiledDirectionChecker;
+import evacuationplan.DirectionMasks;
 import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
 
 public class EvacuationPlanMovementRule extends WaitingMovementRule {
 
@@ -31,11 +34,18 @@ public class EvacuationPlanMovementRule extends WaitingMovementRule {
     @Override
     protected List<EvacCellInterface> computePossibleTargets(EvacCellInterface fromCell, boolean onlyFreeNeighbours) {
         List<EvacCellInterface> targets = super.computePossibleTargets(fromCell, onlyFreeNeighbours);
+        Individual individual = fromCell.getState().getIndividual();
+        DirectionMasks masks = checker instanceof CompiledDirectionChecker
+                ? ((CompiledDirectionChecker) checker).getMasks(individual) : null;
+        int mask = masks == null ? -1 : masks.getMask(fromCell);
         Iterator<EvacCellInterface> it = targets.iterator();
         while (it.hasNext()) {
             EvacCellInterface cell = it.next();
             if (cell != fromCell) {
-                if (!checker.canPass(fromCell.getState().getIndividual(), fromCell, cell)) {
+                int bit = DirectionMasks.bit(fromCell, cell);
+                boolean canPass = mask != -1 && bit != 0 ? (mask & bit) != 0
+                        : checker.canPass(individual, fromCell, cell);
+                if (!canPass) {
                     it.remove();
                 }
             }
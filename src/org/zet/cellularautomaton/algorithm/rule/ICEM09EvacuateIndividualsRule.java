@@ -15,6 +15,9 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
+import java.util.EnumSet;
+import java.util.Set;
+import org.zet.cellularautomaton.CellKind;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Exit;
 import org.zet.cellularautomaton.Individual;
@@ -29,11 +32,16 @@ public class ICEM09EvacuateIndividualsRule extends AbstractEvacuationRule {
     protected VoidAction onExecute(EvacCellInterface cell) {
         // Potential needed for statistics:
         Exit exit = getNearestExit(es.getCellularAutomaton(), cell );
-        es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addExitToStatistic( cell.getState().getIndividual(), exit );
+        statistics().addExitToStatistic( cell.getState().getIndividual(), exit );
         // safetyTime etc will be set in the SaveIndividualsRule
         return VoidAction.VOID_ACTION;
     }
 
+    @Override
+    public Set<CellKind> getCellKinds() {
+        return EnumSet.of(CellKind.EXIT);
+    }
+
     @Override
     public boolean executableOn(EvacCellInterface cell) {
         Individual i = cell.getState().getIndividual();
@@ -15,10 +15,11 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
+import org.zet.cellularautomaton.RandomSource;
 import org.zet.cellularautomaton.results.IndividualStateChangeAction;
-import org.zetool.rndutils.RandomUtils;
 import java.util.List;
 import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.algorithm.computation.ICEM09Computation;
 import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.results.MoveAction;
 import org.zet.cellularautomaton.results.VoidAction;
@@ -75,11 +76,18 @@ public class ICEM09MovementRule extends SimpleMovementRule2 {
 
         double p[] = new double[targets.size()];
 
-        for (int i = 0; i < targets.size(); i++) {
-            p[i] = Math.exp(c.effectivePotential(ind, targets.get(i), es::getDynamicPotential));
+        if (c instanceof ICEM09Computation) {
+            ICEM09Computation computation = (ICEM09Computation) c;
+            for (int i = 0; i < targets.size(); i++) {
+                p[i] = computation.effectiveWeight(ind, targets.get(i));
+            }
+        } else {
+            for (int i = 0; i < targets.size(); i++) {
+                p[i] = Math.exp(c.effectivePotential(ind, targets.get(i), es::getDynamicPotential));
+            }
         }
 
-        int number = RandomUtils.getInstance().chooseRandomlyAbsolute(p);
+        int number = random(ind, RandomSource.Purpose.TARGET_SELECTION).chooseRandomlyAbsolute(p);
         return targets.get(number);
     }
 }
@@ -20,7 +20,7 @@ import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.results.SaveAction;
 
 /**
- * Sets an individual save. The time is stored in the cellular automaton statistic. This rule is supposed to be called
+ * Sets an individual save. The time is stored in the cellular automaton statistic when the action is executed. This rule is supposed to be called
  * bevore the {@link ICEM09EvacuateIndividualsRule}.
  */
 public class ICEM09SaveIndividualsRule extends AbstractSaveRule {
@@ -34,8 +34,7 @@ public class ICEM09SaveIndividualsRule extends AbstractSaveRule {
     @Override
     protected SaveAction onExecute(EvacCellInterface cell) {
         Individual savedIndividual = cell.getState().getIndividual();
-        if (!(es.propertyFor(savedIndividual).isSafe())) {            
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addSafeIndividualToStatistic(savedIndividual);
+        if (!(es.propertyFor(savedIndividual).isSafe())) {
             return new SaveAction(savedIndividual, es.getTimeStep());
         }
         return null;
@@ -101,10 +101,10 @@ public class InitialConcretePotentialRule extends AbstractInitialRule {
                 }
             }
             es.propertyFor(individual).setStaticPotential(ca.getPotentialFor(potentialToLengthOfWayMapper.get(best)));
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addMinDistancesToStatistic(individual, minDistanceToEvacArea, ca.getPotentialFor(potentialToLengthOfWayMapper.get(best)).getPotentialDouble(cell));
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addChangedPotentialToStatistic(individual, 0);
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addExhaustionToStatistic(individual, 0, es.propertyFor(individual).getExhaustion());
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addPanicToStatistic(individual, 0, es.propertyFor(individual).getPanic());
+            statistics().addMinDistancesToStatistic(individual, minDistanceToEvacArea, ca.getPotentialFor(potentialToLengthOfWayMapper.get(best)).getPotentialDouble(cell));
+            statistics().addChangedPotentialToStatistic(individual, 0);
+            statistics().addExhaustionToStatistic(individual, 0, es.propertyFor(individual).getExhaustion());
+            statistics().addPanicToStatistic(individual, 0, es.propertyFor(individual).getPanic());
         }
         
         return VoidAction.VOID_ACTION;
@@ -102,6 +102,6 @@ public class InitialPotentialExitMappingRule extends AbstractInitialRule {
      * @param cell the cell the rule is executed on, containing an individual
      */
     protected void handleWithoutTarget(EvacCellInterface cell) {
-        InitialPotentialShortestPathRule.assignShortestPathPotential(cell, this.es);
+        InitialPotentialShortestPathRule.assignShortestPathPotential(cell, this.es, statistics());
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
+import org.zet.cellularautomaton.RandomSource;
 import java.util.ArrayList;
 import org.zet.cellularautomaton.DeathCause;
 import org.zet.cellularautomaton.EvacCellInterface;
@@ -22,7 +23,6 @@ import org.zet.cellularautomaton.potential.Potential;
 import org.zet.cellularautomaton.results.Action;
 import org.zet.cellularautomaton.results.DieAction;
 import org.zet.cellularautomaton.results.VoidAction;
-import org.zetool.rndutils.RandomUtils;
 
 /**
  * Sets a random exit to an individual.
@@ -43,8 +43,8 @@ public class InitialPotentialRandomRule extends AbstractInitialRule {
             return new DieAction(cell, DeathCause.EXIT_UNREACHABLE, cell.getState().getIndividual());
         } else {
             int numberOfExits = exits.size();
-            RandomUtils random = RandomUtils.getInstance();
-            int randomExitNumber = random.getRandomGenerator().nextInt(numberOfExits);
+            int randomExitNumber = random(cell.getState().getIndividual(),
+                    RandomSource.Purpose.POTENTIAL_SELECTION).nextInt(numberOfExits);
             es.propertyFor(cell.getState().getIndividual()).setStaticPotential(exits.get(randomExitNumber));
         }
         return VoidAction.VOID_ACTION;
@@ -24,6 +24,7 @@ import org.zet.cellularautomaton.potential.Potential;
 import org.zet.cellularautomaton.potential.StaticPotential;
 import org.zet.cellularautomaton.results.Action;
 import org.zet.cellularautomaton.results.DieAction;
+import org.zet.cellularautomaton.statistic.StatisticSink;
 
 /**
  * This rule chooses an Individual's (the one standing on the current cell) initial StaticPotential according to the
@@ -46,10 +47,11 @@ public class InitialPotentialShortestPathRule extends AbstractInitialRule {
      */
     @Override
     protected Action onExecute(EvacCellInterface cell) {
-        return assignShortestPathPotential(cell, this.es);
+        return assignShortestPathPotential(cell, this.es, statistics());
     }
 
-    public static Action assignShortestPathPotential(EvacCellInterface cell, EvacuationState es) {
+    public static Action assignShortestPathPotential(EvacCellInterface cell, EvacuationState es,
+            StatisticSink statistics) {
         Individual individual = cell.getState().getIndividual();
         Potential initialPotential = new StaticPotential();
         double minDistanceToEvacArea = Double.POSITIVE_INFINITY;
@@ -72,10 +74,10 @@ public class InitialPotentialShortestPathRule extends AbstractInitialRule {
         }
 
         es.propertyFor(individual).setStaticPotential(initialPotential);
-        //es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addMinDistancesToStatistic(individual, minDistanceToEvacArea, initialPotential.getPotential(cell));
-        es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addChangedPotentialToStatistic(individual, 0);
-        es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addExhaustionToStatistic(individual, 0, es.propertyFor(individual).getExhaustion());
-        es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addPanicToStatistic(individual, 0, es.propertyFor(individual).getPanic());
+        //statistics.addMinDistancesToStatistic(individual, minDistanceToEvacArea, initialPotential.getPotential(cell));
+        statistics.addChangedPotentialToStatistic(individual, 0);
+        statistics.addExhaustionToStatistic(individual, 0, es.propertyFor(individual).getExhaustion());
+        statistics.addPanicToStatistic(individual, 0, es.propertyFor(individual).getPanic());
         return null;
     }
 }
@@ -0,0 +1,119 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.algorithm.rule;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.algorithm.computation.Computation;
+
+/**
+ * Stores the effective potentials and the resulting weights {@code exp(potential)} of the cells evaluated during one
+ * movement decision of an individual. The values are computed once and then shared by the target selection, the
+ * ordering of the neighbours and the panic update. The cells are stored in small arrays that are searched linearly, as
+ * the neighbourhood of a cell contains at most a few cells. Cells connected by teleport or stair cells do not have a
+ * {@link org.zetool.common.util.Direction8 direction}, so the cells themselves are used as key.
+ *
+ * The stored values are only valid for one decision and have to be {@link #reset(Individual, EvacCellInterface) reset}
+ * when a new decision starts, because the potentials change over time.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+final class NeighbourhoodEvaluation {
+
+    private static final int INITIAL_CAPACITY = 9;
+    private Individual individual;
+    private EvacCellInterface referenceCell;
+    private EvacCellInterface[] cells = new EvacCellInterface[INITIAL_CAPACITY];
+    private double[] potentials = new double[INITIAL_CAPACITY];
+    private double[] weights = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Starts a new decision for an individual standing on a cell. All previously stored values are discarded.
+     *
+     * @param individual the individual
+     * @param referenceCell the cell of the individual
+     */
+    void reset(Individual individual, EvacCellInterface referenceCell) {
+        Arrays.fill(cells, 0, size, null);
+        size = 0;
+        this.individual = individual;
+        this.referenceCell = referenceCell;
+    }
+
+    /**
+     * Checks whether the stored values belong to the current decision of an individual on a cell. If not, the values are
+     * reset.
+     *
+     * @param individual the individual
+     * @param referenceCell the cell of the individual
+     */
+    void resetIfChanged(Individual individual, EvacCellInterface referenceCell) {
+        if (this.individual != individual || this.referenceCell != referenceCell) {
+            reset(individual, referenceCell);
+        }
+    }
+
+    /**
+     * Returns the effective potential of a target cell for the current individual. The value is computed only once per
+     * decision.
+     *
+     * @param target the target cell
+     * @param c the computation used to compute the effective potential
+     * @param dynamicPotential the dynamic potential
+     * @return the effective potential of the target cell
+     */
+    double effectivePotential(EvacCellInterface target, Computation c,
+            Function<EvacCellInterface, Double> dynamicPotential) {
+        return potentials[indexOf(target, c, dynamicPotential)];
+    }
+
+    /**
+     * Returns the weight {@code exp(effectivePotential)} of a target cell for the current individual. The value is
+     * computed only once per decision.
+     *
+     * @param target the target cell
+     * @param c the computation used to compute the effective potential
+     * @param dynamicPotential the dynamic potential
+     * @return the weight of the target cell
+     */
+    double weight(EvacCellInterface target, Computation c, Function<EvacCellInterface, Double> dynamicPotential) {
+        int index = indexOf(target, c, dynamicPotential);
+        if (Double.isNaN(weights[index])) {
+            weights[index] = Math.exp(potentials[index]);
+        }
+        return weights[index];
+    }
+
+    private int indexOf(EvacCellInterface target, Computation c, Function<EvacCellInterface, Double> dynamicPotential) {
+        for (int k = 0; k < size; ++k) {
+            if (cells[k] == target) {
+                return k;
+            }
+        }
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, 2 * size);
+            potentials = Arrays.copyOf(potentials, 2 * size);
+            weights = Arrays.copyOf(weights, 2 * size);
+        }
+        cells[size] = target;
+        potentials[size] = c.effectivePotential(individual, target, dynamicPotential);
+        weights[size] = Double.NaN;
+        return size++;
+    }
+}
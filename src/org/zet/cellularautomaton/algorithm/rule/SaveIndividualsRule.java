@@ -41,7 +41,6 @@ public class SaveIndividualsRule extends AbstractSaveRule {
                 setExitPotential((SaveCell) cell, savedIndividual);
             }
             return new SaveAction(savedIndividual, es.getTimeStep());
-            //es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addSafeIndividualToStatistic(savedIndividual);
         }
         return null;
     }
@@ -52,11 +51,11 @@ public class SaveIndividualsRule extends AbstractSaveRule {
             es.propertyFor(savedIndividual).setStaticPotential(es.getCellularAutomaton().getSafePotential());
         } else {
             if (es.propertyFor(savedIndividual).getStaticPotential() != correspondingExitPotential) {
-                es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addChangedPotentialToStatistic(savedIndividual, es.getTimeStep());
+                statistics().addChangedPotentialToStatistic(savedIndividual, es.getTimeStep());
                 es.propertyFor(savedIndividual).setStaticPotential(correspondingExitPotential);
             }
             //TODO: exit for the save potential?
-            //es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addExitToStatistic(savedIndividual, correspondingExitPotential);
+            //statistics().addExitToStatistic(savedIndividual, correspondingExitPotential);
         }
     }
 
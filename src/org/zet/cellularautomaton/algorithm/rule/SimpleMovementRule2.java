@@ -15,11 +15,10 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
+import org.zet.cellularautomaton.RandomSource;
 import java.util.Collections;
 import java.util.List;
 import org.zetool.common.util.Direction8;
-import org.zetool.rndutils.RandomUtils;
-import org.zetool.rndutils.generators.GeneralRandom;
 import org.zet.cellularautomaton.DoorCell;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Individual;
@@ -41,17 +40,13 @@ public class SimpleMovementRule2 extends SmoothMovementRule {
     public MoveAction move(EvacCellInterface from, EvacCellInterface targetCell) {
         if (es.propertyFor(individual).getCell().equals(targetCell)) {
             // We do not actually move
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals()
-                    .addWaitedTimeToStatistic(individual, es.getTimeStep());
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForCells()
-                    .addCellToWaitingStatistic(targetCell, es.getTimeStep());
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForCells()
-                    .addCellToUtilizationStatistic(targetCell, es.getTimeStep());
+            statistics().addWaitedTimeToStatistic(individual, es.getTimeStep());
+            statistics().addCellToWaitingStatistic(targetCell, es.getTimeStep());
+            statistics().addCellToUtilizationStatistic(targetCell, es.getTimeStep());
             return noMove(from);
         } else {
             // We actually move
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForCells()
-                    .addCellToUtilizationStatistic(targetCell, es.getTimeStep());
+            statistics().addCellToUtilizationStatistic(targetCell, es.getTimeStep());
             PropertyUpdate update = initializeMove(from, targetCell);
             performMove(from, targetCell);
             setMoveRuleCompleted(false);
@@ -78,7 +73,7 @@ public class SimpleMovementRule2 extends SmoothMovementRule {
     @Override
     protected MoveAction noMove(EvacCellInterface cell) {
         setMoveRuleCompleted(false);
-        es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addCurrentSpeedToStatistic(individual, es.getTimeStep(), 0);
+        statistics().addCurrentSpeedToStatistic(individual, es.getTimeStep(), 0);
         final double stepStartTime = es.propertyFor(individual).getStepEndTime();
         final double stepEndTime = stepStartTime + 1;
         PropertyUpdate update = new PropertyUpdateBuilder().withDirection(getDirection()).createUpdate();
@@ -116,8 +111,7 @@ public class SimpleMovementRule2 extends SmoothMovementRule {
             return ret;
         }
 
-        GeneralRandom rnd = (RandomUtils.getInstance()).getRandomGenerator();
-        int randomDirection = rnd.nextInt(5);
+        int randomDirection = random(individual, RandomSource.Purpose.DIRECTION).nextInt(5);
         return possible[randomDirection];
     }
 
@@ -172,8 +166,8 @@ public class SimpleMovementRule2 extends SmoothMovementRule {
     protected void performMove(EvacCellInterface from, EvacCellInterface targetCell) {
         from.setOccupiedUntil(es.propertyFor(individual).getStepEndTime());
         //ec.move(from, targetCell);
-        es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addCurrentSpeedToStatistic(individual, es.getTimeStep(), speed * sp.getSecondsPerStep());
-        es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addCoveredDistanceToStatistic(individual, (int) Math.ceil(es.propertyFor(individual).getStepEndTime()), dist);
+        statistics().addCurrentSpeedToStatistic(individual, es.getTimeStep(), speed * sp.getSecondsPerStep());
+        statistics().addCoveredDistanceToStatistic(individual, (int) Math.ceil(es.propertyFor(individual).getStepEndTime()), dist);
     }
 
     /**
@@ -1,5 +1,8 @@
 package org.zet.cellularautomaton.algorithm.rule;
 
+import java.util.EnumSet;
+import java.util.Set;
+import org.zet.cellularautomaton.CellKind;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.ExitCell;
 import org.zet.cellularautomaton.Individual;
@@ -41,6 +44,16 @@ public abstract class SmoothMovementRule extends AbstractMovementRule {
         return !(cell instanceof ExitCell) && !cell.getState().isEmpty();
     }
 
+    /**
+     * Returns all kinds of cells except of exit cells, on which individuals do not move any more.
+     *
+     * @return all kinds of cells except of exit cells
+     */
+    @Override
+    public Set<CellKind> getCellKinds() {
+        return EnumSet.complementOf(EnumSet.of(CellKind.EXIT));
+    }
+
     @Override
     protected MoveAction onExecute(EvacCellInterface cell) {
         individual = cell.getState().getIndividual();
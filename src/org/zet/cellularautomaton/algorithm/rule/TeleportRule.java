@@ -1,5 +1,8 @@
 package org.zet.cellularautomaton.algorithm.rule;
 
+import java.util.EnumSet;
+import java.util.Set;
+import org.zet.cellularautomaton.CellKind;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.TeleportCell;
 import org.zet.cellularautomaton.results.MoveAction;
@@ -10,6 +13,11 @@ import org.zet.cellularautomaton.results.MoveAction;
  */
 public class TeleportRule extends AbstractMoveRule {
 
+    @Override
+    public Set<CellKind> getCellKinds() {
+        return EnumSet.of(CellKind.TELEPORT);
+    }
+
     @Override
     public boolean executableOn(EvacCellInterface cell) {
         if (cell instanceof TeleportCell && super.executableOn(cell)) {
@@ -15,12 +15,12 @@
  */
 package org.zet.cellularautomaton.algorithm.rule;
 
+import org.zet.cellularautomaton.RandomSource;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
+import java.util.function.Function;
 import org.zetool.common.util.Direction8;
-import org.zetool.rndutils.RandomUtils;
 import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.algorithm.state.PropertyUpdate;
@@ -35,6 +35,8 @@ import org.zet.cellularautomaton.results.MoveAction;
 public class WaitingMovementRule extends SimpleMovementRule2 {
 
     private static final double DIRECTION_BOOST_FACTOR = 10.5;
+    /** The effective potentials computed during the current movement decision. */
+    private final NeighbourhoodEvaluation neighbourhood = new NeighbourhoodEvaluation();
 
     /**
      * Decides randomly if an individual idles.
@@ -44,7 +46,7 @@ public class WaitingMovementRule extends SimpleMovementRule2 {
      */
     @Override
     boolean wishToMove() {
-        double randomNumber = RandomUtils.getInstance().getRandomGenerator().nextDouble();
+        double randomNumber = random(individual, RandomSource.Purpose.MOVE_DECISION).nextDouble();
         return (c.idleThreshold(individual) <= randomNumber);
     }
 
@@ -54,8 +56,7 @@ public class WaitingMovementRule extends SimpleMovementRule2 {
 
         if (es.propertyFor(individual).isAlarmed()) {
             double newExhaustion = updateExhaustion(individual, cell);
-            PropertyUpdate update = PropertyUpdate.extend(a.getPropertyUpdate()).withExhaustion(newExhaustion).createUpdate();
-            return new MoveAction(a, update);
+            PropertyUpdate.amend(a.getPropertyUpdate()).withExhaustion(newExhaustion).createUpdate();
         }
         return a;
     }
@@ -66,15 +67,16 @@ public class WaitingMovementRule extends SimpleMovementRule2 {
         double newPanic = updatePanic(ind, targetCell);
         double newExhaustion = updateExhaustion(ind, targetCell);
         MoveAction a = super.move(from, targetCell);
-        PropertyUpdate update = PropertyUpdate.extend(a.getPropertyUpdate()).withPanic(newPanic).withExhaustion(newExhaustion).createUpdate();
-        return new MoveAction(a, update);
+        PropertyUpdate.amend(a.getPropertyUpdate()).withPanic(newPanic).withExhaustion(newExhaustion).createUpdate();
+        neighbourhood.reset(null, null);
+        return a;
     }
 
     protected double updatePanic(Individual individual, EvacCellInterface targetCell) {
         double oldPanic = es.propertyFor(individual).getPanic();
         double newPanic = c.updatePanic(individual, targetCell, this.neighboursByPriority(es.propertyFor(individual).getCell()));
         if (oldPanic != newPanic) {
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addPanicToStatistic(individual, es.getTimeStep(), es.propertyFor(individual).getPanic());
+            statistics().addPanicToStatistic(individual, es.getTimeStep(), es.propertyFor(individual).getPanic());
         }
         return newPanic;
     }
@@ -93,32 +95,22 @@ public class WaitingMovementRule extends SimpleMovementRule2 {
      * according to their potential computed by {@code mergePotential}.
      */
     protected ArrayList<EvacCellInterface> neighboursByPriority(EvacCellInterface cell) {
-        class CellPrioritySorter implements Comparator<EvacCellInterface> {
-
-            final EvacCellInterface referenceCell;
-
-            CellPrioritySorter(EvacCellInterface referenceCell) {
-                this.referenceCell = referenceCell;
-            }
-
-            @Override
-            public int compare(EvacCellInterface cell1, EvacCellInterface cell2) {
-                Individual ind = referenceCell.getState().getIndividual();
-
-                final double potential1 = c.effectivePotential(ind, cell1, es::getDynamicPotential);
-                final double potential2 = c.effectivePotential(ind, cell2, es::getDynamicPotential);
-                if (potential1 < potential2) {
-                    return -1;
-                } else if (potential1 == potential2) {
-                    return 0;
-                } else {
-                    return 1;
-                }
-            }
-        }
+        Individual ind = cell.getState().getIndividual();
+        neighbourhood.resetIfChanged(ind, cell);
+        Function<EvacCellInterface, Double> dynamicPotential = es::getDynamicPotential;
 
         ArrayList<EvacCellInterface> result = new ArrayList<>(cell.getNeighbours());
-        Collections.sort(result, new CellPrioritySorter(cell));
+        Collections.sort(result, (cell1, cell2) -> {
+            final double potential1 = neighbourhood.effectivePotential(cell1, c, dynamicPotential);
+            final double potential2 = neighbourhood.effectivePotential(cell2, c, dynamicPotential);
+            if (potential1 < potential2) {
+                return -1;
+            } else if (potential1 == potential2) {
+                return 0;
+            } else {
+                return 1;
+            }
+        });
         return result;
     }
 
@@ -126,7 +118,7 @@ public class WaitingMovementRule extends SimpleMovementRule2 {
      * Given a starting cell, this method picks one of its reachable neighbors at random. The
      * {@literal i}th neighbor is chosen with probability
      * {@code p(i) := N * exp[mergePotentials(i, cell)]} where {@literal N} is a constant used for
-     * normalization.
+     * normalization. The effective potentials are stored and reused when the individual moves.
      *
      * @param cell The starting cell
      * @return A neighbor of {@code cell} chosen at random.
@@ -142,9 +134,10 @@ public class WaitingMovementRule extends SimpleMovementRule2 {
         double max = Integer.MIN_VALUE;
         int max_index = 0;
 
-        Individual ind = cell.getState().getIndividual();
+        neighbourhood.reset(cell.getState().getIndividual(), cell);
+        Function<EvacCellInterface, Double> dynamicPotential = es::getDynamicPotential;
         for (int i = 0; i < targets.size(); i++) {
-            p[i] = Math.exp(c.effectivePotential(ind, targets.get(i), es::getDynamicPotential));
+            p[i] = neighbourhood.weight(targets.get(i), c, dynamicPotential);
             if (p[i] > max) {
                 max = p[i];
                 max_index = i;
@@ -182,7 +175,8 @@ public class WaitingMovementRule extends SimpleMovementRule2 {
             }
         }// end if inSameRoom
 
-        int number = RandomUtils.getInstance().chooseRandomlyAbsolute(p);
+        int number = random(cell.getState().getIndividual(), RandomSource.Purpose.TARGET_SELECTION)
+                .chooseRandomlyAbsolute(p);
         return targets.get(number);
     }
 
@@ -197,7 +191,7 @@ public class WaitingMovementRule extends SimpleMovementRule2 {
         double oldExhaustion = es.propertyFor(individual).getExhaustion();
         double newExhaustion = c.updateExhaustion(individual, targetCell);
         if (oldExhaustion != newExhaustion) {
-            es.getStatisticWriter().getStoredCAStatisticResults().getStoredCAStatisticResultsForIndividuals().addExhaustionToStatistic(individual, es.getTimeStep(), newExhaustion);
+            statistics().addExhaustionToStatistic(individual, es.getTimeStep(), newExhaustion);
         }
         return newExhaustion;
     }
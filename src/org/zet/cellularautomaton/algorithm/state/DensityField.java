@@ -0,0 +1,273 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.algorithm.state;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Room;
+
+/**
+ * The local crowd density around each cell. The density of a cell is the number of individuals in the square of cells
+ * within a given radius around the cell in the same room, divided by the area of the cells in the square. The field
+ * counts the individuals on each cell in dense arrays for each room, entering and leaving a cell changes one counter.
+ * At the end of each step, the counts of the squares of the rooms that have changed are computed with sliding window
+ * sums along the rows and columns, which takes time linear in the size of the room regardless of the radius.
+ *
+ * The field is updated by the {@link EvacuationStateController} and while the individuals are placed initially. Rules
+ * read the densities of the last completed step through the {@link DensityView} of the {@link EvacuationState}.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class DensityField implements DensityView {
+
+    /** The area of a cell in square meters. */
+    public static final double CELL_AREA = 0.4 * 0.4;
+
+    /**
+     * The level of service of a walkway according to Fruin, depending on the density.
+     */
+    public enum LevelOfService {
+        A(0.31), B(0.43), C(0.72), D(1.08), E(2.17), F(Double.POSITIVE_INFINITY);
+
+        /** The largest density of the level in persons per square meter, exclusive. */
+        private final double maxDensity;
+
+        private LevelOfService(double maxDensity) {
+            this.maxDensity = maxDensity;
+        }
+
+        public double getMaxDensity() {
+            return maxDensity;
+        }
+
+        /**
+         * Returns the level of service for a density.
+         *
+         * @param density the density in persons per square meter
+         * @return the level of service
+         */
+        public static LevelOfService of(double density) {
+            for (LevelOfService level : values()) {
+                if (density < level.maxDensity) {
+                    return level;
+                }
+            }
+            return F;
+        }
+    }
+
+    /**
+     * The counts of the cells of one room, indexed by {@code y * width + x}.
+     */
+    private static final class Grid {
+
+        private final int width;
+        private final int height;
+        /** The current number of individuals on each cell. */
+        private final int[] occupancy;
+        /** The number of individuals within the radius of each cell at the end of the last completed step. */
+        private final int[] counts;
+        /** The number of existing cells within the radius of each cell, {@code 0} for positions without cell. */
+        private final int[] boxCells;
+        /** The sums along the rows, used while the sums of the squares are computed. */
+        private final int[] rowSums;
+        private boolean dirty;
+        private double maxDensity;
+        private double peakDensity;
+
+        private Grid(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.occupancy = new int[width * height];
+            this.counts = new int[width * height];
+            this.boxCells = new int[width * height];
+            this.rowSums = new int[width * height];
+        }
+    }
+
+    private final int radius;
+    private final double cellArea;
+    private final Map<Room, Grid> grids = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty field with the area of a cell of the cellular automaton.
+     *
+     * @param rooms the rooms
+     * @param radius the number of cells around a cell that are taken into account
+     */
+    public DensityField(Collection<? extends Room> rooms, int radius) {
+        this(rooms, radius, CELL_AREA);
+    }
+
+    /**
+     * Creates an empty field.
+     *
+     * @param rooms the rooms
+     * @param radius the number of cells around a cell that are taken into account
+     * @param cellArea the area of a cell in square meters
+     */
+    public DensityField(Collection<? extends Room> rooms, int radius, double cellArea) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius must not be negative: " + radius);
+        }
+        if (!(cellArea > 0)) {
+            throw new IllegalArgumentException("Cell area must be positive: " + cellArea);
+        }
+        this.radius = radius;
+        this.cellArea = cellArea;
+        for (Room room : rooms) {
+            int width = 0;
+            int height = 0;
+            for (EvacCellInterface cell : room.getAllCells()) {
+                width = Math.max(width, cell.getX() + 1);
+                height = Math.max(height, cell.getY() + 1);
+            }
+            Grid grid = new Grid(width, height);
+            int[] cells = new int[width * height];
+            for (EvacCellInterface cell : room.getAllCells()) {
+                cells[cell.getY() * width + cell.getX()] = 1;
+            }
+            squareSums(grid, cells, grid.boxCells);
+            grids.put(room, grid);
+        }
+    }
+
+    @Override
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Counts an individual that entered a cell. The densities change when the step is completed.
+     *
+     * @param cell the cell
+     */
+    public void add(EvacCellInterface cell) {
+        change(cell, 1);
+    }
+
+    /**
+     * Removes an individual that left a cell. The densities change when the step is completed.
+     *
+     * @param cell the cell
+     */
+    public void remove(EvacCellInterface cell) {
+        change(cell, -1);
+    }
+
+    private void change(EvacCellInterface cell, int delta) {
+        Grid grid = grids.get(cell.getRoom());
+        grid.occupancy[cell.getY() * grid.width + cell.getX()] += delta;
+        grid.dirty = true;
+    }
+
+    /**
+     * Computes the sums of the values within the radius around each position. The sums of the rows are computed with a
+     * window sliding along each row, the sums of the squares with a window sliding along each column of the row sums.
+     *
+     * @param grid the grid
+     * @param values the values of the positions
+     * @param sums the array the sums are stored in
+     */
+    private void squareSums(Grid grid, int[] values, int[] sums) {
+        int width = grid.width;
+        int height = grid.height;
+        int[] rowSums = grid.rowSums;
+        for (int y = 0; y < height; ++y) {
+            int row = y * width;
+            int sum = 0;
+            for (int x = 0; x < Math.min(radius, width); ++x) {
+                sum += values[row + x];
+            }
+            for (int x = 0; x < width; ++x) {
+                if (x + radius < width) {
+                    sum += values[row + x + radius];
+                }
+                if (x - radius - 1 >= 0) {
+                    sum -= values[row + x - radius - 1];
+                }
+                rowSums[row + x] = sum;
+            }
+        }
+        for (int x = 0; x < width; ++x) {
+            int sum = 0;
+            for (int y = 0; y < Math.min(radius, height); ++y) {
+                sum += rowSums[y * width + x];
+            }
+            for (int y = 0; y < height; ++y) {
+                if (y + radius < height) {
+                    sum += rowSums[(y + radius) * width + x];
+                }
+                if (y - radius - 1 >= 0) {
+                    sum -= rowSums[(y - radius - 1) * width + x];
+                }
+                sums[y * width + x] = sum;
+            }
+        }
+    }
+
+    @Override
+    public int getCount(EvacCellInterface cell) {
+        Grid grid = grids.get(cell.getRoom());
+        return grid.counts[cell.getY() * grid.width + cell.getX()];
+    }
+
+    @Override
+    public double getDensity(EvacCellInterface cell) {
+        Grid grid = grids.get(cell.getRoom());
+        return density(grid, cell.getY() * grid.width + cell.getX());
+    }
+
+    @Override
+    public LevelOfService getLevelOfService(EvacCellInterface cell) {
+        return LevelOfService.of(getDensity(cell));
+    }
+
+    private double density(Grid grid, int index) {
+        return grid.boxCells[index] == 0 ? 0 : grid.counts[index] / (grid.boxCells[index] * cellArea);
+    }
+
+    @Override
+    public double getMaxDensity(Room room) {
+        return grids.get(room).maxDensity;
+    }
+
+    @Override
+    public double getPeakDensity(Room room) {
+        return grids.get(room).peakDensity;
+    }
+
+    /**
+     * Completes a step or the initial placement of the individuals. The counts and the largest densities of the rooms
+     * that have changed are computed, and the largest densities are taken into account for the peak densities.
+     */
+    public void completeStep() {
+        for (Grid grid : grids.values()) {
+            if (grid.dirty) {
+                squareSums(grid, grid.occupancy, grid.counts);
+                double max = 0;
+                for (int index = 0; index < grid.counts.length; ++index) {
+                    max = Math.max(max, density(grid, index));
+                }
+                grid.maxDensity = max;
+                grid.dirty = false;
+            }
+            grid.peakDensity = Math.max(grid.peakDensity, grid.maxDensity);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.algorithm.state;
+
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.algorithm.state.DensityField.LevelOfService;
+
+/**
+ * Read access to the local crowd density around the cells as it was at the end of the last completed step. The values
+ * do not change while a step is executed, such that all rules of a step see the same densities regardless of the order
+ * in which the individuals move.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public interface DensityView {
+
+    /**
+     * Returns the number of cells around a cell that are taken into account.
+     *
+     * @return the radius of the squares around the cells
+     */
+    public int getRadius();
+
+    /**
+     * Returns the number of individuals within the radius of a cell.
+     *
+     * @param cell the cell
+     * @return the number of individuals around the cell
+     */
+    public int getCount(EvacCellInterface cell);
+
+    /**
+     * Returns the density around a cell.
+     *
+     * @param cell the cell
+     * @return the density in persons per square meter
+     */
+    public double getDensity(EvacCellInterface cell);
+
+    public LevelOfService getLevelOfService(EvacCellInterface cell);
+
+    /**
+     * Returns the largest density of the cells of a room.
+     *
+     * @param room the room
+     * @return the largest density in persons per square meter
+     */
+    public double getMaxDensity(Room room);
+
+    /**
+     * Returns the largest density of the cells of a room at the end of any completed step.
+     *
+     * @param room the room
+     * @return the peak density in persons per square meter
+     */
+    public double getPeakDensity(Room room);
+}
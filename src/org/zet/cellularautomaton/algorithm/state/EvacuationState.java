@@ -38,6 +38,21 @@ public interface EvacuationState extends PropertyAccess, Iterable<Individual> {
 
     public EvacuationCellularAutomaton getCellularAutomaton();
 
+    /**
+     * Returns the index of the individuals standing on cells, which answers queries for the individuals around a cell,
+     * in a room or following a potential.
+     *
+     * @return the index of the individuals
+     */
+    public IndividualIndex getIndividualIndex();
+
+    /**
+     * Returns the local crowd densities around the cells at the end of the last completed step.
+     *
+     * @return the densities, or {@code null} if no density field is maintained
+     */
+    public DensityView getDensityView();
+
     /**
      * Returns the mapping between individuals and exit cells.
      *
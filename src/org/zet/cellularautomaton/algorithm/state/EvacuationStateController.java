@@ -3,6 +3,8 @@ package org.zet.cellularautomaton.algorithm.state;
 import org.zet.cellularautomaton.DeathCause;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.statistic.FlowMeasurement;
+import org.zet.cellularautomaton.statistic.StatisticSink;
 
 /**
  * Provides actions to change the evacuation state. Alters the state of the simulation and of individuals and ensures
@@ -13,11 +15,45 @@ import org.zet.cellularautomaton.Individual;
 
 public class EvacuationStateController implements EvacuationStateControllerInterface {
     private final MutableEvacuationState evacuationState;
+    /** Counts the movements across measurement lines, or {@code null}. */
+    private FlowMeasurement flowMeasurement;
+    /** The density field updated when individuals enter and leave cells, or {@code null}. */
+    private DensityField densityField;
+    /** The sink receiving the individuals that are safe, or {@code null}. */
+    private StatisticSink statisticSink;
     
     public EvacuationStateController(MutableEvacuationState evacuationState) {
         this.evacuationState = evacuationState;
     }
 
+    /**
+     * Sets the measurement whose counters are increased by each move and swap.
+     *
+     * @param flowMeasurement the flow measurement, or {@code null}
+     */
+    public void setFlowMeasurement(FlowMeasurement flowMeasurement) {
+        this.flowMeasurement = flowMeasurement;
+    }
+
+    /**
+     * Sets the density field that is updated whenever an individual is added to or removed from a cell.
+     *
+     * @param densityField the density field, or {@code null}
+     */
+    public void setDensityField(DensityField densityField) {
+        this.densityField = densityField;
+    }
+
+    /**
+     * Sets the sink that is informed when an individual is safe. The individual is reported after its safety time has
+     * been set.
+     *
+     * @param statisticSink the statistic sink, or {@code null}
+     */
+    public void setStatisticSink(StatisticSink statisticSink) {
+        this.statisticSink = statisticSink;
+    }
+
     @Override
     public void move(EvacCellInterface from, EvacCellInterface to) {
         Individual i = getAndCheck(from);
@@ -26,6 +62,9 @@ public class EvacuationStateController implements EvacuationStateControllerInter
         }
         remove(i);
         add(i, to);
+        if (flowMeasurement != null) {
+            flowMeasurement.moved(from, to, evacuationState.getTimeStep());
+        }
     }
 
     @Override
@@ -39,6 +78,10 @@ public class EvacuationStateController implements EvacuationStateControllerInter
         remove(i2);
         add(i2, from);
         add(i1, to);
+        if (flowMeasurement != null) {
+            flowMeasurement.moved(from, to, evacuationState.getTimeStep());
+            flowMeasurement.moved(to, from, evacuationState.getTimeStep());
+        }
     }
     
     private Individual getAndCheck(EvacCellInterface cell) {
@@ -52,6 +95,9 @@ public class EvacuationStateController implements EvacuationStateControllerInter
         evacuationState.propertyFor(i).setCell(cell);
         cell.getState().setIndividual(i);
         cell.getRoom().addIndividual(cell, i);
+        if (densityField != null) {
+            densityField.add(cell);
+        }
     }
 
     @Override
@@ -65,6 +111,9 @@ public class EvacuationStateController implements EvacuationStateControllerInter
     public void setSafe(Individual i) {
         evacuationState.propertyFor(i).setSafetyTime(evacuationState.getStep());
         evacuationState.addToSafe(i);
+        if (statisticSink != null) {
+            statisticSink.addSafeIndividualToStatistic(i);
+        }
     }
     
     @Override
@@ -85,6 +134,9 @@ public class EvacuationStateController implements EvacuationStateControllerInter
         from.getRoom().removeIndividual(i);
         evacuationState.propertyFor(i).setCell(null);
         from.getState().removeIndividual();
+        if (densityField != null) {
+            densityField.remove(from);
+        }
 //        
 //            if(!propertyFor(i).isEvacuated()) {
 //                propertyFor(i).setEvacuationTime(evacuationState.getStep());
@@ -0,0 +1,335 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.algorithm.state;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.potential.Potential;
+
+/**
+ * An index of the individuals standing on cells, by position and by the potential they are following. The positions
+ * are stored in a uniform grid of square buckets on each floor, such that the individuals around a cell are found by
+ * visiting the few buckets overlapping the searched area. For each potential, the number of individuals following it
+ * is kept in a Fenwick tree over the potential values of their cells, discretized in steps of
+ * {@code 1 / RESOLUTION}. Thus, the number of individuals that are closer to an exit than a given value is counted in
+ * logarithmic time, only the individuals in the discretization step of the value itself are compared exactly. The
+ * index is updated by the {@link IndividualProperty} of each individual whenever its cell or its static potential
+ * changes. The discretization step each individual has been inserted into is stored, such that it is removed from the
+ * same step even if the values of the potential have changed in between.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class IndividualIndex {
+
+    /** The default side length of a bucket in cells. */
+    public static final int DEFAULT_BUCKET_SIZE = 8;
+    private static final int COORDINATE_BITS = 21;
+    private static final int COORDINATE_MASK = (1 << COORDINATE_BITS) - 1;
+
+    /** The number of discretization steps per unit of a potential value. */
+    public static final int RESOLUTION = 16;
+
+    /**
+     * Counts the individuals following one potential by the discretized potential values of their cells.
+     */
+    private static final class OrderStatistics {
+
+        /** The Fenwick tree of the counts, indexed from {@code 1}. */
+        private int[] tree = new int[64 + 1];
+        /** The individuals in each discretization step. */
+        private final Map<Integer, List<Individual>> members = new HashMap<>();
+        private int total;
+
+        private void add(int key, Individual individual, int delta) {
+            if (key + 1 >= tree.length) {
+                grow(key + 1);
+            }
+            for (int i = key + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+            total += delta;
+            if (delta > 0) {
+                members.computeIfAbsent(key, k -> new ArrayList<>()).add(individual);
+            } else {
+                List<Individual> step = members.get(key);
+                step.set(step.lastIndexOf(individual), step.get(step.size() - 1));
+                step.remove(step.size() - 1);
+            }
+        }
+
+        /**
+         * Enlarges the tree such that it contains a given index. The tree is rebuilt from the counts of the steps.
+         */
+        private void grow(int index) {
+            int length = tree.length - 1;
+            while (length < index) {
+                length *= 2;
+            }
+            tree = new int[length + 1];
+            for (Map.Entry<Integer, List<Individual>> e : members.entrySet()) {
+                tree[e.getKey() + 1] += e.getValue().size();
+            }
+            for (int i = 1; i <= length; ++i) {
+                int parent = i + (i & -i);
+                if (parent <= length) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+
+        /**
+         * Returns the number of individuals in the steps before a given step.
+         */
+        private int prefix(int key) {
+            if (key + 1 >= tree.length) {
+                return total;
+            }
+            int count = 0;
+            for (int i = key; i > 0; i -= i & -i) {
+                count += tree[i];
+            }
+            return count;
+        }
+    }
+
+    private final int bucketSize;
+    private final Function<Individual, IndividualProperty> properties;
+    private final Map<Long, List<Individual>> buckets = new HashMap<>();
+    private final Map<Potential, Set<Individual>> potentials = new HashMap<>();
+    private final Map<Potential, OrderStatistics> orderStatistics = new HashMap<>();
+    /** The potential and the discretization step each individual in the order statistics has been inserted with. */
+    private final Map<Individual, OrderKey> orderKeys = new HashMap<>();
+
+    /**
+     * The position of an individual in the order statistics.
+     */
+    private static final class OrderKey {
+
+        private final Potential potential;
+        private final int key;
+
+        private OrderKey(Potential potential, int key) {
+            this.potential = potential;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Creates an empty index with the default bucket size.
+     *
+     * @param properties provides the properties of the individuals
+     */
+    public IndividualIndex(Function<Individual, IndividualProperty> properties) {
+        this(properties, DEFAULT_BUCKET_SIZE);
+    }
+
+    /**
+     * Creates an empty index.
+     *
+     * @param properties provides the properties of the individuals
+     * @param bucketSize the side length of a bucket in cells
+     */
+    public IndividualIndex(Function<Individual, IndividualProperty> properties, int bucketSize) {
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException("Bucket size must be positive: " + bucketSize);
+        }
+        this.properties = properties;
+        this.bucketSize = bucketSize;
+    }
+
+    /**
+     * Updates the index after the cell or the potential of an individual has changed. Only individuals standing on a
+     * cell are contained in the index.
+     *
+     * @param individual the individual
+     * @param oldCell the previous cell, or {@code null}
+     * @param newCell the current cell, or {@code null}
+     * @param oldPotential the previous potential, or {@code null}
+     * @param newPotential the current potential, or {@code null}
+     */
+    void update(Individual individual, EvacCellInterface oldCell, EvacCellInterface newCell, Potential oldPotential,
+            Potential newPotential) {
+        if (oldCell == newCell && oldPotential == newPotential) {
+            return;
+        }
+        if (oldCell != newCell) {
+            if (oldCell != null) {
+                List<Individual> bucket = buckets.get(key(oldCell));
+                int index = bucket.lastIndexOf(individual);
+                bucket.set(index, bucket.get(bucket.size() - 1));
+                bucket.remove(bucket.size() - 1);
+            }
+            if (newCell != null) {
+                buckets.computeIfAbsent(key(newCell), k -> new ArrayList<>()).add(individual);
+            }
+        }
+        if (oldCell != null && oldPotential != null && (newCell == null || oldPotential != newPotential)) {
+            potentials.get(oldPotential).remove(individual);
+        }
+        if (newCell != null && newPotential != null && (oldCell == null || oldPotential != newPotential)) {
+            potentials.computeIfAbsent(newPotential, p -> new LinkedHashSet<>()).add(individual);
+        }
+        OrderKey inserted = orderKeys.remove(individual);
+        if (inserted != null) {
+            orderStatistics.get(inserted.potential).add(inserted.key, individual, -1);
+        }
+        if (newCell != null && newPotential != null && newPotential.hasValidPotential(newCell)) {
+            int key = key(newPotential.getPotentialDouble(newCell));
+            orderStatistics.computeIfAbsent(newPotential, p -> new OrderStatistics()).add(key, individual, 1);
+            orderKeys.put(individual, new OrderKey(newPotential, key));
+        }
+    }
+
+    /**
+     * Returns the discretization step of a potential value. Negative values belong to the first step, too large values
+     * to the last step.
+     */
+    private static int key(double value) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE - 2, Math.floor(value * RESOLUTION)));
+    }
+
+    private long key(EvacCellInterface cell) {
+        return key(cell.getRoom() == null ? 0 : cell.getRoom().getFloor(),
+                Math.floorDiv(cell.getAbsoluteX(), bucketSize), Math.floorDiv(cell.getAbsoluteY(), bucketSize));
+    }
+
+    private static long key(int floor, int bucketX, int bucketY) {
+        return ((long) floor << 2 * COORDINATE_BITS) | ((long) (bucketX & COORDINATE_MASK) << COORDINATE_BITS)
+                | (bucketY & COORDINATE_MASK);
+    }
+
+    /**
+     * Returns the individuals on the cells within a given number of cells around a cell on the same floor, including
+     * the individual on the cell itself.
+     *
+     * @param center the cell
+     * @param radius the maximal horizontal and vertical distance in cells
+     * @return the individuals around the cell
+     */
+    public List<Individual> getIndividuals(EvacCellInterface center, int radius) {
+        int floor = center.getRoom() == null ? 0 : center.getRoom().getFloor();
+        int x = center.getAbsoluteX();
+        int y = center.getAbsoluteY();
+        List<Individual> result = new ArrayList<>();
+        for (int bx = Math.floorDiv(x - radius, bucketSize); bx <= Math.floorDiv(x + radius, bucketSize); ++bx) {
+            for (int by = Math.floorDiv(y - radius, bucketSize); by <= Math.floorDiv(y + radius, bucketSize); ++by) {
+                List<Individual> bucket = buckets.get(key(floor, bx, by));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Individual individual : bucket) {
+                    EvacCellInterface cell = properties.apply(individual).getCell();
+                    if (Math.abs(cell.getAbsoluteX() - x) <= radius && Math.abs(cell.getAbsoluteY() - y) <= radius) {
+                        result.add(individual);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the individuals in a room. The room maintains its individuals itself.
+     *
+     * @param room the room
+     * @return the individuals in the room
+     */
+    public List<Individual> getIndividuals(Room room) {
+        return Collections.unmodifiableList(room.getIndividuals());
+    }
+
+    /**
+     * Returns the individuals standing on a cell that follow a potential.
+     *
+     * @param potential the potential
+     * @return a read-only view of the individuals following the potential
+     */
+    public Collection<Individual> getIndividuals(Potential potential) {
+        Set<Individual> individuals = potentials.get(potential);
+        return individuals == null ? Collections.emptySet() : Collections.unmodifiableSet(individuals);
+    }
+
+    /**
+     * Counts the individuals following a potential whose cell has a valid potential value smaller than a bound, that
+     * is the individuals that are closer to the exit of the potential. The number is computed in logarithmic time in
+     * the number of discretization steps plus the number of individuals in the step of the bound.
+     *
+     * @param potential the potential
+     * @param bound the exclusive upper bound of the potential value
+     * @return the number of individuals following the potential closer to the exit than the bound
+     */
+    public int countIndividuals(Potential potential, double bound) {
+        OrderStatistics statistics = orderStatistics.get(potential);
+        if (statistics == null) {
+            return 0;
+        }
+        int key = key(bound);
+        int count = statistics.prefix(key);
+        List<Individual> step = statistics.members.get(key);
+        if (step != null) {
+            for (Individual individual : step) {
+                if (potential.getPotentialDouble(properties.apply(individual).getCell()) < bound) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the individuals following a potential whose cell has a valid potential value strictly between two
+     * bounds.
+     *
+     * @param potential the potential
+     * @param lowExclusive the exclusive lower bound of the potential value
+     * @param highExclusive the exclusive upper bound of the potential value
+     * @return the number of individuals following the potential with a value between the bounds
+     */
+    public int countIndividualsBetween(Potential potential, double lowExclusive, double highExclusive) {
+        if (!(lowExclusive < highExclusive)) {
+            return 0;
+        }
+        return countIndividuals(potential, highExclusive) - countIndividuals(potential, Math.nextUp(lowExclusive));
+    }
+
+    /**
+     * Returns the individuals following a potential whose cell has a valid potential value smaller than a bound.
+     *
+     * @param potential the potential
+     * @param bound the exclusive upper bound of the potential value
+     * @return the individuals following the potential closer to the exit than the bound
+     */
+    public List<Individual> getIndividuals(Potential potential, double bound) {
+        List<Individual> result = new ArrayList<>();
+        for (Individual individual : getIndividuals(potential)) {
+            EvacCellInterface cell = properties.apply(individual).getCell();
+            if (potential.hasValidPotential(cell) && potential.getPotentialDouble(cell) < bound) {
+                result.add(individual);
+            }
+        }
+        return result;
+    }
+}
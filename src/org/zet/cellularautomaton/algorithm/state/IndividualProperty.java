@@ -46,8 +46,12 @@ public class IndividualProperty {
 
     // outdated and to delete?
     private EvacCellInterface cell;
+    private final Individual individual;
+    /** The index that is updated if the cell or the potential changes, or {@code null}. */
+    private IndividualIndex index;
 
     public IndividualProperty(Individual i) {
+        this.individual = i;
         this.relativeSpeed = i.getMaxSpeed();
         this.alarmed = false;
         this.cell = null;
@@ -132,6 +136,9 @@ public class IndividualProperty {
      * @param sp
      */
     public void setStaticPotential(Potential sp) {
+        if (index != null) {
+            index.update(individual, cell, cell, staticPotential, sp);
+        }
         this.staticPotential = sp;
     }
 
@@ -258,9 +265,22 @@ public class IndividualProperty {
      * @param c the cell
      */
     public void setCell(EvacCellInterface c) {
+        if (index != null) {
+            index.update(individual, cell, c, staticPotential, staticPotential);
+        }
         this.cell = c;
     }
 
+    /**
+     * Sets the index that is informed about changes of the cell and the potential.
+     *
+     * @param index the index
+     */
+    void setIndex(IndividualIndex index) {
+        this.index = index;
+        index.update(individual, null, cell, null, staticPotential);
+    }
+
     /**
      * Returns the {@link ds.ca.EvacCell} on which the {@code Individual} stands.
      *
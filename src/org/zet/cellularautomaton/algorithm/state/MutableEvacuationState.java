@@ -12,11 +12,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import org.zet.cellularautomaton.CounterBasedRandom;
 import org.zet.cellularautomaton.DeathCause;
 import org.zet.cellularautomaton.EvacCell;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.IndividualToExitMapping;
+import org.zet.cellularautomaton.SpatialCellIndex;
 import org.zet.cellularautomaton.potential.DynamicPotential;
 import org.zet.cellularautomaton.statistic.CAStatisticWriter;
 import org.zet.cellularautomaton.EvacuationCellularAutomaton;
@@ -64,10 +66,20 @@ public class MutableEvacuationState implements EvacuationState {
 
     /** The single DynamicPotential. */
     private final DynamicPotential dynamicPotential;
+    /** The counter based generator for the dynamic potential, or {@code null} if the process-wide one is used. */
+    private CounterBasedRandom random;
+    /** The numbers of the cells, defining the layout of the dynamic potential and the keys of its random numbers. */
+    private SpatialCellIndex cellIndex;
 
     /** A mapping that maps individuals to exits. */
     private IndividualToExitMapping individualToExitMapping;
 
+    /** The index of the individuals by position and potential, created when it is requested for the first time. */
+    private IndividualIndex individualIndex;
+
+    /** The density field of the simulation, or {@code null}. */
+    private DensityField densityField;
+
     /** Statistics writer. TODO: remove */
     public CAStatisticWriter caStatisticWriter;
 
@@ -141,7 +153,36 @@ public class MutableEvacuationState implements EvacuationState {
     }
 
     void updateDynamicPotential(double probabilityDynamicIncrease, double probabilityDynamicDecrease) {
-        dynamicPotential.update(probabilityDynamicIncrease, probabilityDynamicDecrease);
+        if (random == null) {
+            dynamicPotential.update(probabilityDynamicIncrease, probabilityDynamicDecrease);
+        } else {
+            dynamicPotential.update(probabilityDynamicIncrease, probabilityDynamicDecrease, random, currentStep,
+                    cellIndex == null ? cell -> -1 : cellIndex::indexOf);
+        }
+    }
+
+    /**
+     * Sets the numbering of the cells. The values of the dynamic potential are stored in the order of the numbers.
+     *
+     * @param cellIndex the numbering of the cells of the cellular automaton
+     */
+    public void setCellIndex(SpatialCellIndex cellIndex) {
+        this.cellIndex = cellIndex;
+        dynamicPotential.setCellIndex(cellIndex);
+    }
+
+    /**
+     * Sets a counter based generator used to update the dynamic potential. If no generator is set, the process-wide
+     * generator is used. The random numbers of a cell are keyed by its number in a {@link SpatialCellIndex}, which only
+     * depends on the geometry of the cellular automaton.
+     *
+     * @param random the generator, or {@code null}
+     */
+    public void setRandom(CounterBasedRandom random) {
+        this.random = random;
+        if (random != null && cellIndex == null && ca != null) {
+            setCellIndex(ca.getCellIndex());
+        }
     }
 
     @Override
@@ -149,6 +190,35 @@ public class MutableEvacuationState implements EvacuationState {
         return ca;
     }
 
+    /**
+     * Returns the index of the individuals. The index is created when it is requested for the first time, for example
+     * by a best response rule, and is updated afterwards whenever an individual moves or changes its potential.
+     *
+     * @return the index of the individuals
+     */
+    @Override
+    public IndividualIndex getIndividualIndex() {
+        if (individualIndex == null) {
+            individualIndex = new IndividualIndex(this::propertyFor);
+            individualProperties.values().forEach(property -> property.setIndex(individualIndex));
+        }
+        return individualIndex;
+    }
+
+    /**
+     * Sets the density field whose values of the last completed step are provided to the rules.
+     *
+     * @param densityField the density field, or {@code null}
+     */
+    public void setDensityField(DensityField densityField) {
+        this.densityField = densityField;
+    }
+
+    @Override
+    public DensityView getDensityView() {
+        return densityField;
+    }
+
 //    @Override
 //    public void markIndividualForRemoval(Individual i) {
 //        if (!getRemainingIndividuals().contains(i)) {
@@ -184,7 +254,11 @@ public class MutableEvacuationState implements EvacuationState {
         if (initialIndividuals.contains(i)) {
             throw new IllegalArgumentException("Individual with id " + i.id() + " exists already in list individuals.");
         } else {
-            individualProperties.put(i, new IndividualProperty(i));
+            IndividualProperty property = new IndividualProperty(i);
+            individualProperties.put(i, property);
+            if (individualIndex != null) {
+                property.setIndex(individualIndex);
+            }
             initialIndividuals.add(i);
             remainingIndividuals.add(i);
         }
@@ -1,7 +1,7 @@
 package org.zet.cellularautomaton.algorithm.state;
 
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.function.Consumer;
 import org.zet.cellularautomaton.DeathCause;
 import org.zet.cellularautomaton.Individual;
 import org.zetool.common.util.Direction8;
@@ -13,31 +13,43 @@ import org.zetool.common.util.Direction8;
  */
 public class PropertyUpdate {
 
+    private static final int ALARMED = 1;
+    private static final int RELATIVE_SPEED = 1 << 1;
+    private static final int EXHAUSTION = 1 << 2;
+    private static final int PANIC = 1 << 3;
+    private static final int STEP_END_TIME = 1 << 4;
+    private static final int STEP_START_TIME = 1 << 5;
+    private static final int SAFETY_TIME = 1 << 6;
+    private static final int EVACUATION_TIME = 1 << 7;
+
+    /** Bit mask of the primitive values that are set. */
+    private int present;
     /** The new alarmstatus. */
-    private Boolean alarmed = null;
+    private boolean alarmed;
     /** The new relative speed. */
-    private Double relativeSpeed = null;
+    private double relativeSpeed;
     /** The new exhaustion. */
-    private Double exhaustion = null;
+    private double exhaustion;
     /** The new panic. */
-    private Double panic = null;
+    private double panic;
     /** The (accurate) time when the move is over. */
-    private Double stepEndTime = null;
+    private double stepEndTime;
     /** The (accurate) time when the move starts. */
-    private Double stepStartTime = null;
+    private double stepStartTime;
     /** The new direction of view. */
     private Direction8 dir = Direction8.Top;
     /** The reason why the individual dies. */
     private DeathCause deathCause = null;
     /** The new time when an individual is saved. */
-    private Integer safetyTime = null;
+    private int safetyTime;
     /** The evacuation time */
-    private Integer evacuationTime = null;
+    private int evacuationTime;
 
     private PropertyUpdate() {
     }
 
     private PropertyUpdate(PropertyUpdate update) {
+        present = update.present;
         alarmed = update.alarmed;
         relativeSpeed = update.relativeSpeed;
         exhaustion = update.exhaustion;
@@ -51,48 +63,98 @@ public class PropertyUpdate {
     }
 
     public void apply(IndividualProperty ip) {
-        if (alarmed != null) {
+        if (isSet(ALARMED)) {
             ip.setAlarmed();
         }
-        applyIfPresent(ip::setRelativeSpeed, relativeSpeed);
-        applyIfPresent(ip::setExhaustion, exhaustion);
-        applyIfPresent(ip::setPanic, panic);
-        applyIfPresent(ip::setStepEndTime, stepEndTime);
-        applyIfPresent(ip::setStepStartTime, stepStartTime);
-        applyIfPresent(ip::setDirection, dir);
-        applyIfPresent(ip::setDeathCause, deathCause);
-        applyIfPresent(ip::setSafetyTime, safetyTime);
-        applyIfPresent(ip::setEvacuationTime, evacuationTime);
+        if (isSet(RELATIVE_SPEED)) {
+            ip.setRelativeSpeed(relativeSpeed);
+        }
+        if (isSet(EXHAUSTION)) {
+            ip.setExhaustion(exhaustion);
+        }
+        if (isSet(PANIC)) {
+            ip.setPanic(panic);
+        }
+        if (isSet(STEP_END_TIME)) {
+            ip.setStepEndTime(stepEndTime);
+        }
+        if (isSet(STEP_START_TIME)) {
+            ip.setStepStartTime(stepStartTime);
+        }
+        if (dir != null) {
+            ip.setDirection(dir);
+        }
+        if (deathCause != null) {
+            ip.setDeathCause(deathCause);
+        }
+        if (isSet(SAFETY_TIME)) {
+            ip.setSafetyTime(safetyTime);
+        }
+        if (isSet(EVACUATION_TIME)) {
+            ip.setEvacuationTime(evacuationTime);
+        }
     }
 
-    private <T> void applyIfPresent(Consumer<T> c, T value) {
-        if (value != null) {
-            c.accept(value);
-        }
+    private boolean isSet(int value) {
+        return (present & value) != 0;
     }
 
     public Optional<Boolean> isAlarmed() {
-        return Optional.ofNullable(alarmed);
+        return isSet(ALARMED) ? Optional.of(alarmed) : Optional.empty();
     }
 
     public Optional<Double> getRelativeSpeed() {
-        return Optional.ofNullable(relativeSpeed);
+        return isSet(RELATIVE_SPEED) ? Optional.of(relativeSpeed) : Optional.empty();
     }
 
     public Optional<Double> getExhaustion() {
-        return Optional.ofNullable(exhaustion);
+        return isSet(EXHAUSTION) ? Optional.of(exhaustion) : Optional.empty();
     }
 
     public Optional<Double> getPanic() {
-        return Optional.ofNullable(panic);
+        return isSet(PANIC) ? Optional.of(panic) : Optional.empty();
     }
 
     public Optional<Double> getStepEndTime() {
-        return Optional.ofNullable(stepEndTime);
+        return isSet(STEP_END_TIME) ? Optional.of(stepEndTime) : Optional.empty();
     }
 
     public Optional<Double> getStepStartTime() {
-        return Optional.ofNullable(stepStartTime);
+        return isSet(STEP_START_TIME) ? Optional.of(stepStartTime) : Optional.empty();
+    }
+
+    public boolean hasStepEndTime() {
+        return isSet(STEP_END_TIME);
+    }
+
+    public boolean hasStepStartTime() {
+        return isSet(STEP_START_TIME);
+    }
+
+    /**
+     * Returns the step end time without boxing.
+     *
+     * @return the step end time
+     * @throws NoSuchElementException if the step end time is not set
+     */
+    public double requireStepEndTime() {
+        if (!isSet(STEP_END_TIME)) {
+            throw new NoSuchElementException("No step end time set.");
+        }
+        return stepEndTime;
+    }
+
+    /**
+     * Returns the step start time without boxing.
+     *
+     * @return the step start time
+     * @throws NoSuchElementException if the step start time is not set
+     */
+    public double requireStepStartTime() {
+        if (!isSet(STEP_START_TIME)) {
+            throw new NoSuchElementException("No step start time set.");
+        }
+        return stepStartTime;
     }
 
     public Optional<Direction8> getDir() {
@@ -104,11 +166,11 @@ public class PropertyUpdate {
     }
 
     public Optional<Integer> getSafetyTime() {
-        return Optional.ofNullable(safetyTime);
+        return isSet(SAFETY_TIME) ? Optional.of(safetyTime) : Optional.empty();
     }
 
     public Optional<Integer> getEvacuationTime() {
-        return Optional.ofNullable(evacuationTime);
+        return isSet(EVACUATION_TIME) ? Optional.of(evacuationTime) : Optional.empty();
     }
 
     public static PropertyUpdateBuilder forMove(double stepStartTime, double stepEndTime) {
@@ -119,6 +181,17 @@ public class PropertyUpdate {
         return new PropertyUpdateBuilder(update);
     }
 
+    /**
+     * Returns a builder that changes the given update directly instead of a copy. This must only be used by the creator
+     * of the update as long as it has not been passed to anybody else.
+     *
+     * @param update the update that is changed
+     * @return a builder changing the update
+     */
+    public static PropertyUpdateBuilder amend(PropertyUpdate update) {
+        return new PropertyUpdateBuilder(update, false);
+    }
+
     public static class PropertyUpdateBuilder {
 
         private PropertyUpdate update;
@@ -128,36 +201,46 @@ public class PropertyUpdate {
         }
 
         private PropertyUpdateBuilder(PropertyUpdate update) {
-            this.update = new PropertyUpdate(update);
+            this(update, true);
+        }
+
+        private PropertyUpdateBuilder(PropertyUpdate update, boolean copy) {
+            this.update = copy ? new PropertyUpdate(update) : update;
         }
 
         public PropertyUpdateBuilder alarmed(boolean alarmed) {
             update.alarmed = alarmed;
+            update.present |= ALARMED;
             return this;
         }
 
         public PropertyUpdateBuilder withRelativeSpeed(double relativeSpeed) {
             update.relativeSpeed = relativeSpeed;
+            update.present |= RELATIVE_SPEED;
             return this;
         }
 
         public PropertyUpdateBuilder withExhaustion(double exhaustion) {
             update.exhaustion = exhaustion;
+            update.present |= EXHAUSTION;
             return this;
         }
 
         public PropertyUpdateBuilder withPanic(double panic) {
             update.panic = panic;
+            update.present |= PANIC;
             return this;
         }
 
         public PropertyUpdateBuilder withStepEndTime(double stepEndTime) {
             update.stepEndTime = stepEndTime;
+            update.present |= STEP_END_TIME;
             return this;
         }
 
         public PropertyUpdateBuilder withStepStartTime(double stepStartTime) {
             update.stepStartTime = stepStartTime;
+            update.present |= STEP_START_TIME;
             return this;
         }
 
@@ -173,11 +256,13 @@ public class PropertyUpdate {
 
         public PropertyUpdateBuilder withSafetyTime(int safetyTime) {
             update.safetyTime = safetyTime;
+            update.present |= SAFETY_TIME;
             return this;
         }
 
         public PropertyUpdateBuilder withEvacuationTime(int evacuationTime) {
             update.evacuationTime = evacuationTime;
+            update.present |= EVACUATION_TIME;
             return this;
         }
 
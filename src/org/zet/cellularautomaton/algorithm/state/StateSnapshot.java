@@ -0,0 +1,79 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.algorithm.state;
+
+import java.util.List;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+
+/**
+ * An immutable copy of the occupation and the dynamic potential of some cells at the end of a time step. The cells are
+ * identified by their position in the list of cells given when the snapshot is taken.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class StateSnapshot {
+
+    private final int timeStep;
+    /** The number of the individual on each cell, or {@code -1}. */
+    private final int[] individuals;
+    private final float[] dynamicPotential;
+
+    /**
+     * Copies the state of some cells.
+     *
+     * @param state the evacuation state providing the dynamic potential
+     * @param cells the cells
+     */
+    public StateSnapshot(EvacuationState state, List<? extends EvacCellInterface> cells) {
+        timeStep = state.getTimeStep();
+        individuals = new int[cells.size()];
+        dynamicPotential = new float[cells.size()];
+        for (int k = 0; k < individuals.length; ++k) {
+            EvacCellInterface cell = cells.get(k);
+            Individual i = cell.getState().getIndividual();
+            individuals[k] = i == null ? -1 : i.getNumber();
+            dynamicPotential[k] = (float) state.getDynamicPotential(cell);
+        }
+    }
+
+    /**
+     * Returns the time step of the evacuation state when the snapshot has been taken.
+     *
+     * @return the time step of the evacuation state
+     */
+    public int getTimeStep() {
+        return timeStep;
+    }
+
+    public int getCellCount() {
+        return individuals.length;
+    }
+
+    /**
+     * Returns the number of the individual that stood on a cell.
+     *
+     * @param index the position of the cell in the list of cells
+     * @return the number of the individual, or {@code -1} if the cell was empty
+     */
+    public int getIndividualNumber(int index) {
+        return individuals[index];
+    }
+
+    public double getDynamicPotential(int index) {
+        return dynamicPotential[index];
+    }
+}
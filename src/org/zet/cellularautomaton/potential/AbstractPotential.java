@@ -15,27 +15,52 @@
  */
 package org.zet.cellularautomaton.potential;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
+import org.zet.cellularautomaton.EvacCell;
 import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.SpatialCellIndex;
 
 /**
  * For this a HashMap associates for each EvacCell a potential as int value. It is kept abstract, because there are two
  * special kinds of potentials, such as StaticPotential and DynamicPotential.
+ *
+ * If a {@link SpatialCellIndex} is set, the values of the numbered cells are stored in an array indexed by the numbers
+ * of the cells, i.e. in the order of the cells along the Hilbert curve. Neighbouring cells thus have their values close
+ * to each other in memory. Cells that are not numbered by the index are still stored in the map. The numbers of the
+ * cells having a value are kept in a list and the number of cells having each value is counted, such that iterating
+ * the cells and updating the maximal value only depend on the number of cells having a value, not on the size of the
+ * index.
  */
 public abstract class AbstractPotential implements Potential {
     
     /** The maximum potential value returned for an empty potential. */
     public static final int INVALID = -1;
-    /** A map from cells to their potential value. */
+    /** A map from cells to their potential value, containing the cells that are not numbered by the cell index. */
     protected Map<EvacCellInterface, Double> potential;
     /** Stores the maximal value of this potential map. */
     private double maxPotential = INVALID;
+    /** The number of cells having each value, the largest key is the maximal value. */
+    private final TreeMap<Double, Integer> valueCounts = new TreeMap<>();
+    /** The numbering of the cells whose values are stored in {@link #values}, or {@code null}. */
+    private SpatialCellIndex cellIndex;
+    /** The values of the numbered cells, indexed by the number of the cell, {@code NaN} for cells without value. */
+    private double[] values = new double[0];
+    /** The numbers of the cells having a value in {@link #values}, the first {@link #occupiedCount} are valid. */
+    private int[] occupied = new int[0];
+    private int occupiedCount;
+    /** The position of each number in {@link #occupied}, {@code -1} for cells without value. */
+    private int[] positions = new int[0];
 
     /**
      * Create an empty potential.
@@ -44,6 +69,39 @@ public abstract class AbstractPotential implements Potential {
         potential = new HashMap<>();
     }
 
+    /**
+     * Sets the numbering of the cells that defines the layout of the values. The values that are already stored are
+     * kept.
+     *
+     * @param cellIndex the numbering of the cells, or {@code null} if all values are stored in the map
+     */
+    public void setCellIndex(SpatialCellIndex cellIndex) {
+        Map<EvacCellInterface, Double> stored = new HashMap<>(potential);
+        for (int k = 0; k < occupiedCount; ++k) {
+            stored.put(this.cellIndex.getCell(occupied[k]), values[occupied[k]]);
+        }
+        this.cellIndex = cellIndex;
+        int size = cellIndex == null ? 0 : cellIndex.size();
+        values = new double[size];
+        Arrays.fill(values, Double.NaN);
+        occupied = new int[size];
+        occupiedCount = 0;
+        positions = new int[size];
+        Arrays.fill(positions, -1);
+        potential.clear();
+        valueCounts.clear();
+        stored.forEach(this::putValue);
+    }
+
+    /**
+     * Returns the numbering of the cells that defines the layout of the values.
+     *
+     * @return the numbering of the cells, or {@code null} if all values are stored in the map
+     */
+    SpatialCellIndex getCellIndex() {
+        return cellIndex;
+    }
+
     /**
      * Associates the specified potential with the specified EvacCell in this AbstractPotential. If an EvacCell is
      * specified that exists already in this AbstractPotential the value will be overwritten. Otherwise a new mapping is
@@ -53,19 +111,58 @@ public abstract class AbstractPotential implements Potential {
      * @param i potential of the cell
      */
     public void setPotential(EvacCellInterface cell, double i) {
-        if (potential.containsKey(Objects.requireNonNull(cell))) {
-            Double value = potential.get(cell);
-            potential.remove(cell);
-            if (getMaxPotential() == value.intValue()) {
-                recomputeMaxPotential();
-            }
+        if (hasValidPotential(Objects.requireNonNull(cell))) {
+            removeValue(cell);
         }
-        potential.put(cell, i);
-        maxPotential = Math.max(maxPotential, i);
+        putValue(cell, i);
+        updateMaxPotential();
     }
     
-    private void recomputeMaxPotential() {
-      maxPotential = potential.values().stream().mapToDouble(x -> x).max().orElse(INVALID);
+    private void updateMaxPotential() {
+      maxPotential = valueCounts.isEmpty() ? INVALID : valueCounts.lastKey();
+    }
+
+    /**
+     * Returns the number of a cell in the cell index.
+     *
+     * @param cell the cell
+     * @return the number of the cell, or {@code -1} if the value of the cell is stored in the map
+     */
+    private int numberOf(EvacCellInterface cell) {
+        return cellIndex == null || !(cell instanceof EvacCell) ? -1 : cellIndex.indexOf(cell);
+    }
+
+    private void putValue(EvacCellInterface cell, double value) {
+        int number = numberOf(cell);
+        if (number < 0) {
+            potential.put(cell, value);
+        } else {
+            values[number] = value;
+            positions[number] = occupiedCount;
+            occupied[occupiedCount++] = number;
+        }
+        valueCounts.merge(value, 1, Integer::sum);
+    }
+
+    /**
+     * Removes the value of a cell that has a value.
+     *
+     * @param cell the cell
+     */
+    private void removeValue(EvacCellInterface cell) {
+        int number = numberOf(cell);
+        double value;
+        if (number < 0) {
+            value = potential.remove(cell);
+        } else {
+            value = values[number];
+            values[number] = Double.NaN;
+            int last = occupied[--occupiedCount];
+            occupied[positions[number]] = last;
+            positions[last] = positions[number];
+            positions[number] = -1;
+        }
+        valueCounts.computeIfPresent(value, (v, count) -> count == 1 ? null : count - 1);
     }
 
     @Override
@@ -75,8 +172,14 @@ public abstract class AbstractPotential implements Potential {
 
     @Override
     public double getPotentialDouble(EvacCellInterface cell) {
-        if (hasValidPotential(cell)) {
-            return potential.get(cell);
+        int number = numberOf(cell);
+        if (number < 0) {
+            Double value = potential.get(cell);
+            if (value != null) {
+                return value;
+            }
+        } else if (!Double.isNaN(values[number])) {
+            return values[number];
         }
         throw new IllegalArgumentException("Potential for " + cell + " not defined");
     }
@@ -99,14 +202,11 @@ public abstract class AbstractPotential implements Potential {
      * @throws IllegalArgumentException if the cell is not contained in the map
      */
     public void deleteCell(EvacCellInterface cell) {
-        if (!potential.containsKey(Objects.requireNonNull(cell))) {
+        if (!hasValidPotential(Objects.requireNonNull(cell))) {
             throw new IllegalArgumentException("The Cell must be insert previously!");
         }
-        Double value = potential.get(cell);
-        potential.remove(cell);
-        if( value.intValue() == getMaxPotential()) {
-            recomputeMaxPotential();        
-        }
+        removeValue(cell);
+        updateMaxPotential();
     }
 
     /**
@@ -120,13 +220,28 @@ public abstract class AbstractPotential implements Potential {
     public Set<EvacCellInterface> getMappedCells() {
         SortedSet<EvacCellInterface> cells = new TreeSet<>(new EvacCellComparator());
         
-        potential.keySet().stream().forEach(cell -> cells.add(cell));
+        cells().stream().forEach(cell -> cells.add(cell));
+        return cells;
+    }
+
+    /**
+     * Returns all cells which are mapped by this potential in no particular order.
+     *
+     * @return the mapped cells
+     */
+    Collection<EvacCellInterface> cells() {
+        List<EvacCellInterface> cells = new ArrayList<>(potential.size() + occupiedCount);
+        cells.addAll(potential.keySet());
+        for (int k = 0; k < occupiedCount; ++k) {
+            cells.add(cellIndex.getCell(occupied[k]));
+        }
         return cells;
     }
 
     @Override
     public boolean hasValidPotential(EvacCellInterface cell) {
-        return potential.get(cell) != null;
+        int number = numberOf(cell);
+        return number < 0 ? potential.get(cell) != null : !Double.isNaN(values[number]);
     }
     
     private static class EvacCellComparator implements Comparator<EvacCellInterface> {
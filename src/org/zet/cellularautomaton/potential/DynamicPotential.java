@@ -15,12 +15,15 @@
  */
 package org.zet.cellularautomaton.potential;
 
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import org.zet.cellularautomaton.CounterBasedRandom;
 import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.RandomSource;
 import org.zet.cellularautomaton.localization.CellularAutomatonLocalization;
 import org.zet.cellularautomaton.results.Action;
 import org.zet.cellularautomaton.results.DynamicPotentialChangeAction;
-import org.zetool.rndutils.RandomUtils;
-import org.zetool.rndutils.generators.GeneralRandom;
 
 /**
  * A DynamicPotential is a potential that additionally to handling a potential sends out messages to store the results.
@@ -89,11 +92,69 @@ public class DynamicPotential extends AbstractPotential {
      * @param decay The probability of decreasing the dynamic potential of a cell.
      */
     public void update(double diffusion, double decay) {
-        GeneralRandom rnd = RandomUtils.getInstance().getRandomGenerator();
+        RandomSource rnd = RandomSource.global();
+        update(diffusion, decay, c -> rnd);
+    }
+
+    /**
+     * Updates the values stored in the dynamic potential like {@link #update(double, double)}, but uses a counter based
+     * generator. The random numbers for each cell only depend on the position of the cell and the time step.
+     *
+     * @param diffusion The probability of increasing the dynamic potential of one neighbour cell of
+     * a cell with a dynamic potential greater than zero by one.
+     * @param decay The probability of decreasing the dynamic potential of a cell.
+     * @param random the counter based generator
+     * @param step the current time step
+     */
+    public void update(double diffusion, double decay, CounterBasedRandom random, int step) {
+        update(diffusion, decay, random, step, cell -> -1);
+    }
+
+    /**
+     * Updates the values stored in the dynamic potential using a counter based generator. The random numbers for each
+     * cell only depend on the number of the cell and the time step. Cells without number, i.e. with a negative number,
+     * are identified by their {@link #cellKey(EvacCellInterface) position}.
+     *
+     * @param diffusion The probability of increasing the dynamic potential of one neighbour cell of
+     * a cell with a dynamic potential greater than zero by one.
+     * @param decay The probability of decreasing the dynamic potential of a cell.
+     * @param random the counter based generator
+     * @param step the current time step
+     * @param cellNumber a dense numbering of the cells, e.g. a {@link org.zet.cellularautomaton.SpatialCellIndex}
+     */
+    public void update(double diffusion, double decay, CounterBasedRandom random, int step,
+            ToIntFunction<EvacCellInterface> cellNumber) {
+        CounterBasedRandom.Stream stream = random.stream();
+        update(diffusion, decay, c -> {
+            int number = cellNumber.applyAsInt(c);
+            return number < 0 ? stream.reset(step, cellKey(c), RandomSource.Purpose.DYNAMIC_POTENTIAL)
+                    : stream.reset(step, number, RandomSource.Purpose.DYNAMIC_POTENTIAL);
+        });
+    }
+
+    /**
+     * Packs the id of the room and the position of a cell into a key. The id uses the upper 32 bits and each
+     * coordinate 16 bits, thus different cells have different keys. Cells without room use the id -1.
+     *
+     * @param cell the cell
+     * @return the key of the cell
+     * @throws IllegalArgumentException if a coordinate does not fit into 16 bits
+     */
+    static long cellKey(EvacCellInterface cell) {
+        if (cell.getX() < 0 || cell.getX() > 0xffff || cell.getY() < 0 || cell.getY() > 0xffff) {
+            throw new IllegalArgumentException("Cell position out of range: " + cell.getX() + "," + cell.getY());
+        }
+        long room = cell.getRoom() == null ? -1 : cell.getRoom().getID();
+        return room << 32 | (long) cell.getX() << 16 | cell.getY();
+    }
+
+    private void update(double diffusion, double decay, Function<EvacCellInterface, RandomSource> randomFor) {
         DynamicPotential dynPot = this;
-        EvacCellInterface[] cellsCopy = dynPot.getMappedCells().toArray(new EvacCellInterface[dynPot.getMappedCells().size()]);
+        Set<EvacCellInterface> mappedCells = dynPot.getMappedCells();
+        EvacCellInterface[] cellsCopy = mappedCells.toArray(new EvacCellInterface[mappedCells.size()]);
         /* NEW CODE */
         for (EvacCellInterface c : cellsCopy) {
+            RandomSource rnd = randomFor.apply(c);
             double randomNumber = rnd.nextDouble();
             if ( /*dynPot.getPotential(c) > 0 && */diffusion > randomNumber) {
                 // Potential diffuses to a a neighbour cell. It should not increase, so
@@ -47,6 +47,11 @@ public class StaticPotential extends AbstractPotential {
     private List<ExitCell> associatedExitCells;
     /** A map from cells to their potential value. */
     private final Map<EvacCellInterface, Double> distance;
+    /**
+     * Differences and weights between neighbouring cells, created when needed. The table is immutable, the field is
+     * volatile to publish it safely to all threads sharing the potential.
+     */
+    private volatile StaticPotentialWeights weights;
 
     /**
      * Creates a StaticPotential with a automatic generated unique ID, that can not be changed.
@@ -88,6 +93,34 @@ public class StaticPotential extends AbstractPotential {
     public void setPotential(EvacCellInterface cell, double i) {
         super.setPotential(cell, i);
         distance.put(cell, i);
+        weights = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param cell the cell whose potential is removed
+     */
+    @Override
+    public void deleteCell(EvacCellInterface cell) {
+        super.deleteCell(cell);
+        weights = null;
+    }
+
+    /**
+     * Returns the table of potential differences and weights between neighbouring cells. The table is created when it
+     * is first accessed and is discarded if the potential changes. Concurrent first accesses may compute the table more
+     * than once, but each thread sees a completely initialized table.
+     *
+     * @return the table of differences and weights
+     */
+    public StaticPotentialWeights getWeights() {
+        StaticPotentialWeights result = weights;
+        if (result == null) {
+            result = new StaticPotentialWeights(this, getCellIndex(), cells());
+            weights = result;
+        }
+        return result;
     }
     
     /**
@@ -0,0 +1,202 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.potential;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import org.zet.cellularautomaton.EvacCell;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.SpatialCellIndex;
+import org.zetool.common.util.Direction8;
+
+/**
+ * A table of the differences of a {@link StaticPotential} between neighbouring cells and the resulting weights
+ * {@code exp(difference)}. As the static potential does not change during the simulation, the values are computed once
+ * when the table is created and are stored in dense {@code float} arrays, indexed by the number of the cell in a
+ * {@link SpatialCellIndex} and the ordinal of the {@link Direction8} towards the neighbour. The values of neighbouring
+ * cells are thus stored close to each other. The numbering of the potential is used if it has one, otherwise the rooms
+ * of the cells are numbered.
+ *
+ * The table is immutable after construction, thus it can be shared between threads. Neighbours that are not located in
+ * one of the eight directions in the same room (e.g. neighbours connected by teleport cells or doors) and cells that are
+ * not numbered are not stored, their values are computed from the potential.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class StaticPotentialWeights {
+
+    private static final Direction8[] DIRECTIONS = Direction8.values();
+    /** The ordinal of the direction for each offset, indexed by {@code 3 * (y + 1) + x + 1}. */
+    private static final int[] ORDINALS = new int[9];
+
+    static {
+        Arrays.fill(ORDINALS, -1);
+        for (Direction8 direction : DIRECTIONS) {
+            ORDINALS[3 * (direction.yOffset() + 1) + direction.xOffset() + 1] = direction.ordinal();
+        }
+    }
+    private final Potential potential;
+    private final SpatialCellIndex cellIndex;
+    /** The differences, indexed by {@code number * 8 + ordinal}. Missing pairs are stored as {@code NaN}. */
+    private final float[] difference;
+    /** The weights, indexed like the differences. */
+    private final float[] weight;
+
+    /**
+     * Computes the table for all cells that have a potential.
+     *
+     * @param potential the potential
+     * @param cellIndex the numbering of the cells, or {@code null} if the rooms of the cells are to be numbered
+     * @param cells the cells that have a potential
+     */
+    StaticPotentialWeights(Potential potential, SpatialCellIndex cellIndex, Collection<EvacCellInterface> cells) {
+        this.potential = potential;
+        this.cellIndex = cellIndex == null ? new SpatialCellIndex(roomsOf(cells)) : cellIndex;
+        difference = new float[this.cellIndex.size() * DIRECTIONS.length];
+        weight = new float[difference.length];
+        Arrays.fill(difference, Float.NaN);
+        Arrays.fill(weight, Float.NaN);
+        for (EvacCellInterface cell : cells) {
+            int number = numberOf(cell);
+            if (number < 0) {
+                continue;
+            }
+            int base = number * DIRECTIONS.length;
+            double cellPotential = potential.getPotential(cell);
+            for (Direction8 direction : DIRECTIONS) {
+                EvacCellInterface neighbour = cell.getNeighbor(direction);
+                if (neighbour != null && potential.hasValidPotential(neighbour)) {
+                    double d = cellPotential - potential.getPotential(neighbour);
+                    float w = (float) Math.exp(d);
+                    difference[base + direction.ordinal()] = (float) d;
+                    // weights exceeding the float range are not stored
+                    weight[base + direction.ordinal()] = Float.isInfinite(w) || w == 0 ? Float.NaN : w;
+                }
+            }
+        }
+    }
+
+    private static Collection<Room> roomsOf(Collection<EvacCellInterface> cells) {
+        Set<Room> rooms = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (EvacCellInterface cell : cells) {
+            if (inGrid(cell)) {
+                rooms.add(cell.getRoom());
+            }
+        }
+        return rooms;
+    }
+
+    /**
+     * Returns the difference {@code potential(cell) - potential(neighbour)} of the rounded potential values.
+     *
+     * @param cell the reference cell
+     * @param neighbour the neighbour cell
+     * @return the difference of the potentials of the cells
+     */
+    public double difference(EvacCellInterface cell, EvacCellInterface neighbour) {
+        int index = indexOf(cell, neighbour);
+        if (index >= 0) {
+            float d = difference[index];
+            if (!Float.isNaN(d)) {
+                return d;
+            }
+        }
+        return (double) potential.getPotential(cell) - potential.getPotential(neighbour);
+    }
+
+    /**
+     * Returns the weight {@code exp(potential(cell) - potential(neighbour))} of a neighbour.
+     *
+     * @param cell the reference cell
+     * @param neighbour the neighbour cell
+     * @return the weight of the neighbour
+     */
+    public double weight(EvacCellInterface cell, EvacCellInterface neighbour) {
+        int index = indexOf(cell, neighbour);
+        if (index >= 0) {
+            float w = weight[index];
+            if (!Float.isNaN(w)) {
+                return w;
+            }
+        }
+        return Math.exp(difference(cell, neighbour));
+    }
+
+    /**
+     * Returns the difference {@code potential(cell) - potential(neighbour)} of the rounded potential values of an
+     * arbitrary potential. For static potentials, the table of the potential is used.
+     *
+     * @param potential the potential
+     * @param cell the reference cell
+     * @param neighbour the neighbour cell
+     * @return the difference of the potentials of the cells
+     */
+    public static double differenceOf(Potential potential, EvacCellInterface cell, EvacCellInterface neighbour) {
+        if (potential instanceof StaticPotential) {
+            return ((StaticPotential) potential).getWeights().difference(cell, neighbour);
+        }
+        return (double) potential.getPotential(cell) - potential.getPotential(neighbour);
+    }
+
+    /**
+     * Returns the weight {@code exp(potential(cell) - potential(neighbour))} of a neighbour for an arbitrary potential.
+     * For static potentials, the table of the potential is used.
+     *
+     * @param potential the potential
+     * @param cell the reference cell
+     * @param neighbour the neighbour cell
+     * @return the weight of the neighbour
+     */
+    public static double weightOf(Potential potential, EvacCellInterface cell, EvacCellInterface neighbour) {
+        if (potential instanceof StaticPotential) {
+            return ((StaticPotential) potential).getWeights().weight(cell, neighbour);
+        }
+        return Math.exp((double) potential.getPotential(cell) - potential.getPotential(neighbour));
+    }
+
+    /**
+     * Returns the position of a pair of cells in the arrays, if they are neighbours in one of the eight directions.
+     *
+     * @param cell the reference cell
+     * @param neighbour the neighbour cell
+     * @return the position of the pair or {@code -1} if the pair is not stored
+     */
+    private int indexOf(EvacCellInterface cell, EvacCellInterface neighbour) {
+        if (!inGrid(cell) || !inGrid(neighbour)) {
+            return -1;
+        }
+        int x = neighbour.getX() - cell.getX();
+        int y = neighbour.getY() - cell.getY();
+        if (neighbour.getRoom() != cell.getRoom() || x < -1 || x > 1 || y < -1 || y > 1
+                || ORDINALS[3 * (y + 1) + x + 1] == -1) {
+            return -1;
+        }
+        int number = cellIndex.indexOf(cell);
+        return number < 0 ? -1 : number * DIRECTIONS.length + ORDINALS[3 * (y + 1) + x + 1];
+    }
+
+    private int numberOf(EvacCellInterface cell) {
+        return inGrid(cell) ? cellIndex.indexOf(cell) : -1;
+    }
+
+    private static boolean inGrid(EvacCellInterface cell) {
+        return cell instanceof EvacCell && cell.getRoom() != null;
+    }
+}
@@ -0,0 +1,128 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.results;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A reusable buffer for the {@link Action}s created during one step of the simulation. The storage is kept when the
+ * buffer is cleared, such that no memory is allocated once the buffer has grown to the number of actions per step.
+ * The buffer can be accessed as read-only {@link List} that reflects the current content. The list is only valid until
+ * the buffer is cleared, listeners keeping the actions have to copy them.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class ActionBuffer {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    /** The stored actions. Only the first {@code size} entries are valid. */
+    private Action[] actions;
+    /** The number of stored actions. */
+    private int size;
+    /** The read-only view of the buffer. */
+    private final List<Action> view = new ActionView();
+
+    /**
+     * Creates a new empty buffer.
+     */
+    public ActionBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new empty buffer that can store a given number of actions before it has to grow.
+     *
+     * @param initialCapacity the initial capacity
+     */
+    public ActionBuffer(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + initialCapacity);
+        }
+        actions = new Action[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Appends an action to the buffer.
+     *
+     * @param a the action
+     */
+    public void add(Action a) {
+        if (size == actions.length) {
+            actions = Arrays.copyOf(actions, 2 * size);
+        }
+        actions[size++] = Objects.requireNonNull(a, "Action must not be null.");
+    }
+
+    /**
+     * Returns the action at a given position.
+     *
+     * @param index the position
+     * @return the action
+     */
+    public Action get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return actions[index];
+    }
+
+    /**
+     * Returns the number of actions in the buffer.
+     *
+     * @return the number of actions in the buffer
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all actions. The storage is kept for the next step.
+     */
+    public void clear() {
+        Arrays.fill(actions, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Returns a read-only view of the buffer. The view reflects changes of the buffer.
+     *
+     * @return a read-only view of the buffer
+     */
+    public List<Action> asList() {
+        return view;
+    }
+
+    private class ActionView extends AbstractList<Action> implements RandomAccess {
+
+        @Override
+        public Action get(int index) {
+            return ActionBuffer.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,411 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.results;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.zet.cellularautomaton.DeathCause;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.ExitCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.algorithm.state.PropertyUpdate;
+import org.zet.cellularautomaton.algorithm.state.PropertyUpdate.PropertyUpdateBuilder;
+import org.zetool.common.util.Direction8;
+
+/**
+ * Converts {@link Action}s to compact binary records and back. Cells are stored by their position in the consecutive
+ * numbering of all cells of the rooms, individuals by their number and times as {@code float}. Each record starts
+ * with a byte denoting the type of the action.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+final class BinaryActionCodec {
+
+    private static final byte MOVE = 1;
+    private static final byte SWAP = 2;
+    private static final byte DIE = 3;
+    private static final byte EXIT = 4;
+    private static final byte SAVE = 5;
+    private static final byte STATE_CHANGE = 6;
+    private static final byte DYNAMIC_POTENTIAL = 7;
+    private static final byte REACTION = 8;
+    private static final byte VOID = 9;
+    /** The classes of the action types, the position is the type. */
+    private static final Class<?>[] TYPES = {null, MoveAction.class, SwapAction.class, DieAction.class,
+        ExitAction.class, SaveAction.class, IndividualStateChangeAction.class, DynamicPotentialChangeAction.class,
+        ReactionAction.class, VoidAction.class};
+
+    private static final int ALARMED = 1;
+    private static final int ALARMED_VALUE = 1 << 1;
+    private static final int RELATIVE_SPEED = 1 << 2;
+    private static final int EXHAUSTION = 1 << 3;
+    private static final int PANIC = 1 << 4;
+    private static final int STEP_END_TIME = 1 << 5;
+    private static final int STEP_START_TIME = 1 << 6;
+    private static final int SAFETY_TIME = 1 << 7;
+    private static final int EVACUATION_TIME = 1 << 8;
+    private static final int DIRECTION = 1 << 9;
+    private static final int DEATH_CAUSE = 1 << 10;
+    private static final Direction8[] DIRECTIONS = Direction8.values();
+    private static final DeathCause[] DEATH_CAUSES = DeathCause.values();
+
+    /** All cells in the order of their numbering. */
+    private final EvacCellInterface[] cells;
+    /** The numbers of the cells. */
+    private final Map<EvacCellInterface, Integer> cellIndex;
+    /** The individuals by their number, only required for decoding. */
+    private final Map<Integer, Individual> individuals = new HashMap<>();
+
+    /**
+     * Creates a codec for the cells of a list of rooms. The cells are numbered in the order of the rooms and the order of
+     * {@link Room#getAllCells()}, the rooms must have the same order for encoding and decoding.
+     *
+     * @param rooms the rooms
+     * @param individuals the individuals that can be decoded
+     */
+    BinaryActionCodec(Collection<Room> rooms, Collection<Individual> individuals) {
+        List<EvacCellInterface> cellList = new ArrayList<>();
+        cellIndex = new IdentityHashMap<>();
+        for (Room room : rooms) {
+            for (EvacCellInterface cell : room.getAllCells()) {
+                cellIndex.put(cell, cellList.size());
+                cellList.add(cell);
+            }
+        }
+        cells = cellList.toArray(new EvacCellInterface[cellList.size()]);
+        for (Individual i : individuals) {
+            this.individuals.put(i.getNumber(), i);
+        }
+    }
+
+    int getCellCount() {
+        return cells.length;
+    }
+
+    /**
+     * Writes the record for an action to a buffer. The buffer is enlarged if necessary.
+     *
+     * @param a the action
+     * @param buffer the buffer
+     * @return the buffer containing the record, may be a new instance
+     * @throws IllegalArgumentException if the type of the action is not supported
+     */
+    ByteBuffer encode(Action a, ByteBuffer buffer) {
+        ByteBuffer out = ensureCapacity(buffer, 128 + (a instanceof ReactionAction
+                ? 4 * ((ReactionAction) a).getIndividuals().size() : 0));
+        out.put(typeOf(a));
+        if (a instanceof MoveAction) {
+            MoveAction move = (MoveAction) a;
+            out.putInt(indexOf(move.from()));
+            out.putInt(indexOf(move.to()));
+            out.putInt(move.getIndividualNumber());
+            putUpdate(out, Optional.ofNullable(move.getPropertyUpdate())
+                    .orElseGet(() -> PropertyUpdate.forMove(move.startTime(), move.arrivalTime()).createUpdate()));
+        } else if (a instanceof SwapAction) {
+            SwapAction swap = (SwapAction) a;
+            out.putInt(indexOf(swap.cell1()));
+            out.putInt(indexOf(swap.cell2()));
+            out.putInt(swap.getIndividualNumber1());
+            out.putInt(swap.getIndividualNumber2());
+            out.putFloat((float) swap.arrivalTime1());
+            out.putFloat((float) swap.startTime1());
+            out.putFloat((float) swap.arrivalTime2());
+            out.putFloat((float) swap.startTime2());
+            putOptionalUpdate(out, swap.getCell1Update());
+            putOptionalUpdate(out, swap.getCell2Update());
+        } else if (a instanceof DieAction) {
+            DieAction die = (DieAction) a;
+            out.putInt(indexOf(die.getPlaceOfDeath()));
+            out.putInt(die.getIndividual().getNumber());
+            out.put((byte) die.getDeathCause().ordinal());
+        } else if (a instanceof ExitAction) {
+            ExitAction exit = (ExitAction) a;
+            out.putInt(indexOf(exit.getExit()));
+            out.putInt(exit.getIndividual().getNumber());
+            out.putInt(exit.getTimeStep());
+        } else if (a instanceof SaveAction) {
+            SaveAction save = (SaveAction) a;
+            out.putInt(save.getSavedIndividual().getNumber());
+            out.putInt(save.getTimeStep());
+        } else if (a instanceof IndividualStateChangeAction) {
+            IndividualStateChangeAction change = (IndividualStateChangeAction) a;
+            out.putInt(change.getIndividual().getNumber());
+            out.putFloat((float) change.getPanic());
+            out.putFloat((float) change.getExhaustion());
+            out.putFloat((float) change.getCurrentSpeed());
+            out.put((byte) (change.isAlarmed() ? 1 : 0));
+        } else if (a instanceof DynamicPotentialChangeAction) {
+            DynamicPotentialChangeAction change = (DynamicPotentialChangeAction) a;
+            out.putInt(indexOf(change.getAffectedCell()));
+            out.putFloat((float) change.getNewPotential());
+        } else if (a instanceof ReactionAction) {
+            Collection<Individual> reacting = ((ReactionAction) a).getIndividuals();
+            out.putInt(reacting.size());
+            for (Individual i : reacting) {
+                out.putInt(i.getNumber());
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Returns the type of an action as stored in the record.
+     *
+     * @param a the action
+     * @return the type of the action
+     * @throws IllegalArgumentException if the type of the action is not supported
+     */
+    static byte typeOf(Action a) {
+        for (byte type = MOVE; type < TYPES.length; ++type) {
+            if (TYPES[type].isInstance(a)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Action type not supported: " + a.getClass().getName());
+    }
+
+    /**
+     * Returns a bit mask containing the types of all actions that are instances of a given class. The bit of a type
+     * is {@code 1 << type}.
+     *
+     * @param actionType the class of the actions
+     * @return the bit mask of the types
+     */
+    static int typeMask(Class<?> actionType) {
+        int mask = 0;
+        for (byte type = MOVE; type < TYPES.length; ++type) {
+            if (actionType.isAssignableFrom(TYPES[type])) {
+                mask |= 1 << type;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Reads the record of an action from a buffer.
+     *
+     * @param in the buffer positioned at the start of a record
+     * @return the action
+     * @throws IllegalStateException if the record is corrupted
+     */
+    Action decode(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case MOVE:
+                EvacCellInterface from = cell(in.getInt());
+                EvacCellInterface to = cell(in.getInt());
+                Individual mover = individual(in.getInt());
+                return new MoveAction(from, to, mover, getUpdate(in));
+            case SWAP:
+                EvacCellInterface cell1 = cell(in.getInt());
+                EvacCellInterface cell2 = cell(in.getInt());
+                int number1 = in.getInt();
+                int number2 = in.getInt();
+                double arrival1 = in.getFloat();
+                double start1 = in.getFloat();
+                double arrival2 = in.getFloat();
+                double start2 = in.getFloat();
+                PropertyUpdate update1 = getOptionalUpdate(in);
+                PropertyUpdate update2 = getOptionalUpdate(in);
+                return new SwapAction(cell1, cell2, arrival1, start1, number1, arrival2, start2, number2, update1,
+                        update2);
+            case DIE:
+                EvacCellInterface place = cell(in.getInt());
+                Individual dead = individual(in.getInt());
+                return new DieAction(place, DEATH_CAUSES[in.get()], dead);
+            case EXIT:
+                EvacCellInterface exit = cell(in.getInt());
+                if (!(exit instanceof ExitCell)) {
+                    throw new IllegalStateException("Exit action on non-exit cell " + exit);
+                }
+                Individual leaving = individual(in.getInt());
+                return new ExitAction((ExitCell) exit, in.getInt(), leaving);
+            case SAVE:
+                Individual saved = individual(in.getInt());
+                return new SaveAction(saved, in.getInt());
+            case STATE_CHANGE:
+                Individual changed = individual(in.getInt());
+                double panic = in.getFloat();
+                double exhaustion = in.getFloat();
+                double speed = in.getFloat();
+                return new IndividualStateChangeAction(changed, panic, exhaustion, speed, in.get() != 0);
+            case DYNAMIC_POTENTIAL:
+                EvacCellInterface affected = cell(in.getInt());
+                return new DynamicPotentialChangeAction(affected, in.getFloat());
+            case REACTION:
+                int count = in.getInt();
+                List<Individual> reacting = new ArrayList<>(count);
+                for (int k = 0; k < count; ++k) {
+                    reacting.add(individual(in.getInt()));
+                }
+                return new ReactionAction(reacting);
+            case VOID:
+                return VoidAction.VOID_ACTION;
+            default:
+                throw new IllegalStateException("Unknown action type " + type + " at position " + (in.position() - 1));
+        }
+    }
+
+    private void putOptionalUpdate(ByteBuffer out, PropertyUpdate update) {
+        out.put((byte) (update == null ? 0 : 1));
+        if (update != null) {
+            putUpdate(out, update);
+        }
+    }
+
+    private PropertyUpdate getOptionalUpdate(ByteBuffer in) {
+        return in.get() == 0 ? null : getUpdate(in);
+    }
+
+    /**
+     * Writes the fields of an update that are present, preceded by flags denoting the present fields.
+     */
+    private void putUpdate(ByteBuffer out, PropertyUpdate update) {
+        int flagPosition = out.position();
+        out.putShort((short) 0);
+        int flags = 0;
+        if (update.isAlarmed().isPresent()) {
+            flags |= ALARMED | (update.isAlarmed().get() ? ALARMED_VALUE : 0);
+        }
+        flags |= putIfPresent(out, update.getRelativeSpeed(), RELATIVE_SPEED);
+        flags |= putIfPresent(out, update.getExhaustion(), EXHAUSTION);
+        flags |= putIfPresent(out, update.getPanic(), PANIC);
+        flags |= putIfPresent(out, update.getStepEndTime(), STEP_END_TIME);
+        flags |= putIfPresent(out, update.getStepStartTime(), STEP_START_TIME);
+        if (update.getSafetyTime().isPresent()) {
+            out.putInt(update.getSafetyTime().get());
+            flags |= SAFETY_TIME;
+        }
+        if (update.getEvacuationTime().isPresent()) {
+            out.putInt(update.getEvacuationTime().get());
+            flags |= EVACUATION_TIME;
+        }
+        if (update.getDir().isPresent()) {
+            out.put((byte) update.getDir().get().ordinal());
+            flags |= DIRECTION;
+        }
+        if (update.getDeathCause().isPresent()) {
+            out.put((byte) update.getDeathCause().get().ordinal());
+            flags |= DEATH_CAUSE;
+        }
+        out.putShort(flagPosition, (short) flags);
+    }
+
+    private static int putIfPresent(ByteBuffer out, Optional<Double> value, int flag) {
+        if (value.isPresent()) {
+            out.putFloat(value.get().floatValue());
+            return flag;
+        }
+        return 0;
+    }
+
+    private PropertyUpdate getUpdate(ByteBuffer in) {
+        int flags = in.getShort();
+        PropertyUpdateBuilder builder = new PropertyUpdateBuilder();
+        if ((flags & ALARMED) != 0) {
+            builder.alarmed((flags & ALARMED_VALUE) != 0);
+        }
+        if ((flags & RELATIVE_SPEED) != 0) {
+            builder.withRelativeSpeed(in.getFloat());
+        }
+        if ((flags & EXHAUSTION) != 0) {
+            builder.withExhaustion(in.getFloat());
+        }
+        if ((flags & PANIC) != 0) {
+            builder.withPanic(in.getFloat());
+        }
+        if ((flags & STEP_END_TIME) != 0) {
+            builder.withStepEndTime(in.getFloat());
+        }
+        if ((flags & STEP_START_TIME) != 0) {
+            builder.withStepStartTime(in.getFloat());
+        }
+        if ((flags & SAFETY_TIME) != 0) {
+            builder.withSafetyTime(in.getInt());
+        }
+        if ((flags & EVACUATION_TIME) != 0) {
+            builder.withEvacuationTime(in.getInt());
+        }
+        builder.withDirection((flags & DIRECTION) != 0 ? DIRECTIONS[in.get()] : null);
+        if ((flags & DEATH_CAUSE) != 0) {
+            builder.withDeathCause(DEATH_CAUSES[in.get()]);
+        }
+        return builder.createUpdate();
+    }
+
+    int indexOf(EvacCellInterface cell) {
+        Integer index = cellIndex.get(cell);
+        if (index == null) {
+            throw new IllegalArgumentException("Cell is not contained in the rooms: " + cell);
+        }
+        return index;
+    }
+
+    EvacCellInterface getCell(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Returns the individual with a given number.
+     *
+     * @param number the number of the individual
+     * @return the individual
+     * @throws IllegalStateException if the individual is unknown
+     */
+    Individual getIndividual(int number) {
+        return individual(number);
+    }
+
+    private EvacCellInterface cell(int index) {
+        if (index < 0 || index >= cells.length) {
+            throw new IllegalStateException("Invalid cell index " + index);
+        }
+        return cells[index];
+    }
+
+    private Individual individual(int number) {
+        Individual i = individuals.get(number);
+        if (i == null) {
+            throw new IllegalStateException("Unknown individual " + number);
+        }
+        return i;
+    }
+
+    /**
+     * Makes sure that at least the given number of bytes can be written to the buffer. If necessary, a larger buffer
+     * containing the written data is returned.
+     *
+     * @param buffer the buffer
+     * @param required the number of bytes to be written
+     * @return a buffer with enough remaining space
+     */
+    static ByteBuffer ensureCapacity(ByteBuffer buffer, int required) {
+        if (buffer.remaining() >= required) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + required));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
@@ -0,0 +1,330 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.results;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Vector;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.InitialConfiguration;
+
+/**
+ * A recording that reads the actions from a file written by {@link BinaryRecordingWriter}. Only the positions of the
+ * blocks are read when the recording is opened, the actions are decoded when a step of a block is accessed. Only the
+ * steps of the current block are kept in memory. If the recording contains keyframes, the state at an arbitrary time
+ * step is {@link #seek(int) restored} from the {@link #getKeyframe(int) preceding keyframe} by replaying at most the
+ * steps of one block. The types of the actions in each block are stored, such that {@link #filterAllActions(Class)} only decodes
+ * blocks containing matching actions.
+ *
+ * The cells of the recorded actions are taken from the rooms of the initial configuration, which must have the same
+ * structure as the cellular automaton that has been recorded. The individuals are resolved by their number.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class BinaryEvacuationRecording extends EvacuationRecording implements Closeable {
+
+    private final FileChannel channel;
+    private final BinaryActionCodec codec;
+    private final long[] blockPositions;
+    /** The types of the actions contained in each block. */
+    private final int[] blockTypeMasks;
+    private final int blockSteps;
+    private final int length;
+    private final Inflater inflater = new Inflater();
+    /** The index of the block that is currently decoded, or {@code -1}. */
+    private int currentBlock = -1;
+    private List<Vector<Action>> blockActions = new ArrayList<>();
+
+    /**
+     * Opens a recording.
+     *
+     * @param file the file written by a {@link BinaryRecordingWriter}
+     * @param initialConfig the initial configuration providing the cells
+     * @param individuals the individuals of the recorded simulation
+     * @throws IOException if the file cannot be read or is not a valid recording
+     */
+    public BinaryEvacuationRecording(Path file, InitialConfiguration initialConfig, Collection<Individual> individuals)
+            throws IOException {
+        super(initialConfig, new Vector<>());
+        this.codec = new BinaryActionCodec(initialConfig.getRooms(), individuals);
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, BinaryRecordingWriter.HEADER_SIZE);
+            if (header.getInt() != BinaryRecordingWriter.MAGIC) {
+                throw new IOException("Not a recording: " + file);
+            }
+            int version = header.getInt();
+            if (version != BinaryRecordingWriter.VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            int cellCount = header.getInt();
+            if (cellCount != codec.getCellCount()) {
+                throw new IOException("Recording contains " + cellCount + " cells, but the configuration contains "
+                        + codec.getCellCount());
+            }
+            blockSteps = header.getInt();
+
+            ByteBuffer trailer = read(channel.size() - BinaryRecordingWriter.TRAILER_SIZE,
+                    BinaryRecordingWriter.TRAILER_SIZE);
+            long footerPosition = trailer.getLong();
+            if (trailer.getInt() != BinaryRecordingWriter.END_MARKER) {
+                throw new IOException("Recording is incomplete: " + file);
+            }
+            ByteBuffer footer = read(footerPosition,
+                    (int) (channel.size() - BinaryRecordingWriter.TRAILER_SIZE - footerPosition));
+            blockPositions = new long[footer.getInt()];
+            blockTypeMasks = new int[blockPositions.length];
+            for (int b = 0; b < blockPositions.length; ++b) {
+                blockPositions[b] = footer.getLong();
+                blockTypeMasks[b] = footer.getInt();
+            }
+            length = footer.getInt();
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Action> Vector<T> filterAllActions(Class<? extends T> actionType) {
+        Vector<T> filteredActions = new Vector<>();
+        int typeMask = BinaryActionCodec.typeMask(actionType);
+        for (int b = 0; b < blockPositions.length; ++b) {
+            if ((blockTypeMasks[b] & typeMask) == 0) {
+                continue;
+            }
+            for (Vector<Action> actionsForStep : block(b)) {
+                for (Action action : actionsForStep) {
+                    if (actionType.isInstance(action)) {
+                        filteredActions.add((T) action);
+                    }
+                }
+            }
+        }
+        return filteredActions;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the latest keyframe that has been taken at or before a given time step. The state at the time step is
+     * obtained by replaying the steps after the time of the keyframe up to the time step, which are at most the steps of
+     * one block.
+     *
+     * @param time the time step
+     * @return the keyframe, or {@code null} if the recording contains no keyframe at or before the time step
+     */
+    public RecordingKeyframe getKeyframe(int time) {
+        if (time >= length || time < 0) {
+            throw new IndexOutOfBoundsException("Index " + time + " is not a valid timestep.");
+        }
+        for (int b = (time + 1) / blockSteps - 1; b >= 0; --b) {
+            try {
+                RecordingKeyframe keyframe = loadKeyframe(b);
+                if (keyframe != null) {
+                    return keyframe;
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Restores the occupation of the cells and the dynamic potential after a time step and makes it the current time
+     * step. The state is taken from the preceding keyframe, or from the cells of the initial configuration if there is
+     * none, and the recorded steps up to the time step are replayed. Like a replay of the actions, a move increases
+     * the dynamic potential of the target cell by one and recorded changes of the dynamic potential are applied. Random
+     * diffusion and decay of the dynamic potential are not recorded, thus the dynamic potential is only exact at the
+     * time of a keyframe.
+     *
+     * @param time the time step
+     * @return the state after the time step
+     * @throws IndexOutOfBoundsException if the time step is not contained in the recording
+     */
+    public RecordingKeyframe seek(int time) {
+        jumpToTime(time);
+        RecordingKeyframe keyframe = getKeyframe(time);
+        int[] individuals = new int[codec.getCellCount()];
+        float[] dynamicPotential = new float[codec.getCellCount()];
+        for (int k = 0; k < individuals.length; ++k) {
+            if (keyframe == null) {
+                EvacCellInterface cell = codec.getCell(k);
+                individuals[k] = cell.getState().isEmpty() ? -1 : cell.getState().getIndividual().getNumber();
+            } else {
+                individuals[k] = keyframe.getIndividualNumber(k);
+                dynamicPotential[k] = (float) keyframe.getDynamicPotential(k);
+            }
+        }
+        for (int t = keyframe == null ? 0 : keyframe.getTime() + 1; t <= time; ++t) {
+            for (Action action : actionsAt(t)) {
+                replay(action, individuals, dynamicPotential);
+            }
+        }
+        return new RecordingKeyframe(time, codec, individuals, dynamicPotential);
+    }
+
+    private void replay(Action action, int[] individuals, float[] dynamicPotential) {
+        if (action instanceof MoveAction) {
+            MoveAction move = (MoveAction) action;
+            int from = codec.indexOf(move.from());
+            int to = codec.indexOf(move.to());
+            int individual = individuals[from];
+            individuals[from] = -1;
+            individuals[to] = individual;
+            dynamicPotential[to]++;
+        } else if (action instanceof SwapAction) {
+            SwapAction swap = (SwapAction) action;
+            int cell1 = codec.indexOf(swap.cell1());
+            int cell2 = codec.indexOf(swap.cell2());
+            int individual = individuals[cell1];
+            individuals[cell1] = individuals[cell2];
+            individuals[cell2] = individual;
+        } else if (action instanceof ExitAction) {
+            individuals[codec.indexOf(((ExitAction) action).getExit())] = -1;
+        } else if (action instanceof DieAction) {
+            individuals[codec.indexOf(((DieAction) action).getPlaceOfDeath())] = -1;
+        } else if (action instanceof DynamicPotentialChangeAction) {
+            DynamicPotentialChangeAction change = (DynamicPotentialChangeAction) action;
+            dynamicPotential[codec.indexOf(change.getAffectedCell())] = (float) change.getNewPotential();
+        }
+    }
+
+    /**
+     * Returns the actions of a time step. The block containing the step is decoded if necessary.
+     *
+     * @param time the time step
+     * @return the actions of the time step
+     */
+    @Override
+    protected Vector<Action> actionsAt(int time) {
+        int b = time / blockSteps;
+        return block(b).get(time - b * blockSteps);
+    }
+
+    private List<Vector<Action>> block(int b) {
+        if (b != currentBlock) {
+            try {
+                loadBlock(b);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return blockActions;
+    }
+
+    private void loadBlock(int b) throws IOException {
+        ByteBuffer blockHeader = read(blockPositions[b], BinaryRecordingWriter.BLOCK_HEADER_SIZE);
+        blockHeader.getInt();
+        int steps = blockHeader.getInt();
+        blockHeader.getInt();
+        int rawLength = blockHeader.getInt();
+        int compressedLength = blockHeader.getInt();
+        ByteBuffer in = inflate(b, blockPositions[b] + BinaryRecordingWriter.BLOCK_HEADER_SIZE, compressedLength,
+                rawLength);
+        List<Vector<Action>> decoded = new ArrayList<>(steps);
+        for (int s = 0; s < steps; ++s) {
+            int count = in.getInt();
+            Vector<Action> actions = new Vector<>(count);
+            for (int k = 0; k < count; ++k) {
+                actions.add(codec.decode(in));
+            }
+            decoded.add(actions);
+        }
+        blockActions = decoded;
+        currentBlock = b;
+    }
+
+    private RecordingKeyframe loadKeyframe(int b) throws IOException {
+        ByteBuffer blockHeader = read(blockPositions[b], BinaryRecordingWriter.BLOCK_HEADER_SIZE);
+        int firstStep = blockHeader.getInt();
+        int steps = blockHeader.getInt();
+        blockHeader.getInt();
+        blockHeader.getInt();
+        int compressedLength = blockHeader.getInt();
+        int keyframeLength = blockHeader.getInt();
+        int keyframeCompressedLength = blockHeader.getInt();
+        if (keyframeLength == 0) {
+            return null;
+        }
+        ByteBuffer in = inflate(b, blockPositions[b] + BinaryRecordingWriter.BLOCK_HEADER_SIZE + compressedLength,
+                keyframeCompressedLength, keyframeLength);
+        int[] individuals = new int[codec.getCellCount()];
+        float[] dynamicPotential = new float[codec.getCellCount()];
+        for (int k = 0; k < individuals.length; ++k) {
+            individuals[k] = in.getInt();
+            dynamicPotential[k] = in.getFloat();
+        }
+        return new RecordingKeyframe(firstStep + steps - 1, codec, individuals, dynamicPotential);
+    }
+
+    private ByteBuffer inflate(int b, long position, int compressedLength, int rawLength) throws IOException {
+        ByteBuffer data = read(position, compressedLength);
+        byte[] raw = new byte[rawLength];
+        inflater.reset();
+        inflater.setInput(data.array(), 0, compressedLength);
+        int inflated = 0;
+        try {
+            while (inflated < rawLength && !inflater.finished()) {
+                int count = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // the compressed data ends before the block is complete
+                    break;
+                }
+                inflated += count;
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Block " + b + " is corrupted.", ex);
+        }
+        if (inflated < rawLength) {
+            throw new IOException("Block " + b + " is corrupted.");
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private ByteBuffer read(long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of recording.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+}
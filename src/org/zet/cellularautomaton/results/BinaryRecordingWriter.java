@@ -0,0 +1,318 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.results;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.EvacuationCellularAutomaton;
+import org.zet.cellularautomaton.algorithm.EvacuationCellularAutomatonAlgorithm;
+import org.zet.cellularautomaton.algorithm.EvacuationInitializationCompleteEvent;
+import org.zet.cellularautomaton.algorithm.EvacuationStepCompleteEvent;
+import org.zet.cellularautomaton.algorithm.state.StateSnapshot;
+import org.zetool.common.algorithm.AbstractAlgorithmEvent;
+import org.zetool.common.algorithm.AlgorithmListener;
+
+/**
+ * Writes the actions of a simulation step by step to a file in a compact binary format. The steps are collected in
+ * blocks of a fixed number of steps, each block is compressed and written as soon as it is complete. Thus, only one
+ * block is kept in memory. A footer containing the position of each block is written when the writer is closed. The
+ * file can be read using {@link BinaryEvacuationRecording}.
+ *
+ * The file has the following layout:
+ * <ul>
+ * <li>Header: magic number, version, number of cells, steps per block</li>
+ * <li>Blocks: first step, number of steps, types of the contained actions, uncompressed and compressed length of the
+ * actions and of the keyframe, compressed actions, compressed keyframe. The uncompressed actions contain for each step
+ * the number of actions followed by the action records. The keyframe contains the number of the individual (or
+ * {@code -1}) and the dynamic potential of each cell after the last step of the block.</li>
+ * <li>Footer: number of blocks, position and action types of each block, number of steps, position of the footer, end
+ * marker</li>
+ * </ul>
+ *
+ * The writer can be registered as listener of an algorithm. The {@link EvacuationInitializationCompleteEvent} is stored
+ * as step 0, each {@link EvacuationStepCompleteEvent} is stored at the number of its step. The actions of an event sent
+ * in a batch are stored at the last step of the batch, the other steps of the batch are stored without actions.
+ * Keyframes are only written if they are {@link #recordKeyframes(EvacuationCellularAutomatonAlgorithm) requested} from
+ * the algorithm, which then attaches a {@link StateSnapshot} to the event of the step completing each block, including
+ * the initialization if a block contains a single step. As the snapshot is taken when the event is created, the
+ * keyframe matches the recorded steps even if the events are delivered asynchronously.
+ * {@link BinaryEvacuationRecording#seek(int) Seeking} to a time step then requires to replay at most the steps of one
+ * block starting from the keyframe of the previous block.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class BinaryRecordingWriter implements AlgorithmListener, Closeable {
+
+    static final int MAGIC = 0x5A455452;
+    static final int END_MARKER = 0x5A455445;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    static final int BLOCK_HEADER_SIZE = 28;
+    static final int TRAILER_SIZE = 12;
+    /** The default number of steps in a block. */
+    public static final int DEFAULT_BLOCK_STEPS = 64;
+
+    private final FileChannel channel;
+    private final BinaryActionCodec codec;
+    private final int blockSteps;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    /** The uncompressed data of the current block. */
+    private ByteBuffer block = ByteBuffer.allocate(1 << 16);
+    private byte[] compressed = new byte[1 << 16];
+    private final List<Long> blockPositions = new ArrayList<>();
+    private final List<Integer> blockTypeMasks = new ArrayList<>();
+    /** The snapshot of the state after the last step of the current block, or {@code null}. */
+    private StateSnapshot blockSnapshot;
+    /** The types of the actions in the current block. */
+    private int blockTypes;
+    private int stepsInBlock;
+    private int steps;
+    private boolean closed;
+
+    /**
+     * Creates a writer using the default number of steps per block.
+     *
+     * @param file the file, an existing file is overwritten
+     * @param ca the cellular automaton whose actions are recorded
+     * @throws IOException if the file cannot be opened
+     */
+    public BinaryRecordingWriter(Path file, EvacuationCellularAutomaton ca) throws IOException {
+        this(file, ca, DEFAULT_BLOCK_STEPS);
+    }
+
+    /**
+     * Creates a writer.
+     *
+     * @param file the file, an existing file is overwritten
+     * @param ca the cellular automaton whose actions are recorded
+     * @param blockSteps the number of steps in one compressed block
+     * @throws IOException if the file cannot be opened
+     */
+    public BinaryRecordingWriter(Path file, EvacuationCellularAutomaton ca, int blockSteps) throws IOException {
+        if (blockSteps < 1) {
+            throw new IllegalArgumentException("Steps per block must be positive: " + blockSteps);
+        }
+        this.codec = new BinaryActionCodec(ca.getRooms(), Collections.emptyList());
+        this.blockSteps = blockSteps;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(codec.getCellCount()).putInt(blockSteps);
+        write(header);
+    }
+
+    /**
+     * Appends the actions of the next step.
+     *
+     * @param actions the actions
+     * @throws IOException if the block cannot be written
+     */
+    public void writeStep(List<Action> actions) throws IOException {
+        writeStep(actions, null);
+    }
+
+    /**
+     * Appends the actions of the next step. If the step completes a block, the snapshot is stored as keyframe of the
+     * block.
+     *
+     * @param actions the actions
+     * @param snapshot the state after the step containing the {@link #getCells() cells} of the recording, or
+     * {@code null}
+     * @throws IOException if the block cannot be written
+     * @throws IllegalArgumentException if the snapshot contains a different number of cells
+     */
+    public void writeStep(List<Action> actions, StateSnapshot snapshot) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed.");
+        }
+        if (snapshot != null && snapshot.getCellCount() != codec.getCellCount()) {
+            throw new IllegalArgumentException("Snapshot contains " + snapshot.getCellCount() + " cells instead of "
+                    + codec.getCellCount());
+        }
+        block = BinaryActionCodec.ensureCapacity(block, 4);
+        block.putInt(actions.size());
+        for (Action a : actions) {
+            block = codec.encode(a, block);
+            blockTypes |= 1 << BinaryActionCodec.typeOf(a);
+        }
+        steps++;
+        blockSnapshot = snapshot;
+        if (++stepsInBlock == blockSteps) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Enables keyframes. The algorithm is asked to attach a snapshot of the cells to the event of the step completing
+     * each block, see {@link EvacuationCellularAutomatonAlgorithm#setStateSnapshots(int, List)}. The writer has to be registered
+     * for the events of the algorithm before the run starts.
+     *
+     * @param algorithm the algorithm whose events are recorded
+     */
+    public void recordKeyframes(EvacuationCellularAutomatonAlgorithm algorithm) {
+        algorithm.setStateSnapshots(blockSteps, getCells());
+    }
+
+    /**
+     * Returns the cells of the recording in the order of their numbers.
+     *
+     * @return the cells of the recording
+     */
+    public List<EvacCellInterface> getCells() {
+        List<EvacCellInterface> cells = new ArrayList<>(codec.getCellCount());
+        for (int k = 0; k < codec.getCellCount(); ++k) {
+            cells.add(codec.getCell(k));
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the number of steps written so far.
+     *
+     * @return the number of steps written so far
+     */
+    public int getStepCount() {
+        return steps;
+    }
+
+    @Override
+    public void eventOccurred(AbstractAlgorithmEvent event) {
+        try {
+            if (event instanceof EvacuationStepCompleteEvent) {
+                EvacuationStepCompleteEvent stepEvent = (EvacuationStepCompleteEvent) event;
+                while (steps < stepEvent.getStep()) {
+                    writeStep(Collections.emptyList());
+                }
+                writeStep(stepEvent.getInitializationActions(), stepEvent.getSnapshot());
+            } else if (event instanceof EvacuationInitializationCompleteEvent) {
+                EvacuationInitializationCompleteEvent initEvent = (EvacuationInitializationCompleteEvent) event;
+                writeStep(initEvent.getInitializationActions(), initEvent.getSnapshot());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (stepsInBlock == 0) {
+            return;
+        }
+        int length = deflate(block.array(), block.position(), 0);
+        ByteBuffer keyframe = keyframe();
+        int keyframeLength = keyframe == null ? 0 : deflate(keyframe.array(), keyframe.capacity(), length) - length;
+
+        blockPositions.add(channel.position());
+        blockTypeMasks.add(blockTypes);
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        blockHeader.putInt(steps - stepsInBlock).putInt(stepsInBlock).putInt(blockTypes);
+        blockHeader.putInt(block.position()).putInt(length);
+        blockHeader.putInt(keyframe == null ? 0 : keyframe.capacity()).putInt(keyframeLength);
+        write(blockHeader);
+        write(ByteBuffer.wrap(compressed, 0, length + keyframeLength));
+        block.clear();
+        blockTypes = 0;
+        stepsInBlock = 0;
+        blockSnapshot = null;
+    }
+
+    /**
+     * Creates the keyframe of the current block from the snapshot taken after its last step.
+     *
+     * @return the uncompressed keyframe or {@code null} if no snapshot is available
+     */
+    private ByteBuffer keyframe() {
+        if (blockSnapshot == null) {
+            return null;
+        }
+        ByteBuffer keyframe = ByteBuffer.allocate(8 * codec.getCellCount());
+        for (int k = 0; k < codec.getCellCount(); ++k) {
+            keyframe.putInt(blockSnapshot.getIndividualNumber(k));
+            keyframe.putFloat((float) blockSnapshot.getDynamicPotential(k));
+        }
+        return keyframe;
+    }
+
+    /**
+     * Compresses data to the compression buffer.
+     *
+     * @param input the data
+     * @param length the length of the data
+     * @param offset the position in the compression buffer where the compressed data starts
+     * @return the position after the compressed data
+     */
+    private int deflate(byte[] input, int length, int offset) {
+        deflater.reset();
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+        int end = offset;
+        while (!deflater.finished()) {
+            if (end == compressed.length) {
+                byte[] larger = new byte[2 * compressed.length];
+                System.arraycopy(compressed, 0, larger, 0, end);
+                compressed = larger;
+            }
+            end += deflater.deflate(compressed, end, compressed.length - end);
+        }
+        return end;
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (buffer.position() > 0) {
+            buffer.flip();
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Writes the last block and the footer and closes the file.
+     *
+     * @throws IOException if the data cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            long footerPosition = channel.position();
+            ByteBuffer footer = ByteBuffer.allocate(8 + 12 * blockPositions.size() + TRAILER_SIZE);
+            footer.putInt(blockPositions.size());
+            for (int b = 0; b < blockPositions.size(); ++b) {
+                footer.putLong(blockPositions.get(b)).putInt(blockTypeMasks.get(b));
+            }
+            footer.putInt(steps);
+            footer.putLong(footerPosition).putInt(END_MARKER);
+            write(footer);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+}
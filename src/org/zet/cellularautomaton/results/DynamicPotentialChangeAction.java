@@ -48,6 +48,14 @@ public class DynamicPotentialChangeAction extends Action {
         return "The dynamic potential of cell " + affectedCell + " ist set to " + newPotential + ".";
     }
 
+    public EvacCellInterface getAffectedCell() {
+        return affectedCell;
+    }
+
+    public double getNewPotential() {
+        return newPotential;
+    }
+
     public long getNewPotentialValue() {
         return Math.round(newPotential);
     }
@@ -15,7 +15,9 @@
  */
 package org.zet.cellularautomaton.results;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Vector;
 import org.zet.cellularautomaton.InitialConfiguration;
 
@@ -46,6 +48,12 @@ public class EvacuationRecording {
     /** The current time step. */
     private int curTime;
     private long maxDynamicPotential = -1;
+    /** The recorded actions by their class, created on demand. */
+    private Map<Class<?>, Vector<Action>> actionsByType;
+    /** The number of time steps contained in the index by class. */
+    private int indexedSteps;
+    /** The number of actions of the last time step contained in the index by class. */
+    private int indexedLastStepActions;
 
     /**
      * Creates a new {@code VisualResultsRecording} instance.
@@ -75,7 +83,7 @@ public class EvacuationRecording {
      * @return {@code true} if the recording extends to the next time step or {@code false} otherwise.
      */
     public boolean hasNext() {
-        return (curTime < actions.size() - 1);
+        return (curTime < length() - 1);
     }
 
     /**
@@ -107,7 +115,7 @@ public class EvacuationRecording {
      * Fast forwards the recording to its end, i.e. sets the current time step to {@code length-1}.
      */
     public void forward() {
-        curTime = Math.max(0, actions.size() - 1);
+        curTime = Math.max(0, length() - 1);
     }
 
     /**
@@ -116,7 +124,7 @@ public class EvacuationRecording {
      * @param time The time you want to jump to.
      */
     public void jumpToTime(int time) {
-        if (time >= actions.size() || time < 0) {
+        if (time >= length() || time < 0) {
             throw new IndexOutOfBoundsException("Index " + time + " is not a valid timestep.");
         }
 
@@ -130,12 +138,12 @@ public class EvacuationRecording {
      * @return A vector with all actions at the next time step
      */
     public Vector<Action> nextActions() {
-        if (curTime >= actions.size() - 1) {
+        if (curTime >= length() - 1) {
             throw new IndexOutOfBoundsException("There is no next action (from Index" + curTime + ")");
         }
 
         curTime++;
-        return actions.get(curTime);
+        return actionsAt(curTime);
     }
 
     /**
@@ -150,7 +158,7 @@ public class EvacuationRecording {
             throw new IndexOutOfBoundsException("Please call nextActions() once before calling this method.");
         }
 
-        return actions.get(curTime);
+        return actionsAt(curTime);
     }
 
     /**
@@ -164,7 +172,7 @@ public class EvacuationRecording {
         }
 
         curTime--;
-        return actions.get(curTime);
+        return actionsAt(curTime);
     }
 
     /**
@@ -190,12 +198,71 @@ public class EvacuationRecording {
         return filteredActions;
     }
 
+    /**
+     * Returns all actions of the given type of the whole recording. The actions are taken from an index of the actions
+     * by their class, which is created on the first call. Only if several classes of recorded actions are sub-types of
+     * the given type, all actions are searched. The index is extended if steps or actions of the last step have been
+     * appended to the recording since the last call. Recorded actions must not be changed otherwise.
+     *
+     * @param <T> An action type. All returned actions will be a sub-type of this type.
+     * @param actionType All actions of this type will be returned. Must be a sub-type of T.
+     * @return All actions of the type in the same order as they are in the recording.
+     */
     @SuppressWarnings("unchecked")
     public <T extends Action> Vector<T> filterAllActions(Class<? extends T> actionType) {
+        updateTypeIndex();
+        Vector<Action> matching = null;
+        for (Map.Entry<Class<?>, Vector<Action>> entry : actionsByType.entrySet()) {
+            if (actionType.isAssignableFrom(entry.getKey())) {
+                if (matching != null) {
+                    return searchAllActions(actionType);
+                }
+                matching = entry.getValue();
+            }
+        }
+        return matching == null ? new Vector<>() : new Vector<>((Vector<T>) matching);
+    }
+
+    /**
+     * Adds the actions recorded since the last update to the index. The index is created again if the recording has
+     * become shorter.
+     */
+    private void updateTypeIndex() {
+        int length = length();
+        if (actionsByType == null || length < indexedSteps
+                || (indexedSteps > 0 && actionsAt(indexedSteps - 1).size() < indexedLastStepActions)) {
+            actionsByType = new HashMap<>();
+            indexedSteps = 0;
+            indexedLastStepActions = 0;
+        }
+        int first = indexedSteps == 0 ? 0 : indexedSteps - 1;
+        int skip = indexedLastStepActions;
+        for (int time = first; time < length; ++time) {
+            Vector<Action> stepActions = actionsAt(time);
+            for (int k = skip; k < stepActions.size(); ++k) {
+                Action action = stepActions.get(k);
+                actionsByType.computeIfAbsent(action.getClass(), type -> new Vector<>()).add(action);
+            }
+            skip = 0;
+            indexedLastStepActions = stepActions.size();
+        }
+        indexedSteps = Math.max(indexedSteps, length);
+    }
+
+    /**
+     * Returns all actions of the given type of the whole recording by searching all time steps. Only the matching
+     * actions are kept.
+     *
+     * @param <T> An action type. All returned actions will be a sub-type of this type.
+     * @param actionType All actions of this type will be returned. Must be a sub-type of T.
+     * @return All actions of the type in the same order as they are in the recording.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends Action> Vector<T> searchAllActions(Class<? extends T> actionType) {
         Vector<T> filteredActions = new Vector<T>();
 
-        for (Vector<Action> actionsForStep : this.actions) {
-            for (Action action : actionsForStep) {
+        for (int time = 0; time < length(); ++time) {
+            for (Action action : actionsAt(time)) {
                 if (actionType.isInstance(action)) {
                     filteredActions.add((T) action);
                 }
@@ -214,6 +281,17 @@ public class EvacuationRecording {
         return actions.size();
     }
 
+    /**
+     * Returns the actions recorded at a time step. All access to the recorded actions is done using this method and
+     * {@link #length()}, such that recordings storing the actions differently only have to override these methods.
+     *
+     * @param time the time step
+     * @return the actions recorded at the time step
+     */
+    protected Vector<Action> actionsAt(int time) {
+        return actions.get(time);
+    }
+
     public long getMaxDynamicPotential() {
         if (maxDynamicPotential == -1) {
             calculateMaxDynamicPotential();
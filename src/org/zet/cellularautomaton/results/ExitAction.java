@@ -46,6 +46,16 @@ public class ExitAction extends Action {
         this.individual = exit.getState().getIndividual();
     }
 
+    /**
+     * Creates an exit action for an individual that is not necessarily standing on the exit. Used to restore recorded
+     * actions.
+     */
+    ExitAction(ExitCell exit, int timeStep, Individual individual) {
+        this.exit = exit;
+        this.timeStep = timeStep;
+        this.individual = individual;
+    }
+
     @Override
     public void execute(EvacuationState es, EvacuationStateControllerInterface ec) throws InconsistentPlaybackStateException {
         if (adoptCell(exit).getState().isEmpty()) {
@@ -67,4 +77,12 @@ public class ExitAction extends Action {
         return individual;
     }
 
+    public ExitCell getExit() {
+        return exit;
+    }
+
+    public int getTimeStep() {
+        return timeStep;
+    }
+
 }
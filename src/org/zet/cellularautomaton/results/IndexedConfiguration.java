@@ -0,0 +1,162 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.InitialConfiguration;
+import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.potential.DynamicPotential;
+import org.zet.cellularautomaton.potential.Potential;
+
+/**
+ * A snapshot of an initial configuration in which the cells are referenced by their consecutive numbering in the
+ * rooms. The snapshot stores the initial occupation of the cells and the initial dynamic potential. The static
+ * potentials do not change during a run and are shared with the cellular automaton instead of being copied. In
+ * contrast to a deep copy of the configuration, the rooms and cells are not cloned. Actions recorded on the
+ * configuration are stored as cell numbers and individual numbers, see {@link IndexedEvacuationRecording}.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class IndexedConfiguration {
+
+    /** The configuration as it was when the snapshot was taken. */
+    private final InitialConfiguration initialConfig;
+    private final BinaryActionCodec codec;
+    /** The number of the individual initially standing on each cell, or {@code -1}. */
+    private final int[] initialIndividuals;
+    /** The static potentials of the cellular automaton, the potentials are not copied. */
+    private final Map<Exit, Potential> staticPotentials;
+
+    /**
+     * Creates the snapshot of an initial configuration.
+     *
+     * @param initialConfig the initial configuration
+     */
+    public IndexedConfiguration(InitialConfiguration initialConfig) {
+        List<Individual> individuals = new ArrayList<>();
+        for (Room room : initialConfig.getRooms()) {
+            for (EvacCellInterface cell : room.getAllCells()) {
+                if (!cell.getState().isEmpty()) {
+                    individuals.add(cell.getState().getIndividual());
+                }
+            }
+        }
+        codec = new BinaryActionCodec(initialConfig.getRooms(), individuals);
+
+        int cellCount = codec.getCellCount();
+        initialIndividuals = new int[cellCount];
+        for (int k = 0; k < cellCount; ++k) {
+            EvacCellInterface cell = codec.getCell(k);
+            initialIndividuals[k] = cell.getState().isEmpty() ? -1 : cell.getState().getIndividual().getNumber();
+        }
+
+        DynamicPotential dynamicPotential = new DynamicPotential();
+        DynamicPotential dynamic = initialConfig.getDynamicPotential();
+        if (dynamic != null) {
+            for (EvacCellInterface cell : dynamic.getMappedCells()) {
+                dynamicPotential.setPotential(cell, dynamic.getPotentialDouble(cell));
+            }
+        }
+
+        staticPotentials = initialConfig.getStaticPotentials() == null ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new HashMap<>(initialConfig.getStaticPotentials()));
+        this.initialConfig = new InitialConfiguration(initialConfig.getFloors(), initialConfig.getRooms(),
+                staticPotentials, dynamicPotential, initialConfig.getAbsoluteMaxSpeed());
+    }
+
+    /**
+     * Returns the configuration as it was when the snapshot was taken. The potentials are the captured ones, the rooms
+     * are shared with the cellular automaton. Their occupation is the current one, it can be reset to the captured
+     * occupation using {@link #restoreInitialOccupation()}.
+     *
+     * @return the configuration as it was when the snapshot was taken
+     */
+    public InitialConfiguration getInitialConfiguration() {
+        return initialConfig;
+    }
+
+    /**
+     * Resets the occupation of the cells and rooms to the occupation when the snapshot was taken.
+     */
+    public void restoreInitialOccupation() {
+        for (Room room : initialConfig.getRooms()) {
+            for (Individual individual : new ArrayList<>(room.getIndividuals())) {
+                room.removeIndividual(individual);
+            }
+        }
+        for (int k = 0; k < initialIndividuals.length; ++k) {
+            EvacCellInterface cell = codec.getCell(k);
+            if (!cell.getState().isEmpty()) {
+                cell.getState().removeIndividual();
+            }
+            Individual individual = getInitialIndividual(k);
+            if (individual != null) {
+                cell.getState().setIndividual(individual);
+                cell.getRoom().addIndividual(cell, individual);
+            }
+        }
+    }
+
+    public int getCellCount() {
+        return initialIndividuals.length;
+    }
+
+    public EvacCellInterface getCell(int index) {
+        return codec.getCell(index);
+    }
+
+    /**
+     * Returns the individual initially standing on a cell.
+     *
+     * @param index the number of the cell
+     * @return the individual, or {@code null} if the cell is initially empty
+     */
+    public Individual getInitialIndividual(int index) {
+        return initialIndividuals[index] == -1 ? null : codec.getIndividual(initialIndividuals[index]);
+    }
+
+    public double getDynamicPotential(int index) {
+        return initialConfig.getDynamicPotential().getPotential(codec.getCell(index));
+    }
+
+    /**
+     * Returns the static potential of a cell for an exit.
+     *
+     * @param exit the exit
+     * @param index the number of the cell
+     * @return the potential, or {@code NaN} if the cell has no valid potential for the exit
+     * @throws IllegalArgumentException if the configuration contains no potential for the exit
+     */
+    public double getStaticPotential(Exit exit, int index) {
+        Potential potential = staticPotentials.get(exit);
+        if (potential == null) {
+            throw new IllegalArgumentException("No potential for exit " + exit);
+        }
+        EvacCellInterface cell = codec.getCell(index);
+        return potential.hasValidPotential(cell) ? potential.getPotentialDouble(cell) : Double.NaN;
+    }
+
+    BinaryActionCodec getCodec() {
+        return codec;
+    }
+}
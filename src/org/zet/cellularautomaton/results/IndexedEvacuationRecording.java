@@ -0,0 +1,114 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.results;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * A recording that stores the actions of each time step as compact records referencing cells and individuals by their
+ * numbers in an {@link IndexedConfiguration}. The actions of a time step are decoded when the time step is accessed.
+ * As the records do not refer to cell objects, the same recording can be decoded against another configuration having
+ * the same structure, without adopting each action to the other cellular automaton. The initial configuration of the
+ * recording is the snapshot taken by the {@link IndexedConfiguration}, rewinding the recording resets the occupation
+ * of the cells to the snapshot.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class IndexedEvacuationRecording extends EvacuationRecording {
+
+    private final IndexedConfiguration configuration;
+    /** The encoded actions of each time step. */
+    private final List<byte[]> steps;
+    /** The time step that has been decoded last, or {@code -1}. */
+    private int decodedTime = -1;
+    private Vector<Action> decodedActions;
+
+    /**
+     * Creates a recording from the encoded actions of each time step.
+     *
+     * @param configuration the configuration to which the records refer
+     * @param steps the encoded actions of each time step
+     */
+    IndexedEvacuationRecording(IndexedConfiguration configuration, List<byte[]> steps) {
+        super(configuration.getInitialConfiguration(), new Vector<>());
+        this.configuration = configuration;
+        this.steps = steps;
+    }
+
+    public IndexedConfiguration getIndexedConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Returns a recording containing the same actions referring to another configuration. The cells and individuals
+     * of the actions are taken from the other configuration.
+     *
+     * @param other a configuration with the same structure
+     * @return the recording referring to the other configuration
+     * @throws IllegalArgumentException if the other configuration has a different number of cells
+     */
+    public IndexedEvacuationRecording withConfiguration(IndexedConfiguration other) {
+        if (other.getCellCount() != configuration.getCellCount()) {
+            throw new IllegalArgumentException("Configuration has " + other.getCellCount() + " cells instead of "
+                    + configuration.getCellCount());
+        }
+        return new IndexedEvacuationRecording(other, steps);
+    }
+
+    /**
+     * Returns all actions of the given type of the whole recording. The steps are decoded one after another and only
+     * the matching actions are kept, no index of all decoded actions is created.
+     *
+     * @param <T> An action type. All returned actions will be a sub-type of this type.
+     * @param actionType All actions of this type will be returned. Must be a sub-type of T.
+     * @return All actions of the type in the same order as they are in the recording.
+     */
+    @Override
+    public <T extends Action> Vector<T> filterAllActions(Class<? extends T> actionType) {
+        return searchAllActions(actionType);
+    }
+
+    /**
+     * Rewinds the recording to its start and resets the occupation of the cells to the initial occupation, such that a
+     * replay starts from the initial state instead of the state in which the run ended.
+     */
+    @Override
+    public void rewind() {
+        super.rewind();
+        configuration.restoreInitialOccupation();
+    }
+
+    @Override
+    public int length() {
+        return steps.size();
+    }
+
+    @Override
+    protected Vector<Action> actionsAt(int time) {
+        if (time != decodedTime) {
+            ByteBuffer in = ByteBuffer.wrap(steps.get(time));
+            Vector<Action> actions = new Vector<>();
+            while (in.hasRemaining()) {
+                actions.add(configuration.getCodec().decode(in));
+            }
+            decodedActions = actions;
+            decodedTime = time;
+        }
+        return decodedActions;
+    }
+}
@@ -77,4 +77,24 @@ public class IndividualStateChangeAction extends Action {
     public String toString() {
         return "The state of the individual " + individual.getNumber() + " changes to: " + " Panic: " + panic + ", Exhaustion: " + exhaustion + ", Speed: " + currentSpeed + ", Alarmed: " + (isAlarmed ? "yes" : "no");
     }
+
+    public Individual getIndividual() {
+        return individual;
+    }
+
+    public double getPanic() {
+        return panic;
+    }
+
+    public double getExhaustion() {
+        return exhaustion;
+    }
+
+    public double getCurrentSpeed() {
+        return currentSpeed;
+    }
+
+    public boolean isAlarmed() {
+        return isAlarmed;
+    }
 }
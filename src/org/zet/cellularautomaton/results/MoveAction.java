@@ -53,7 +53,7 @@ public class MoveAction extends Action {
      * @param update
      */
     public MoveAction(EvacCellInterface from, EvacCellInterface to, PropertyUpdate update) {
-        this(from, to, update.getStepEndTime().get(), update.getStepStartTime().get(), from.getState().getIndividual().getNumber());
+        this(from, to, update.requireStepEndTime(), update.requireStepStartTime(), from.getState().getIndividual().getNumber());
         if (from.getState().isEmpty()) {
             throw new IllegalArgumentException("The starting cell must not be empty!");
         }
@@ -112,14 +112,33 @@ public class MoveAction extends Action {
         }
     }
 
+    /**
+     * Creates a move action for an individual that is not necessarily standing on the start cell. Used to restore
+     * recorded actions.
+     *
+     * @param from the cell from where the individual starts to move
+     * @param to the cell where the individual arrives
+     * @param individual the moving individual
+     * @param update the update containing the start and end time of the step
+     */
+    MoveAction(EvacCellInterface from, EvacCellInterface to, Individual individual, PropertyUpdate update) {
+        this.from = from;
+        this.to = to;
+        this.arrivalTime = update.requireStepEndTime();
+        this.startTime = update.requireStepStartTime();
+        this.individualNumber = individual.getNumber();
+        this.individual = individual;
+        this.update = update;
+    }
+
     public MoveAction(MoveAction a, PropertyUpdate update) {
         this.from = a.from;
         this.to = a.to;
         this.arrivalTime = a.arrivalTime;
         this.startTime = a.startTime;
         this.individualNumber = a.individualNumber;
-        if (!update.getStepEndTime().isPresent() || update.getStepEndTime().get() != arrivalTime
-                || !update.getStepStartTime().isPresent() || update.getStepStartTime().get() != startTime) {
+        if (!update.hasStepEndTime() || update.requireStepEndTime() != arrivalTime
+                || !update.hasStepStartTime() || update.requireStepStartTime() != startTime) {
             this.update = PropertyUpdate.extend(update).withStepStartTime(startTime).withStepEndTime(arrivalTime).createUpdate();
         } else {
             this.update = update;
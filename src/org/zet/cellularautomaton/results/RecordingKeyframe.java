@@ -0,0 +1,77 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.results;
+
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+
+/**
+ * A snapshot of the occupation of the cells and the dynamic potential after a time step of a recording. The cells are
+ * accessed by their consecutive numbering in the rooms of the initial configuration. Keyframes are either stored in
+ * the recording or restored by {@link BinaryEvacuationRecording#seek(int) seeking}.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class RecordingKeyframe {
+
+    private final int time;
+    private final BinaryActionCodec codec;
+    /** The number of the individual on each cell, or {@code -1}. */
+    private final int[] individuals;
+    private final float[] dynamicPotential;
+
+    RecordingKeyframe(int time, BinaryActionCodec codec, int[] individuals, float[] dynamicPotential) {
+        this.time = time;
+        this.codec = codec;
+        this.individuals = individuals;
+        this.dynamicPotential = dynamicPotential;
+    }
+
+    /**
+     * Returns the time step after which the snapshot has been taken.
+     *
+     * @return the time step after which the snapshot has been taken
+     */
+    public int getTime() {
+        return time;
+    }
+
+    public int getCellCount() {
+        return individuals.length;
+    }
+
+    public EvacCellInterface getCell(int index) {
+        return codec.getCell(index);
+    }
+
+    /**
+     * Returns the individual standing on a cell.
+     *
+     * @param index the number of the cell
+     * @return the individual, or {@code null} if the cell is empty
+     */
+    public Individual getIndividual(int index) {
+        return individuals[index] == -1 ? null : codec.getIndividual(individuals[index]);
+    }
+
+    int getIndividualNumber(int index) {
+        return individuals[index];
+    }
+
+    public double getDynamicPotential(int index) {
+        return dynamicPotential[index];
+    }
+}
@@ -90,8 +90,19 @@ public class SwapAction extends Action {
     }
 
     public SwapAction(EvacCellInterface cell1, EvacCellInterface cell2, PropertyUpdate c1update, PropertyUpdate c2update) {
-        this(cell1, cell2, c1update.getStepEndTime().get(), c1update.getStepStartTime().get(), cell1.getState().getIndividual().getNumber(),
-                c2update.getStepEndTime().get(), c2update.getStepStartTime().get(), cell2.getState().getIndividual().getNumber());
+        this(cell1, cell2, c1update.requireStepEndTime(), c1update.requireStepStartTime(), cell1.getState().getIndividual().getNumber(),
+                c2update.requireStepEndTime(), c2update.requireStepStartTime(), cell2.getState().getIndividual().getNumber());
+        this.cell1Update = c1update;
+        this.cell2Update = c2update;
+    }
+
+    /**
+     * Creates a swap action for individuals given by their numbers. Used to restore recorded actions.
+     */
+    SwapAction(EvacCellInterface cell1, EvacCellInterface cell2, double arrivalTime1, double startTime1,
+            int individualNumber1, double arrivalTime2, double startTime2, int individualNumber2,
+            PropertyUpdate c1update, PropertyUpdate c2update) {
+        this(cell1, cell2, arrivalTime1, startTime1, individualNumber1, arrivalTime2, startTime2, individualNumber2);
         this.cell1Update = c1update;
         this.cell2Update = c2update;
     }
@@ -145,7 +156,12 @@ public class SwapAction extends Action {
             throw new InconsistentPlaybackStateException(-1, this, "There is no Individual on cell 2.");
         }
 
-        //cell1.getRoom().swapIndividuals( cell1, cell2 );
+        if (cell1Update != null) {
+            cell1Update.apply(es.propertyFor(cell1.getState().getIndividual()));
+        }
+        if (cell2Update != null) {
+            cell2Update.apply(es.propertyFor(cell2.getState().getIndividual()));
+        }
         ec.swap(cell1, cell2);
     }
 
@@ -15,7 +15,11 @@
  */
 package org.zet.cellularautomaton.results;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Vector;
 
 import org.zet.cellularautomaton.EvacCell;
@@ -55,6 +59,11 @@ import org.zet.cellularautomaton.potential.StaticPotential;
  * To replay the simulation, call {@code getRecording()} to get all 
  * recorded actions nicely packed in a {@code EvacuationRecording}.
  * 
+ * Instead of cloning, the initial configuration can be captured as
+ * {@link IndexedConfiguration} using {@code setIndexedConfiguration()}. The
+ * actions are then stored as records referencing cells and individuals by
+ * their numbers and the recording is an {@link IndexedEvacuationRecording}.
+ * 
  * @author Daniel R. Schmidt
  *
  */
@@ -89,6 +98,12 @@ public class VisualResultsRecorder {
      */
     private HashMap<EvacCell, EvacCell> cellMap;
     private HashMap<Potential, Potential> staticPotentialMap;
+    /** The snapshot of the initial configuration if actions are recorded by cell numbers. */
+    private IndexedConfiguration indexedConfig;
+    /** The encoded actions of all completed time steps if actions are recorded by cell numbers. */
+    private List<byte[]> indexedActions;
+    /** The encoded actions of the current time step. */
+    private ByteBuffer indexedStep;
     private boolean doRecord;
 
     protected VisualResultsRecorder() {
@@ -107,7 +122,7 @@ public class VisualResultsRecorder {
     }
 
     public void startRecording() {
-        if (clonedInitialConfig == null) {
+        if (clonedInitialConfig == null && indexedConfig == null) {
             throw new RuntimeException("The initial configuration has not yet been set. "
                     + "Please call setInitialConfiguration() at least once before using this method.");
 
@@ -127,6 +142,9 @@ public class VisualResultsRecorder {
         this.staticPotentialMap = new HashMap<>();
         this.clonedInitialConfig = null;
         this.clonedCA = null;
+        this.indexedConfig = null;
+        this.indexedActions = null;
+        this.indexedStep = null;
         stopRecording();
     }
 
@@ -136,8 +154,22 @@ public class VisualResultsRecorder {
         this.clonedCA = new MultiFloorEvacuationCellularAutomaton(clonedInitialConfig);
     }
 
+    /**
+     * Sets the initial configuration without cloning it. The configuration is captured as {@link IndexedConfiguration}
+     * and the recorded actions are stored as records referencing cells and individuals by their numbers. Thus, no
+     * mapping of the actions to a cloned configuration is necessary.
+     *
+     * @param initialConfig the initial configuration of the cellular automaton
+     */
+    public final void setIndexedConfiguration(InitialConfiguration initialConfig) {
+        reset();
+        this.indexedConfig = new IndexedConfiguration(initialConfig);
+        this.indexedActions = new ArrayList<>();
+        this.indexedStep = ByteBuffer.allocate(1024);
+    }
+
     public InitialConfiguration getInitialConfiguration() {
-        return clonedInitialConfig;
+        return indexedConfig == null ? clonedInitialConfig : indexedConfig.getInitialConfiguration();
     }
 
     /**
@@ -152,7 +184,9 @@ public class VisualResultsRecorder {
     public void recordAction(Action action) throws Action.CADoesNotMatchException {
         //@//if( !ZETLoader.useVisualization )
         //@//    return;
-        if (doRecord) {
+        if (doRecord && indexedConfig != null) {
+            indexedStep = indexedConfig.getCodec().encode(action, indexedStep);
+        } else if (doRecord) {
             //Action adoptedAction = action.adoptToCA(this.clonedCA);
             //actions.get(timeStep).add(adoptedAction);
         }
@@ -164,7 +198,12 @@ public class VisualResultsRecorder {
     public void nextTimestep() {
         if (doRecord) {
             timeStep++;
-            actions.add(new Vector<>());
+            if (indexedConfig != null) {
+                indexedActions.add(Arrays.copyOf(indexedStep.array(), indexedStep.position()));
+                indexedStep.clear();
+            } else {
+                actions.add(new Vector<>());
+            }
         }
     }
 
@@ -186,6 +225,11 @@ public class VisualResultsRecorder {
      * @return A new {@code EvacuationRecording} containing all recorded actions and the corresponding configuration.
      */
     public EvacuationRecording getRecording() {
+        if (indexedConfig != null) {
+            List<byte[]> steps = new ArrayList<>(indexedActions);
+            steps.add(Arrays.copyOf(indexedStep.array(), indexedStep.position()));
+            return new IndexedEvacuationRecording(indexedConfig, steps);
+        }
         return new EvacuationRecording(clonedInitialConfig, actions);
     }
 
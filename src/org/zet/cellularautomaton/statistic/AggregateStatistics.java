@@ -0,0 +1,267 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.algorithm.state.PropertyAccess;
+
+/**
+ * A sink that only keeps running sums and extreme values of the reported values and the distribution of the times at
+ * which the individuals are safe. The memory used does not depend on the number of time steps.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class AggregateStatistics implements StatisticSink {
+
+    /**
+     * The number, sum and extreme values of a series of values.
+     */
+    public static final class Summary {
+
+        private int count;
+        private double sum;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        /**
+         * Returns the smallest value.
+         *
+         * @return the smallest value, or {@code NaN} if no value has been added
+         */
+        public double getMin() {
+            return count == 0 ? Double.NaN : min;
+        }
+
+        /**
+         * Returns the largest value.
+         *
+         * @return the largest value, or {@code NaN} if no value has been added
+         */
+        public double getMax() {
+            return count == 0 ? Double.NaN : max;
+        }
+
+        /**
+         * Returns the average value.
+         *
+         * @return the average value, or {@code NaN} if no value has been added
+         */
+        public double getAverage() {
+            return count == 0 ? Double.NaN : sum / count;
+        }
+    }
+
+    private final PropertyAccess es;
+    private final BitSet safe = new BitSet();
+    /** The number of individuals that are safe at each time step. */
+    private int[] safetyTimes = new int[64];
+    private final Summary safetyTime = new Summary();
+    private final Summary coveredDistance = new Summary();
+    private final Summary speed = new Summary();
+    private final Summary panic = new Summary();
+    private final Summary exhaustion = new Summary();
+    private final Summary minDistanceToNearestExit = new Summary();
+    private final Summary minDistanceToPlannedExit = new Summary();
+    private final Map<Exit, Integer> exitCounts = new HashMap<>();
+    private int waitedTime;
+    private int potentialChanges;
+    private int cellUtilization;
+    private int cellWaitingTime;
+
+    public AggregateStatistics(PropertyAccess es) {
+        this.es = es;
+    }
+
+    /**
+     * {@inheritDoc} Individuals that are not safe yet, i.e. whose safety time is not set, are ignored.
+     *
+     * @param ind the individual
+     */
+    @Override
+    public void addSafeIndividualToStatistic(Individual ind) {
+        if (!es.propertyFor(ind).isSafe() || safe.get(ind.getNumber())) {
+            return;
+        }
+        safe.set(ind.getNumber());
+        int time = es.propertyFor(ind).getSafetyTime();
+        if (time >= safetyTimes.length) {
+            safetyTimes = Arrays.copyOf(safetyTimes, Math.max(time + 1, 2 * safetyTimes.length));
+        }
+        safetyTimes[time]++;
+        safetyTime.add(time);
+    }
+
+    @Override
+    public void addChangedPotentialToStatistic(Individual ind, int t) {
+        potentialChanges++;
+    }
+
+    @Override
+    public void addCoveredDistanceToStatistic(Individual ind, int t, double distance) {
+        coveredDistance.add(distance);
+    }
+
+    @Override
+    public void addWaitedTimeToStatistic(Individual ind, int t) {
+        waitedTime++;
+    }
+
+    @Override
+    public void addMinDistancesToStatistic(Individual ind, double distNearest, double distPlanned) {
+        minDistanceToNearestExit.add(distNearest);
+        minDistanceToPlannedExit.add(distPlanned);
+    }
+
+    @Override
+    public void addExitToStatistic(Individual ind, Exit exit) {
+        exitCounts.merge(exit, 1, Integer::sum);
+    }
+
+    @Override
+    public void addExhaustionToStatistic(Individual ind, int t, double actualExhaustion) {
+        exhaustion.add(actualExhaustion);
+    }
+
+    @Override
+    public void addPanicToStatistic(Individual ind, int t, double actualPanic) {
+        panic.add(actualPanic);
+    }
+
+    @Override
+    public void addCurrentSpeedToStatistic(Individual ind, int t, double speed) {
+        this.speed.add(speed);
+    }
+
+    @Override
+    public void addCellToUtilizationStatistic(EvacCellInterface c, int t) {
+        cellUtilization++;
+    }
+
+    @Override
+    public void addCellToWaitingStatistic(EvacCellInterface c, int t) {
+        cellWaitingTime++;
+    }
+
+    /**
+     * Returns the number of individuals that are safe at a time step.
+     *
+     * @param time the time step
+     * @return the number of individuals that reached a safe area in the time step
+     */
+    public int getSafeIndividuals(int time) {
+        return time < 0 || time >= safetyTimes.length ? 0 : safetyTimes[time];
+    }
+
+    /**
+     * Returns the histogram of the times at which the individuals are safe. The value at index {@code t} is the number
+     * of individuals that reached a safe area in time step {@code t}.
+     *
+     * @return the histogram of the safety times
+     */
+    public int[] getSafetyTimeHistogram() {
+        return Arrays.copyOf(safetyTimes, safetyTime.getCount() == 0 ? 0 : (int) safetyTime.getMax() + 1);
+    }
+
+    public Summary getSafetyTime() {
+        return safetyTime;
+    }
+
+    public Summary getCoveredDistance() {
+        return coveredDistance;
+    }
+
+    public Summary getCurrentSpeed() {
+        return speed;
+    }
+
+    public Summary getPanic() {
+        return panic;
+    }
+
+    public Summary getExhaustion() {
+        return exhaustion;
+    }
+
+    public Summary getMinDistanceToNearestExit() {
+        return minDistanceToNearestExit;
+    }
+
+    public Summary getMinDistanceToPlannedExit() {
+        return minDistanceToPlannedExit;
+    }
+
+    /**
+     * Returns the number of individuals that left the building through an exit.
+     *
+     * @param exit the exit
+     * @return the number of individuals that used the exit
+     */
+    public int getExitCount(Exit exit) {
+        return exitCounts.getOrDefault(exit, 0);
+    }
+
+    /**
+     * Returns the total number of time steps the individuals were waiting.
+     *
+     * @return the total waiting time
+     */
+    public int getWaitedTime() {
+        return waitedTime;
+    }
+
+    public int getPotentialChanges() {
+        return potentialChanges;
+    }
+
+    /**
+     * Returns the total number of time steps the cells were occupied.
+     *
+     * @return the total utilization of all cells
+     */
+    public int getCellUtilization() {
+        return cellUtilization;
+    }
+
+    /**
+     * Returns the total number of time steps individuals were waiting on the cells.
+     *
+     * @return the total waiting time on all cells
+     */
+    public int getCellWaitingTime() {
+        return cellWaitingTime;
+    }
+}
@@ -24,14 +24,24 @@ public class CAData {
     private CellStatistic cellStatistic;
     private IndividualStatistic individualStatistic;
     private CAStatistic caStatistic;
+    private DynamicStatistics dynamicStatistics;
     
     public CAData(CellStatistic cellStatistic, 
             IndividualStatistic individualStatistic, 
             CAStatistic caStatistic
+    ){
+        this(cellStatistic, individualStatistic, caStatistic, null);
+    }
+    
+    public CAData(CellStatistic cellStatistic, 
+            IndividualStatistic individualStatistic, 
+            CAStatistic caStatistic,
+            DynamicStatistics dynamicStatistics
     ){
         this.cellStatistic = cellStatistic;
         this.individualStatistic = individualStatistic;
         this.caStatistic = caStatistic;
+        this.dynamicStatistics = dynamicStatistics;
     }
     
     public CellStatistic getCellStatistic(){
@@ -45,4 +55,17 @@ public class CAData {
     public CAStatistic getCAStatistic(){
         return caStatistic;
     }
+    
+    /**
+     * Returns the time series rolled up during the simulation run.
+     * 
+     * @return the time series of the run
+     * @throws IllegalStateException if no time series have been collected
+     */
+    public DynamicStatistics getDynamicStatistics(){
+        if (dynamicStatistics == null) {
+            throw new IllegalStateException("No dynamic statistics have been collected.");
+        }
+        return dynamicStatistics;
+    }
 }
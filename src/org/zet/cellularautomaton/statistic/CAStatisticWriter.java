@@ -15,14 +15,19 @@
  */
 package org.zet.cellularautomaton.statistic;
 
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.algorithm.state.EvacuationState;
 import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResults;
 
 /**
+ * Stores all statistic events in {@link StoredCAStatisticResults}. This is the sink used for
+ * {@link StatisticLevel#FULL}.
  *
  * @author Sylvie Temme
  */
-public class CAStatisticWriter {
+public class CAStatisticWriter implements StatisticSink {
 
   private StoredCAStatisticResults storedCAStatisticResults;
 
@@ -38,4 +43,61 @@ public class CAStatisticWriter {
     // X-Stream-Kram zum speichern von storedCAStatisticResults in Datei
   }
 
+  @Override
+  public void addSafeIndividualToStatistic( Individual ind ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addSafeIndividualToStatistic( ind );
+  }
+
+  @Override
+  public void addChangedPotentialToStatistic( Individual ind, int t ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addChangedPotentialToStatistic( ind, t );
+  }
+
+  @Override
+  public void addCoveredDistanceToStatistic( Individual ind, int t, double distance ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addCoveredDistanceToStatistic( ind, t, distance );
+  }
+
+  @Override
+  public void addWaitedTimeToStatistic( Individual ind, int t ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addWaitedTimeToStatistic( ind, t );
+  }
+
+  @Override
+  public void addMinDistancesToStatistic( Individual ind, double distNearest, double distPlanned ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addMinDistancesToStatistic( ind, distNearest,
+            distPlanned );
+  }
+
+  @Override
+  public void addExitToStatistic( Individual ind, Exit exit ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addExitToStatistic( ind, exit );
+  }
+
+  @Override
+  public void addExhaustionToStatistic( Individual ind, int t, double actualExhaustion ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addExhaustionToStatistic( ind, t,
+            actualExhaustion );
+  }
+
+  @Override
+  public void addPanicToStatistic( Individual ind, int t, double actualPanic ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addPanicToStatistic( ind, t, actualPanic );
+  }
+
+  @Override
+  public void addCurrentSpeedToStatistic( Individual ind, int t, double speed ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForIndividuals().addCurrentSpeedToStatistic( ind, t, speed );
+  }
+
+  @Override
+  public void addCellToUtilizationStatistic( EvacCellInterface c, int t ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForCells().addCellToUtilizationStatistic( c, t );
+  }
+
+  @Override
+  public void addCellToWaitingStatistic( EvacCellInterface c, int t ) {
+    storedCAStatisticResults.getStoredCAStatisticResultsForCells().addCellToWaitingStatistic( c, t );
+  }
+
 }
@@ -17,10 +17,9 @@ package org.zet.cellularautomaton.statistic;
 
 import java.util.HashMap;
 import java.util.ArrayList;
-import java.util.Collections;
 import org.zet.cellularautomaton.EvacCell;
-import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.statistic.results.CellTimeSeries;
 import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResultsForCells;
 
 /**
@@ -31,22 +30,23 @@ import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResultsForCe
  * <li> How often was a specific cell occupied until time t?
  * <li> What is the overall utilization a specific cell?
  * </ul>
+ * The time steps are stored in {@link CellTimeSeries}, such that the utilization of a cell within a window of time
+ * steps is computed in logarithmic time and the utilization of a room in constant time.
  *
  * @author Matthias Woste
  */
 public class CellStatistic implements CellStatisticMethods {
 
   /**
-   * associate each cell with an ArrayList which contains all timesteps the cell
-   * is occupied
+   * contains all timesteps each cell is occupied
    */
-  private HashMap<EvacCellInterface, ArrayList<Integer>> cellUtilization;
+  private CellTimeSeries cellUtilization;
 
   /**
-   * associate each cell with an ArrayList which contains all timesteps at which
-   * an individual standing at the cell is waiting
+   * contains all timesteps at which an individual standing at each cell is
+   * waiting
    */
-  private HashMap<EvacCellInterface, ArrayList<Integer>> waitingTime;
+  private CellTimeSeries waitingTime;
 
   /**
    * stores utilization for each room
@@ -68,16 +68,12 @@ public class CellStatistic implements CellStatisticMethods {
   private int maxWaiting;
 
   public CellStatistic( StoredCAStatisticResultsForCells stored ) {
-    cellUtilization = stored.getHashMapCellUtilization();
-    waitingTime = stored.getHashMapWaitingTime();
+    cellUtilization = stored.getCellUtilization();
+    waitingTime = stored.getWaitingTime();
     overallRoomUtilization = new HashMap<Room, Double>();
     overallRoomWaitingTime = new HashMap<Room, Double>();
-    for( ArrayList<Integer> array : cellUtilization.values() ) {
-      maxUtilization = Math.max( maxUtilization, array.size() );
-    }
-    for( ArrayList<Integer> array : cellUtilization.values() ) {
-      maxWaiting = Math.max( maxWaiting, array.size() );
-    }
+    maxUtilization = cellUtilization.getMaxCount();
+    maxWaiting = waitingTime.getMaxCount();
   }
 
   /**
@@ -90,10 +86,7 @@ public class CellStatistic implements CellStatisticMethods {
    * @throws IllegalArgumentException
    */
   public ArrayList<Integer> getCellUtilizationStatistic( EvacCell c ) throws IllegalArgumentException {
-    if( cellUtilization.containsKey( c ) ) {
-      return cellUtilization.get( c );
-    }
-    return null;
+    return toList( cellUtilization, c );
   }
 
   /**
@@ -106,26 +99,39 @@ public class CellStatistic implements CellStatisticMethods {
    * @throws IllegalArgumentException
    */
   public ArrayList<Integer> getCellWaitingStatistic( EvacCell c ) throws IllegalArgumentException {
-    if( cellUtilization.containsKey( c ) ) {
-      return cellUtilization.get( c );
+    return toList( waitingTime, c );
+  }
+
+  private static ArrayList<Integer> toList( CellTimeSeries series, EvacCell c ) {
+    if( !series.contains( c ) ) {
+      return null;
+    }
+    int[] times = series.times( c );
+    ArrayList<Integer> result = new ArrayList<>( times.length );
+    for( int t : times ) {
+      result.add( t );
     }
-    return null;
+    return result;
   }
 
   /* (non-Javadoc)
    * @see statistic.ca.CellStatisticMethods#getCellUtilization(ds.ca.EvacCell, int)
    */
   public int getCellUtilization( EvacCell c, int t ) throws IllegalArgumentException {
-    if( cellUtilization.containsKey( c ) ) {
-      int index = (Collections.binarySearch( cellUtilization.get( c ), t ));
-      if( index < 0 ) {
-        index = -index - 2;
-      }
-      if( index >= 0 ) {
-        return index + 1;
-      }
-    }
-    return 0;
+    return cellUtilization.count( c, t );
+  }
+
+  /**
+   * Returns how often a cell was occupied within a window of timesteps.
+   *
+   * @param c the (@link EvacCell)
+   * @param from the first timestep of the window, inclusive
+   * @param to the last timestep of the window, inclusive
+   * @return the number of timesteps within the window at which the cell is
+   * occupied
+   */
+  public int getCellUtilization( EvacCell c, int from, int to ) {
+    return cellUtilization.count( c, from, to );
   }
 
   /**
@@ -143,23 +149,28 @@ public class CellStatistic implements CellStatisticMethods {
    * @return the maximal waiting time
    */
   public int getMaxWaiting() {
-    return maxUtilization;
+    return maxWaiting;
   }
 
   /* (non-Javadoc)
    * @see statistic.ca.CellStatisticMethods#getCellWaitingTime(ds.ca.EvacCell, int)
    */
   public int getCellWaitingTime( EvacCell c, int t ) throws IllegalArgumentException {
-    if( waitingTime.containsKey( c ) ) {
-      int index = (Collections.binarySearch( waitingTime.get( c ), t ));
-      if( index < 0 ) {
-        index = -index - 2;
-      }
-      if( index >= 0 ) {
-        return index + 1;
-      }
-    }
-    return 0;
+    return waitingTime.count( c, t );
+  }
+
+  /**
+   * Returns how often an individual was waiting on a cell within a window of
+   * timesteps.
+   *
+   * @param c the (@link EvacCell)
+   * @param from the first timestep of the window, inclusive
+   * @param to the last timestep of the window, inclusive
+   * @return the number of timesteps within the window at which an individual
+   * is waiting on the cell
+   */
+  public int getCellWaitingTime( EvacCell c, int from, int to ) {
+    return waitingTime.count( c, from, to );
   }
 
   /**
@@ -171,30 +182,21 @@ public class CellStatistic implements CellStatisticMethods {
    * Otherwise false is returned.
    */
   public boolean isCellOccupied( EvacCell c, int t ) {
-    if( cellUtilization.containsKey( c ) ) {
-      return cellUtilization.get( c ).contains( new Integer( t ) );
-    }
-    return false;
+    return cellUtilization.count( c, t, t ) > 0;
   }
 
   /* (non-Javadoc)
    * @see statistic.ca.CellStatisticMethods#getOverallCellUtilization(ds.ca.EvacCell, int)
    */
   public double getOverallCellUtilization( EvacCell c, int o ) {
-    if( cellUtilization.containsKey( c ) ) {
-      return cellUtilization.get( c ).get( cellUtilization.get( c ).size() ) / o;
-    }
-    return 0.0;
+    return (double) cellUtilization.count( c ) / o;
   }
 
   /* (non-Javadoc)
    * @see statistic.ca.CellStatisticMethods#getOverallWaitingTime(ds.ca.EvacCell, int)
    */
   public double getOverallWaitingTime( EvacCell c, int o ) {
-    if( waitingTime.containsKey( c ) ) {
-      return waitingTime.get( c ).get( waitingTime.get( c ).size() ) / o;
-    }
-    return 0.0;
+    return (double) waitingTime.count( c ) / o;
   }
 
   /* (non-Javadoc)
@@ -208,11 +210,21 @@ public class CellStatistic implements CellStatisticMethods {
    * @see statistic.ca.CellStatisticMethods#calculatedSingleRoomUtilization(ds.ca.Room, int)
    */
   public double calculatedSingleRoomUtilization( Room r, int t ) {
-    double averageRoomUtilization = 0.0;
-    for( EvacCell c : r.getAllCells() ) {
-      averageRoomUtilization += getCellUtilization( c, t );
-    }
-    return (averageRoomUtilization / r.getAllCells().size());
+    return (double) cellUtilization.roomCount( r, t ) / cellUtilization.roomCellCount( r );
+  }
+
+  /**
+   * Returns the average utilization of the cells of a room within a window of
+   * timesteps.
+   *
+   * @param r the room
+   * @param from the first timestep of the window, inclusive
+   * @param to the last timestep of the window, inclusive
+   * @return the average number of timesteps within the window at which the
+   * cells of the room are occupied
+   */
+  public double calculatedSingleRoomUtilization( Room r, int from, int to ) {
+    return (double) cellUtilization.roomCount( r, from, to ) / cellUtilization.roomCellCount( r );
   }
 
   /* (non-Javadoc)
@@ -238,11 +250,21 @@ public class CellStatistic implements CellStatisticMethods {
    * @see statistic.ca.CellStatisticMethods#calculatedSingleRoomWaitingTime(ds.ca.Room, int)
    */
   public double calculatedSingleRoomWaitingTime( Room r, int t ) {
-    double averageRoomWaitingTime = 0.0;
-    for( EvacCell c : r.getAllCells() ) {
-      averageRoomWaitingTime += getCellWaitingTime( c, t );
-    }
-    return (averageRoomWaitingTime / r.getAllCells().size());
+    return (double) waitingTime.roomCount( r, t ) / waitingTime.roomCellCount( r );
+  }
+
+  /**
+   * Returns the average waiting time on the cells of a room within a window of
+   * timesteps.
+   *
+   * @param r the room
+   * @param from the first timestep of the window, inclusive
+   * @param to the last timestep of the window, inclusive
+   * @return the average number of timesteps within the window at which
+   * individuals are waiting on the cells of the room
+   */
+  public double calculatedSingleRoomWaitingTime( Room r, int from, int to ) {
+    return (double) waitingTime.roomCount( r, from, to ) / waitingTime.roomCellCount( r );
   }
 
   /* (non-Javadoc)
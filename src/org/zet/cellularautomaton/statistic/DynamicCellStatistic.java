@@ -29,43 +29,43 @@ public enum DynamicCellStatistic implements Statistic<EvacCell, IntegerDoubleMap
     INCOMING_INDIVIDUAL_RATE("Ankommende Individuenrate") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, EvacCell cell) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getIncomingRate(cell);
                 }
             },
     OUTGOING_INDIVIDUAL_RATE("Ausgehende Individuenrate") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, EvacCell cell) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getOutgoingRate(cell);
                 }
             },
     INCOMING_INDIVUDAL_AMOUNT("Anzahl angekommener Individuen") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, EvacCell cell) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getIncomingAmount(cell);
                 }
             },
     OUTGOING_INDIVIDUAL_AMOUNT("Anzahl ausgegangener Individuen") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, EvacCell cell) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getOutgoingAmount(cell);
                 }
             },
     TIME_BLOCKED("Blockadezeit") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, EvacCell cell) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getTimeBlocked(cell);
                 }
             },
     UTILISATION("Auslastung") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, EvacCell cell) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getUtilization(cell);
                 }
             },
     BLOCKED_TIMESTEPS("Blockadezeitpunkte") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, EvacCell cell) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getBlockedTimesteps(cell);
                 }
             };
 
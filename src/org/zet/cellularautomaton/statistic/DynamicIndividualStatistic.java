@@ -29,43 +29,43 @@ public enum DynamicIndividualStatistic implements Statistic<Individual, IntegerD
     PANIC("Panik") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, Individual individual) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getPanic(individual);
                 }
             },
     EXHAUSTION("Erschöpfung") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, Individual individual) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getExhaustion(individual);
                 }
             },
     SPEED("Geschwindigkeit") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, Individual individual) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getSpeed(individual);
                 }
             },
     COVERED_DISTANCE("Zurückgelegte Distanz") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, Individual individual) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getCoveredDistance(individual);
                 }
             },
     WAITED_TIME("Wartezeit") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, Individual individual) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getWaitedTime(individual);
                 }
             },
     DISTANCE_TO_NEAREST_EXIT("Abstand zum nächsten Ausgang") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, Individual individual) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getDistanceToNearestExit(individual);
                 }
             },
     DISTANCE_TO_PLANNED_EXIT("Abstand zum geplanten Ausgang") {
                 @Override
                 public IntegerDoubleMapping calculate(Statistics<CAData> statistics, Individual individual) {
-                    throw new UnsupportedOperationException("This feature has not been implemented yet.");
+                    return statistics.getData().getDynamicStatistics().getDistanceToPlannedExit(individual);
                 }
             };
 
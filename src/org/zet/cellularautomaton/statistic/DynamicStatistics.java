@@ -0,0 +1,465 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.SpatialCellIndex;
+import org.zet.cellularautomaton.algorithm.state.EvacuationState;
+import org.zet.cellularautomaton.potential.Potential;
+import org.zet.cellularautomaton.results.Action;
+import org.zet.cellularautomaton.results.ExitAction;
+import org.zet.cellularautomaton.results.MoveAction;
+import org.zet.cellularautomaton.results.SwapAction;
+import org.zetool.container.mapping.IntegerDoubleMapping;
+
+/**
+ * Rolls up the values of the {@link DynamicCellStatistic}s and {@link DynamicIndividualStatistic}s while the
+ * simulation runs. The statistic events are forwarded to another sink and additionally accumulated in running
+ * mappings of the cells and individuals. The movements of the individuals are taken from the actions of each step,
+ * which have to be {@link #addStep(int, List) added} after the step is completed. The events of each cell and each
+ * individual have to be reported in the order of their time steps.
+ *
+ * The returned mappings are the accumulators themselves, they are updated while the simulation proceeds and must not
+ * be modified.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class DynamicStatistics implements StatisticSink {
+
+    private final EvacuationState es;
+    private final StatisticSink delegate;
+    /** The numbering of the cells of the cellular automaton, the cell accumulators are indexed by the numbers. */
+    private final SpatialCellIndex cells;
+    private final Counter[] incoming;
+    private final Counter[] outgoing;
+    private final Counter[] blocked;
+    private final Occupation[] utilization;
+    /** The utilization accumulators that have been created, they are extended with each added step. */
+    private final List<Occupation> occupations = new ArrayList<>();
+    /** The potential of each cell with respect to its nearest exit, {@code NaN} if not yet computed. */
+    private final float[] nearestExitDistances;
+    /** The accumulators of the individuals, indexed by the individual number. */
+    private IndividualSeries[] individuals = new IndividualSeries[0];
+    /** The last completed time step, or {@code -1}. */
+    private int lastStep = -1;
+
+    /**
+     * Creates the rollup for a simulation run.
+     *
+     * @param es the state of the simulation run
+     * @param delegate the sink to which the statistic events are forwarded
+     */
+    public DynamicStatistics(EvacuationState es, StatisticSink delegate) {
+        this.es = Objects.requireNonNull(es);
+        this.delegate = Objects.requireNonNull(delegate);
+        cells = es.getCellularAutomaton().getCellIndex();
+        incoming = new Counter[cells.size()];
+        outgoing = new Counter[cells.size()];
+        blocked = new Counter[cells.size()];
+        utilization = new Occupation[cells.size()];
+        nearestExitDistances = new float[cells.size()];
+        Arrays.fill(nearestExitDistances, Float.NaN);
+    }
+
+    public StatisticSink getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Adds the actions of a completed step. Movements between different cells are counted as outgoing individual of
+     * the source cell and incoming individual of the target cell, and the distances of the moved individuals to the
+     * exits are recorded. Individuals leaving the simulation are counted as outgoing individual of the exit cell.
+     *
+     * @param t the time step
+     * @param actions the actions of the step after they have been executed
+     */
+    public void addStep(int t, List<Action> actions) {
+        for (int k = 0; k < actions.size(); ++k) {
+            Action action = actions.get(k);
+            if (action instanceof MoveAction) {
+                MoveAction move = (MoveAction) action;
+                if (move.from() != null && move.from() != move.to()) {
+                    counter(outgoing, move.from()).add(t);
+                    counter(incoming, move.to()).add(t);
+                    addDistances(move.to(), t);
+                }
+            } else if (action instanceof SwapAction) {
+                SwapAction swap = (SwapAction) action;
+                counter(outgoing, swap.cell1()).add(t);
+                counter(incoming, swap.cell2()).add(t);
+                counter(outgoing, swap.cell2()).add(t);
+                counter(incoming, swap.cell1()).add(t);
+                addDistances(swap.cell1(), t);
+                addDistances(swap.cell2(), t);
+            } else if (action instanceof ExitAction) {
+                counter(outgoing, ((ExitAction) action).getExit()).add(t);
+            }
+        }
+        lastStep = Math.max(lastStep, t);
+        for (int k = 0; k < occupations.size(); ++k) {
+            occupations.get(k).fill(lastStep);
+        }
+    }
+
+    /**
+     * Records the distances of the individual on a cell. The distance to the planned exit is taken from the static
+     * potential of the individual, the distance to the nearest exit is computed once for each cell.
+     */
+    private void addDistances(EvacCellInterface cell, int t) {
+        Individual individual = cell.getState().getIndividual();
+        if (individual == null) {
+            return;
+        }
+        IndividualSeries series = series(individual);
+        double nearest = nearestExitDistance(cell);
+        if (nearest < Double.POSITIVE_INFINITY) {
+            series.nearestExitDistance.set(t, nearest);
+        }
+        Potential planned = es.propertyFor(individual).getStaticPotential();
+        if (planned != null && planned.hasValidPotential(cell)) {
+            series.plannedExitDistance.set(t, planned.getPotentialDouble(cell));
+        }
+    }
+
+    private double nearestExitDistance(EvacCellInterface cell) {
+        int number = numberOf(cell);
+        if (Float.isNaN(nearestExitDistances[number])) {
+            double nearest = Double.POSITIVE_INFINITY;
+            for (Exit exit : es.getCellularAutomaton().getExits()) {
+                Potential potential = es.getCellularAutomaton().getPotentialFor(exit);
+                if (potential != null && potential.hasValidPotential(cell)) {
+                    nearest = Math.min(nearest, potential.getPotentialDouble(cell));
+                }
+            }
+            nearestExitDistances[number] = (float) nearest;
+        }
+        return nearestExitDistances[number];
+    }
+
+    /**
+     * Returns the last time step that has been completed.
+     *
+     * @return the last completed time step, or {@code -1} if no step has been added
+     */
+    public int getLastStep() {
+        return lastStep;
+    }
+
+    /**
+     * Returns the number of individuals that entered a cell in each time step.
+     *
+     * @param cell the cell
+     * @return the number of entering individuals over time
+     */
+    public IntegerDoubleMapping getIncomingRate(EvacCellInterface cell) {
+        return counter(incoming, cell).rate;
+    }
+
+    public IntegerDoubleMapping getOutgoingRate(EvacCellInterface cell) {
+        return counter(outgoing, cell).rate;
+    }
+
+    /**
+     * Returns the total number of individuals that entered a cell up to each time step.
+     *
+     * @param cell the cell
+     * @return the cumulative number of entering individuals over time
+     */
+    public IntegerDoubleMapping getIncomingAmount(EvacCellInterface cell) {
+        return counter(incoming, cell).amount;
+    }
+
+    public IntegerDoubleMapping getOutgoingAmount(EvacCellInterface cell) {
+        return counter(outgoing, cell).amount;
+    }
+
+    /**
+     * Returns the total number of time steps up to each time step in which an individual was waiting on a cell.
+     *
+     * @param cell the cell
+     * @return the cumulative blocked time over time
+     */
+    public IntegerDoubleMapping getTimeBlocked(EvacCellInterface cell) {
+        return counter(blocked, cell).amount;
+    }
+
+    /**
+     * Returns {@code 1} for each time step in which an individual was waiting on a cell and {@code 0} otherwise.
+     *
+     * @param cell the cell
+     * @return the blocked time steps
+     */
+    public IntegerDoubleMapping getBlockedTimesteps(EvacCellInterface cell) {
+        return counter(blocked, cell).rate;
+    }
+
+    /**
+     * Returns the share of the time steps up to each time step in which a cell was occupied. The mapping is extended
+     * up to the last completed step whenever a step is added.
+     *
+     * @param cell the cell
+     * @return the utilization over time
+     */
+    public IntegerDoubleMapping getUtilization(EvacCellInterface cell) {
+        return occupation(cell).utilization;
+    }
+
+    public IntegerDoubleMapping getPanic(Individual individual) {
+        return series(individual).panic;
+    }
+
+    public IntegerDoubleMapping getExhaustion(Individual individual) {
+        return series(individual).exhaustion;
+    }
+
+    public IntegerDoubleMapping getSpeed(Individual individual) {
+        return series(individual).speed;
+    }
+
+    /**
+     * Returns the total distance an individual has covered up to each time step.
+     *
+     * @param individual the individual
+     * @return the covered distance over time
+     */
+    public IntegerDoubleMapping getCoveredDistance(Individual individual) {
+        return series(individual).coveredDistance;
+    }
+
+    /**
+     * Returns the total number of time steps an individual has waited up to each time step.
+     *
+     * @param individual the individual
+     * @return the waited time over time
+     */
+    public IntegerDoubleMapping getWaitedTime(Individual individual) {
+        return series(individual).waitedTime;
+    }
+
+    /**
+     * Returns the potential of the cell of an individual with respect to the nearest exit, starting with the initial
+     * value reported to the sink and updated whenever the individual moves.
+     *
+     * @param individual the individual
+     * @return the distance to the nearest exit over time
+     */
+    public IntegerDoubleMapping getDistanceToNearestExit(Individual individual) {
+        return series(individual).nearestExitDistance;
+    }
+
+    /**
+     * Returns the potential of the cell of an individual with respect to the exit it is heading to, starting with the
+     * initial value reported to the sink and updated whenever the individual moves.
+     *
+     * @param individual the individual
+     * @return the distance to the planned exit over time
+     */
+    public IntegerDoubleMapping getDistanceToPlannedExit(Individual individual) {
+        return series(individual).plannedExitDistance;
+    }
+
+    private int numberOf(EvacCellInterface cell) {
+        int number = cells.indexOf(cell);
+        if (number < 0) {
+            throw new IllegalArgumentException("Cell does not belong to the cellular automaton: " + cell);
+        }
+        return number;
+    }
+
+    private Counter counter(Counter[] counters, EvacCellInterface cell) {
+        int number = numberOf(cell);
+        if (counters[number] == null) {
+            counters[number] = new Counter();
+        }
+        return counters[number];
+    }
+
+    private Occupation occupation(EvacCellInterface cell) {
+        int number = numberOf(cell);
+        if (utilization[number] == null) {
+            utilization[number] = new Occupation();
+            utilization[number].fill(lastStep);
+            occupations.add(utilization[number]);
+        }
+        return utilization[number];
+    }
+
+    private IndividualSeries series(Individual individual) {
+        int number = individual.getNumber();
+        if (number >= individuals.length) {
+            individuals = Arrays.copyOf(individuals, Math.max(number + 1, 2 * individuals.length));
+        }
+        if (individuals[number] == null) {
+            individuals[number] = new IndividualSeries();
+        }
+        return individuals[number];
+    }
+
+    private static void checkOrder(int t, int lastTime) {
+        if (t < lastTime) {
+            throw new IllegalArgumentException("Event in step " + t + " reported after step " + lastTime);
+        }
+    }
+
+    /**
+     * Counts the events of a cell in each time step and up to each time step.
+     */
+    private static final class Counter {
+
+        private final IntegerDoubleMapping rate = new IntegerDoubleMapping();
+        private final IntegerDoubleMapping amount = new IntegerDoubleMapping();
+        private int lastTime = -1;
+        /** The number of events in the last time step. */
+        private int current;
+        private int total;
+
+        private Counter() {
+            rate.set(0, 0);
+            amount.set(0, 0);
+        }
+
+        private void add(int t) {
+            checkOrder(t, lastTime);
+            current = t == lastTime ? current + 1 : 1;
+            lastTime = t;
+            total++;
+            rate.set(t, current);
+            rate.set(t + 1, 0);
+            amount.set(t, total);
+        }
+    }
+
+    /**
+     * Counts the time steps in which a cell is occupied. The share of the occupied steps is stored for each step up
+     * to the last step the mapping has been filled to.
+     */
+    private static final class Occupation {
+
+        private final IntegerDoubleMapping utilization = new IntegerDoubleMapping();
+        private int occupied;
+        private int filled = -1;
+
+        private void add(int t) {
+            checkOrder(t, filled);
+            fill(t - 1);
+            occupied++;
+            utilization.set(t, occupied / (double) (t + 1));
+            filled = t;
+        }
+
+        private void fill(int end) {
+            for (int t = filled + 1; t <= end; ++t) {
+                utilization.set(t, occupied / (double) (t + 1));
+            }
+            filled = Math.max(filled, end);
+        }
+    }
+
+    /**
+     * The running values of an individual.
+     */
+    private static final class IndividualSeries {
+
+        private final IntegerDoubleMapping panic = new IntegerDoubleMapping();
+        private final IntegerDoubleMapping exhaustion = new IntegerDoubleMapping();
+        private final IntegerDoubleMapping speed = new IntegerDoubleMapping();
+        private final IntegerDoubleMapping coveredDistance = new IntegerDoubleMapping();
+        private final IntegerDoubleMapping waitedTime = new IntegerDoubleMapping();
+        private final IntegerDoubleMapping nearestExitDistance = new IntegerDoubleMapping();
+        private final IntegerDoubleMapping plannedExitDistance = new IntegerDoubleMapping();
+        private double covered;
+        private double waited;
+
+        private IndividualSeries() {
+            coveredDistance.set(0, 0);
+            waitedTime.set(0, 0);
+        }
+    }
+
+    @Override
+    public void addSafeIndividualToStatistic(Individual ind) {
+        delegate.addSafeIndividualToStatistic(ind);
+    }
+
+    @Override
+    public void addChangedPotentialToStatistic(Individual ind, int t) {
+        delegate.addChangedPotentialToStatistic(ind, t);
+    }
+
+    @Override
+    public void addCoveredDistanceToStatistic(Individual ind, int t, double distance) {
+        delegate.addCoveredDistanceToStatistic(ind, t, distance);
+        IndividualSeries series = series(ind);
+        series.covered += distance;
+        series.coveredDistance.set(t, series.covered);
+    }
+
+    @Override
+    public void addWaitedTimeToStatistic(Individual ind, int t) {
+        delegate.addWaitedTimeToStatistic(ind, t);
+        IndividualSeries series = series(ind);
+        series.waited++;
+        series.waitedTime.set(t, series.waited);
+    }
+
+    @Override
+    public void addMinDistancesToStatistic(Individual ind, double distNearest, double distPlanned) {
+        delegate.addMinDistancesToStatistic(ind, distNearest, distPlanned);
+        series(ind).nearestExitDistance.set(0, distNearest);
+        series(ind).plannedExitDistance.set(0, distPlanned);
+    }
+
+    @Override
+    public void addExitToStatistic(Individual ind, Exit exit) {
+        delegate.addExitToStatistic(ind, exit);
+    }
+
+    @Override
+    public void addExhaustionToStatistic(Individual ind, int t, double actualExhaustion) {
+        delegate.addExhaustionToStatistic(ind, t, actualExhaustion);
+        series(ind).exhaustion.set(t, actualExhaustion);
+    }
+
+    @Override
+    public void addPanicToStatistic(Individual ind, int t, double actualPanic) {
+        delegate.addPanicToStatistic(ind, t, actualPanic);
+        series(ind).panic.set(t, actualPanic);
+    }
+
+    @Override
+    public void addCurrentSpeedToStatistic(Individual ind, int t, double speed) {
+        delegate.addCurrentSpeedToStatistic(ind, t, speed);
+        series(ind).speed.set(t, speed);
+    }
+
+    @Override
+    public void addCellToUtilizationStatistic(EvacCellInterface c, int t) {
+        delegate.addCellToUtilizationStatistic(c, t);
+        occupation(c).add(t);
+    }
+
+    @Override
+    public void addCellToWaitingStatistic(EvacCellInterface c, int t) {
+        delegate.addCellToWaitingStatistic(c, t);
+        counter(blocked, c).add(t);
+    }
+}
@@ -0,0 +1,295 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.zet.cellularautomaton.DoorCell;
+import org.zet.cellularautomaton.EvacCellInterface;
+
+/**
+ * Counts the individuals crossing measurement lines while the simulation runs. A line separates an upstream from a
+ * downstream set of cells, a move from an upstream cell to a downstream cell crosses the line forward and a move in
+ * the opposite direction crosses it backward. A set of doors has no direction, each pass through the doors is counted
+ * once as forward crossing when the individual leaves the doors. The crossings are counted in total and in bins of a
+ * fixed number of time steps.
+ *
+ * The counters are updated by the {@link org.zet.cellularautomaton.algorithm.state.EvacuationStateController} for each
+ * movement in constant time, such that no actions have to be recorded to measure the flows.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class FlowMeasurement {
+
+    /** The side of cells that are not part of a line. */
+    private static final int OUTSIDE = 0;
+    private static final int UPSTREAM = 1;
+    private static final int DOWNSTREAM = 2;
+    private static final int INITIAL_BINS = 16;
+
+    private final int binWidth;
+    /** The lines of each cell, encoded as {@code 4 * line + side}. */
+    private final Map<EvacCellInterface, int[]> cellLines = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Double> widths = new ArrayList<>();
+    /** The side from which a forward crossing starts for each line. */
+    private int[] forwardFrom = new int[0];
+    private int[] forwardTo = new int[0];
+    /** Whether moves in the opposite direction are counted as backward crossings, {@code false} for doors. */
+    private boolean[] directed = new boolean[0];
+    private long[] forwardTotal = new long[0];
+    private long[] backwardTotal = new long[0];
+    private int[][] forwardBins = new int[0][];
+    private int[][] backwardBins = new int[0][];
+    /** The number of bins that contain crossings, equal for all lines. */
+    private int binCount;
+
+    /**
+     * Creates a measurement counting the crossings in each time step.
+     */
+    public FlowMeasurement() {
+        this(1);
+    }
+
+    /**
+     * Creates a measurement counting the crossings in bins of a given number of time steps.
+     *
+     * @param binWidth the number of time steps of a bin
+     */
+    public FlowMeasurement(int binWidth) {
+        if (binWidth < 1) {
+            throw new IllegalArgumentException("Bin width must be positive: " + binWidth);
+        }
+        this.binWidth = binWidth;
+    }
+
+    /**
+     * Registers a measurement line between two sets of cells.
+     *
+     * @param name the name of the line
+     * @param width the width of the line in meters
+     * @param upstream the cells in front of the line
+     * @param downstream the cells behind the line
+     * @return the number of the line
+     * @throws IllegalArgumentException if a cell is contained in both sets
+     */
+    public int addLine(String name, double width, Collection<? extends EvacCellInterface> upstream,
+            Collection<? extends EvacCellInterface> downstream) {
+        for (EvacCellInterface cell : upstream) {
+            if (downstream.contains(cell)) {
+                throw new IllegalArgumentException("Cell " + cell + " is on both sides of line " + name);
+            }
+        }
+        int line = newLine(name, width, UPSTREAM, DOWNSTREAM, true);
+        upstream.forEach(cell -> register(cell, line, UPSTREAM));
+        downstream.forEach(cell -> register(cell, line, DOWNSTREAM));
+        return line;
+    }
+
+    /**
+     * Registers a set of doors as measurement line. Each pass through the doors is counted once as forward crossing,
+     * when the individual leaves the doors to a cell that is not in the set. Entering the doors and moves between doors
+     * of the set are not counted, thus there are no backward crossings and the net flow is the flow through the doors.
+     *
+     * @param name the name of the line
+     * @param width the total width of the doors in meters
+     * @param doors the door cells
+     * @return the number of the line
+     */
+    public int addDoors(String name, double width, Collection<? extends DoorCell> doors) {
+        int line = newLine(name, width, UPSTREAM, OUTSIDE, false);
+        doors.forEach(door -> register(door, line, UPSTREAM));
+        return line;
+    }
+
+    private int newLine(String name, double width, int from, int to, boolean directed) {
+        if (!(width > 0)) {
+            throw new IllegalArgumentException("Width must be positive: " + width);
+        }
+        int line = names.size();
+        names.add(name);
+        widths.add(width);
+        forwardFrom = append(forwardFrom, from);
+        forwardTo = append(forwardTo, to);
+        this.directed = Arrays.copyOf(this.directed, line + 1);
+        this.directed[line] = directed;
+        forwardTotal = Arrays.copyOf(forwardTotal, line + 1);
+        backwardTotal = Arrays.copyOf(backwardTotal, line + 1);
+        forwardBins = Arrays.copyOf(forwardBins, line + 1);
+        backwardBins = Arrays.copyOf(backwardBins, line + 1);
+        int capacity = line == 0 ? INITIAL_BINS : forwardBins[0].length;
+        forwardBins[line] = new int[capacity];
+        backwardBins[line] = new int[capacity];
+        return line;
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private void register(EvacCellInterface cell, int line, int side) {
+        int[] lines = cellLines.get(cell);
+        cellLines.put(cell, lines == null ? new int[]{4 * line + side} : append(lines, 4 * line + side));
+    }
+
+    /**
+     * Counts a movement of an individual. Only movements between cells on different sides of a line are counted.
+     *
+     * @param from the cell the individual leaves
+     * @param to the cell the individual enters
+     * @param time the time step of the movement
+     */
+    public void moved(EvacCellInterface from, EvacCellInterface to, int time) {
+        int[] fromLines = cellLines.get(from);
+        int[] toLines = cellLines.get(to);
+        if (fromLines == null && toLines == null) {
+            return;
+        }
+        if (toLines != null) {
+            for (int code : toLines) {
+                count(code >> 2, side(fromLines, code >> 2), code & 3, time);
+            }
+        }
+        if (fromLines != null) {
+            for (int code : fromLines) {
+                if (side(toLines, code >> 2) == OUTSIDE) {
+                    count(code >> 2, code & 3, OUTSIDE, time);
+                }
+            }
+        }
+    }
+
+    private static int side(int[] lines, int line) {
+        if (lines != null) {
+            for (int code : lines) {
+                if (code >> 2 == line) {
+                    return code & 3;
+                }
+            }
+        }
+        return OUTSIDE;
+    }
+
+    private void count(int line, int fromSide, int toSide, int time) {
+        if (fromSide == forwardFrom[line] && toSide == forwardTo[line]) {
+            int bin = bin(time);
+            forwardTotal[line]++;
+            forwardBins[line][bin]++;
+        } else if (directed[line] && fromSide == forwardTo[line] && toSide == forwardFrom[line]) {
+            int bin = bin(time);
+            backwardTotal[line]++;
+            backwardBins[line][bin]++;
+        }
+    }
+
+    /**
+     * Returns the bin of a time step. The bins of all lines are enlarged if necessary.
+     */
+    private int bin(int time) {
+        int bin = time / binWidth;
+        if (bin >= forwardBins[0].length) {
+            int capacity = Math.max(bin + 1, 2 * forwardBins[0].length);
+            for (int line = 0; line < forwardBins.length; ++line) {
+                forwardBins[line] = Arrays.copyOf(forwardBins[line], capacity);
+                backwardBins[line] = Arrays.copyOf(backwardBins[line], capacity);
+            }
+        }
+        binCount = Math.max(binCount, bin + 1);
+        return bin;
+    }
+
+    /**
+     * Sets all counters to zero, for example before a new run. The lines are kept.
+     */
+    public void reset() {
+        Arrays.fill(forwardTotal, 0);
+        Arrays.fill(backwardTotal, 0);
+        for (int line = 0; line < names.size(); ++line) {
+            Arrays.fill(forwardBins[line], 0);
+            Arrays.fill(backwardBins[line], 0);
+        }
+        binCount = 0;
+    }
+
+    public int getLineCount() {
+        return names.size();
+    }
+
+    public String getName(int line) {
+        return names.get(line);
+    }
+
+    public double getWidth(int line) {
+        return widths.get(line);
+    }
+
+    public int getBinWidth() {
+        return binWidth;
+    }
+
+    /**
+     * Returns the number of bins up to the last bin containing a crossing of any line.
+     *
+     * @return the number of bins
+     */
+    public int getBinCount() {
+        return binCount;
+    }
+
+    public long getForwardCount(int line) {
+        return forwardTotal[line];
+    }
+
+    public long getBackwardCount(int line) {
+        return backwardTotal[line];
+    }
+
+    /**
+     * Returns the number of forward crossings of a line in each bin.
+     *
+     * @param line the number of the line
+     * @return a copy of the counts with {@link #getBinCount()} entries
+     */
+    public int[] getForwardCounts(int line) {
+        return Arrays.copyOf(forwardBins[line], binCount);
+    }
+
+    public int[] getBackwardCounts(int line) {
+        return Arrays.copyOf(backwardBins[line], binCount);
+    }
+
+    /**
+     * Returns the specific flow of the net forward crossings of a line in each bin, in persons per meter and second.
+     *
+     * @param line the number of the line
+     * @param secondsPerStep the duration of a time step in seconds
+     * @return the flow rates with {@link #getBinCount()} entries
+     */
+    public double[] getFlowRates(int line, double secondsPerStep) {
+        double scale = 1 / (widths.get(line) * binWidth * secondsPerStep);
+        double[] rates = new double[binCount];
+        for (int bin = 0; bin < binCount; ++bin) {
+            rates[bin] = (forwardBins[line][bin] - backwardBins[line][bin]) * scale;
+        }
+        return rates;
+    }
+}
@@ -26,6 +26,7 @@ import org.zet.cellularautomaton.ExitCell;
 import org.zet.cellularautomaton.algorithm.state.EvacuationState;
 import org.zet.cellularautomaton.algorithm.state.IndividualProperty;
 import org.zet.cellularautomaton.algorithm.state.PropertyAccess;
+import org.zet.cellularautomaton.statistic.results.IndividualTimeSeries;
 import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResultsForIndividuals;
 import org.zet.cellularautomaton.potential.StaticPotential;
 import org.zet.cellularautomaton.statistic.exception.GroupOfIndividualsException;
@@ -49,38 +50,28 @@ public class IndividualStatistic {
     HashMap<Individual, Integer> safetyTimes;
     HashMap<Individual, ArrayList<Integer>> changePotentialTimes;
     private Map<Individual, List<Exit>> potentials;
-    HashMap<Individual, ArrayList<Integer>> coveredDistanceTimes;
-    private HashMap<Individual, ArrayList<Double>> coveredDistance;
-    HashMap<Individual, ArrayList<Integer>> waitedTimeTimes;
-    private HashMap<Individual, ArrayList<Integer>> waitedTime;
+    private IndividualTimeSeries coveredDistance;
+    private IndividualTimeSeries waitedTime;
     HashMap<Individual, Double> minDistanceToNearestExit;
     HashMap<Individual, Double> minDistanceToPlannedExit;
     private HashMap<Individual, Exit> takenExit;
-    HashMap<Individual, ArrayList<Integer>> panicTimes;
-    private HashMap<Individual, ArrayList<Double>> panic;
-    HashMap<Individual, ArrayList<Integer>> exhaustionTimes;
-    private HashMap<Individual, ArrayList<Double>> exhaustion;
-    HashMap<Individual, ArrayList<Integer>> currentSpeedTimes;
-    private HashMap<Individual, ArrayList<Double>> currentSpeed;
+    private IndividualTimeSeries panic;
+    private IndividualTimeSeries exhaustion;
+    private IndividualTimeSeries currentSpeed;
     PropertyAccess es;
 
     public IndividualStatistic(StoredCAStatisticResultsForIndividuals stored) {
         safetyTimes = stored.getHashMapSafetyTimes();
         changePotentialTimes = stored.getHashMapChangePotentialTimes();
         potentials = stored.getHashMapPotentials();
-        coveredDistanceTimes = stored.getHashMapCoveredDistanceTimes();
-        coveredDistance = stored.getHashMapCoveredDistance();
-        waitedTimeTimes = stored.getHashMapWaitedTimeTimes();
-        waitedTime = stored.getHashMapWaitedTime();
+        coveredDistance = stored.getCoveredDistance();
+        waitedTime = stored.getWaitedTime();
         minDistanceToNearestExit = stored.getHashMapMinDistanceToNearestExit();
         minDistanceToPlannedExit = stored.getHashMapMinDistanceToPlannedExit();
         takenExit = stored.getHashMapTakenExit();
-        panicTimes = stored.getHashMapPanicTimes();
-        panic = stored.getHashMapPanic();
-        exhaustionTimes = stored.getHashMapExhaustionTimes();
-        exhaustion = stored.getHashMapExhaustion();
-        currentSpeedTimes = stored.getHashMapCurrentSpeedTimes();
-        currentSpeed = stored.getHashMapCurrentSpeed();
+        panic = stored.getPanic();
+        exhaustion = stored.getExhaustion();
+        currentSpeed = stored.getCurrentSpeed();
     }
 
 //coveredDistance
@@ -100,7 +91,7 @@ public class IndividualStatistic {
             throw new OneIndNoPotentialException(ind);
         }
 
-        if (!coveredDistanceTimes.containsKey(ind)) {
+        if (!coveredDistance.contains(ind)) {
             // ind hat sich nie bewegt und ist nie stehengeblieben--> ind ist eingeschlossen
             throw new OneIndNoPotentialException(ind);
         }
@@ -114,7 +105,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        int index = Collections.binarySearch(coveredDistanceTimes.get(ind), t);
+        int index = coveredDistance.search(ind, t);
         if (index < 0) {
             index = -index - 2;
         }
@@ -124,7 +115,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        return coveredDistance.get(ind).get(index);
+        return coveredDistance.value(ind, index);
 
     }
 
@@ -254,7 +245,7 @@ public class IndividualStatistic {
             throw new OneIndNoPotentialException(ind);
         }
 
-        if (!currentSpeedTimes.containsKey(ind)) {
+        if (!currentSpeed.contains(ind)) {
             // ind hat sich nie bewegt und ist nie stehengeblieben--> ind ist eingeschlossen
             throw new OneIndNoPotentialException(ind);
         }
@@ -268,7 +259,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        int index = Collections.binarySearch(currentSpeedTimes.get(ind), t);
+        int index = currentSpeed.search(ind, t);
         if (index < 0) {
             index = -index - 2;
         }
@@ -278,7 +269,7 @@ public class IndividualStatistic {
             throw new MissingStoredValueException("Individual hat zum Zeitpunkt 1 keinen Speed-Eintrag!");
         }
 
-        return currentSpeed.get(ind).get(index);
+        return currentSpeed.value(ind, index);
 
     }
 
@@ -328,7 +319,7 @@ public class IndividualStatistic {
             throw new OneIndNoPotentialException(ind);
         }
 
-        if (!currentSpeedTimes.containsKey(ind)) {
+        if (!currentSpeed.contains(ind)) {
             // ind hat sich nie bewegt und ist nie stehengeblieben--> ind ist eingeschlossen
             throw new OneIndNoPotentialException(ind);
         }
@@ -351,7 +342,7 @@ public class IndividualStatistic {
             return getCurrentSpeed(ind, from);
         }
 
-        int indexOfFrom = (Collections.binarySearch(currentSpeedTimes.get(ind), from));
+        int indexOfFrom = (currentSpeed.search(ind, from));
         if (indexOfFrom < 0) {
             indexOfFrom = -indexOfFrom - 2;
         }
@@ -359,7 +350,7 @@ public class IndividualStatistic {
             // Fall sollte nicht eintreten
             throw new MissingStoredValueException("Individual hat zum Zeitpunkt 1 keinen Speed-Eintrag!");
         }
-        int indexOfTo = (Collections.binarySearch(currentSpeedTimes.get(ind), to));
+        int indexOfTo = (currentSpeed.search(ind, to));
         if (indexOfTo < 0) {
             indexOfTo = -indexOfTo - 2;
         }
@@ -369,18 +360,18 @@ public class IndividualStatistic {
         }
 
         if (indexOfFrom == indexOfTo) {
-            return currentSpeed.get(ind).get(indexOfFrom);
+            return currentSpeed.value(ind, indexOfFrom);
         }
 
-        double lastSpeed = currentSpeed.get(ind).get(indexOfFrom);
+        double lastSpeed = currentSpeed.value(ind, indexOfFrom);
         double weightedSpeedSum = 0;
         int stepTo;
         int stepFrom = from;
 
         for (int i = indexOfFrom + 1; i < indexOfTo; i++) {
-            stepTo = currentSpeedTimes.get(ind).get(i);
+            stepTo = currentSpeed.time(ind, i);
             weightedSpeedSum += lastSpeed * (stepTo - stepFrom);
-            lastSpeed = currentSpeed.get(ind).get(i);
+            lastSpeed = currentSpeed.value(ind, i);
             stepFrom = stepTo;
         }
         //last step:
@@ -448,7 +439,7 @@ public class IndividualStatistic {
             throw new OneIndNoPotentialException(ind);
         }
 
-        if (!currentSpeedTimes.containsKey(ind)) {
+        if (!currentSpeed.contains(ind)) {
             // ind hat sich nie bewegt und ist nie stehengeblieben--> ind ist eingeschlossen
             throw new OneIndNoPotentialException(ind);
         }
@@ -471,7 +462,7 @@ public class IndividualStatistic {
             return getCurrentSpeed(ind, from);
         }
 
-        int indexOfFrom = (Collections.binarySearch(currentSpeedTimes.get(ind), from));
+        int indexOfFrom = (currentSpeed.search(ind, from));
         if (indexOfFrom < 0) {
             indexOfFrom = -indexOfFrom - 2;
         }
@@ -480,7 +471,7 @@ public class IndividualStatistic {
             throw new MissingStoredValueException("Individual hat zum Zeitpunkt 1 keinen Speed-Eintrag!");
         }
 
-        int indexOfTo = (Collections.binarySearch(currentSpeedTimes.get(ind), to));
+        int indexOfTo = (currentSpeed.search(ind, to));
         if (indexOfTo < 0) {
             indexOfTo = -indexOfTo - 2;
         }
@@ -490,13 +481,13 @@ public class IndividualStatistic {
         }
 
         if (indexOfFrom == indexOfTo) {
-            return currentSpeed.get(ind).get(indexOfFrom);
+            return currentSpeed.value(ind, indexOfFrom);
         }
         double maxSpeed = 0;
         double speed;
 
         for (int i = indexOfFrom; i < indexOfTo; i++) {
-            speed = currentSpeed.get(ind).get(i);
+            speed = currentSpeed.value(ind, i);
             if (speed > maxSpeed) {
                 maxSpeed = speed;
             }
@@ -902,7 +893,7 @@ public class IndividualStatistic {
             throw new OneIndNoPotentialException(ind);
         }
 
-        if (!exhaustionTimes.containsKey(ind)) {
+        if (!exhaustion.contains(ind)) {
             // ind hat sich nie bewegt und ist nie stehengeblieben--> ind ist eingeschlossen
             throw new OneIndNoPotentialException(ind);
         }
@@ -916,7 +907,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        int index = Collections.binarySearch(exhaustionTimes.get(ind), t);
+        int index = exhaustion.search(ind, t);
         if (index < 0) {
             index = -index - 2;
         }
@@ -925,7 +916,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        return exhaustion.get(ind).get(index);
+        return exhaustion.value(ind, index);
 
     }
 
@@ -989,11 +980,11 @@ public class IndividualStatistic {
 
         if (from < to) {
             if (!(ip.getDeathCause() != null && ip.getDeathCause().compareTo(org.zet.cellularautomaton.DeathCause.EXIT_UNREACHABLE) == 0)) {
-                if (exhaustionTimes.containsKey(ind)) {
+                if (exhaustion.contains(ind)) {
                     if (from == 0) {
                         from = 1;
                     }
-                    int indexOfFrom = (Collections.binarySearch(exhaustionTimes.get(ind), from));
+                    int indexOfFrom = (exhaustion.search(ind, from));
                     if (indexOfFrom < 0) {
                         indexOfFrom = -indexOfFrom - 2;
                     }
@@ -1001,7 +992,7 @@ public class IndividualStatistic {
                         throw new IncorrectTimeException();
                     }
 
-                    int indexOfTo = (Collections.binarySearch(exhaustionTimes.get(ind), to));
+                    int indexOfTo = (exhaustion.search(ind, to));
                     if (indexOfTo < 0) {
                         indexOfTo = -indexOfTo - 2;
                     }
@@ -1009,19 +1000,19 @@ public class IndividualStatistic {
                         throw new IncorrectTimeException();
                     }
 
-                    double lastExhaustion = exhaustion.get(ind).get(indexOfFrom);
+                    double lastExhaustion = exhaustion.value(ind, indexOfFrom);
                     double weightedExhaustionSum = 0;
                     int stepTo;
                     int stepFrom = from;
 
                     if (indexOfFrom == indexOfTo) {
-                        return currentSpeed.get(ind).get(indexOfFrom);
+                        return currentSpeed.value(ind, indexOfFrom);
                     }
 
                     for (int i = indexOfFrom + 1; i < indexOfTo; i++) {
-                        stepTo = exhaustionTimes.get(ind).get(i);
+                        stepTo = exhaustion.time(ind, i);
                         weightedExhaustionSum += lastExhaustion * (stepTo - stepFrom);
-                        lastExhaustion = exhaustion.get(ind).get(i);
+                        lastExhaustion = exhaustion.value(ind, i);
                         stepFrom = stepTo;
                     }
                     //last step:
@@ -1074,14 +1065,14 @@ public class IndividualStatistic {
     public double calculateMaxExhaustion(Individual ind, int from, int to) throws OneIndNoPotentialException, IncorrectTimeException {
         if (from < to) {
             if (!(ip.getDeathCause() != null && ip.getDeathCause().compareTo(org.zet.cellularautomaton.DeathCause.EXIT_UNREACHABLE) == 0)) {
-                if (exhaustionTimes.containsKey(ind)) {
+                if (exhaustion.contains(ind)) {
                     if (is.propertyFor(ind).isSafe()) {
                         int safetyTime = es.propertyFor(ind).getSafetyTime();
                         if (to > safetyTime) {
                             to = safetyTime;
                         }
                     }
-                    int indexOfFrom = (Collections.binarySearch(exhaustionTimes.get(ind), from));
+                    int indexOfFrom = (exhaustion.search(ind, from));
                     if (indexOfFrom < 0) {
                         indexOfFrom = -indexOfFrom - 2;
                     }
@@ -1089,7 +1080,7 @@ public class IndividualStatistic {
                         throw new IllegalArgumentException();
                     }
 
-                    int indexOfTo = (Collections.binarySearch(exhaustionTimes.get(ind), to));
+                    int indexOfTo = (exhaustion.search(ind, to));
                     if (indexOfTo < 0) {
                         indexOfTo = -indexOfTo - 2;
                     }
@@ -1101,7 +1092,7 @@ public class IndividualStatistic {
                     double maxExhaustion = 0;
 
                     for (int i = indexOfFrom; i <= indexOfTo; i++) {
-                        actualExhaustion = exhaustion.get(ind).get(i);
+                        actualExhaustion = exhaustion.value(ind, i);
                         if (actualExhaustion > maxExhaustion) {
                             maxExhaustion = actualExhaustion;
                         }
@@ -1156,7 +1147,7 @@ public class IndividualStatistic {
     public double calculateMinExhaustionExceptingStartExhaustion(Individual ind, int from, int to) throws OneIndNoPotentialException, IncorrectTimeException {
         if (from < to) {
             if (!(ip.getDeathCause() != null && ip.getDeathCause().compareTo(org.zet.cellularautomaton.DeathCause.EXIT_UNREACHABLE) == 0)) {
-                if (exhaustionTimes.containsKey(ind)) {
+                if (exhaustion.contains(ind)) {
                     if (is.propertyFor(ind).isSafe()) {
                         int safetyTime = es.propertyFor(ind).getSafetyTime();
                         if (to > safetyTime) {
@@ -1165,15 +1156,15 @@ public class IndividualStatistic {
                     }
                     if (from == 0) {
                         try {
-                            from = exhaustionTimes.get(ind).get(1);
+                            from = exhaustion.time(ind, 1);
                         } catch (Exception e) {
-                            return exhaustion.get(ind).get(0);
+                            return exhaustion.value(ind, 0);
                         }
                         if (to < from) {
-                            return exhaustion.get(ind).get(0);
+                            return exhaustion.value(ind, 0);
                         }
                     }
-                    int indexOfFrom = (Collections.binarySearch(exhaustionTimes.get(ind), from));
+                    int indexOfFrom = (exhaustion.search(ind, from));
                     if (indexOfFrom < 0) {
                         indexOfFrom = -indexOfFrom - 2;
                     }
@@ -1181,7 +1172,7 @@ public class IndividualStatistic {
                         throw new IllegalArgumentException();
                     }
 
-                    int indexOfTo = (Collections.binarySearch(exhaustionTimes.get(ind), to));
+                    int indexOfTo = (exhaustion.search(ind, to));
                     if (indexOfTo < 0) {
                         indexOfTo = -indexOfTo - 2;
                     }
@@ -1193,7 +1184,7 @@ public class IndividualStatistic {
                     double minExhaustion = Double.MAX_VALUE;
 
                     for (int i = indexOfFrom; i <= indexOfTo; i++) {
-                        actualExhaustion = exhaustion.get(ind).get(i);
+                        actualExhaustion = exhaustion.value(ind, i);
                         if (actualExhaustion < minExhaustion) {
                             minExhaustion = actualExhaustion;
                         }
@@ -1625,7 +1616,7 @@ public class IndividualStatistic {
             throw new OneIndNoPotentialException(ind);
         }
 
-        if (!panicTimes.containsKey(ind)) {
+        if (!panic.contains(ind)) {
             // ind hat sich nie bewegt und ist nie stehengeblieben--> ind ist eingeschlossen
             throw new OneIndNoPotentialException(ind);
         }
@@ -1639,7 +1630,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        int index = Collections.binarySearch(panicTimes.get(ind), t);
+        int index = panic.search(ind, t);
         if (index < 0) {
             index = -index - 2;
         }
@@ -1648,7 +1639,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        return panic.get(ind).get(index);
+        return panic.value(ind, index);
 
     }
 
@@ -1712,11 +1703,11 @@ public class IndividualStatistic {
 
         if (from < to) {
             if (!(ip.getDeathCause() != null && ip.getDeathCause().compareTo(org.zet.cellularautomaton.DeathCause.EXIT_UNREACHABLE) == 0)) {
-                if (panicTimes.containsKey(ind)) {
+                if (panic.contains(ind)) {
                     if (from == 0) {
                         from = 1;
                     }
-                    int indexOfFrom = (Collections.binarySearch(panicTimes.get(ind), from));
+                    int indexOfFrom = (panic.search(ind, from));
                     if (indexOfFrom < 0) {
                         indexOfFrom = -indexOfFrom - 2;
                     }
@@ -1724,7 +1715,7 @@ public class IndividualStatistic {
                         throw new IncorrectTimeException();
                     }
 
-                    int indexOfTo = (Collections.binarySearch(panicTimes.get(ind), to));
+                    int indexOfTo = (panic.search(ind, to));
                     if (indexOfTo < 0) {
                         indexOfTo = -indexOfTo - 2;
                     }
@@ -1732,19 +1723,19 @@ public class IndividualStatistic {
                         throw new IncorrectTimeException();
                     }
 
-                    double lastPanic = panic.get(ind).get(indexOfFrom);
+                    double lastPanic = panic.value(ind, indexOfFrom);
                     double weightedPanicSum = 0;
                     int stepTo;
                     int stepFrom = from;
 
                     if (indexOfFrom == indexOfTo) {
-                        return currentSpeed.get(ind).get(indexOfFrom);
+                        return currentSpeed.value(ind, indexOfFrom);
                     }
 
                     for (int i = indexOfFrom + 1; i < indexOfTo; i++) {
-                        stepTo = panicTimes.get(ind).get(i);
+                        stepTo = panic.time(ind, i);
                         weightedPanicSum += lastPanic * (stepTo - stepFrom);
-                        lastPanic = panic.get(ind).get(i);
+                        lastPanic = panic.value(ind, i);
                         stepFrom = stepTo;
                     }
                     //last step:
@@ -1797,14 +1788,14 @@ public class IndividualStatistic {
     public double calculateMaxPanic(Individual ind, int from, int to) throws OneIndNoPotentialException, IncorrectTimeException {
         if (from < to) {
             if (!(ip.getDeathCause() != null && ip.getDeathCause().compareTo(org.zet.cellularautomaton.DeathCause.EXIT_UNREACHABLE) == 0)) {
-                if (panicTimes.containsKey(ind)) {
+                if (panic.contains(ind)) {
                     if (is.propertyFor(ind).isSafe()) {
                         int safetyTime = es.propertyFor(ind).getSafetyTime();
                         if (to > safetyTime) {
                             to = safetyTime;
                         }
                     }
-                    int indexOfFrom = (Collections.binarySearch(panicTimes.get(ind), from));
+                    int indexOfFrom = (panic.search(ind, from));
                     if (indexOfFrom < 0) {
                         indexOfFrom = -indexOfFrom - 2;
                     }
@@ -1812,7 +1803,7 @@ public class IndividualStatistic {
                         throw new IllegalArgumentException();
                     }
 
-                    int indexOfTo = (Collections.binarySearch(panicTimes.get(ind), to));
+                    int indexOfTo = (panic.search(ind, to));
                     if (indexOfTo < 0) {
                         indexOfTo = -indexOfTo - 2;
                     }
@@ -1824,7 +1815,7 @@ public class IndividualStatistic {
                     double maxPanic = 0;
 
                     for (int i = indexOfFrom; i <= indexOfTo; i++) {
-                        actualPanic = panic.get(ind).get(i);
+                        actualPanic = panic.value(ind, i);
                         if (actualPanic > maxPanic) {
                             maxPanic = actualPanic;
                         }
@@ -1879,7 +1870,7 @@ public class IndividualStatistic {
     public double calculateMinPanicExceptingStartPanic(Individual ind, int from, int to) throws OneIndNoPotentialException, IncorrectTimeException {
         if (from < to) {
             if (!(ip.getDeathCause() != null && ip.getDeathCause().compareTo(org.zet.cellularautomaton.DeathCause.EXIT_UNREACHABLE) == 0)) {
-                if (panicTimes.containsKey(ind)) {
+                if (panic.contains(ind)) {
                     if (is.propertyFor(ind).isSafe()) {
                         int safetyTime = es.propertyFor(ind).getSafetyTime();
                         if (to > safetyTime) {
@@ -1888,15 +1879,15 @@ public class IndividualStatistic {
                     }
                     if (from == 0) {
                         try {
-                            from = panicTimes.get(ind).get(1);
+                            from = panic.time(ind, 1);
                         } catch (Exception e) {
-                            return panic.get(ind).get(0);
+                            return panic.value(ind, 0);
                         }
                         if (to < from) {
-                            return panic.get(ind).get(0);
+                            return panic.value(ind, 0);
                         }
                     }
-                    int indexOfFrom = (Collections.binarySearch(panicTimes.get(ind), from));
+                    int indexOfFrom = (panic.search(ind, from));
                     if (indexOfFrom < 0) {
                         indexOfFrom = -indexOfFrom - 2;
                     }
@@ -1904,7 +1895,7 @@ public class IndividualStatistic {
                         throw new IllegalArgumentException();
                     }
 
-                    int indexOfTo = (Collections.binarySearch(panicTimes.get(ind), to));
+                    int indexOfTo = (panic.search(ind, to));
                     if (indexOfTo < 0) {
                         indexOfTo = -indexOfTo - 2;
                     }
@@ -1916,7 +1907,7 @@ public class IndividualStatistic {
                     double minPanic = Double.MAX_VALUE;
 
                     for (int i = indexOfFrom; i <= indexOfTo; i++) {
-                        actualPanic = panic.get(ind).get(i);
+                        actualPanic = panic.value(ind, i);
                         if (actualPanic < minPanic) {
                             minPanic = actualPanic;
                         }
@@ -2654,7 +2645,7 @@ public class IndividualStatistic {
             throw new OneIndNoPotentialException(ind);
         }
 
-        if (!waitedTimeTimes.containsKey(ind)) {
+        if (!waitedTime.contains(ind)) {
             //ind hat nie gewartet
             return 0;
         }
@@ -2668,7 +2659,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        int index = Collections.binarySearch(waitedTimeTimes.get(ind), t);
+        int index = waitedTime.search(ind, t);
         if (index < 0) {
             index = -index - 2;
         }
@@ -2678,7 +2669,7 @@ public class IndividualStatistic {
             return 0;
         }
 
-        return waitedTime.get(ind).get(index);
+        return (int) waitedTime.value(ind, index);
 
     }
 
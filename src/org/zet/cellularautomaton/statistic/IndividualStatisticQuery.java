@@ -0,0 +1,337 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.statistic.results.IndividualTimeSeries;
+import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResultsForIndividuals;
+
+/**
+ * Computes several metrics for many individuals at once. In contrast to {@link IndividualStatistic}, the stored
+ * series of each individual are read in a single pass for all requested metrics, the individuals can be processed in
+ * parallel and the results are stored in primitive arrays. Individuals for which a metric has no value are marked by a
+ * status code instead of an exception.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class IndividualStatisticQuery {
+
+    /** The metric has a value. */
+    public static final byte OK = 0;
+    /** The individual has no stored value, i.e., it never moved because no exit is reachable. */
+    public static final byte NO_VALUE = 1;
+    /** The individual is already safe at the beginning of the window. */
+    public static final byte ALREADY_SAFE = 2;
+    /** The individual has not reached a safe area. */
+    public static final byte NOT_SAFE = 3;
+
+    /**
+     * The metrics that can be computed for each individual within a window of time steps {@code [from, to]}.
+     */
+    public enum Metric {
+        /** The distance covered within the window. */
+        COVERED_DISTANCE,
+        /** The time weighted average speed within the window, up to the safety time of the individual. */
+        AVERAGE_SPEED,
+        /** The maximal speed within the window, up to the safety time of the individual. */
+        MAX_SPEED,
+        /** The number of time steps the individual waited within the window. */
+        WAITED_TIME,
+        /** The panic at the end of the window. */
+        PANIC,
+        /** The exhaustion at the end of the window. */
+        EXHAUSTION,
+        /** The time step at which the individual is safe. */
+        SAFETY_TIME
+    }
+
+    /**
+     * The values and status codes of the metrics of a query. The values of an individual are stored at the position
+     * of the individual in the queried list.
+     */
+    public static final class Result {
+
+        private final Map<Metric, double[]> values = new EnumMap<>(Metric.class);
+        private final Map<Metric, byte[]> status = new EnumMap<>(Metric.class);
+
+        private Result(Set<Metric> metrics, int size) {
+            for (Metric metric : metrics) {
+                values.put(metric, new double[size]);
+                status.put(metric, new byte[size]);
+            }
+        }
+
+        /**
+         * Returns the values of a metric. Values of individuals whose status is not {@link #OK} are {@code NaN}.
+         *
+         * @param metric the metric
+         * @return the values of the individuals
+         * @throws IllegalArgumentException if the metric has not been queried
+         */
+        public double[] getValues(Metric metric) {
+            return checked(values.get(metric), metric);
+        }
+
+        /**
+         * Returns the status codes of a metric.
+         *
+         * @param metric the metric
+         * @return the status codes of the individuals
+         * @throws IllegalArgumentException if the metric has not been queried
+         */
+        public byte[] getStatus(Metric metric) {
+            return checked(status.get(metric), metric);
+        }
+
+        /**
+         * Returns the number of individuals having a value for a metric.
+         *
+         * @param metric the metric
+         * @return the number of individuals with status {@link #OK}
+         */
+        public int count(Metric metric) {
+            int count = 0;
+            for (byte s : getStatus(metric)) {
+                if (s == OK) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Returns the average of a metric over the individuals having a value.
+         *
+         * @param metric the metric
+         * @return the average, or {@code NaN} if no individual has a value
+         */
+        public double average(Metric metric) {
+            double sum = 0;
+            int count = 0;
+            double[] v = getValues(metric);
+            byte[] s = getStatus(metric);
+            for (int i = 0; i < v.length; ++i) {
+                if (s[i] == OK) {
+                    sum += v[i];
+                    count++;
+                }
+            }
+            return count == 0 ? Double.NaN : sum / count;
+        }
+
+        /**
+         * Returns the maximum of a metric over the individuals having a value.
+         *
+         * @param metric the metric
+         * @return the maximum, or {@code NaN} if no individual has a value
+         */
+        public double max(Metric metric) {
+            double max = Double.NaN;
+            double[] v = getValues(metric);
+            byte[] s = getStatus(metric);
+            for (int i = 0; i < v.length; ++i) {
+                if (s[i] == OK && !(v[i] <= max)) {
+                    max = v[i];
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns the minimum of a metric over the individuals having a value.
+         *
+         * @param metric the metric
+         * @return the minimum, or {@code NaN} if no individual has a value
+         */
+        public double min(Metric metric) {
+            double min = Double.NaN;
+            double[] v = getValues(metric);
+            byte[] s = getStatus(metric);
+            for (int i = 0; i < v.length; ++i) {
+                if (s[i] == OK && !(v[i] >= min)) {
+                    min = v[i];
+                }
+            }
+            return min;
+        }
+
+        private <T> T checked(T array, Metric metric) {
+            if (array == null) {
+                throw new IllegalArgumentException("Metric has not been queried: " + metric);
+            }
+            return array;
+        }
+
+        private void set(Metric metric, int i, double value) {
+            values.get(metric)[i] = value;
+        }
+
+        private void fail(Metric metric, int i, byte code) {
+            values.get(metric)[i] = Double.NaN;
+            status.get(metric)[i] = code;
+        }
+    }
+
+    private final Map<Individual, Integer> safetyTimes;
+    private final IndividualTimeSeries coveredDistance;
+    private final IndividualTimeSeries waitedTime;
+    private final IndividualTimeSeries currentSpeed;
+    private final IndividualTimeSeries panic;
+    private final IndividualTimeSeries exhaustion;
+
+    public IndividualStatisticQuery(StoredCAStatisticResultsForIndividuals stored) {
+        safetyTimes = stored.getHashMapSafetyTimes();
+        coveredDistance = stored.getCoveredDistance();
+        waitedTime = stored.getWaitedTime();
+        currentSpeed = stored.getCurrentSpeed();
+        panic = stored.getPanic();
+        exhaustion = stored.getExhaustion();
+    }
+
+    /**
+     * Computes metrics for a list of individuals within a window of time steps.
+     *
+     * @param individuals the individuals
+     * @param from the first time step of the window
+     * @param to the last time step of the window
+     * @param parallel whether the individuals are processed in parallel
+     * @param metrics the metrics that are computed
+     * @return the values and status codes of the metrics
+     * @throws IllegalArgumentException if {@code from} is negative or larger than {@code to}
+     */
+    public Result compute(List<Individual> individuals, int from, int to, boolean parallel, Metric... metrics) {
+        if (from < 0 || from > to) {
+            throw new IllegalArgumentException("Invalid time window: " + from + " to " + to);
+        }
+        Set<Metric> requested = EnumSet.noneOf(Metric.class);
+        Collections.addAll(requested, metrics);
+        Result result = new Result(requested, individuals.size());
+        // the series are read concurrently and must not build their index lazily
+        coveredDistance.buildIndex();
+        waitedTime.buildIndex();
+        currentSpeed.buildIndex();
+        panic.buildIndex();
+        exhaustion.buildIndex();
+        IntStream indices = IntStream.range(0, individuals.size());
+        (parallel ? indices.parallel() : indices).forEach(i -> compute(individuals.get(i), i, from, to, requested,
+                result));
+        return result;
+    }
+
+    private void compute(Individual ind, int i, int from, int to, Set<Metric> metrics, Result result) {
+        Integer safetyTime = safetyTimes.get(ind);
+        if (metrics.contains(Metric.SAFETY_TIME)) {
+            if (safetyTime == null) {
+                result.fail(Metric.SAFETY_TIME, i, NOT_SAFE);
+            } else {
+                result.set(Metric.SAFETY_TIME, i, safetyTime);
+            }
+        }
+        if (metrics.contains(Metric.COVERED_DISTANCE)) {
+            if (coveredDistance.contains(ind)) {
+                result.set(Metric.COVERED_DISTANCE, i, valueAt(coveredDistance, ind, to)
+                        - valueAt(coveredDistance, ind, from));
+            } else {
+                result.fail(Metric.COVERED_DISTANCE, i, NO_VALUE);
+            }
+        }
+        if (metrics.contains(Metric.WAITED_TIME)) {
+            result.set(Metric.WAITED_TIME, i, valueAt(waitedTime, ind, to) - valueAt(waitedTime, ind, from));
+        }
+        if (metrics.contains(Metric.PANIC)) {
+            lastValue(panic, ind, to, Metric.PANIC, i, result);
+        }
+        if (metrics.contains(Metric.EXHAUSTION)) {
+            lastValue(exhaustion, ind, to, Metric.EXHAUSTION, i, result);
+        }
+        boolean average = metrics.contains(Metric.AVERAGE_SPEED);
+        boolean max = metrics.contains(Metric.MAX_SPEED);
+        if (average || max) {
+            speed(ind, i, from, safetyTime == null ? to : Math.min(to, safetyTime), safetyTime, average, max, result);
+        }
+    }
+
+    /**
+     * Computes the time weighted average and the maximum of the speed in a single pass over the records within the
+     * window.
+     */
+    private void speed(Individual ind, int i, int from, int to, Integer safetyTime, boolean average, boolean max,
+            Result result) {
+        byte code = OK;
+        if (safetyTime != null && from >= safetyTime) {
+            code = ALREADY_SAFE;
+        } else if (!currentSpeed.contains(ind) || currentSpeed.floor(ind, from) < 0) {
+            code = NO_VALUE;
+        }
+        if (code != OK) {
+            if (average) {
+                result.fail(Metric.AVERAGE_SPEED, i, code);
+            }
+            if (max) {
+                result.fail(Metric.MAX_SPEED, i, code);
+            }
+            return;
+        }
+        int first = currentSpeed.floor(ind, from);
+        int last = currentSpeed.floor(ind, to);
+        double lastSpeed = currentSpeed.value(ind, first);
+        double maxSpeed = lastSpeed;
+        double weightedSum = 0;
+        int stepFrom = from;
+        for (int k = first + 1; k <= last; ++k) {
+            int stepTo = currentSpeed.time(ind, k);
+            weightedSum += lastSpeed * (stepTo - stepFrom);
+            lastSpeed = currentSpeed.value(ind, k);
+            maxSpeed = Math.max(maxSpeed, lastSpeed);
+            stepFrom = stepTo;
+        }
+        weightedSum += lastSpeed * (to - stepFrom);
+        if (average) {
+            result.set(Metric.AVERAGE_SPEED, i, to == from ? lastSpeed : weightedSum / (to - from));
+        }
+        if (max) {
+            result.set(Metric.MAX_SPEED, i, maxSpeed);
+        }
+    }
+
+    private static void lastValue(IndividualTimeSeries series, Individual ind, int time, Metric metric, int i,
+            Result result) {
+        int k = series.contains(ind) ? series.floor(ind, time) : -1;
+        if (k < 0) {
+            result.fail(metric, i, NO_VALUE);
+        } else {
+            result.set(metric, i, series.value(ind, k));
+        }
+    }
+
+    /**
+     * Returns the value of a cumulative series at a time step, which is 0 before the first record.
+     */
+    private static double valueAt(IndividualTimeSeries series, Individual ind, int time) {
+        if (time == 0 || !series.contains(ind)) {
+            return 0;
+        }
+        int k = series.floor(ind, time);
+        return k < 0 ? 0 : series.value(ind, k);
+    }
+}
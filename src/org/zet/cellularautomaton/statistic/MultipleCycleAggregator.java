@@ -0,0 +1,310 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.statistic.results.CellTimeSeries;
+import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResults;
+
+/**
+ * Aggregates the statistics of many cycles of a cellular automaton in constant memory. In contrast to
+ * {@link MultipleCycleCAStatistic}, a cycle is merged into accumulators when it is finished and can be discarded
+ * afterwards. The accumulators are the moments of the evacuation times and waiting times of the cycles, the histogram
+ * of the safety times of all individuals, which is exact as safety times are time steps, and the sums of the
+ * utilization and waiting time of each cell.
+ *
+ * Cycles simulated in parallel can either be added to a shared instance, as all methods are synchronized, or to an
+ * instance per thread, which are {@link #merge(MultipleCycleAggregator) merged} at the end.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class MultipleCycleAggregator {
+
+    /** The consecutive number of each cell of the rooms. */
+    private final Map<EvacCellInterface, Integer> cellNumbers = new HashMap<>();
+    /** The first and last number of the cells of each room. */
+    private final Map<Room, int[]> roomRanges = new HashMap<>();
+    private final long[] cellUtilization;
+    private final long[] cellWaitingTime;
+    /** The number of cycles that contributed to the cell statistics. */
+    private int cellCycles;
+    private int cycles;
+    /** The number of individuals that are safe at each time step, over all cycles. */
+    private long[] safetyTimes = new long[0];
+    private final RunningMoments evacuationTime = new RunningMoments();
+    private final RunningMoments averageSafetyTime = new RunningMoments();
+    private final RunningMoments waitedTime = new RunningMoments();
+
+    /**
+     * Creates an aggregator for the cycles of cellular automata that consist of the given rooms.
+     *
+     * @param rooms the rooms
+     */
+    public MultipleCycleAggregator(Collection<? extends Room> rooms) {
+        for (Room room : rooms) {
+            int first = cellNumbers.size();
+            for (EvacCellInterface cell : room.getAllCells()) {
+                cellNumbers.putIfAbsent(cell, cellNumbers.size());
+            }
+            roomRanges.put(room, new int[]{first, cellNumbers.size()});
+        }
+        cellUtilization = new long[cellNumbers.size()];
+        cellWaitingTime = new long[cellNumbers.size()];
+    }
+
+    /**
+     * Creates a copy of the accumulators of another aggregator. The numbering of the cells is not copied.
+     *
+     * @param other the other aggregator
+     */
+    private MultipleCycleAggregator(MultipleCycleAggregator other) {
+        cellUtilization = other.cellUtilization.clone();
+        cellWaitingTime = other.cellWaitingTime.clone();
+        safetyTimes = other.safetyTimes.clone();
+        evacuationTime.merge(other.evacuationTime);
+        averageSafetyTime.merge(other.averageSafetyTime);
+        waitedTime.merge(other.waitedTime);
+        cellCycles = other.cellCycles;
+        cycles = other.cycles;
+    }
+
+    /**
+     * Adds a cycle whose statistics have been fully stored. Afterwards, the results are not referenced.
+     *
+     * @param results the statistics of the cycle
+     */
+    public synchronized void addCycle(StoredCAStatisticResults results) {
+        Collection<Integer> times = results.getStoredCAStatisticResultsForIndividuals().getHashMapSafetyTimes()
+                .values();
+        long[] histogram = new long[times.stream().mapToInt(Integer::intValue).max().orElse(-1) + 1];
+        for (int time : times) {
+            histogram[time]++;
+        }
+        addSafetyTimes(histogram);
+
+        CellTimeSeries utilization = results.getStoredCAStatisticResultsForCells().getCellUtilization();
+        CellTimeSeries waiting = results.getStoredCAStatisticResultsForCells().getWaitingTime();
+        for (Map.Entry<EvacCellInterface, Integer> entry : cellNumbers.entrySet()) {
+            cellUtilization[entry.getValue()] += utilization.count(entry.getKey());
+            cellWaitingTime[entry.getValue()] += waiting.count(entry.getKey());
+        }
+        cellCycles++;
+        waitedTime.add(waiting.size());
+        cycles++;
+    }
+
+    /**
+     * Adds a cycle whose statistics have been aggregated. As no values of single cells are contained, the cycle does
+     * not contribute to the cell and room statistics.
+     *
+     * @param statistics the statistics of the cycle
+     */
+    public synchronized void addCycle(AggregateStatistics statistics) {
+        int[] histogram = statistics.getSafetyTimeHistogram();
+        addSafetyTimes(Arrays.stream(histogram).asLongStream().toArray());
+        waitedTime.add(statistics.getCellWaitingTime());
+        cycles++;
+    }
+
+    private void addSafetyTimes(long[] histogram) {
+        if (histogram.length > safetyTimes.length) {
+            safetyTimes = Arrays.copyOf(safetyTimes, histogram.length);
+        }
+        long count = 0;
+        long sum = 0;
+        int last = -1;
+        for (int t = 0; t < histogram.length; ++t) {
+            safetyTimes[t] += histogram[t];
+            count += histogram[t];
+            sum += histogram[t] * t;
+            if (histogram[t] > 0) {
+                last = t;
+            }
+        }
+        if (count > 0) {
+            evacuationTime.add(last);
+            averageSafetyTime.add((double) sum / count);
+        }
+    }
+
+    /**
+     * Adds all cycles of another aggregator for the same rooms.
+     *
+     * @param other the other aggregator, which is not changed
+     * @throws IllegalArgumentException if the aggregator is for rooms with a different number of cells
+     */
+    public void merge(MultipleCycleAggregator other) {
+        if (other.cellUtilization.length != cellUtilization.length) {
+            throw new IllegalArgumentException("Aggregator has " + other.cellUtilization.length + " cells instead of "
+                    + cellUtilization.length);
+        }
+        // take a snapshot of the other aggregator first, such that only one lock is held at a time
+        MultipleCycleAggregator snapshot;
+        synchronized (other) {
+            snapshot = new MultipleCycleAggregator(other);
+        }
+        synchronized (this) {
+            for (int k = 0; k < cellUtilization.length; ++k) {
+                cellUtilization[k] += snapshot.cellUtilization[k];
+                cellWaitingTime[k] += snapshot.cellWaitingTime[k];
+            }
+            if (snapshot.safetyTimes.length > safetyTimes.length) {
+                safetyTimes = Arrays.copyOf(safetyTimes, snapshot.safetyTimes.length);
+            }
+            for (int t = 0; t < snapshot.safetyTimes.length; ++t) {
+                safetyTimes[t] += snapshot.safetyTimes[t];
+            }
+            evacuationTime.merge(snapshot.evacuationTime);
+            averageSafetyTime.merge(snapshot.averageSafetyTime);
+            waitedTime.merge(snapshot.waitedTime);
+            cellCycles += snapshot.cellCycles;
+            cycles += snapshot.cycles;
+        }
+    }
+
+    public synchronized int getCycleCount() {
+        return cycles;
+    }
+
+    /**
+     * Returns the moments of the time steps at which the last individual of each cycle is safe.
+     *
+     * @return the moments of the evacuation times of the cycles
+     */
+    public synchronized RunningMoments getEvacuationTime() {
+        return copy(evacuationTime);
+    }
+
+    /**
+     * Returns the moments of the average time step at which the individuals of each cycle are safe.
+     *
+     * @return the moments of the average safety times of the cycles
+     */
+    public synchronized RunningMoments getAverageSafetyTime() {
+        return copy(averageSafetyTime);
+    }
+
+    /**
+     * Returns the moments of the total number of time steps the individuals of each cycle were waiting.
+     *
+     * @return the moments of the waiting times of the cycles
+     */
+    public synchronized RunningMoments getWaitedTime() {
+        return copy(waitedTime);
+    }
+
+    private static RunningMoments copy(RunningMoments moments) {
+        RunningMoments copy = new RunningMoments();
+        copy.merge(moments);
+        return copy;
+    }
+
+    /**
+     * Returns a quantile of the time steps at which the individuals of all cycles are safe.
+     *
+     * @param q the quantile, between 0 and 1
+     * @return the smallest time step at which at least the fraction {@code q} of the individuals is safe, or {@code -1}
+     * if no individual is safe
+     * @throws IllegalArgumentException if the quantile is not between 0 and 1
+     */
+    public synchronized int getSafetyTimeQuantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1: " + q);
+        }
+        long total = Arrays.stream(safetyTimes).sum();
+        if (total == 0) {
+            return -1;
+        }
+        double rank = Math.max(1, Math.ceil(q * total));
+        long cumulated = 0;
+        for (int t = 0; t < safetyTimes.length; ++t) {
+            cumulated += safetyTimes[t];
+            if (cumulated >= rank) {
+                return t;
+            }
+        }
+        return safetyTimes.length - 1;
+    }
+
+    /**
+     * Returns the average number of time steps a cell is occupied in a cycle.
+     *
+     * @param cell the cell
+     * @return the average utilization of the cell, or {@code NaN} if no cycle contained cell statistics
+     * @throws IllegalArgumentException if the cell is not contained in the rooms
+     */
+    public synchronized double getCellUtilization(EvacCellInterface cell) {
+        return (double) cellUtilization[number(cell)] / cellCycles;
+    }
+
+    /**
+     * Returns the average number of time steps individuals are waiting on a cell in a cycle.
+     *
+     * @param cell the cell
+     * @return the average waiting time on the cell, or {@code NaN} if no cycle contained cell statistics
+     * @throws IllegalArgumentException if the cell is not contained in the rooms
+     */
+    public synchronized double getCellWaitingTime(EvacCellInterface cell) {
+        return (double) cellWaitingTime[number(cell)] / cellCycles;
+    }
+
+    /**
+     * Returns the average number of time steps a cell of a room is occupied in a cycle.
+     *
+     * @param room the room
+     * @return the average utilization of the cells of the room
+     * @throws IllegalArgumentException if the room is unknown
+     */
+    public synchronized double getRoomUtilization(Room room) {
+        return average(cellUtilization, room);
+    }
+
+    /**
+     * Returns the average number of time steps individuals are waiting on a cell of a room in a cycle.
+     *
+     * @param room the room
+     * @return the average waiting time on the cells of the room
+     * @throws IllegalArgumentException if the room is unknown
+     */
+    public synchronized double getRoomWaitingTime(Room room) {
+        return average(cellWaitingTime, room);
+    }
+
+    private double average(long[] values, Room room) {
+        int[] range = roomRanges.get(room);
+        if (range == null) {
+            throw new IllegalArgumentException("Unknown room: " + room);
+        }
+        long sum = 0;
+        for (int k = range[0]; k < range[1]; ++k) {
+            sum += values[k];
+        }
+        return (double) sum / ((range[1] - range[0]) * (long) cellCycles);
+    }
+
+    private int number(EvacCellInterface cell) {
+        Integer number = cellNumbers.get(cell);
+        if (number == null) {
+            throw new IllegalArgumentException("Unknown cell: " + cell);
+        }
+        return number;
+    }
+}
@@ -27,6 +27,7 @@ import org.zet.cellularautomaton.statistic.exception.MissingStoredValueException
 import org.zet.cellularautomaton.statistic.exception.AllCyclesNoValueBecauseNotSafeException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
 
 import org.zet.cellularautomaton.EvacCell;
 import org.zet.cellularautomaton.Exit;
@@ -36,7 +37,8 @@ import org.zet.cellularautomaton.Room;
 
 /**
  * This class calculates statistics for several cycles of an cellular automaton. The values are obtained by getting the
- * mean average over all cycles.
+ * mean average over all cycles. As the statistics of all cycles are kept, a {@link MultipleCycleAggregator} should be
+ * used to aggregate a large number of cycles.
  *
  * @author Matthias Woste
  *
@@ -131,51 +133,29 @@ public class MultipleCycleCAStatistic implements CellStatisticMethods {
     @Override
     public HashMap<Room, Double> calculateOverallRoomUtilization(
             ArrayList<Room> rooms, int o) {
-        HashMap<Room, Double> accumulatedValue = new HashMap<Room, Double>();
-        HashMap<Room, Double> tmpValue = new HashMap<Room, Double>();
-        HashMap<Room, Double> returnValue = new HashMap<Room, Double>();
-        Double oldValue;
+        HashMap<Room, Double> accumulatedValue = new HashMap<>(rooms.size() * 2);
         for (CAStatistic cas : cycles) {
-            tmpValue = cas.getCellStatistic().calculateOverallRoomUtilization(rooms, o);
-            for (Room r : tmpValue.keySet()) {
-                if (accumulatedValue.containsKey(r)) {
-                    oldValue = accumulatedValue.get(r);
-                    oldValue += tmpValue.get(r);
-                    accumulatedValue.remove(r);
-                    accumulatedValue.put(r, oldValue);
-                }
+            for (Map.Entry<Room, Double> value
+                    : cas.getCellStatistic().calculateOverallRoomUtilization(rooms, o).entrySet()) {
+                accumulatedValue.merge(value.getKey(), value.getValue(), Double::sum);
             }
         }
-        for (Room r : accumulatedValue.keySet()) {
-            returnValue.put(r, accumulatedValue.get(r) / numberOfCycles);
-        }
-
-        return returnValue;
+        accumulatedValue.replaceAll((r, value) -> value / numberOfCycles);
+        return accumulatedValue;
     }
 
     @Override
     public HashMap<Room, Double> calculateOverallRoomWaitingTime(
             ArrayList<Room> rooms, int o) {
-        HashMap<Room, Double> accumulatedValue = new HashMap<Room, Double>();
-        HashMap<Room, Double> tmpValue = new HashMap<Room, Double>();
-        HashMap<Room, Double> returnValue = new HashMap<Room, Double>();
-        Double oldValue;
+        HashMap<Room, Double> accumulatedValue = new HashMap<>(rooms.size() * 2);
         for (CAStatistic cas : cycles) {
-            tmpValue = cas.getCellStatistic().calculateOverallRoomWaitingTime(rooms, o);
-            for (Room r : tmpValue.keySet()) {
-                if (accumulatedValue.containsKey(r)) {
-                    oldValue = accumulatedValue.get(r);
-                    oldValue += tmpValue.get(r);
-                    accumulatedValue.remove(r);
-                    accumulatedValue.put(r, oldValue);
-                }
+            for (Map.Entry<Room, Double> value
+                    : cas.getCellStatistic().calculateOverallRoomWaitingTime(rooms, o).entrySet()) {
+                accumulatedValue.merge(value.getKey(), value.getValue(), Double::sum);
             }
         }
-        for (Room r : accumulatedValue.keySet()) {
-            returnValue.put(r, accumulatedValue.get(r) / numberOfCycles);
-        }
-
-        return returnValue;
+        accumulatedValue.replaceAll((r, value) -> value / numberOfCycles);
+        return accumulatedValue;
     }
 
     @Override
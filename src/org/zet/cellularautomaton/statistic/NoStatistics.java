@@ -0,0 +1,77 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic;
+
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.Individual;
+
+/**
+ * A sink ignoring all statistic events. As the methods are empty, the calls are removed when they are inlined.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+final class NoStatistics implements StatisticSink {
+
+    static final NoStatistics INSTANCE = new NoStatistics();
+
+    private NoStatistics() {
+    }
+
+    @Override
+    public void addSafeIndividualToStatistic(Individual ind) {
+    }
+
+    @Override
+    public void addChangedPotentialToStatistic(Individual ind, int t) {
+    }
+
+    @Override
+    public void addCoveredDistanceToStatistic(Individual ind, int t, double distance) {
+    }
+
+    @Override
+    public void addWaitedTimeToStatistic(Individual ind, int t) {
+    }
+
+    @Override
+    public void addMinDistancesToStatistic(Individual ind, double distNearest, double distPlanned) {
+    }
+
+    @Override
+    public void addExitToStatistic(Individual ind, Exit exit) {
+    }
+
+    @Override
+    public void addExhaustionToStatistic(Individual ind, int t, double actualExhaustion) {
+    }
+
+    @Override
+    public void addPanicToStatistic(Individual ind, int t, double actualPanic) {
+    }
+
+    @Override
+    public void addCurrentSpeedToStatistic(Individual ind, int t, double speed) {
+    }
+
+    @Override
+    public void addCellToUtilizationStatistic(EvacCellInterface c, int t) {
+    }
+
+    @Override
+    public void addCellToWaitingStatistic(EvacCellInterface c, int t) {
+    }
+}
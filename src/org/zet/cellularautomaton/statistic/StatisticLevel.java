@@ -0,0 +1,55 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic;
+
+import org.zet.cellularautomaton.algorithm.state.EvacuationState;
+
+/**
+ * The amount of statistics collected during a simulation run.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public enum StatisticLevel {
+    /** No statistics are collected. */
+    OFF {
+        @Override
+        public StatisticSink createSink(EvacuationState es) {
+            return NoStatistics.INSTANCE;
+        }
+    },
+    /** Only running sums, extreme values and the distribution of the evacuation times are collected. */
+    AGGREGATE {
+        @Override
+        public StatisticSink createSink(EvacuationState es) {
+            return new AggregateStatistics(es);
+        }
+    },
+    /** All values are stored for each individual, cell and time step. */
+    FULL {
+        @Override
+        public StatisticSink createSink(EvacuationState es) {
+            return es.getStatisticWriter();
+        }
+    };
+
+    /**
+     * Returns the sink collecting the statistics of a simulation run on this level.
+     *
+     * @param es the state of the simulation run
+     * @return the sink receiving the statistic events
+     */
+    public abstract StatisticSink createSink(EvacuationState es);
+}
@@ -0,0 +1,101 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic;
+
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.Individual;
+
+/**
+ * Receives the statistic events of a simulation run from the rules. How much of the events is stored depends on the
+ * implementation, which is selected by a {@link StatisticLevel}. Rules only report events and must not rely on
+ * anything being stored.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public interface StatisticSink {
+
+    /**
+     * Is invoked if an individual has reached a safe area.
+     *
+     * @param ind the individual
+     */
+    void addSafeIndividualToStatistic(Individual ind);
+
+    /**
+     * Is invoked if an individual has changed its potential.
+     *
+     * @param ind the individual
+     * @param t timestep
+     */
+    void addChangedPotentialToStatistic(Individual ind, int t);
+
+    /**
+     * Is invoked if an individual has covered a distance.
+     *
+     * @param ind the individual
+     * @param t timestep at which the movement ends
+     * @param distance the distance covered in the movement
+     */
+    void addCoveredDistanceToStatistic(Individual ind, int t, double distance);
+
+    /**
+     * Is invoked if an individual is waiting.
+     *
+     * @param ind the individual
+     * @param t timestep
+     */
+    void addWaitedTimeToStatistic(Individual ind, int t);
+
+    /**
+     * Is invoked with the initial distances of an individual to the exits.
+     *
+     * @param ind the individual
+     * @param distNearest the distance to the nearest exit
+     * @param distPlanned the distance to the exit the individual is heading to
+     */
+    void addMinDistancesToStatistic(Individual ind, double distNearest, double distPlanned);
+
+    /**
+     * Is invoked if an individual leaves the building through an exit.
+     *
+     * @param ind the individual
+     * @param exit the exit
+     */
+    void addExitToStatistic(Individual ind, Exit exit);
+
+    void addExhaustionToStatistic(Individual ind, int t, double actualExhaustion);
+
+    void addPanicToStatistic(Individual ind, int t, double actualPanic);
+
+    void addCurrentSpeedToStatistic(Individual ind, int t, double speed);
+
+    /**
+     * Is invoked if an individual occupied a cell c in timestep t.
+     *
+     * @param c cell occupied
+     * @param t timestep
+     */
+    void addCellToUtilizationStatistic(EvacCellInterface c, int t);
+
+    /**
+     * Is invoked if an individual occupied a cell c in timestep t and is waiting.
+     *
+     * @param c cell occupied
+     * @param t timestep
+     */
+    void addCellToWaitingStatistic(EvacCellInterface c, int t);
+}
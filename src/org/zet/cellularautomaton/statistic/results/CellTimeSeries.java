@@ -0,0 +1,302 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic.results;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.zet.cellularautomaton.EvacCell;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Room;
+
+/**
+ * Stores the time steps at which an event happened on cells, such as a cell being occupied. Each cell is assigned a
+ * consecutive number when its first event is added, the time steps of each cell are stored in a primitive array. The
+ * numbers are stored in an array for each room indexed by the position of the cell in the room, only cells that are
+ * not part of a room grid are numbered using a map.
+ * Queries for the number of events within a window of time steps are answered by binary search on the sorted time
+ * steps of a cell in {@code O(log T)}. For rooms a cumulative series containing the number of events on all cells of
+ * the room up to each time step is built on the first query, such that room queries take constant time. Adding an event
+ * only invalidates the cumulative series of the room of the cell, the series of the other rooms stay valid as later
+ * time steps without events of a room have the same cumulative count as the last time step of its series.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class CellTimeSeries {
+
+    private static final int INITIAL_CAPACITY = 8;
+    /** The number of each cell having events plus one for the cells of each room, indexed by {@code y * width + x}. */
+    private final Map<Room, int[]> cellNumbers = new IdentityHashMap<>();
+    /** The number of each cell having events that does not belong to a room grid. */
+    private final Map<EvacCellInterface, Integer> otherCellNumbers = new HashMap<>();
+    private int cellCount;
+    /** The time steps of the events of each cell, indexed by the cell number. */
+    private int[][] times = new int[INITIAL_CAPACITY][];
+    /** The number of events of each cell, indexed by the cell number. */
+    private int[] counts = new int[INITIAL_CAPACITY];
+    /** Whether the time steps of each cell are known to be sorted, indexed by the cell number. */
+    private boolean[] sorted = new boolean[INITIAL_CAPACITY];
+    private int size;
+    private int maxTime = -1;
+    private int maxCount;
+    /** The cumulative number of events of the cells of each room, the value at index {@code t} counts up to {@code t}. */
+    private final Map<Room, int[]> roomSeries = new IdentityHashMap<>();
+    /** The number of cells of each room for which a cumulative series has been built. */
+    private final Map<Room, Integer> roomCellCounts = new IdentityHashMap<>();
+
+    /**
+     * Adds an event of a cell.
+     *
+     * @param cell the cell
+     * @param time the time step
+     */
+    public void add(EvacCellInterface cell, int time) {
+        int number = numberOf(cell);
+        if (number < 0) {
+            number = cellCount++;
+            if (inGrid(cell)) {
+                Room room = cell.getRoom();
+                int[] roomNumbers = cellNumbers.computeIfAbsent(room, r -> new int[r.getWidth() * r.getHeight()]);
+                roomNumbers[cell.getY() * room.getWidth() + cell.getX()] = number + 1;
+            } else {
+                otherCellNumbers.put(cell, number);
+            }
+            if (number == counts.length) {
+                times = Arrays.copyOf(times, 2 * number);
+                counts = Arrays.copyOf(counts, 2 * number);
+                sorted = Arrays.copyOf(sorted, 2 * number);
+            }
+            times[number] = new int[INITIAL_CAPACITY];
+            sorted[number] = true;
+        }
+        int count = counts[number];
+        int[] cellTimes = times[number];
+        if (count == cellTimes.length) {
+            cellTimes = Arrays.copyOf(cellTimes, 2 * count);
+            times[number] = cellTimes;
+        }
+        if (count > 0 && cellTimes[count - 1] > time) {
+            sorted[number] = false;
+        }
+        cellTimes[count] = time;
+        counts[number] = count + 1;
+        maxCount = Math.max(maxCount, count + 1);
+        maxTime = Math.max(maxTime, time);
+        size++;
+        if (inGrid(cell)) {
+            roomSeries.remove(cell.getRoom());
+        }
+    }
+
+    /**
+     * Returns the total number of events.
+     *
+     * @return the total number of events
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether an event of a cell exists.
+     *
+     * @param cell the cell
+     * @return {@code true} if an event of the cell exists
+     */
+    public boolean contains(EvacCellInterface cell) {
+        return numberOf(cell) >= 0;
+    }
+
+    /**
+     * Returns the largest number of events of a single cell.
+     *
+     * @return the largest number of events of a single cell
+     */
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    /**
+     * Returns the latest time step of all events, or {@code -1} if no event exists.
+     *
+     * @return the latest time step of all events
+     */
+    public int getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * Returns the number of events of a cell.
+     *
+     * @param cell the cell
+     * @return the number of events of the cell
+     */
+    public int count(EvacCellInterface cell) {
+        int number = numberOf(cell);
+        return number < 0 ? 0 : counts[number];
+    }
+
+    /**
+     * Returns the number of events of a cell up to a time step.
+     *
+     * @param cell the cell
+     * @param time the time step, inclusive
+     * @return the number of events of the cell at or before the time step
+     */
+    public int count(EvacCellInterface cell, int time) {
+        int number = numberOf(cell);
+        return number < 0 ? 0 : countUpTo(number, time);
+    }
+
+    /**
+     * Returns the number of events of a cell within a window of time steps.
+     *
+     * @param cell the cell
+     * @param from the first time step of the window, inclusive
+     * @param to the last time step of the window, inclusive
+     * @return the number of events of the cell within the window
+     */
+    public int count(EvacCellInterface cell, int from, int to) {
+        int number = numberOf(cell);
+        return number < 0 || to < from ? 0 : countUpTo(number, to) - countUpTo(number, from - 1);
+    }
+
+    /**
+     * Returns the time steps of the events of a cell in ascending order.
+     *
+     * @param cell the cell
+     * @return a copy of the time steps of the cell, empty if the cell has no events
+     */
+    public int[] times(EvacCellInterface cell) {
+        int number = numberOf(cell);
+        if (number < 0) {
+            return new int[0];
+        }
+        ensureSorted(number);
+        return Arrays.copyOf(times[number], counts[number]);
+    }
+
+    /**
+     * Returns the number of events of all cells of a room up to a time step.
+     *
+     * @param room the room
+     * @param time the time step, inclusive
+     * @return the number of events of the cells of the room at or before the time step
+     */
+    public int roomCount(Room room, int time) {
+        if (time < 0) {
+            return 0;
+        }
+        int[] series = roomSeries(room);
+        return series[Math.min(time, series.length - 1)];
+    }
+
+    /**
+     * Returns the number of events of all cells of a room within a window of time steps.
+     *
+     * @param room the room
+     * @param from the first time step of the window, inclusive
+     * @param to the last time step of the window, inclusive
+     * @return the number of events of the cells of the room within the window
+     */
+    public int roomCount(Room room, int from, int to) {
+        return to < from ? 0 : roomCount(room, to) - roomCount(room, from - 1);
+    }
+
+    /**
+     * Returns the number of cells of a room as it has been used to build the cumulative series of the room.
+     *
+     * @param room the room
+     * @return the number of cells of the room
+     */
+    public int roomCellCount(Room room) {
+        roomSeries(room);
+        return roomCellCounts.get(room);
+    }
+
+    /**
+     * Returns the number of a cell.
+     *
+     * @param cell the cell
+     * @return the number of the cell, or {@code -1} if the cell has no events
+     */
+    private int numberOf(EvacCellInterface cell) {
+        if (!inGrid(cell)) {
+            return otherCellNumbers.getOrDefault(cell, -1);
+        }
+        Room room = cell.getRoom();
+        int[] roomNumbers = cellNumbers.get(room);
+        return roomNumbers == null ? -1 : roomNumbers[cell.getY() * room.getWidth() + cell.getX()] - 1;
+    }
+
+    private static boolean inGrid(EvacCellInterface cell) {
+        return cell instanceof EvacCell && cell.getRoom() != null;
+    }
+
+    private int countUpTo(int number, int time) {
+        ensureSorted(number);
+        int[] cellTimes = times[number];
+        int low = 0;
+        int high = counts[number];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cellTimes[mid] <= time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void ensureSorted(int number) {
+        if (!sorted[number]) {
+            Arrays.sort(times[number], 0, counts[number]);
+            sorted[number] = true;
+        }
+    }
+
+    /**
+     * Returns the cumulative series of a room, building it if events of the room have been added since it has been
+     * built.
+     *
+     * @param room the room
+     * @return the cumulative number of events of the room for each time step up to the latest time step
+     */
+    private int[] roomSeries(Room room) {
+        int[] series = roomSeries.get(room);
+        if (series == null) {
+            series = new int[maxTime + 2];
+            int[] roomNumbers = cellNumbers.getOrDefault(room, new int[0]);
+            for (int position = 0; position < roomNumbers.length; ++position) {
+                int number = roomNumbers[position] - 1;
+                if (number >= 0) {
+                    int[] cellTimes = times[number];
+                    for (int k = 0; k < counts[number]; ++k) {
+                        series[cellTimes[k]]++;
+                    }
+                }
+            }
+            for (int t = 1; t < series.length; ++t) {
+                series[t] += series[t - 1];
+            }
+            roomSeries.put(room, series);
+            roomCellCounts.put(room, room.getAllCells().size());
+        }
+        return series;
+    }
+}
@@ -0,0 +1,218 @@
+/* zet evacuation tool copyright (c) 2007-15 zet evacuation team
+ *
+ * This program is free software; you can redistribute it and/or
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.zet.cellularautomaton.statistic.results;
+
+import java.util.Arrays;
+import org.zet.cellularautomaton.Individual;
+
+/**
+ * Stores a value of a metric of individuals over time in columns of primitive arrays. Each record consists of the time
+ * step, the number of the individual and the value. Records can only be appended. The records of one individual are
+ * accessed by their position among the records of the individual, in the order they have been added. To do so, an
+ * index containing the records of each individual is built when the records are accessed after new records have been
+ * added.
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public final class IndividualTimeSeries {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private int[] times = new int[INITIAL_CAPACITY];
+    private int[] individuals = new int[INITIAL_CAPACITY];
+    private float[] values = new float[INITIAL_CAPACITY];
+    private int size;
+    /** The last record of each individual by individual number, or {@code -1}. */
+    private int[] lastRecord = new int[0];
+    /** The position of the first record of each individual in {@link #records}, the index is the individual number. */
+    private int[] start;
+    /** The records ordered by individual and in the order they have been added. */
+    private int[] records;
+    /** The number of records contained in the index. */
+    private int indexedSize = -1;
+
+    /**
+     * Appends a record.
+     *
+     * @param individual the individual
+     * @param time the time step
+     * @param value the value
+     */
+    public void add(Individual individual, int time, double value) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, 2 * size);
+            individuals = Arrays.copyOf(individuals, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        int number = individual.getNumber();
+        if (number >= lastRecord.length) {
+            int oldLength = lastRecord.length;
+            lastRecord = Arrays.copyOf(lastRecord, Math.max(number + 1, 2 * oldLength));
+            Arrays.fill(lastRecord, oldLength, lastRecord.length, -1);
+        }
+        times[size] = time;
+        individuals[size] = number;
+        values[size] = (float) value;
+        lastRecord[number] = size++;
+    }
+
+    /**
+     * Returns the total number of records.
+     *
+     * @return the total number of records
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether a record for an individual exists.
+     *
+     * @param individual the individual
+     * @return {@code true} if a record for the individual exists
+     */
+    public boolean contains(Individual individual) {
+        int number = individual.getNumber();
+        return number < lastRecord.length && lastRecord[number] != -1;
+    }
+
+    /**
+     * Returns the value of the record of an individual that has been added last.
+     *
+     * @param individual the individual
+     * @param defaultValue the value returned if no record exists
+     * @return the last value of the individual or the default value
+     */
+    public double last(Individual individual, double defaultValue) {
+        return contains(individual) ? values[lastRecord[individual.getNumber()]] : defaultValue;
+    }
+
+    /**
+     * Returns the number of records of an individual.
+     *
+     * @param individual the individual
+     * @return the number of records of the individual
+     */
+    public int count(Individual individual) {
+        if (!contains(individual)) {
+            return 0;
+        }
+        ensureIndex();
+        int number = individual.getNumber();
+        return start[number + 1] - start[number];
+    }
+
+    /**
+     * Returns the time step of the {@code k}-th record of an individual.
+     *
+     * @param individual the individual
+     * @param k the position among the records of the individual
+     * @return the time step of the record
+     */
+    public int time(Individual individual, int k) {
+        return times[record(individual, k)];
+    }
+
+    /**
+     * Returns the value of the {@code k}-th record of an individual.
+     *
+     * @param individual the individual
+     * @param k the position among the records of the individual
+     * @return the value of the record
+     */
+    public double value(Individual individual, int k) {
+        return values[record(individual, k)];
+    }
+
+    /**
+     * Searches the records of an individual for a time step. The records of the individual must be sorted by their
+     * time steps. The result is defined as in {@link java.util.Collections#binarySearch(java.util.List, Object)}.
+     *
+     * @param individual the individual
+     * @param time the time step
+     * @return the position of a record with the time step among the records of the individual, or
+     * {@code -(insertion point) - 1} if no such record exists
+     */
+    public int search(Individual individual, int time) {
+        int count = count(individual);
+        int offset = count == 0 ? 0 : start[individual.getNumber()];
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midTime = times[records[offset + mid]];
+            if (midTime < time) {
+                low = mid + 1;
+            } else if (midTime > time) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns the position of the latest record of an individual at or before a time step. The records of the
+     * individual must be sorted by their time steps.
+     *
+     * @param individual the individual
+     * @param time the time step
+     * @return the position of the record among the records of the individual, or {@code -1} if no such record exists
+     */
+    public int floor(Individual individual, int time) {
+        int index = search(individual, time);
+        return index < 0 ? -index - 2 : index;
+    }
+
+    /**
+     * Builds the index of the records of each individual if records have been added. Records may be read concurrently
+     * after the index has been built, as long as no records are added.
+     */
+    public void buildIndex() {
+        ensureIndex();
+    }
+
+    private int record(Individual individual, int k) {
+        int count = count(individual);
+        if (k < 0 || k >= count) {
+            throw new IndexOutOfBoundsException("Index: " + k + ", records: " + count);
+        }
+        return records[start[individual.getNumber()] + k];
+    }
+
+    /**
+     * Builds the index of the records of each individual by counting sort, if records have been added since the index
+     * has been built.
+     */
+    private void ensureIndex() {
+        if (indexedSize == size) {
+            return;
+        }
+        start = new int[lastRecord.length + 1];
+        for (int r = 0; r < size; ++r) {
+            start[individuals[r] + 1]++;
+        }
+        for (int i = 0; i < lastRecord.length; ++i) {
+            start[i + 1] += start[i];
+        }
+        records = new int[size];
+        int[] next = Arrays.copyOf(start, lastRecord.length);
+        for (int r = 0; r < size; ++r) {
+            records[next[individuals[r]]++] = r;
+        }
+        indexedSize = size;
+    }
+}
@@ -20,7 +20,6 @@ package org.zet.cellularautomaton.statistic.results;
  * @author Sylvie Temme
  */
 import java.util.HashMap;
-import java.util.ArrayList;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Room;
 
@@ -30,12 +29,11 @@ import org.zet.cellularautomaton.Room;
  */
 public class StoredCAStatisticResultsForCells {
 
-    /** Associate each cell with an ArrayList which contains all timesteps the cell is occupied. */
-    private HashMap<EvacCellInterface, ArrayList<Integer>> cellUtilization;
+    /** Contains all timesteps each cell is occupied. */
+    private final CellTimeSeries cellUtilization;
 
-    /** Associate each cell with an ArrayList which contains all timesteps at which an individual standing at the cell
-     * is waiting. */
-    private HashMap<EvacCellInterface, ArrayList<Integer>> waitingTime;
+    /** Contains all timesteps at which an individual standing at each cell is waiting. */
+    private final CellTimeSeries waitingTime;
 
     /** Stores utilization for each room. */
     private HashMap<Room, Double> overallRoomUtilization;
@@ -45,8 +43,8 @@ public class StoredCAStatisticResultsForCells {
 
     public StoredCAStatisticResultsForCells() {
 
-        cellUtilization = new HashMap<>();
-        waitingTime = new HashMap<>();
+        cellUtilization = new CellTimeSeries();
+        waitingTime = new CellTimeSeries();
     }
 
     /**
@@ -56,12 +54,7 @@ public class StoredCAStatisticResultsForCells {
      * @param t timestep
      */
     public void addCellToUtilizationStatistic(EvacCellInterface c, int t) {
-        if (cellUtilization.containsKey(c)) {
-            cellUtilization.get(c).add(t);
-        } else {
-            cellUtilization.put(c, new ArrayList<>());
-            cellUtilization.get(c).add(t);
-        }
+        cellUtilization.add(c, t);
     }
 
     /**
@@ -71,19 +64,14 @@ public class StoredCAStatisticResultsForCells {
      * @param t timestep
      */
     public void addCellToWaitingStatistic(EvacCellInterface c, int t) {
-        if (waitingTime.containsKey(c)) {
-            waitingTime.get(c).add(t);
-        } else {
-            waitingTime.put(c, new ArrayList<>());
-            waitingTime.get(c).add(t);
-        }
+        waitingTime.add(c, t);
     }
 
-    public HashMap<EvacCellInterface, ArrayList<Integer>> getHashMapCellUtilization() {
+    public CellTimeSeries getCellUtilization() {
         return cellUtilization;
     }
 
-    public HashMap<EvacCellInterface, ArrayList<Integer>> getHashMapWaitingTime() {
+    public CellTimeSeries getWaitingTime() {
         return waitingTime;
     }
 
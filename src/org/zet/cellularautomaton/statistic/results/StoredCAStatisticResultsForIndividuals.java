@@ -34,38 +34,28 @@ public class StoredCAStatisticResultsForIndividuals {
     HashMap<Individual, Integer> safetyTimes;
     HashMap<Individual, ArrayList<Integer>> changePotentialTimes;
     private final HashMap<Individual, List<Exit>> potentials;
-    HashMap<Individual, ArrayList<Integer>> coveredDistanceTimes;
-    private final HashMap<Individual, ArrayList<Double>> coveredDistance;
-    HashMap<Individual, ArrayList<Integer>> waitedTimeTimes;
-    private final HashMap<Individual, ArrayList<Integer>> waitedTime;
+    private final IndividualTimeSeries coveredDistance;
+    private final IndividualTimeSeries waitedTime;
     HashMap<Individual, Double> minDistanceToNearestExit;
     HashMap<Individual, Double> minDistanceToPlannedExit;
     private final HashMap<Individual, Exit> takenExit;
-    HashMap<Individual, ArrayList<Integer>> panicTimes;
-    private final HashMap<Individual, ArrayList<Double>> panic;
-    HashMap<Individual, ArrayList<Integer>> exhaustionTimes;
-    private final HashMap<Individual, ArrayList<Double>> exhaustion;
-    HashMap<Individual, ArrayList<Integer>> currentSpeedTimes;
-    private final HashMap<Individual, ArrayList<Double>> currentSpeed;
+    private final IndividualTimeSeries panic;
+    private final IndividualTimeSeries exhaustion;
+    private final IndividualTimeSeries currentSpeed;
 
     public StoredCAStatisticResultsForIndividuals(EvacuationState es) {
         this.es = es;
         safetyTimes = new HashMap<>();
         changePotentialTimes = new HashMap<>();
         potentials = new HashMap<>();
-        coveredDistanceTimes = new HashMap<>();
-        coveredDistance = new HashMap<>();
-        waitedTimeTimes = new HashMap<>();
-        waitedTime = new HashMap<>();
+        coveredDistance = new IndividualTimeSeries();
+        waitedTime = new IndividualTimeSeries();
         minDistanceToNearestExit = new HashMap<>();
         minDistanceToPlannedExit = new HashMap<>();
         takenExit = new HashMap<>();
-        panicTimes = new HashMap<>();
-        panic = new HashMap<>();
-        exhaustionTimes = new HashMap<>();
-        exhaustion = new HashMap<>();
-        currentSpeedTimes = new HashMap<>();
-        currentSpeed = new HashMap<>();
+        panic = new IndividualTimeSeries();
+        exhaustion = new IndividualTimeSeries();
+        currentSpeed = new IndividualTimeSeries();
     }
 
     public void addSafeIndividualToStatistic(Individual ind) {
@@ -85,27 +75,11 @@ public class StoredCAStatisticResultsForIndividuals {
     }
 
     public void addCoveredDistanceToStatistic(Individual ind, int t, double distance) {
-        double lastCoveredDistance = 0;
-        if (!(coveredDistanceTimes.containsKey(ind))) {
-            coveredDistanceTimes.put(ind, new ArrayList<>());
-            coveredDistance.put(ind, new ArrayList<>());
-        } else {
-            lastCoveredDistance = coveredDistance.get(ind).get(coveredDistance.get(ind).size() - 1);
-        }
-        coveredDistanceTimes.get(ind).add(t);
-        coveredDistance.get(ind).add(distance + lastCoveredDistance);
+        coveredDistance.add(ind, t, distance + coveredDistance.last(ind, 0));
     }
 
     public void addWaitedTimeToStatistic(Individual ind, int t) {
-        int lastWaitedTime = 0;
-        if (!(waitedTimeTimes.containsKey(ind))) {
-            waitedTimeTimes.put(ind, new ArrayList<>());
-            waitedTime.put(ind, new ArrayList<>());
-        } else {
-            lastWaitedTime = waitedTime.get(ind).get(waitedTime.get(ind).size() - 1);
-        }
-        waitedTimeTimes.get(ind).add(t);
-        waitedTime.get(ind).add(1 + lastWaitedTime);
+        waitedTime.add(ind, t, 1 + waitedTime.last(ind, 0));
     }
 
     public void addMinDistancesToStatistic(Individual ind, double distNearest, double distPlanned) {
@@ -122,45 +96,25 @@ public class StoredCAStatisticResultsForIndividuals {
     }
 
     public void addExhaustionToStatistic(Individual ind, int t, double actualExhaustion) {
-        if (!(exhaustionTimes.containsKey(ind))) {
-            exhaustionTimes.put(ind, new ArrayList<>());
-            exhaustion.put(ind, new ArrayList<>());
-        }
-        exhaustionTimes.get(ind).add(t);
-        exhaustion.get(ind).add(actualExhaustion);
-
+        exhaustion.add(ind, t, actualExhaustion);
     }
 
     public void addPanicToStatistic(Individual ind, int t, double actualPanic) {
-        if (!(panicTimes.containsKey(ind))) {
-            panicTimes.put(ind, new ArrayList<>());
-            panic.put(ind, new ArrayList<>());
-        }
-        panicTimes.get(ind).add(t);
-        panic.get(ind).add(actualPanic);
+        panic.add(ind, t, actualPanic);
     }
 
     public void addCurrentSpeedToStatistic(Individual ind, int t, double speed) {
-        if (!(currentSpeedTimes.containsKey(ind))) {
-            currentSpeedTimes.put(ind, new ArrayList<>());
-            currentSpeed.put(ind, new ArrayList<>());
-        }
-        currentSpeedTimes.get(ind).add(t);
-        currentSpeed.get(ind).add(speed);
+        currentSpeed.add(ind, t, speed);
     }
 
     public HashMap<Individual, ArrayList<Integer>> getHashMapChangePotentialTimes() {
         return changePotentialTimes;
     }
 
-    public HashMap<Individual, ArrayList<Double>> getHashMapCoveredDistance() {
+    public IndividualTimeSeries getCoveredDistance() {
         return coveredDistance;
     }
 
-    public HashMap<Individual, ArrayList<Integer>> getHashMapCoveredDistanceTimes() {
-        return coveredDistanceTimes;
-    }
-
     public HashMap<Individual, Double> getHashMapMinDistanceToNearestExit() {
         return minDistanceToNearestExit;
     }
@@ -177,40 +131,24 @@ public class StoredCAStatisticResultsForIndividuals {
         return safetyTimes;
     }
 
-    public HashMap<Individual, ArrayList<Integer>> getHashMapWaitedTime() {
+    public IndividualTimeSeries getWaitedTime() {
         return waitedTime;
     }
 
-    public HashMap<Individual, ArrayList<Integer>> getHashMapWaitedTimeTimes() {
-        return waitedTimeTimes;
-    }
-
     public HashMap<Individual, Exit> getHashMapTakenExit() {
         return takenExit;
     }
 
-    public HashMap<Individual, ArrayList<Double>> getHashMapExhaustion() {
+    public IndividualTimeSeries getExhaustion() {
         return exhaustion;
     }
 
-    public HashMap<Individual, ArrayList<Integer>> getHashMapExhaustionTimes() {
-        return exhaustionTimes;
-    }
-
-    public HashMap<Individual, ArrayList<Double>> getHashMapPanic() {
+    public IndividualTimeSeries getPanic() {
         return panic;
     }
 
-    public HashMap<Individual, ArrayList<Integer>> getHashMapPanicTimes() {
-        return panicTimes;
-    }
-
-    public HashMap<Individual, ArrayList<Double>> getHashMapCurrentSpeed() {
+    public IndividualTimeSeries getCurrentSpeed() {
         return currentSpeed;
     }
 
-    public HashMap<Individual, ArrayList<Integer>> getHashMapCurrentSpeedTimes() {
-        return currentSpeedTimes;
-    }
-
 }
@@ -16,32 +16,378 @@
 package org.zetool.statistic;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
+ * Memoizes the values of statistics for objects. The values are stored for the data the statistic is calculated on,
+ * such that a cache can be shared by {@link Statistics} on different data. The data is compared by identity, the
+ * methods without data parameter access the values stored without data. The cache can be used by several threads.
+ * Each value is calculated only once: threads requesting a value that is currently calculated wait for the result. The
+ * calculation is performed without holding a lock, such that a statistic may request values of other statistics during
+ * its calculation. A calculation that requests a value whose calculation waits for the calculation itself, either
+ * directly or through the calculations of other threads, is rejected instead of waiting forever.
+ *
+ * The cache can be bounded by a maximal total weight of the values. If the bound is exceeded, the least recently used
+ * values are evicted. The number of hits, misses and evictions is counted for each statistic.
  *
  * @author Martin Groß
  */
 @SuppressWarnings("unchecked")
 public class Cache {
 
-    private HashMap<Statistic, HashMap> cache;
+    /**
+     * Computes the weight of a cached value, for example an estimation of its size.
+     */
+    @FunctionalInterface
+    public interface Weigher {
+
+        long weigh(Statistic<?, ?, ?> statistic, Object object, Object value);
+    }
+
+    private static final int HITS = 0;
+    private static final int MISSES = 1;
+    private static final int EVICTIONS = 2;
+
+    private final long maximumWeight;
+    private final Weigher weigher;
+    /** The entries in the order of their last access. */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Statistic<?, ?, ?>, long[]> counters = new HashMap<>();
+    /** The entry that each thread is currently waiting for. */
+    private final Map<Thread, Entry> waiting = new HashMap<>();
+    private long weight;
 
+    /**
+     * Creates an unbounded cache.
+     */
     public Cache() {
-        cache = new HashMap<>();
+        this(Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache containing at most the given number of values.
+     *
+     * @param maximumSize the maximal number of values
+     */
+    public Cache(long maximumSize) {
+        this(maximumSize, (statistic, object, value) -> 1);
+    }
+
+    /**
+     * Creates a cache whose values have at most the given total weight.
+     *
+     * @param maximumWeight the maximal total weight of the values
+     * @param weigher computes the weight of each value
+     */
+    public Cache(long maximumWeight, Weigher weigher) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Maximal weight must not be negative: " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = Objects.requireNonNull(weigher);
+    }
+
+    public synchronized <O, R, D> boolean contains(Statistic<O, R, D> statistic, O object) {
+        return contains(statistic, null, object);
     }
 
-    public <O, R, D> boolean contains(Statistic<O, R, D> statistic, O object) {
-        return cache.containsKey(statistic) && cache.get(statistic).containsKey(object);
+    public synchronized <O, R, D> boolean contains(Statistic<O, R, D> statistic, D data, O object) {
+        Entry entry = entries.get(new Key(statistic, data, object));
+        return entry != null && entry.isDone();
     }
 
-    public <O, R, D> R get(Statistic<O, R, D> statistic, O object) {
-        return (R) cache.get(statistic).get(object);
+    /**
+     * Returns a cached value.
+     *
+     * @param <O> the type of the object
+     * @param <R> the type of the value
+     * @param <D> the type of the data
+     * @param statistic the statistic
+     * @param object the object
+     * @return the value, or {@code null} if the value is not cached
+     */
+    public synchronized <O, R, D> R get(Statistic<O, R, D> statistic, O object) {
+        Entry entry = entries.get(new Key(statistic, null, object));
+        return entry != null && entry.isDone() ? (R) entry.value : null;
     }
 
     public <O, R, D> void put(Statistic<O, R, D> statistic, O object, R value) {
-        if (!cache.containsKey(statistic)) {
-            cache.put(statistic, new HashMap<>());
+        Entry entry = new Entry(null);
+        entry.complete(value, null);
+        Key key = new Key(statistic, null, object);
+        synchronized (this) {
+            remove(key);
+            entries.put(key, entry);
+            store(key, entry);
+        }
+    }
+
+    /**
+     * Returns the value of a statistic for an object, which is calculated if it is not cached. The value is stored
+     * without data.
+     *
+     * @param <O> the type of the object
+     * @param <R> the type of the value
+     * @param <D> the type of the data
+     * @param statistic the statistic
+     * @param object the object
+     * @param calculation calculates the value
+     * @return the value of the statistic for the object
+     * @see #get(org.zetool.statistic.Statistic, java.lang.Object, java.lang.Object, java.util.function.Supplier)
+     */
+    public <O, R, D> R get(Statistic<O, R, D> statistic, O object, Supplier<? extends R> calculation) {
+        return get(statistic, null, object, calculation);
+    }
+
+    /**
+     * Returns the value of a statistic for an object on some data, which is calculated if it is not cached. If the
+     * value is currently calculated by another thread, the result of that calculation is awaited.
+     *
+     * @param <O> the type of the object
+     * @param <R> the type of the value
+     * @param <D> the type of the data
+     * @param statistic the statistic
+     * @param data the data
+     * @param object the object
+     * @param calculation calculates the value
+     * @return the value of the statistic for the object
+     * @throws IllegalStateException if the calculation requests a value whose calculation waits for its own
+     * calculation, or if the thread is interrupted while waiting for the calculation of another thread
+     */
+    public <O, R, D> R get(Statistic<O, R, D> statistic, D data, O object, Supplier<? extends R> calculation) {
+        Key key = new Key(statistic, data, object);
+        Entry entry;
+        boolean calculate;
+        synchronized (this) {
+            entry = entries.get(key);
+            calculate = entry == null;
+            if (calculate) {
+                entry = new Entry(Thread.currentThread());
+                entries.put(key, entry);
+                count(statistic, MISSES);
+            } else {
+                count(statistic, HITS);
+                if (!entry.isDone()) {
+                    checkCycle(entry, statistic, object);
+                    waiting.put(Thread.currentThread(), entry);
+                }
+            }
+        }
+        if (calculate) {
+            R value;
+            try {
+                value = calculation.get();
+            } catch (RuntimeException | Error ex) {
+                synchronized (this) {
+                    if (entries.get(key) == entry) {
+                        entries.remove(key);
+                    }
+                }
+                entry.complete(null, ex);
+                throw ex;
+            }
+            entry.complete(value, null);
+            synchronized (this) {
+                if (entries.get(key) == entry) {
+                    store(key, entry);
+                }
+            }
+            return value;
+        }
+        try {
+            return (R) entry.await();
+        } finally {
+            synchronized (this) {
+                waiting.remove(Thread.currentThread());
+            }
+        }
+    }
+
+    /**
+     * Follows the threads waiting for each other, starting with the thread calculating the given entry. If the current
+     * thread is reached, waiting for the entry would never end.
+     */
+    private void checkCycle(Entry entry, Statistic<?, ?, ?> statistic, Object object) {
+        for (Thread owner = entry.owner; owner != null;) {
+            if (owner == Thread.currentThread()) {
+                throw new IllegalStateException("Cyclic calculation of " + statistic + " for " + object);
+            }
+            Entry awaited = waiting.get(owner);
+            owner = awaited == null || awaited.isDone() ? null : awaited.owner;
+        }
+    }
+
+    /**
+     * Removes all values.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Removes the values of all statistics calculated on some data.
+     *
+     * @param data the data
+     */
+    public synchronized void invalidateData(Object data) {
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().data == data) {
+                weight -= e.getValue().weight;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the values of a statistic.
+     *
+     * @param statistic the statistic
+     */
+    public synchronized void invalidate(Statistic<?, ?, ?> statistic) {
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getKey().statistic.equals(statistic)) {
+                weight -= e.getValue().weight;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the value of a statistic for an object.
+     *
+     * @param <O> the type of the object
+     * @param statistic the statistic
+     * @param object the object
+     */
+    public synchronized <O> void invalidate(Statistic<O, ?, ?> statistic, O object) {
+        remove(new Key(statistic, null, object));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getHitCount(Statistic<?, ?, ?> statistic) {
+        return counters.getOrDefault(statistic, new long[3])[HITS];
+    }
+
+    public synchronized long getMissCount(Statistic<?, ?, ?> statistic) {
+        return counters.getOrDefault(statistic, new long[3])[MISSES];
+    }
+
+    public synchronized long getEvictionCount(Statistic<?, ?, ?> statistic) {
+        return counters.getOrDefault(statistic, new long[3])[EVICTIONS];
+    }
+
+    private void count(Statistic<?, ?, ?> statistic, int counter) {
+        counters.computeIfAbsent(statistic, s -> new long[3])[counter]++;
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    /**
+     * Accounts the weight of a calculated entry and evicts the least recently used calculated entries if the maximal
+     * weight is exceeded.
+     */
+    private void store(Key key, Entry entry) {
+        entry.weight = weigher.weigh(key.statistic, key.object, entry.value);
+        weight += entry.weight;
+        for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); weight > maximumWeight
+                && it.hasNext();) {
+            Map.Entry<Key, Entry> e = it.next();
+            if (e.getValue().isDone()) {
+                weight -= e.getValue().weight;
+                count(e.getKey().statistic, EVICTIONS);
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final Statistic<?, ?, ?> statistic;
+        private final Object data;
+        private final Object object;
+
+        private Key(Statistic<?, ?, ?> statistic, Object data, Object object) {
+            this.statistic = Objects.requireNonNull(statistic);
+            this.data = data;
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return statistic.equals(other.statistic) && data == other.data && Objects.equals(object, other.object);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * statistic.hashCode() + System.identityHashCode(data)) + Objects.hashCode(object);
+        }
+    }
+
+    /**
+     * A value that is either calculated or currently calculated by the owning thread.
+     */
+    private static final class Entry {
+
+        private final Thread owner;
+        private boolean done;
+        private Object value;
+        private Throwable failure;
+        /** The weight of the value, only accessed while holding the lock of the cache. */
+        private long weight;
+
+        private Entry(Thread owner) {
+            this.owner = owner;
+        }
+
+        private synchronized boolean isDone() {
+            return done;
+        }
+
+        private synchronized void complete(Object value, Throwable failure) {
+            this.value = value;
+            this.failure = failure;
+            done = true;
+            notifyAll();
+        }
+
+        private synchronized Object await() {
+            while (!done) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a calculation.", ex);
+                }
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return value;
         }
-        cache.get(statistic).put(object, value);
     }
 }
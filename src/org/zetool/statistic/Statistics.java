@@ -15,20 +15,27 @@
  */
 package org.zetool.statistic;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * Calculates statistics on some data. The values of the statistics are memoized in a {@link Cache}, which may be
+ * shared between threads and bounded in size. The values are stored for the data, such that a cache can also be shared
+ * by statistics on different data.
  *
  * @author Martin Groß
  */
 public class Statistics<D> {
 
-    private Cache cache;
-    private D data;
+    private final Cache cache;
+    private final D data;
 
     public Statistics(D data) {
-        this.cache = new Cache();
+        this(data, new Cache());
+    }
+
+    public Statistics(D data, Cache cache) {
+        this.cache = cache;
         this.data = data;
     }
 
@@ -40,24 +47,23 @@ public class Statistics<D> {
         return data;
     }
 
+    /**
+     * Removes all memoized values of the data, for example after the data has changed.
+     */
+    public void invalidate() {
+        cache.invalidateData(data);
+    }
+
     public <O, R> R get(Statistic<O, R, D> statistic) {
-        if (!cache.contains(statistic, null)) {
-            R value = statistic.calculate(this, null);
-            cache.put(statistic, null, value);
-        }
-        return cache.get(statistic, null);
+        return get(statistic, null);
     }
 
     public <O, R> R get(Statistic<O, R, D> statistic, O object) {
-        if (!cache.contains(statistic, object)) {
-            R value = statistic.calculate(this, object);
-            cache.put(statistic, object, value);
-        }
-        return cache.get(statistic, object);
+        return cache.get(statistic, data, object, () -> statistic.calculate(this, object));
     }
 
     public <O, R> List<R> get(Statistic<O, R, D> statistic, O o, O o2, O... objects) {
-        List<R> results = new LinkedList<>();
+        List<R> results = new ArrayList<>(objects.length + 2);
         results.add(get(statistic, o));
         results.add(get(statistic, o2));
         for (O object : objects) {
@@ -72,7 +78,7 @@ public class Statistics<D> {
         } else if (objects.length == 1) {
             return get(statistic, objects[0]);
         } else {
-            List<R> results = new LinkedList<>();
+            List<R> results = new ArrayList<>(objects.length);
             for (O object : objects) {
                 results.add(get(statistic, object));
             }
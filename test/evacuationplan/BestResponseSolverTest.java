@@ -0,0 +1,199 @@
+package evacuationplan;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.ExitCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.IndividualToExitMapping;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+import org.zet.cellularautomaton.potential.StaticPotential;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class BestResponseSolverTest {
+
+    private final RoomImpl room = new RoomImpl(10, 1, 0, 0, 0);
+    private final ExitCell leftCell = new ExitCell(1, 0, 0, room);
+    private final ExitCell rightCell = new ExitCell(1, 9, 0, room);
+    private final Exit left = new Exit("left", Collections.singletonList(leftCell));
+    private final Exit right = new Exit("right", Collections.singletonList(rightCell));
+    private final MultiFloorEvacuationCellularAutomaton ca;
+
+    public BestResponseSolverTest() {
+        room.setCell(leftCell);
+        room.setCell(rightCell);
+        for (int x = 1; x < 9; ++x) {
+            room.setCell(new RoomCell(1, x, 0, room));
+        }
+        StaticPotential leftPotential = new StaticPotential();
+        StaticPotential rightPotential = new StaticPotential();
+        for (int x = 0; x < 10; ++x) {
+            leftPotential.setPotential(room.getCell(x, 0), x);
+            rightPotential.setPotential(room.getCell(x, 0), 9 - x);
+        }
+        MultiFloorEvacuationCellularAutomaton.EvacuationCellularAutomatonBuilder builder
+                = new MultiFloorEvacuationCellularAutomaton.EvacuationCellularAutomatonBuilder();
+        builder.addFloor(0, "floor");
+        builder.addRoom(room, Arrays.asList(left, right));
+        builder.setPotentialFor(left, leftPotential);
+        builder.setPotentialFor(right, rightPotential);
+        ca = builder.build();
+    }
+
+    private MutableEvacuationState state(List<Individual> individuals, int... positions) {
+        MutableEvacuationState es = new MutableEvacuationState(ca, individuals);
+        for (int k = 0; k < positions.length; ++k) {
+            es.propertyFor(individuals.get(k)).setCell(room.getCell(positions[k], 0));
+        }
+        return es;
+    }
+
+    private static List<Individual> individuals(int count) {
+        List<Individual> individuals = new ArrayList<>();
+        for (int k = 0; k < count; ++k) {
+            individuals.add(new Individual(k, 0, 0, 0, 0, 0, 1, 0));
+        }
+        return individuals;
+    }
+
+    @Test
+    public void nearestExitWithoutQueues() {
+        List<Individual> individuals = individuals(8);
+        MutableEvacuationState es = state(individuals, 1, 2, 3, 4, 5, 6, 7, 8);
+
+        BestResponseSolver solver = new BestResponseSolver(es);
+        IndividualToExitMapping mapping = solver.solve(individuals);
+
+        assertThat(solver.isConverged(), is(true));
+        for (int k = 0; k < 4; ++k) {
+            assertThat(solver.getAssignedExit(individuals.get(k)), is(left));
+            assertThat(mapping.getExit(individuals.get(k)), is(leftCell));
+        }
+        for (int k = 4; k < 8; ++k) {
+            assertThat(solver.getAssignedExit(individuals.get(k)), is(right));
+            assertThat(mapping.getExit(individuals.get(k)), is(rightCell));
+        }
+    }
+
+    @Test
+    public void queueBalancing() {
+        List<Individual> individuals = individuals(4);
+        MutableEvacuationState es = state(individuals, 1, 2, 3, 4);
+
+        BestResponseSolver solver = new BestResponseSolver(es);
+        solver.setCapacity(left, 0.5);
+        solver.setCapacity(right, 0.5);
+        solver.solve(individuals);
+
+        assertThat(solver.isConverged(), is(true));
+        assertThat(solver.getAssignedExit(individuals.get(0)), is(left));
+        assertThat(solver.getAssignedExit(individuals.get(1)), is(left));
+        assertThat(solver.getAssignedExit(individuals.get(2)), is(left));
+        assertThat(solver.getAssignedExit(individuals.get(3)), is(right));
+    }
+
+    @Test
+    public void warmStart() {
+        List<Individual> individuals = individuals(4);
+        MutableEvacuationState es = state(individuals, 1, 2, 3, 4);
+        BestResponseDynamics brd = new BestResponseDynamics(es);
+        brd.computeAssignmentBasedOnBestResponseDynamics(ca, individuals);
+        assertThat(es.propertyFor(individuals.get(3)).getStaticPotential(), is(ca.getPotentialFor(left)));
+
+        BestResponseSolver solver = new BestResponseSolver(es);
+        solver.solve(individuals);
+        assertThat(solver.isConverged(), is(true));
+        assertThat(solver.getRounds(), is(1));
+    }
+
+    @Test
+    public void unplacedIndividualsAreNotAssigned() {
+        List<Individual> individuals = individuals(2);
+        MutableEvacuationState es = state(individuals, 3);
+
+        BestResponseSolver solver = new BestResponseSolver(es);
+        IndividualToExitMapping mapping = solver.solve(individuals);
+        assertThat(solver.getAssignedExit(individuals.get(0)), is(left));
+        assertThat(solver.getAssignedExit(individuals.get(1)), is(nullValue()));
+        assertThat(mapping.getExit(individuals.get(1)), is(nullValue()));
+    }
+
+    @Test
+    public void equalDistancesDoNotQueue() {
+        RoomImpl wide = new RoomImpl(10, 2, 0, 0, 0);
+        List<ExitCell> leftCells = new ArrayList<>();
+        List<ExitCell> rightCells = new ArrayList<>();
+        for (int y = 0; y < 2; ++y) {
+            leftCells.add(new ExitCell(1, 0, y, wide));
+            rightCells.add(new ExitCell(1, 9, y, wide));
+            wide.setCell(leftCells.get(y));
+            wide.setCell(rightCells.get(y));
+            for (int x = 1; x < 9; ++x) {
+                wide.setCell(new RoomCell(1, x, y, wide));
+            }
+        }
+        Exit wideLeft = new Exit("left", leftCells);
+        Exit wideRight = new Exit("right", rightCells);
+        StaticPotential leftPotential = new StaticPotential();
+        StaticPotential rightPotential = new StaticPotential();
+        for (int x = 0; x < 10; ++x) {
+            for (int y = 0; y < 2; ++y) {
+                leftPotential.setPotential(wide.getCell(x, y), x);
+                rightPotential.setPotential(wide.getCell(x, y), 9 - x);
+            }
+        }
+        MultiFloorEvacuationCellularAutomaton.EvacuationCellularAutomatonBuilder builder
+                = new MultiFloorEvacuationCellularAutomaton.EvacuationCellularAutomatonBuilder();
+        builder.addFloor(0, "floor");
+        builder.addRoom(wide, Arrays.asList(wideLeft, wideRight));
+        builder.setPotentialFor(wideLeft, leftPotential);
+        builder.setPotentialFor(wideRight, rightPotential);
+        List<Individual> individuals = individuals(2);
+        MutableEvacuationState es = new MutableEvacuationState(builder.build(), individuals);
+        es.propertyFor(individuals.get(0)).setCell(wide.getCell(4, 0));
+        es.propertyFor(individuals.get(1)).setCell(wide.getCell(4, 1));
+
+        BestResponseSolver solver = new BestResponseSolver(es);
+        solver.setCapacity(wideLeft, 0.5);
+        solver.setCapacity(wideRight, 0.5);
+        solver.solve(individuals);
+
+        assertThat(solver.getAssignedExit(individuals.get(0)), is(wideLeft));
+        assertThat(solver.getAssignedExit(individuals.get(1)), is(wideLeft));
+    }
+
+    @Test
+    public void solvedAgainAfterMoves() {
+        List<Individual> individuals = individuals(6);
+        MutableEvacuationState es = state(individuals, 1, 2, 3, 4, 6, 8);
+        BestResponseSolver solver = new BestResponseSolver(es);
+        solver.setCapacity(left, 0.5);
+        solver.setCapacity(right, 0.5);
+        solver.solve(individuals);
+
+        es.propertyFor(individuals.get(0)).setCell(room.getCell(7, 0));
+        es.propertyFor(individuals.get(4)).setCell(room.getCell(5, 0));
+        solver.solve(individuals);
+
+        BestResponseSolver fresh = new BestResponseSolver(es);
+        fresh.setCapacity(left, 0.5);
+        fresh.setCapacity(right, 0.5);
+        fresh.solve(individuals);
+        for (Individual individual : individuals) {
+            assertThat(solver.getAssignedExit(individual), is(fresh.getAssignedExit(individual)));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package evacuationplan;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import org.zetool.common.util.Direction8;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class DirectionMasksTest {
+
+    private final RoomImpl room = new RoomImpl(3, 3, 0, 0, 0);
+    private final Individual i1 = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual i2 = new Individual(1, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual other = new Individual(2, 0, 0, 0, 0, 0, 1, 0);
+    private int calls;
+    /** Allows only steps that do not lead to the left. */
+    private final CellularAutomatonDirectionChecker checker = (i, from, to) -> {
+        calls++;
+        return to.getX() >= from.getX();
+    };
+
+    public DirectionMasksTest() {
+        for (int x = 0; x < 3; ++x) {
+            for (int y = 0; y < 3; ++y) {
+                room.setCell(new RoomCell(1, x, y, room));
+            }
+        }
+    }
+
+    @Test
+    public void masksMatchChecker() {
+        DirectionMasks masks = DirectionMasks.compile(checker, i1, Collections.singletonList(room));
+        for (int x = 0; x < 3; ++x) {
+            for (int y = 0; y < 3; ++y) {
+                EvacCellInterface from = room.getCell(x, y);
+                for (Direction8 direction : Direction8.values()) {
+                    EvacCellInterface to = from.getNeighbor(direction);
+                    if (to != null) {
+                        assertThat(masks.canPass(i1, from, to), is(checker.canPass(i1, from, to)));
+                    }
+                }
+            }
+        }
+        int right = 1 << Direction8.TopRight.ordinal() | 1 << Direction8.Right.ordinal()
+                | 1 << Direction8.DownRight.ordinal();
+        int vertical = 1 << Direction8.Top.ordinal() | 1 << Direction8.Down.ordinal();
+        assertThat(masks.getMask(room.getCell(1, 1)), is(right | vertical));
+        assertThat(masks.getMask(room.getCell(2, 0)), is(1 << Direction8.Down.ordinal()));
+    }
+
+    @Test
+    public void compiledStepsDoNotCallChecker() {
+        DirectionMasks masks = DirectionMasks.compile(checker, i1, Collections.singletonList(room));
+        calls = 0;
+        assertThat(masks.canPass(i1, room.getCell(1, 1), room.getCell(0, 1)), is(false));
+        assertThat(masks.canPass(i1, room.getCell(1, 1), room.getCell(2, 2)), is(true));
+        assertThat(calls, is(0));
+
+        assertThat(DirectionMasks.bit(room.getCell(0, 0), room.getCell(2, 0)), is(0));
+        assertThat(masks.canPass(i1, room.getCell(0, 0), room.getCell(2, 0)), is(true));
+        assertThat(calls, is(1));
+    }
+
+    @Test
+    public void groups() {
+        CompiledDirectionChecker compiled = new CompiledDirectionChecker(checker, Collections.singletonList(room));
+        DirectionMasks masks = compiled.compile(Arrays.asList(i1, i2));
+        assertThat(compiled.getMasks(i1), is(masks));
+        assertThat(compiled.getMasks(i2), is(masks));
+        assertThat(compiled.getMasks(other), is(nullValue()));
+
+        calls = 0;
+        assertThat(compiled.canPass(i2, room.getCell(1, 1), room.getCell(0, 0)), is(false));
+        assertThat(calls, is(0));
+        assertThat(compiled.canPass(other, room.getCell(1, 1), room.getCell(0, 0)), is(false));
+        assertThat(calls, is(1));
+    }
+}
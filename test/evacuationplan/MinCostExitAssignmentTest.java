@@ -0,0 +1,223 @@
+package evacuationplan;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.zet.cellularautomaton.Exit;
+import org.zet.cellularautomaton.ExitCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.IndividualToExitMapping;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+import org.zet.cellularautomaton.potential.StaticPotential;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class MinCostExitAssignmentTest {
+
+    private final RoomImpl room = new RoomImpl(10, 1, 0, 0, 0);
+    private final ExitCell leftCell = new ExitCell(1, 0, 0, room);
+    private final ExitCell rightCell = new ExitCell(1, 9, 0, room);
+    private final Exit left = new Exit("left", Collections.singletonList(leftCell));
+    private final Exit right = new Exit("right", Collections.singletonList(rightCell));
+    private final MultiFloorEvacuationCellularAutomaton ca;
+
+    public MinCostExitAssignmentTest() {
+        room.setCell(leftCell);
+        room.setCell(rightCell);
+        for (int x = 1; x < 9; ++x) {
+            room.setCell(new RoomCell(1, x, 0, room));
+        }
+        StaticPotential leftPotential = new StaticPotential();
+        StaticPotential rightPotential = new StaticPotential();
+        for (int x = 0; x < 10; ++x) {
+            leftPotential.setPotential(room.getCell(x, 0), x);
+            rightPotential.setPotential(room.getCell(x, 0), 9 - x);
+        }
+        MultiFloorEvacuationCellularAutomaton.EvacuationCellularAutomatonBuilder builder
+                = new MultiFloorEvacuationCellularAutomaton.EvacuationCellularAutomatonBuilder();
+        builder.addFloor(0, "floor");
+        builder.addRoom(room, Arrays.asList(left, right));
+        builder.setPotentialFor(left, leftPotential);
+        builder.setPotentialFor(right, rightPotential);
+        ca = builder.build();
+    }
+
+    private MutableEvacuationState state(List<Individual> individuals, int... positions) {
+        MutableEvacuationState es = new MutableEvacuationState(ca, individuals);
+        for (int k = 0; k < positions.length; ++k) {
+            es.propertyFor(individuals.get(k)).setCell(room.getCell(positions[k], 0));
+        }
+        return es;
+    }
+
+    private static List<Individual> individuals(int count) {
+        List<Individual> individuals = new ArrayList<>();
+        for (int k = 0; k < count; ++k) {
+            individuals.add(new Individual(k, 0, 0, 0, 0, 0, 1, 0));
+        }
+        return individuals;
+    }
+
+    @Test
+    public void capacityProportionalToWidth() {
+        List<Individual> individuals = individuals(4);
+        MutableEvacuationState es = state(individuals, 1, 2, 3, 4);
+
+        MinCostExitAssignment assignment = new MinCostExitAssignment(es);
+        IndividualToExitMapping mapping = assignment.solve(individuals);
+
+        assertThat(assignment.getUnassignedCount(), is(0));
+        assertThat(assignment.getTotalCost(), is(closeTo(14, 1e-9)));
+        assertThat(assignment.getAssignedExit(individuals.get(0)), is(left));
+        assertThat(assignment.getAssignedExit(individuals.get(1)), is(left));
+        assertThat(assignment.getAssignedExit(individuals.get(2)), is(right));
+        assertThat(assignment.getAssignedExit(individuals.get(3)), is(right));
+        assertThat(mapping.getExit(individuals.get(0)), is(leftCell));
+        assertThat(mapping.getExit(individuals.get(3)), is(rightCell));
+    }
+
+    @Test
+    public void reassignment() {
+        List<Individual> individuals = individuals(2);
+        MutableEvacuationState es = state(individuals, 1, 3);
+        es.propertyFor(individuals.get(1)).setRelativeSpeed(0.1);
+
+        MinCostExitAssignment assignment = new MinCostExitAssignment(es);
+        assignment.setCapacity(left, 1);
+        assignment.solve(individuals);
+
+        assertThat(assignment.getAssignedExit(individuals.get(0)), is(right));
+        assertThat(assignment.getAssignedExit(individuals.get(1)), is(left));
+        assertThat(assignment.getTotalCost(), is(closeTo(38, 1e-9)));
+    }
+
+    @Test
+    public void nearestExitsOnly() {
+        List<Individual> individuals = individuals(3);
+        MutableEvacuationState es = state(individuals, 1, 2, 3);
+
+        MinCostExitAssignment assignment = new MinCostExitAssignment(es);
+        assignment.setNearestExits(1);
+        assignment.setCapacity(left, 1);
+        IndividualToExitMapping mapping = assignment.solve(individuals);
+
+        assertThat(assignment.getUnassignedCount(), is(2));
+        assertThat(assignment.getAssignedExit(individuals.get(0)), is(left));
+        assertThat(mapping.getExit(individuals.get(1)), is(nullValue()));
+        assertThat(mapping.getExit(individuals.get(2)), is(nullValue()));
+    }
+
+    @Test
+    public void capacityFromTimeHorizon() {
+        List<Individual> individuals = individuals(4);
+        MutableEvacuationState es = state(individuals, 1, 2, 3, 4);
+
+        MinCostExitAssignment assignment = new MinCostExitAssignment(es);
+        assignment.setTimeHorizon(3);
+        assignment.solve(individuals);
+        assertThat(assignment.getTotalCost(), is(closeTo(1 + 2 + 3 + 5, 1e-9)));
+
+        assignment.setTimeHorizon(1);
+        assignment.solve(individuals);
+        assertThat(assignment.getUnassignedCount(), is(2));
+        assertThat(assignment.getAssignedExit(individuals.get(0)), is(left));
+        assertThat(assignment.getAssignedExit(individuals.get(1)), is(right));
+        assertThat(assignment.getTotalCost(), is(closeTo(1 + 7, 1e-9)));
+    }
+
+    @Test
+    public void optimalOnRandomInstances() {
+        Random random = new Random(17);
+        for (int instance = 0; instance < 200; ++instance) {
+            int n = 1 + random.nextInt(6);
+            int m = 2 + random.nextInt(2);
+            RoomImpl grid = new RoomImpl(Math.max(n, m), 2, 0, 0, 0);
+            List<Exit> exits = new ArrayList<>();
+            for (int e = 0; e < m; ++e) {
+                ExitCell cell = new ExitCell(1, e, 1, grid);
+                grid.setCell(cell);
+                exits.add(new Exit("exit" + e, Collections.singletonList(cell)));
+            }
+            MultiFloorEvacuationCellularAutomaton.EvacuationCellularAutomatonBuilder builder
+                    = new MultiFloorEvacuationCellularAutomaton.EvacuationCellularAutomatonBuilder();
+            builder.addFloor(0, "floor");
+            builder.addRoom(grid, exits);
+            int[][] costs = new int[n][m];
+            for (int i = 0; i < n; ++i) {
+                grid.setCell(new RoomCell(1, i, 0, grid));
+            }
+            for (int e = 0; e < m; ++e) {
+                StaticPotential potential = new StaticPotential();
+                for (int i = 0; i < n; ++i) {
+                    costs[i][e] = 1 + random.nextInt(20);
+                    potential.setPotential(grid.getCell(i, 0), costs[i][e]);
+                }
+                builder.setPotentialFor(exits.get(e), potential);
+            }
+            List<Individual> individuals = individuals(n);
+            MutableEvacuationState es = new MutableEvacuationState(builder.build(), individuals);
+            for (int i = 0; i < n; ++i) {
+                es.propertyFor(individuals.get(i)).setCell(grid.getCell(i, 0));
+            }
+
+            MinCostExitAssignment assignment = new MinCostExitAssignment(es);
+            assignment.setNearestExits(m);
+            int[] capacities = new int[m];
+            int total = 0;
+            for (int e = 0; e < m; ++e) {
+                capacities[e] = random.nextInt(n + 1);
+                total += capacities[e];
+            }
+            capacities[m - 1] += Math.max(0, n - total);
+            for (int e = 0; e < m; ++e) {
+                assignment.setCapacity(exits.get(e), capacities[e]);
+            }
+            assignment.solve(individuals);
+
+            assertThat(assignment.getUnassignedCount(), is(0));
+            int[] load = new int[m];
+            double cost = 0;
+            for (int i = 0; i < n; ++i) {
+                int e = exits.indexOf(assignment.getAssignedExit(individuals.get(i)));
+                load[e]++;
+                cost += costs[i][e];
+            }
+            for (int e = 0; e < m; ++e) {
+                assertThat(load[e] <= capacities[e], is(true));
+            }
+            assertThat(cost, is(closeTo(assignment.getTotalCost(), 1e-9)));
+            assertThat(assignment.getTotalCost(), is(closeTo(bruteForce(costs, capacities, new int[m], 0), 1e-9)));
+        }
+    }
+
+    /**
+     * Computes the least cost of assigning the individuals from a given one on by trying all assignments.
+     */
+    private static double bruteForce(int[][] costs, int[] capacities, int[] load, int i) {
+        if (i == costs.length) {
+            return 0;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        for (int e = 0; e < capacities.length; ++e) {
+            if (load[e] < capacities[e]) {
+                load[e]++;
+                best = Math.min(best, costs[i][e] + bruteForce(costs, capacities, load, i + 1));
+                load[e]--;
+            }
+        }
+        return best;
+    }
+}
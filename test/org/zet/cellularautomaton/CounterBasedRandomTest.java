@@ -0,0 +1,82 @@
+package org.zet.cellularautomaton;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.zet.cellularautomaton.RandomSource.Purpose;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class CounterBasedRandomTest {
+
+    @Test
+    public void pureFunctionOfInputs() {
+        CounterBasedRandom random = new CounterBasedRandom(42);
+        CounterBasedRandom other = new CounterBasedRandom(42);
+        assertThat(random.nextLong(3, 7, Purpose.PANIC, 1), is(other.nextLong(3, 7, Purpose.PANIC, 1)));
+
+        // numbers of other decisions drawn in between do not change the result
+        CounterBasedRandom.Stream stream = random.stream();
+        double first = stream.reset(3, 7, Purpose.MOVE_DECISION).nextDouble();
+        stream.reset(3, 8, Purpose.MOVE_DECISION).nextDouble();
+        stream.reset(4, 7, Purpose.MOVE_DECISION).nextDouble();
+        assertThat(stream.reset(3, 7, Purpose.MOVE_DECISION).nextDouble(), is(first));
+        assertThat(random.nextDouble(3, 7, Purpose.MOVE_DECISION, 0), is(first));
+    }
+
+    @Test
+    public void inputsChangeResult() {
+        CounterBasedRandom random = new CounterBasedRandom(42);
+        long base = random.nextLong(3, 7, Purpose.PANIC, 0);
+        assertThat(new CounterBasedRandom(43).nextLong(3, 7, Purpose.PANIC, 0), is(not(base)));
+        assertThat(random.nextLong(4, 7, Purpose.PANIC, 0), is(not(base)));
+        assertThat(random.nextLong(3, 8, Purpose.PANIC, 0), is(not(base)));
+        assertThat(random.nextLong(3, 7, Purpose.DIRECTION, 0), is(not(base)));
+        assertThat(random.nextLong(3, 7, Purpose.PANIC, 1), is(not(base)));
+    }
+
+    @Test
+    public void longKeys() {
+        CounterBasedRandom.Stream stream = new CounterBasedRandom(42).stream();
+        long low = stream.reset(3, 7L, Purpose.DYNAMIC_POTENTIAL).nextLong();
+        assertThat(stream.reset(3, 1L << 32 | 7, Purpose.DYNAMIC_POTENTIAL).nextLong(), is(not(low)));
+        assertThat(stream.reset(3, 7L, Purpose.DYNAMIC_POTENTIAL).nextLong(), is(low));
+    }
+
+    @Test
+    public void ranges() {
+        CounterBasedRandom.Stream stream = new CounterBasedRandom(1).stream().reset(0, 0, Purpose.ORDERING);
+        int[] counts = new int[5];
+        for (int i = 0; i < 10000; ++i) {
+            assertThat(stream.nextDouble(), is(both(greaterThanOrEqualTo(0.0)).and(lessThan(1.0))));
+            counts[stream.nextInt(5)]++;
+        }
+        for (int count : counts) {
+            assertThat(count, is(both(greaterThanOrEqualTo(1800)).and(lessThan(2200))));
+        }
+    }
+
+    @Test
+    public void chooseRandomlyAbsolute() {
+        CounterBasedRandom.Stream stream = new CounterBasedRandom(1).stream().reset(0, 0, Purpose.TARGET_SELECTION);
+        double[] p = {1, 0, 3};
+        int[] counts = new int[3];
+        for (int i = 0; i < 8000; ++i) {
+            counts[stream.chooseRandomlyAbsolute(p)]++;
+        }
+        assertThat(counts[1], is(0));
+        assertThat(counts[0], is(both(greaterThanOrEqualTo(1800)).and(lessThan(2200))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBound() {
+        new CounterBasedRandom(1).stream().reset(0, 0, Purpose.DIRECTION).nextInt(0);
+    }
+}
@@ -0,0 +1,88 @@
+package org.zet.cellularautomaton;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class SpatialCellIndexTest {
+
+    private static RoomImpl room(int width, int height, int floor, int xOffset, int yOffset) {
+        RoomImpl room = new RoomImpl(width, height, floor, xOffset, yOffset);
+        for (int x = 0; x < width; ++x) {
+            for (int y = 0; y < height; ++y) {
+                room.setCell(new RoomCell(1, x, y, room));
+            }
+        }
+        return room;
+    }
+
+    @Test
+    public void curve() {
+        assertThat(SpatialCellIndex.curveIndex(2, 0, 0), is(0L));
+        assertThat(SpatialCellIndex.curveIndex(2, 0, 1), is(1L));
+        assertThat(SpatialCellIndex.curveIndex(2, 1, 1), is(2L));
+        assertThat(SpatialCellIndex.curveIndex(2, 1, 0), is(3L));
+
+        int side = 16;
+        int[] x = new int[side * side];
+        int[] y = new int[side * side];
+        for (int i = 0; i < side; ++i) {
+            for (int j = 0; j < side; ++j) {
+                int d = (int) SpatialCellIndex.curveIndex(side, i, j);
+                x[d] = i;
+                y[d] = j;
+            }
+        }
+        for (int d = 1; d < side * side; ++d) {
+            assertThat(Math.abs(x[d] - x[d - 1]) + Math.abs(y[d] - y[d - 1]), is(1));
+        }
+    }
+
+    @Test
+    public void consecutiveCellsAreNeighbours() {
+        RoomImpl room = room(8, 8, 0, 0, 0);
+        SpatialCellIndex index = new SpatialCellIndex(Arrays.asList(room));
+
+        assertThat(index.size(), is(64));
+        for (int k = 0; k < index.size(); ++k) {
+            assertThat(index.indexOf(index.getCell(k)), is(k));
+        }
+        for (int k = 1; k < index.size(); ++k) {
+            EvacCellInterface previous = index.getCell(k - 1);
+            EvacCellInterface cell = index.getCell(k);
+            assertThat(Math.abs(cell.getX() - previous.getX()) + Math.abs(cell.getY() - previous.getY()), is(1));
+        }
+    }
+
+    @Test
+    public void floorsAndRooms() {
+        RoomImpl upper = room(3, 2, 1, 0, 0);
+        RoomImpl left = room(2, 3, 0, 0, 0);
+        RoomImpl right = room(3, 3, 0, 2, 0);
+        SpatialCellIndex index = new SpatialCellIndex(Arrays.asList(upper, left, right));
+
+        assertThat(index.size(), is(21));
+        Set<Integer> numbers = new HashSet<>();
+        for (RoomImpl room : Arrays.asList(left, right)) {
+            for (EvacCellInterface cell : room.getAllCells()) {
+                assertThat(index.indexOf(cell) < 15, is(true));
+                numbers.add(index.indexOf(cell));
+            }
+        }
+        for (EvacCellInterface cell : upper.getAllCells()) {
+            assertThat(index.indexOf(cell) >= 15, is(true));
+            numbers.add(index.indexOf(cell));
+        }
+        assertThat(numbers.size(), is(21));
+        assertThat(index.indexOf(left.getCell(0, 0)), is(0));
+        assertThat(index.indexOf(room(1, 1, 0, 0, 0).getCell(0, 0)), is(-1));
+    }
+}
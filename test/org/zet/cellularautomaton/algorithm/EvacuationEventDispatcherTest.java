@@ -0,0 +1,198 @@
+package org.zet.cellularautomaton.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.results.Action;
+import org.zet.cellularautomaton.results.VoidAction;
+import org.zetool.common.algorithm.AbstractAlgorithmEvent;
+import org.zetool.common.algorithm.AlgorithmDetailedProgressEvent;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class EvacuationEventDispatcherTest {
+
+    private final EvacuationCellularAutomatonAlgorithm algorithm = new EvacuationCellularAutomatonAlgorithm();
+    private final List<Action> step = Collections.singletonList(VoidAction.VOID_ACTION);
+
+    @Test
+    public void everyStep() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher();
+        List<AbstractAlgorithmEvent> events = new ArrayList<>();
+        dispatcher.addListener(events::add);
+
+        dispatcher.start();
+        dispatcher.stepCompleted(algorithm, 1, 0.5, step);
+        assertThat(events, hasSize(2));
+        assertThat(events.get(0) instanceof AlgorithmDetailedProgressEvent, is(true));
+        assertThat(((EvacuationStepCompleteEvent) events.get(1)).getInitializationActions(), contains(step.get(0)));
+    }
+
+    @Test
+    public void batchedSteps() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher().everySteps(3);
+        List<List<Action>> batches = new ArrayList<>();
+        dispatcher.addListener(event -> {
+            if (event instanceof EvacuationStepCompleteEvent) {
+                batches.add(((EvacuationStepCompleteEvent) event).getInitializationActions());
+            }
+        });
+
+        dispatcher.start();
+        for (int i = 1; i <= 4; ++i) {
+            dispatcher.stepCompleted(algorithm, i, 0, step);
+        }
+        assertThat(batches, hasSize(1));
+        assertThat(batches.get(0), hasSize(3));
+
+        dispatcher.finish(algorithm, "done");
+        assertThat(batches, hasSize(2));
+        assertThat(batches.get(1), hasSize(1));
+    }
+
+    @Test
+    public void asyncDeliversCopies() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher().async(1);
+        List<List<Action>> received = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.addListener(event -> {
+            if (event instanceof EvacuationStepCompleteEvent) {
+                received.add(((EvacuationStepCompleteEvent) event).getInitializationActions());
+            }
+        });
+
+        dispatcher.start();
+        List<Action> buffer = new ArrayList<>();
+        for (int i = 1; i <= 5; ++i) {
+            buffer.addAll(Arrays.asList(VoidAction.VOID_ACTION, VoidAction.VOID_ACTION));
+            dispatcher.stepCompleted(algorithm, i, 0, buffer);
+            buffer.clear();
+        }
+        dispatcher.finish(algorithm, "done");
+
+        assertThat(received, hasSize(5));
+        received.forEach(actions -> assertThat(actions, hasSize(2)));
+    }
+
+    @Test
+    public void restartAfterAbortedRun() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher().async(2);
+        List<AbstractAlgorithmEvent> events = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.addListener(events::add);
+
+        dispatcher.start();
+        dispatcher.stepCompleted(algorithm, 1, 0, step);
+        // the run is aborted without finish
+        dispatcher.start();
+        dispatcher.stepCompleted(algorithm, 1, 0, step);
+        dispatcher.finish(algorithm, "done");
+
+        long workers = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("EvacuationEventDispatcher") && t.isAlive()).count();
+        assertThat(workers, is(0L));
+        assertThat(events.get(events.size() - 1) instanceof AlgorithmDetailedProgressEvent, is(true));
+    }
+
+    @Test
+    public void noEventsWithoutListeners() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher().everySteps(2);
+        dispatcher.start();
+        dispatcher.stepCompleted(algorithm, 1, 0, step);
+        dispatcher.stepCompleted(algorithm, 2, 0, step);
+
+        List<AbstractAlgorithmEvent> events = new ArrayList<>();
+        dispatcher.addListener(events::add);
+        dispatcher.finish(algorithm, "done");
+        assertThat(events, hasSize(1));
+    }
+
+    @Test
+    public void workerStartedWithFirstListener() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher().async(2);
+        dispatcher.start();
+        dispatcher.stepCompleted(algorithm, 1, 0, step);
+        assertThat(workerRunning(), is(false));
+
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.addListener(event -> threads.add(Thread.currentThread()));
+        assertThat(workerRunning(), is(true));
+        dispatcher.stepCompleted(algorithm, 2, 0, step);
+        dispatcher.finish(algorithm, "done");
+        assertThat(threads, hasSize(3));
+        assertThat(threads.get(0) == Thread.currentThread(), is(false));
+        assertThat(workerRunning(), is(false));
+    }
+
+    @Test
+    public void snapshotsAttachedInStepOrder() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher().async(2);
+        List<Boolean> snapshots = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.addListener(event -> {
+            if (event instanceof EvacuationStepCompleteEvent) {
+                snapshots.add(((EvacuationStepCompleteEvent) event).getSnapshot() != null);
+            }
+        });
+        algorithm.setStateSnapshots(2, Collections.emptyList());
+
+        dispatcher.start();
+        for (int i = 1; i <= 4; ++i) {
+            dispatcher.stepCompleted(algorithm, i, 0, step);
+        }
+        dispatcher.finish(algorithm, "done");
+        assertThat(snapshots, contains(true, false, true, false));
+    }
+
+    @Test
+    public void snapshotsTakenByStepNumber() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher().everySteps(3);
+        List<Integer> steps = new ArrayList<>();
+        List<Boolean> snapshots = new ArrayList<>();
+        dispatcher.addListener(event -> {
+            if (event instanceof EvacuationStepCompleteEvent) {
+                steps.add(((EvacuationStepCompleteEvent) event).getStep());
+                snapshots.add(((EvacuationStepCompleteEvent) event).getSnapshot() != null);
+            } else if (event instanceof EvacuationInitializationCompleteEvent) {
+                snapshots.add(((EvacuationInitializationCompleteEvent) event).getSnapshot() != null);
+            }
+        });
+        algorithm.setStateSnapshots(2, Collections.emptyList());
+
+        dispatcher.start();
+        dispatcher.initializationCompleted(algorithm, step);
+        for (int i = 1; i <= 6; ++i) {
+            dispatcher.stepCompleted(algorithm, i, 0, step);
+        }
+        dispatcher.finish(algorithm, "done");
+        assertThat(steps, contains(1, 3, 5, 6));
+        assertThat(snapshots, contains(false, true, true, true, false));
+    }
+
+    @Test
+    public void snapshotOfInitialization() {
+        EvacuationEventDispatcher dispatcher = new EvacuationEventDispatcher();
+        List<AbstractAlgorithmEvent> events = new ArrayList<>();
+        dispatcher.addListener(events::add);
+        algorithm.setStateSnapshots(1, Collections.emptyList());
+
+        dispatcher.start();
+        dispatcher.initializationCompleted(algorithm, step);
+        assertThat(((EvacuationInitializationCompleteEvent) events.get(0)).getSnapshot() == null, is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidStepInterval() {
+        new EvacuationEventDispatcher().everySteps(0);
+    }
+
+    private static boolean workerRunning() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals("EvacuationEventDispatcher") && thread.isAlive());
+    }
+}
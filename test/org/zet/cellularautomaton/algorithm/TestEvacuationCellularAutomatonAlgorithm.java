@@ -30,6 +30,7 @@ import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.IndividualBuilder;
 import org.zet.cellularautomaton.algorithm.computation.Computation;
 import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.SpatialCellIndex;
 import org.zet.cellularautomaton.algorithm.parameter.ParameterSet;
 import org.zet.cellularautomaton.algorithm.rule.EvacuationRule;
 import org.zet.cellularautomaton.algorithm.state.EvacuationState;
@@ -146,6 +147,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         ParameterSet ps = context.mock(ParameterSet.class);
 
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getEvacuationStepLimit();
                 will(returnValue(3));
                 allowing(esp).getCellularAutomaton();
@@ -271,6 +274,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         ParameterSet ps = context.mock(ParameterSet.class);        
         
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getCellularAutomaton();
                 will(returnValue(eca));
                 allowing(esp).getRuleSet();
@@ -349,6 +354,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         ParameterSet ps = context.mock(ParameterSet.class);
         
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getCellularAutomaton();
                 will(returnValue(eca));
                 allowing(esp).getRuleSet();
@@ -389,6 +396,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         ParameterSet ps = context.mock(ParameterSet.class);
         
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getCellularAutomaton();
                 will(returnValue(eca));
 
@@ -491,6 +500,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         EvacuationCellularAutomaton eca = context.mock(EvacuationCellularAutomaton.class);
         ParameterSet ps = context.mock(ParameterSet.class);
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getCellularAutomaton();
                 will(returnValue(eca));
                 allowing(esp).getRuleSet();
@@ -545,6 +556,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         EvacuationCellularAutomaton eca = context.mock(EvacuationCellularAutomaton.class);
         ParameterSet ps = context.mock(ParameterSet.class);
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getCellularAutomaton();
                 will(returnValue(eca));
                 allowing(esp).getRuleSet();
@@ -596,6 +609,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         EvacuationRuleSet rs = new TestEvacuationRuleSet.FakeEvacuationRuleSet();
         ParameterSet ps = context.mock(ParameterSet.class);
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getCellularAutomaton();
                 will(returnValue(eca));
                 allowing(esp).getRuleSet();
@@ -648,6 +663,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         ParameterSet ps = context.mock(ParameterSet.class);
         context.checking(new Expectations() {
             {
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getCellularAutomaton();
                 will(returnValue(eca));
                 allowing(esp).getRuleSet();
@@ -787,6 +804,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         EvacuationCellularAutomaton eca = context.mock(EvacuationCellularAutomaton.class);
         ParameterSet ps = context.mock(ParameterSet.class);
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getCellularAutomaton();
                 will(returnValue(eca));
                 allowing(ps).getAbsoluteMaxSpeed();
@@ -848,6 +867,8 @@ public class TestEvacuationCellularAutomatonAlgorithm {
         ParameterSet ps = context.mock(ParameterSet.class);
 
         context.checking(new Expectations() {{
+                allowing(eca).getCellIndex();
+                will(returnValue(new SpatialCellIndex(Collections.emptyList())));
                 allowing(esp).getEvacuationStepLimit();
                 will(returnValue(3));
                 allowing(esp).getCellularAutomaton();
@@ -4,16 +4,21 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import org.junit.Test;
 
+import org.zet.cellularautomaton.CounterBasedRandom;
 import org.zet.cellularautomaton.EvacCellInterface;
 import org.zet.cellularautomaton.Exit;
 import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
@@ -24,6 +29,7 @@ import org.zet.cellularautomaton.RoomCell;
 import org.zet.cellularautomaton.RoomImpl;
 import org.zet.cellularautomaton.algorithm.rule.EvacuateIndividualsRule;
 import org.zet.cellularautomaton.algorithm.rule.SimpleMovementRule;
+import org.zet.cellularautomaton.algorithm.state.IndividualProperty;
 import org.zet.cellularautomaton.potential.PotentialAlgorithm;
 import org.zet.cellularautomaton.potential.StaticPotential;
 import org.zetool.common.algorithm.AbstractAlgorithmEvent;
@@ -129,4 +135,64 @@ public class TestEvacuationCellularAutomatonRun {
         assertThat(caAlgorithm.isFinished(), is(true));
 
     }
+
+    /**
+     * Two individuals in separate rooms do not interact. With a counter based generator their random decisions do not
+     * depend on the order in which they are processed, thus both orders result in the same run.
+     */
+    @Test
+    public void sameRunForDifferentOrders() {
+        Function<List<Individual>, Iterator<Individual>> reversed = t -> {
+            List<Individual> copy = new ArrayList<>(t);
+            Collections.reverse(copy);
+            return copy.iterator();
+        };
+        List<String> forward = runTwoRooms(EvacuationCellularAutomatonAlgorithm.DEFAULT_ORDER);
+        List<String> backward = runTwoRooms(reversed);
+
+        assertThat(forward.size(), is(greaterThan(2)));
+        assertThat(backward, is(equalTo(forward)));
+    }
+
+    private List<String> runTwoRooms(Function<List<Individual>, Iterator<Individual>> order) {
+        getSmallProblem(getSmallExampleAutomaton());
+        EvacuationCellularAutomatonBuilder builder = new EvacuationCellularAutomatonBuilder();
+        builder.addFloor(0, "floor");
+        Map<Individual, EvacCellInterface> startPositions = new HashMap<>();
+        List<Individual> individuals = new ArrayList<>();
+        for (int k = 0; k < 2; ++k) {
+            RoomImpl r = new RoomImpl(8, 3, 0, 0, 10 * k);
+            for (int x = 0; x < 8; ++x) {
+                for (int y = 0; y < 3; ++y) {
+                    r.setCell(x == 0 && y == 1 ? new ExitCell(1, x, y, r) : new RoomCell(1, x, y, r));
+                }
+            }
+            for (Exit e : builder.addRoom(r)) {
+                PotentialAlgorithm pa = new PotentialAlgorithm();
+                pa.setProblem(e.getExitCluster());
+                builder.setPotentialFor(e, pa.call());
+            }
+            Individual i = new Individual(k, 0, 0, 0, 0, 0, 1, 0);
+            individuals.add(i);
+            startPositions.put(i, r.getCell(7, 2 * k));
+        }
+        MultiFloorEvacuationCellularAutomaton eca = builder.build();
+
+        EvacuationCellularAutomatonAlgorithm caAlgorithm = new EvacuationCellularAutomatonAlgorithm(order);
+        caAlgorithm.setProblem(new EvacuationSimulationProblemImpl(eca, individuals, startPositions));
+        caAlgorithm.setRandom(new CounterBasedRandom(7));
+        List<String> trajectory = new ArrayList<>();
+        caAlgorithm.addAlgorithmListener(event -> {
+            if (event instanceof EvacuationStepCompleteEvent) {
+                for (Individual i : individuals) {
+                    IndividualProperty p = caAlgorithm.getEvacuationState().propertyFor(i);
+                    EvacCellInterface cell = p.getCell();
+                    trajectory.add(i.getNumber() + ": " + (cell == null ? "evacuated " + p.getEvacuationTime()
+                            : Arrays.asList(cell.getX(), cell.getY(), cell.getRoom().getYOffset())));
+                }
+            }
+        });
+        caAlgorithm.runAlgorithm();
+        return trajectory;
+    }
 }
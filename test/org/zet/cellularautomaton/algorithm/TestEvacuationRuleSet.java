@@ -4,14 +4,19 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.Matchers.contains;
 import org.jmock.Mockery;
 import static org.junit.Assert.assertThat;
 import org.junit.Before;
 import org.junit.Test;
+import org.zet.cellularautomaton.CellKind;
 import org.zet.cellularautomaton.algorithm.rule.EvacuateIndividualsRule;
 import org.zet.cellularautomaton.algorithm.rule.EvacuationRule;
+import org.zet.cellularautomaton.algorithm.rule.SaveIndividualsRule;
+import org.zet.cellularautomaton.algorithm.rule.TeleportRule;
 
 /**
  *
@@ -106,6 +111,31 @@ public class TestEvacuationRuleSet {
         assertThat(loop, contains(mockRule, mockRule));
     }
     
+    @Test
+    public void testLoopRuleTable() {
+        EvacuationRule evacuate = new EvacuateIndividualsRule();
+        EvacuationRule mockRule = context.mock(EvacuationRule.class);
+        EvacuationRule save = new SaveIndividualsRule();
+        ruleSet.add(evacuate, false, true);
+        ruleSet.add(mockRule, false, true);
+        ruleSet.add(save, true, true);
+
+        CellKindRuleTable table = ruleSet.getLoopRuleTable();
+        assertThat(table.size(), is(equalTo(3)));
+        assertThat(table.next(CellKind.EXIT, 0), is(equalTo(0)));
+        assertThat(table.next(CellKind.EXIT, 1), is(equalTo(1)));
+        assertThat(table.next(CellKind.EXIT, 2), is(equalTo(2)));
+        assertThat(table.next(CellKind.ROOM, 0), is(equalTo(1)));
+        assertThat(table.next(CellKind.ROOM, 2), is(equalTo(3)));
+        assertThat(table.next(CellKind.SAVE, 2), is(equalTo(2)));
+
+        ruleSet.add(evacuate, false, false);
+        assertThat(ruleSet.getLoopRuleTable(), is(sameInstance(table)));
+        ruleSet.add(new TeleportRule(), false, true);
+        assertThat(ruleSet.getLoopRuleTable().size(), is(equalTo(4)));
+        assertThat(ruleSet.getLoopRuleTable().next(CellKind.TELEPORT, 2), is(equalTo(3)));
+    }
+
     @Test
     public void testRuleCreation() {
         EvacuationRule r = EvacuationRuleSet.createRule("EvacuateIndividualsRule");
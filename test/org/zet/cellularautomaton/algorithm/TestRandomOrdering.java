@@ -1,13 +1,17 @@
 package org.zet.cellularautomaton.algorithm;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.zetool.common.util.Helper.in;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import org.junit.Test;
+import org.zet.cellularautomaton.CounterBasedRandom;
 import org.zet.cellularautomaton.Individual;
 import org.zet.cellularautomaton.IndividualBuilder;
 
@@ -35,4 +39,26 @@ public class TestRandomOrdering {
         }
         assertThat(result, containsInAnyOrder(individuals.toArray()));
     }
+
+    @Test
+    public void counterBasedIndependentOfInputOrder() {
+        List<Individual> individuals = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            individuals.add(new Individual(i, 0, 0, 0, 0, 0, 1, 0));
+        }
+        List<Individual> reversed = new ArrayList<>(individuals);
+        Collections.reverse(reversed);
+
+        RandomOrdering forward = new RandomOrdering();
+        forward.setRandom(new CounterBasedRandom(3));
+        RandomOrdering backward = new RandomOrdering();
+        backward.setRandom(new CounterBasedRandom(3));
+
+        List<Individual> result = new ArrayList<>();
+        forward.apply(individuals).forEachRemaining(result::add);
+        assertThat(result, containsInAnyOrder(individuals.toArray()));
+        List<Individual> other = new ArrayList<>();
+        backward.apply(reversed).forEachRemaining(other::add);
+        assertThat(other, contains(result.toArray()));
+    }
 }
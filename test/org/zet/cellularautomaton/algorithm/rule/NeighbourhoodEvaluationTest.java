@@ -0,0 +1,136 @@
+package org.zet.cellularautomaton.algorithm.rule;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.junit.Test;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import org.zet.cellularautomaton.algorithm.computation.Computation;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class NeighbourhoodEvaluationTest {
+
+    private final Mockery context = new Mockery();
+    private final Computation c = context.mock(Computation.class);
+    private final RoomImpl room = new RoomImpl(3, 3, 0, 0, 0);
+    private final Individual individual = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final Function<EvacCellInterface, Double> dynamicPotential = cell -> 0.0;
+
+    public NeighbourhoodEvaluationTest() {
+        for (int x = 0; x < 3; ++x) {
+            for (int y = 0; y < 3; ++y) {
+                room.setCell(new RoomCell(1, x, y, room));
+            }
+        }
+    }
+
+    @Test
+    public void sameTargetsAndProbabilitiesAsUncached() {
+        EvacCellInterface center = room.getCell(1, 1);
+        List<EvacCellInterface> targets = Arrays.asList(room.getCell(0, 1), room.getCell(2, 1), room.getCell(1, 2),
+                room.getCell(1, 0));
+        context.checking(new Expectations() {{
+            for (EvacCellInterface target : targets) {
+                allowing(c).effectivePotential(individual, target, dynamicPotential);
+                will(returnValue(potential(target)));
+            }
+        }});
+        NeighbourhoodEvaluation evaluation = new NeighbourhoodEvaluation();
+        evaluation.reset(individual, center);
+
+        double[] cached = new double[targets.size()];
+        double[] uncached = new double[targets.size()];
+        for (int k = 0; k < targets.size(); ++k) {
+            cached[k] = evaluation.weight(targets.get(k), c, dynamicPotential);
+            uncached[k] = Math.exp(potential(targets.get(k)));
+            assertThat(evaluation.effectivePotential(targets.get(k), c, dynamicPotential),
+                    is(potential(targets.get(k))));
+        }
+        assertThat(Arrays.equals(cached, uncached), is(true));
+        assertThat(argMax(cached), is(argMax(uncached)));
+    }
+
+    @Test
+    public void computedOncePerDecision() {
+        EvacCellInterface center = room.getCell(1, 1);
+        List<EvacCellInterface> targets = Arrays.asList(room.getCell(0, 0), room.getCell(2, 2));
+        context.checking(new Expectations() {{
+            for (EvacCellInterface target : targets) {
+                exactly(1).of(c).effectivePotential(individual, target, dynamicPotential);
+                will(returnValue(potential(target)));
+            }
+        }});
+        NeighbourhoodEvaluation evaluation = new NeighbourhoodEvaluation();
+        evaluation.reset(individual, center);
+        for (int repeat = 0; repeat < 3; ++repeat) {
+            for (EvacCellInterface target : targets) {
+                evaluation.weight(target, c, dynamicPotential);
+                evaluation.effectivePotential(target, c, dynamicPotential);
+            }
+        }
+
+        evaluation.resetIfChanged(individual, center);
+        evaluation.weight(room.getCell(0, 0), c, dynamicPotential);
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void invalidatedWhenNeighbourhoodChanges() {
+        EvacCellInterface target = room.getCell(1, 0);
+        NeighbourhoodEvaluation evaluation = new NeighbourhoodEvaluation();
+        evaluation.reset(individual, room.getCell(1, 1));
+        expectPotential(target, -0.5);
+        assertThat(evaluation.effectivePotential(target, c, dynamicPotential), is(-0.5));
+
+        expectPotential(target, -3.0);
+        evaluation.resetIfChanged(individual, room.getCell(0, 1));
+        assertThat(evaluation.effectivePotential(target, c, dynamicPotential), is(-3.0));
+        assertThat(evaluation.weight(target, c, dynamicPotential), is(Math.exp(-3.0)));
+
+        expectPotential(target, -4.0);
+        evaluation.resetIfChanged(new Individual(1, 0, 0, 0, 0, 0, 1, 0), room.getCell(0, 1));
+        assertThat(evaluation.effectivePotential(target, c, dynamicPotential), is(-4.0));
+
+        expectPotential(target, -5.0);
+        evaluation.reset(null, null);
+        evaluation.resetIfChanged(individual, room.getCell(0, 1));
+        assertThat(evaluation.effectivePotential(target, c, dynamicPotential), is(-5.0));
+        context.assertIsSatisfied();
+    }
+
+    /**
+     * Expects a single computation of the effective potential of a target cell for any individual.
+     */
+    private void expectPotential(EvacCellInterface target, double value) {
+        context.checking(new Expectations() {{
+            exactly(1).of(c).effectivePotential(with(any(Individual.class)), with(same(target)),
+                    with(same(dynamicPotential)));
+            will(returnValue(value));
+        }});
+    }
+
+    private static double potential(EvacCellInterface cell) {
+        return -0.5 * cell.getX() - 0.25 * cell.getY();
+    }
+
+    private static int argMax(double[] values) {
+        int result = 0;
+        for (int k = 1; k < values.length; ++k) {
+            if (values[k] > values[result]) {
+                result = k;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,139 @@
+package org.zet.cellularautomaton.algorithm.state;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.DeathCause;
+import org.zet.cellularautomaton.EvacCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import org.zet.cellularautomaton.algorithm.state.DensityField.LevelOfService;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class DensityFieldTest {
+
+    private final RoomImpl room = new RoomImpl(3, 3, 0, 0, 0);
+
+    public DensityFieldTest() {
+        for (int x = 0; x < 3; ++x) {
+            for (int y = 0; y < 3; ++y) {
+                room.setCell(new RoomCell(1, x, y, room));
+            }
+        }
+    }
+
+    @Test
+    public void boxCounts() {
+        DensityField field = new DensityField(Collections.singleton(room), 1, 1);
+        field.add(room.getCell(0, 0));
+        field.add(room.getCell(1, 1));
+        assertThat(field.getCount(room.getCell(0, 0)), is(0));
+        field.completeStep();
+
+        assertThat(field.getCount(room.getCell(0, 0)), is(2));
+        assertThat(field.getCount(room.getCell(2, 2)), is(1));
+        assertThat(field.getCount(room.getCell(2, 0)), is(1));
+        assertThat(field.getDensity(room.getCell(0, 0)), is(closeTo(2 / 4.0, 1e-9)));
+        assertThat(field.getDensity(room.getCell(1, 1)), is(closeTo(2 / 9.0, 1e-9)));
+        assertThat(field.getMaxDensity(room), is(closeTo(0.5, 1e-9)));
+
+        field.remove(room.getCell(0, 0));
+        field.completeStep();
+        assertThat(field.getCount(room.getCell(0, 0)), is(1));
+        assertThat(field.getMaxDensity(room), is(closeTo(0.25, 1e-9)));
+    }
+
+    @Test
+    public void peakDensity() {
+        DensityField field = new DensityField(Collections.singleton(room), 0, 0.5);
+        field.add(room.getCell(1, 1));
+        field.completeStep();
+        field.remove(room.getCell(1, 1));
+        field.completeStep();
+        assertThat(field.getMaxDensity(room), is(closeTo(0, 1e-9)));
+        assertThat(field.getPeakDensity(room), is(closeTo(2, 1e-9)));
+        assertThat(field.getLevelOfService(room.getCell(1, 1)), is(LevelOfService.A));
+    }
+
+    @Test
+    public void slidingSumsMatchSquares() {
+        RoomImpl large = new RoomImpl(7, 5, 0, 0, 0);
+        for (int x = 0; x < 7; ++x) {
+            for (int y = 0; y < 5; ++y) {
+                if (x != 3 || y != 2) {
+                    large.setCell(new RoomCell(1, x, y, large));
+                }
+            }
+        }
+        Random random = new Random(5);
+        int[][] occupied = new int[7][5];
+        DensityField field = new DensityField(Collections.singleton(large), 2, 1);
+        for (EvacCell cell : large.getAllCells()) {
+            if (random.nextBoolean()) {
+                occupied[cell.getX()][cell.getY()] = 1;
+                field.add(cell);
+            }
+        }
+        field.completeStep();
+        for (EvacCell cell : large.getAllCells()) {
+            int count = 0;
+            int cells = 0;
+            for (EvacCell other : large.getAllCells()) {
+                if (Math.abs(other.getX() - cell.getX()) <= 2 && Math.abs(other.getY() - cell.getY()) <= 2) {
+                    count += occupied[other.getX()][other.getY()];
+                    cells++;
+                }
+            }
+            assertThat(field.getCount(cell), is(count));
+            assertThat(field.getDensity(cell), is(closeTo(count / (double) cells, 1e-9)));
+        }
+    }
+
+    @Test
+    public void providedByState() {
+        MutableEvacuationState es = new MutableEvacuationState(null, Collections.emptyList());
+        DensityField field = new DensityField(Collections.singleton(room), 0);
+        es.setDensityField(field);
+        DensityView view = es.getDensityView();
+        field.add(room.getCell(1, 1));
+        assertThat(view.getCount(room.getCell(1, 1)), is(0));
+        field.completeStep();
+        assertThat(view.getCount(room.getCell(1, 1)), is(1));
+    }
+
+    @Test
+    public void levelsOfService() {
+        assertThat(LevelOfService.of(0), is(LevelOfService.A));
+        assertThat(LevelOfService.of(0.5), is(LevelOfService.C));
+        assertThat(LevelOfService.of(2.17), is(LevelOfService.F));
+    }
+
+    @Test
+    public void updatedByController() {
+        Individual i1 = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+        MutableEvacuationState es = new MutableEvacuationState(null, Arrays.asList(i1));
+        DensityField field = new DensityField(Collections.singleton(room), 0);
+        EvacuationStateController ec = new EvacuationStateController(es);
+        ec.setDensityField(field);
+
+        EvacCell start = room.getCell(0, 0);
+        ec.add(i1, start);
+        field.completeStep();
+        assertThat(field.getDensity(start), is(closeTo(1 / DensityField.CELL_AREA, 1e-9)));
+        ec.move(start, room.getCell(0, 1));
+        field.completeStep();
+        assertThat(field.getCount(start), is(0));
+        assertThat(field.getCount(room.getCell(0, 1)), is(1));
+        ec.die(i1, DeathCause.NOT_ENOUGH_TIME);
+        field.completeStep();
+        assertThat(field.getCount(room.getCell(0, 1)), is(0));
+    }
+}
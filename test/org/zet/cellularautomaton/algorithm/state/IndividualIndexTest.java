@@ -0,0 +1,140 @@
+package org.zet.cellularautomaton.algorithm.state;
+
+import java.util.Arrays;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import org.zet.cellularautomaton.potential.StaticPotential;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class IndividualIndexTest {
+
+    private final RoomImpl room = new RoomImpl(20, 20, 0, 0, 0);
+    private final Individual i1 = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual i2 = new Individual(1, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual i3 = new Individual(2, 0, 0, 0, 0, 0, 1, 0);
+    private final MutableEvacuationState es = new MutableEvacuationState(null, Arrays.asList(i1, i2, i3));
+    private final IndividualIndex index = es.getIndividualIndex();
+
+    public IndividualIndexTest() {
+        for (int x = 0; x < 20; ++x) {
+            for (int y = 0; y < 20; ++y) {
+                room.setCell(new RoomCell(1, x, y, room));
+            }
+        }
+    }
+
+    @Test
+    public void radius() {
+        es.propertyFor(i1).setCell(room.getCell(7, 7));
+        es.propertyFor(i2).setCell(room.getCell(9, 8));
+        es.propertyFor(i3).setCell(room.getCell(15, 2));
+
+        assertThat(index.getIndividuals(room.getCell(8, 8), 1), containsInAnyOrder(i1, i2));
+        assertThat(index.getIndividuals(room.getCell(7, 7), 0), containsInAnyOrder(i1));
+        assertThat(index.getIndividuals(room.getCell(12, 5), 3), containsInAnyOrder(i2, i3));
+        assertThat(index.getIndividuals(room.getCell(0, 19), 5), is(empty()));
+
+        es.propertyFor(i1).setCell(room.getCell(16, 3));
+        es.propertyFor(i2).setCell(null);
+        assertThat(index.getIndividuals(room.getCell(8, 8), 2), is(empty()));
+        assertThat(index.getIndividuals(room.getCell(15, 2), 1), containsInAnyOrder(i1, i3));
+    }
+
+    @Test
+    public void potentials() {
+        StaticPotential first = new StaticPotential();
+        StaticPotential second = new StaticPotential();
+        for (int x = 0; x < 20; ++x) {
+            first.setPotential(room.getCell(x, 0), x);
+            second.setPotential(room.getCell(x, 0), 20 - x);
+        }
+        es.propertyFor(i1).setStaticPotential(first);
+        es.propertyFor(i1).setCell(room.getCell(2, 0));
+        es.propertyFor(i2).setCell(room.getCell(5, 0));
+        es.propertyFor(i2).setStaticPotential(first);
+        es.propertyFor(i3).setStaticPotential(second);
+        assertThat(index.getIndividuals(first), containsInAnyOrder(i1, i2));
+        assertThat(index.getIndividuals(second), is(empty()));
+
+        assertThat(index.getIndividuals(first, 5), containsInAnyOrder(i1));
+        assertThat(index.getIndividuals(first, 5.5), containsInAnyOrder(i1, i2));
+
+        es.propertyFor(i3).setCell(room.getCell(1, 0));
+        es.propertyFor(i2).setStaticPotential(second);
+        assertThat(index.getIndividuals(first), containsInAnyOrder(i1));
+        assertThat(index.getIndividuals(second, 17), containsInAnyOrder(i2));
+        es.propertyFor(i1).setCell(null);
+        assertThat(index.getIndividuals(first), is(empty()));
+    }
+
+    @Test
+    public void queueLengths() {
+        StaticPotential potential = new StaticPotential();
+        for (int x = 0; x < 20; ++x) {
+            potential.setPotential(room.getCell(x, 0), 100 * x + 0.01);
+        }
+        es.propertyFor(i1).setStaticPotential(potential);
+        es.propertyFor(i2).setStaticPotential(potential);
+        es.propertyFor(i3).setStaticPotential(potential);
+        es.propertyFor(i1).setCell(room.getCell(0, 0));
+        es.propertyFor(i2).setCell(room.getCell(3, 0));
+        es.propertyFor(i3).setCell(room.getCell(19, 0));
+
+        assertThat(index.countIndividuals(potential, 0.01), is(0));
+        assertThat(index.countIndividuals(potential, 0.02), is(1));
+        assertThat(index.countIndividuals(potential, 300.01), is(1));
+        assertThat(index.countIndividuals(potential, 300.015), is(2));
+        assertThat(index.countIndividuals(potential, Double.MAX_VALUE), is(3));
+        assertThat(index.countIndividualsBetween(potential, 0.01, Double.MAX_VALUE), is(2));
+        assertThat(index.countIndividualsBetween(potential, 0, 300.01), is(1));
+        assertThat(index.countIndividualsBetween(potential, 0.005, 300.02), is(2));
+        assertThat(index.countIndividualsBetween(potential, 300.01, 300.01), is(0));
+
+        es.propertyFor(i3).setCell(room.getCell(1, 0));
+        assertThat(index.countIndividuals(potential, 200), is(2));
+        es.propertyFor(i1).setStaticPotential(new StaticPotential());
+        assertThat(index.countIndividuals(potential, 200), is(1));
+        es.propertyFor(i2).setCell(null);
+        assertThat(index.countIndividuals(potential, Double.MAX_VALUE), is(1));
+    }
+
+    @Test
+    public void potentialValueChanged() {
+        StaticPotential potential = new StaticPotential();
+        potential.setPotential(room.getCell(0, 0), 1);
+        potential.setPotential(room.getCell(1, 0), 2);
+        es.propertyFor(i1).setStaticPotential(potential);
+        es.propertyFor(i1).setCell(room.getCell(0, 0));
+        es.propertyFor(i2).setStaticPotential(potential);
+        es.propertyFor(i2).setCell(room.getCell(1, 0));
+
+        potential.setPotential(room.getCell(0, 0), 50);
+        es.propertyFor(i1).setCell(room.getCell(1, 0));
+        assertThat(index.countIndividuals(potential, Double.MAX_VALUE), is(2));
+        assertThat(index.countIndividuals(potential, 3), is(2));
+        es.propertyFor(i2).setCell(null);
+        assertThat(index.countIndividuals(potential, Double.MAX_VALUE), is(1));
+    }
+
+    @Test
+    public void createdOnRequest() {
+        MutableEvacuationState state = new MutableEvacuationState(null, Arrays.asList(i1, i2));
+        state.propertyFor(i1).setCell(room.getCell(4, 4));
+        state.propertyFor(i2).setCell(room.getCell(12, 12));
+        IndividualIndex created = state.getIndividualIndex();
+        assertThat(state.getIndividualIndex(), is(sameInstance(created)));
+        assertThat(created.getIndividuals(room.getCell(5, 5), 1), containsInAnyOrder(i1));
+        state.propertyFor(i2).setCell(room.getCell(5, 6));
+        assertThat(created.getIndividuals(room.getCell(5, 5), 1), containsInAnyOrder(i1, i2));
+    }
+}
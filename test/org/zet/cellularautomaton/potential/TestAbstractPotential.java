@@ -7,9 +7,14 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
 import org.junit.Test;
 import org.zet.cellularautomaton.EvacCell;
 import org.zet.cellularautomaton.EvacuationCellState;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import org.zet.cellularautomaton.SpatialCellIndex;
 
 /**
  *
@@ -154,4 +159,59 @@ public class TestAbstractPotential {
         potential.setPotential(c, 2);
         assertThat(potential.getMaxPotential(), is(equalTo(2)));
     }
+
+    @Test
+    public void storedInCellIndex() {
+        RoomImpl room = new RoomImpl(2, 2, 0, 0, 0);
+        for (int x = 0; x < 2; ++x) {
+            for (int y = 0; y < 2; ++y) {
+                room.setCell(new RoomCell(1, x, y, room));
+            }
+        }
+        AbstractPotential potential = new AbstractPotential() {
+        };
+        EvacCell outside = getCell(5);
+        potential.setPotential(room.getCell(0, 0), 3);
+        potential.setPotential(outside, 1);
+
+        potential.setCellIndex(new SpatialCellIndex(Arrays.asList(room)));
+        potential.setPotential(room.getCell(1, 1), 5);
+        assertThat(potential.getPotential(room.getCell(0, 0)), is(equalTo(3)));
+        assertThat(potential.getPotential(room.getCell(1, 1)), is(equalTo(5)));
+        assertThat(potential.getPotential(outside), is(equalTo(1)));
+        assertThat(potential.hasValidPotential(room.getCell(1, 0)), is(false));
+        assertThat(potential.getMappedCells(), hasSize(3));
+        assertThat(potential.getMaxPotential(), is(equalTo(5)));
+
+        potential.deleteCell(room.getCell(1, 1));
+        assertThat(potential.hasValidPotential(room.getCell(1, 1)), is(false));
+        assertThat(potential.getMaxPotential(), is(equalTo(3)));
+
+        potential.setCellIndex(null);
+        assertThat(potential.getPotential(room.getCell(0, 0)), is(equalTo(3)));
+        assertThat(potential.getMappedCells(), hasSize(2));
+    }
+
+    @Test
+    public void maxPotentialCountsEqualValues() {
+        RoomImpl room = new RoomImpl(3, 1, 0, 0, 0);
+        for (int x = 0; x < 3; ++x) {
+            room.setCell(new RoomCell(1, x, 0, room));
+        }
+        AbstractPotential potential = new AbstractPotential() {
+        };
+        potential.setCellIndex(new SpatialCellIndex(Arrays.asList(room)));
+        potential.setPotential(room.getCell(0, 0), 3);
+        potential.setPotential(room.getCell(1, 0), 5);
+        potential.setPotential(room.getCell(2, 0), 5);
+
+        potential.deleteCell(room.getCell(1, 0));
+        assertThat(potential.getMaxPotential(), is(equalTo(5)));
+        assertThat(potential.getMappedCells(), hasSize(2));
+        potential.setPotential(room.getCell(2, 0), 2);
+        assertThat(potential.getMaxPotential(), is(equalTo(3)));
+        potential.deleteCell(room.getCell(0, 0));
+        assertThat(potential.getMaxPotential(), is(equalTo(2)));
+        assertThat(potential.getMappedCells(), contains(room.getCell(2, 0)));
+    }
 }
@@ -2,6 +2,7 @@ package org.zet.cellularautomaton.potential;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
@@ -11,6 +12,7 @@ import org.jmock.Mockery;
 import org.junit.Test;
 import org.zet.cellularautomaton.EvacCell;
 import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.RoomCell;
 
 /**
  *
@@ -87,4 +89,16 @@ public class TestDynamicPotential {
         assertThat(potential.getPotential(cell), is(equalTo(0)));
         assertThat(potential.hasValidPotential(cell), is(false));
     }
+
+    @Test
+    public void cellKeysDoNotCollide() {
+        assertThat(DynamicPotential.cellKey(new RoomCell(0, 31)), is(not(DynamicPotential.cellKey(new RoomCell(1, 0)))));
+        assertThat(DynamicPotential.cellKey(new RoomCell(0, 0xffff)),
+                is(not(DynamicPotential.cellKey(new RoomCell(1, 0)))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cellKeyOutOfRange() {
+        DynamicPotential.cellKey(new RoomCell(0x10000, 0));
+    }
 }
@@ -0,0 +1,139 @@
+package org.zet.cellularautomaton.potential;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import org.zet.cellularautomaton.SpatialCellIndex;
+import org.zetool.common.util.Direction8;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class TestStaticPotentialWeights {
+
+    @Test
+    public void differencesAndWeights() {
+        StaticPotential potential = new StaticPotential();
+        RoomCell cell = new RoomCell(0, 0);
+        RoomCell neighbour = new RoomCell(1, 0);
+        potential.setPotential(cell, 5);
+        potential.setPotential(neighbour, 3);
+
+        StaticPotentialWeights weights = potential.getWeights();
+        assertThat(weights.difference(cell, neighbour), is(closeTo(2, 10e-8)));
+        assertThat(weights.difference(neighbour, cell), is(closeTo(-2, 10e-8)));
+        assertThat(weights.weight(cell, neighbour), is(closeTo(Math.exp(2), 10e-6)));
+        assertThat(weights.weight(neighbour, cell), is(closeTo(Math.exp(-2), 10e-6)));
+    }
+
+    @Test
+    public void largeWeightsNotTruncated() {
+        StaticPotential potential = new StaticPotential();
+        RoomCell cell = new RoomCell(0, 0);
+        RoomCell neighbour = new RoomCell(1, 0);
+        potential.setPotential(cell, 200);
+        potential.setPotential(neighbour, 0);
+
+        assertThat(potential.getWeights().weight(cell, neighbour), is(closeTo(Math.exp(200), Math.exp(190))));
+    }
+
+    @Test
+    public void discardedOnChange() {
+        StaticPotential potential = new StaticPotential();
+        RoomCell cell = new RoomCell(0, 0);
+        RoomCell neighbour = new RoomCell(1, 0);
+        potential.setPotential(cell, 5);
+        potential.setPotential(neighbour, 3);
+
+        StaticPotentialWeights weights = potential.getWeights();
+        assertThat(potential.getWeights(), is(sameInstance(weights)));
+        assertThat(weights.difference(cell, neighbour), is(closeTo(2, 10e-8)));
+
+        potential.setPotential(neighbour, 1);
+        assertThat(potential.getWeights(), is(not(sameInstance(weights))));
+        assertThat(potential.getWeights().difference(cell, neighbour), is(closeTo(4, 10e-8)));
+    }
+
+    @Test
+    public void otherPotentials() {
+        FakePotential potential = new FakePotential();
+        RoomCell cell = new RoomCell(0, 0);
+        RoomCell neighbour = new RoomCell(1, 0);
+
+        assertThat(StaticPotentialWeights.differenceOf(potential, cell, neighbour), is(closeTo(0, 10e-8)));
+        assertThat(StaticPotentialWeights.weightOf(potential, cell, neighbour), is(closeTo(1, 10e-8)));
+    }
+
+    @Test
+    public void allDirectionsInRoom() {
+        RoomImpl room = new RoomImpl(3, 3, 0, 0, 0);
+        StaticPotential potential = new StaticPotential();
+        for (int x = 0; x < 3; ++x) {
+            for (int y = 0; y < 3; ++y) {
+                room.setCell(new RoomCell(1, x, y, room));
+                potential.setPotential(room.getCell(x, y), 10 * x + y);
+            }
+        }
+        potential.setPotential(room.getCell(2, 2), 300);
+
+        StaticPotentialWeights weights = potential.getWeights();
+        EvacCellInterface center = room.getCell(1, 1);
+        for (Direction8 direction : Direction8.values()) {
+            EvacCellInterface neighbour = center.getNeighbor(direction);
+            double expected = (double) potential.getPotential(center) - potential.getPotential(neighbour);
+            assertThat(weights.difference(center, neighbour), is(closeTo(expected, 10e-8)));
+            assertThat(weights.difference(neighbour, center), is(closeTo(-expected, 10e-8)));
+            assertThat(weights.weight(center, neighbour), is(closeTo(Math.exp(expected), Math.exp(expected) * 10e-6)));
+        }
+        assertThat(weights.weight(room.getCell(2, 2), center), is(closeTo(Math.exp(289), Math.exp(279))));
+    }
+
+    @Test
+    public void cellsThatAreNoNeighbours() {
+        RoomImpl room = new RoomImpl(3, 1, 0, 0, 0);
+        StaticPotential potential = new StaticPotential();
+        for (int x = 0; x < 3; ++x) {
+            room.setCell(new RoomCell(1, x, 0, room));
+            potential.setPotential(room.getCell(x, 0), x);
+        }
+
+        StaticPotentialWeights weights = potential.getWeights();
+        assertThat(weights.difference(room.getCell(0, 0), room.getCell(2, 0)), is(closeTo(-2, 10e-8)));
+        assertThat(weights.weight(room.getCell(2, 0), room.getCell(0, 0)), is(closeTo(Math.exp(2), 10e-6)));
+    }
+
+    @Test
+    public void laidOutByCellIndex() {
+        RoomImpl room = new RoomImpl(4, 4, 0, 0, 0);
+        StaticPotential potential = new StaticPotential();
+        StaticPotential indexed = new StaticPotential();
+        for (int x = 0; x < 4; ++x) {
+            for (int y = 0; y < 4; ++y) {
+                room.setCell(new RoomCell(1, x, y, room));
+                potential.setPotential(room.getCell(x, y), x * x + 3 * y);
+                indexed.setPotential(room.getCell(x, y), x * x + 3 * y);
+            }
+        }
+        indexed.setCellIndex(new SpatialCellIndex(Arrays.asList(room)));
+
+        StaticPotentialWeights weights = indexed.getWeights();
+        for (EvacCellInterface cell : room.getAllCells()) {
+            for (EvacCellInterface neighbour : cell.getNeighbours()) {
+                assertThat(weights.difference(cell, neighbour),
+                        is(closeTo(potential.getWeights().difference(cell, neighbour), 10e-8)));
+                assertThat(weights.weight(cell, neighbour),
+                        is(closeTo(potential.getWeights().weight(cell, neighbour), 10e-6)));
+            }
+        }
+    }
+}
+
@@ -0,0 +1,54 @@
+package org.zet.cellularautomaton.results;
+
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class ActionBufferTest {
+
+    @Test
+    public void bufferGrows() {
+        ActionBuffer buffer = new ActionBuffer(1);
+        buffer.add(VoidAction.VOID_ACTION);
+        buffer.add(VoidAction.VOID_ACTION);
+        buffer.add(VoidAction.VOID_ACTION);
+        assertThat(buffer.size(), is(3));
+        assertThat(buffer.get(2), is(sameInstance(VoidAction.VOID_ACTION)));
+    }
+
+    @Test
+    public void viewReflectsBuffer() {
+        ActionBuffer buffer = new ActionBuffer();
+        List<Action> view = buffer.asList();
+        assertThat(view, is(empty()));
+
+        buffer.add(VoidAction.VOID_ACTION);
+        assertThat(view, contains(VoidAction.VOID_ACTION));
+
+        buffer.clear();
+        assertThat(view, is(empty()));
+        assertThat(buffer.isEmpty(), is(true));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewIsReadOnly() {
+        ActionBuffer buffer = new ActionBuffer();
+        buffer.asList().add(VoidAction.VOID_ACTION);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void accessAfterClearFails() {
+        ActionBuffer buffer = new ActionBuffer();
+        buffer.add(VoidAction.VOID_ACTION);
+        buffer.clear();
+        buffer.get(0);
+    }
+}
@@ -0,0 +1,331 @@
+package org.zet.cellularautomaton.results;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.zet.cellularautomaton.DeathCause;
+import org.zet.cellularautomaton.EvacCell;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.ExitCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.InitialConfiguration;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.algorithm.EvacuationCellularAutomatonAlgorithm;
+import org.zet.cellularautomaton.algorithm.EvacuationInitializationCompleteEvent;
+import org.zet.cellularautomaton.algorithm.EvacuationStepCompleteEvent;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallExampleAutomaton;
+import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+import org.zet.cellularautomaton.algorithm.state.PropertyUpdate;
+import org.zet.cellularautomaton.algorithm.state.StateSnapshot;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class BinaryEvacuationRecordingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MultiFloorEvacuationCellularAutomaton eca = getSmallExampleAutomaton();
+    private final Individual i1 = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual i2 = new Individual(1, 0, 0, 0, 0, 0, 1, 0);
+
+    @Test
+    public void roundTrip() throws IOException {
+        List<EvacCellInterface> cells = cells();
+        ExitCell exit = (ExitCell) cells.stream().filter(cell -> cell instanceof ExitCell).findFirst().get();
+        EvacCellInterface other = cells.stream().filter(cell -> cell != exit).findFirst().get();
+
+        List<Action> step0 = Arrays.asList(
+                new MoveAction(other, exit, i1, PropertyUpdate.forMove(1.5, 2.25).withPanic(0.5).createUpdate()),
+                new SwapAction(exit, other, 3, 2, 0, 4, 2, 1, null,
+                        PropertyUpdate.forMove(2, 4).alarmed(true).createUpdate()),
+                new DynamicPotentialChangeAction(other, 7));
+        List<Action> step1 = Collections.emptyList();
+        List<Action> step2 = Arrays.asList(
+                new IndividualStateChangeAction(i2, 0.25, 0.75, 0.5, true),
+                new ReactionAction(Arrays.asList(i1, i2)),
+                new ExitAction(exit, 5, i1),
+                new SaveAction(i1, 5),
+                new DieAction(other, DeathCause.NOT_ENOUGH_TIME, i2),
+                VoidAction.VOID_ACTION);
+
+        Path file = write(2, step0, step1, step2);
+
+        try (BinaryEvacuationRecording recording = open(file)) {
+            assertThat(recording.length(), is(3));
+            assertThat(recording.getCurTime(), is(-1));
+
+            Vector<Action> actions = recording.nextActions();
+            assertThat(actions, hasSize(3));
+            MoveAction move = (MoveAction) actions.get(0);
+            assertThat(move.from(), is(sameInstance(other)));
+            assertThat(move.to(), is(sameInstance(exit)));
+            assertThat(move.getIndividualNumber(), is(0));
+            assertThat(move.startTime(), is(closeTo(1.5, 1e-6)));
+            assertThat(move.arrivalTime(), is(closeTo(2.25, 1e-6)));
+            assertThat(move.getPropertyUpdate().getPanic().get(), is(closeTo(0.5, 1e-6)));
+            SwapAction swap = (SwapAction) actions.get(1);
+            assertThat(swap.getIndividualNumber2(), is(1));
+            assertThat(swap.arrivalTime2(), is(closeTo(4, 1e-6)));
+            assertThat(swap.getCell1Update() == null, is(true));
+            assertThat(swap.getCell2Update().isAlarmed().get(), is(true));
+            assertThat(((DynamicPotentialChangeAction) actions.get(2)).getNewPotentialValue(), is(7L));
+
+            assertThat(recording.nextActions(), is(empty()));
+
+            actions = recording.nextActions();
+            assertThat(recording.hasNext(), is(false));
+            assertThat(actions, hasSize(6));
+            IndividualStateChangeAction change = (IndividualStateChangeAction) actions.get(0);
+            assertThat(change.getIndividual(), is(sameInstance(i2)));
+            assertThat(change.getExhaustion(), is(closeTo(0.75, 1e-6)));
+            assertThat(((ReactionAction) actions.get(1)).getIndividuals(), contains(i1, i2));
+            assertThat(((ExitAction) actions.get(2)).getExit(), is(sameInstance(exit)));
+            assertThat(((SaveAction) actions.get(3)).getTimeStep(), is(5));
+            assertThat(((DieAction) actions.get(4)).getDeathCause(), is(DeathCause.NOT_ENOUGH_TIME));
+            assertThat(actions.get(5), is(sameInstance(VoidAction.VOID_ACTION)));
+
+            assertThat(recording.prevActions(), is(empty()));
+            recording.jumpToTime(0);
+            assertThat(recording.curActions().get(0), is(instanceOf(MoveAction.class)));
+            assertThat(recording.getMaxDynamicPotential(), is(7L));
+        }
+    }
+
+    @Test
+    public void emptyRecording() throws IOException {
+        Path file = write(4);
+        try (BinaryEvacuationRecording recording = open(file)) {
+            assertThat(recording.length(), is(0));
+            assertThat(recording.hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void manyBlocks() throws IOException {
+        EvacCellInterface cell = cells().get(0);
+        List<List<Action>> steps = new ArrayList<>();
+        for (int step = 0; step < 10; ++step) {
+            steps.add(Collections.nCopies(step, new DynamicPotentialChangeAction(cell, step)));
+        }
+        @SuppressWarnings("unchecked")
+        Path file = write(3, steps.toArray(new List[steps.size()]));
+        try (BinaryEvacuationRecording recording = open(file)) {
+            assertThat(recording.length(), is(10));
+            recording.forward();
+            assertThat(recording.curActions(), hasSize(9));
+            for (int step = 8; step >= 0; --step) {
+                assertThat(recording.prevActions(), hasSize(step));
+            }
+            assertThat(recording.filterAllActions(DynamicPotentialChangeAction.class), hasSize(45));
+        }
+    }
+
+    @Test
+    public void keyframes() throws IOException {
+        List<EvacCellInterface> cells = cells();
+        MutableEvacuationState es = new MutableEvacuationState(eca, Arrays.asList(i1, i2));
+        Path file = folder.newFile().toPath();
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file, eca, 2)) {
+            assertThat(writer.getCells(), is(cells));
+            writer.writeStep(Collections.emptyList());
+            cells.get(1).getState().setIndividual(i2);
+            es.setDynamicPotential((EvacCell) cells.get(1), 3);
+            StateSnapshot first = new StateSnapshot(es, writer.getCells());
+            // the live state is already ahead when the step is written
+            cells.get(1).getState().removeIndividual();
+            writer.writeStep(Collections.emptyList(), first);
+            writer.writeStep(Collections.emptyList());
+            cells.get(2).getState().setIndividual(i2);
+            writer.writeStep(Collections.emptyList(), new StateSnapshot(es, writer.getCells()));
+            writer.writeStep(Collections.emptyList());
+        }
+        cells.get(2).getState().removeIndividual();
+
+        try (BinaryEvacuationRecording recording = open(file)) {
+            assertThat(recording.getKeyframe(0) == null, is(true));
+            RecordingKeyframe first = recording.getKeyframe(2);
+            assertThat(first.getTime(), is(1));
+            assertThat(first.getCellCount(), is(cells.size()));
+            assertThat(first.getCell(1), is(sameInstance(cells.get(1))));
+            assertThat(first.getIndividual(1), is(sameInstance(i2)));
+            assertThat(first.getIndividual(2) == null, is(true));
+            assertThat(first.getDynamicPotential(1), is(closeTo(3, 1e-6)));
+
+            RecordingKeyframe second = recording.getKeyframe(3);
+            assertThat(second.getTime(), is(3));
+            assertThat(second.getIndividual(1) == null, is(true));
+            assertThat(second.getIndividual(2), is(sameInstance(i2)));
+        }
+    }
+
+    @Test
+    public void keyframesOfEvents() throws IOException {
+        List<EvacCellInterface> cells = cells();
+        ExitCell exit = (ExitCell) cells.stream().filter(cell -> cell instanceof ExitCell).findFirst().get();
+        EvacCellInterface start = cells.stream().filter(cell -> cell != exit).findFirst().get();
+        MutableEvacuationState es = new MutableEvacuationState(eca, Arrays.asList(i1, i2));
+        EvacuationCellularAutomatonAlgorithm algorithm = new EvacuationCellularAutomatonAlgorithm();
+        Path file = folder.newFile().toPath();
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file, eca, 1)) {
+            start.getState().setIndividual(i1);
+            writer.eventOccurred(new EvacuationInitializationCompleteEvent(algorithm, Collections.emptyList(),
+                    new StateSnapshot(es, writer.getCells())));
+            start.getState().removeIndividual();
+            exit.getState().setIndividual(i1);
+            // a batch containing steps 1 and 2
+            writer.eventOccurred(new EvacuationStepCompleteEvent(algorithm, 0, Collections.singletonList(
+                    new MoveAction(start, exit, i1, PropertyUpdate.forMove(1, 2).createUpdate())), 2,
+                    new StateSnapshot(es, writer.getCells())));
+            assertThat(writer.getStepCount(), is(3));
+        }
+        exit.getState().removeIndividual();
+
+        try (BinaryEvacuationRecording recording = open(file)) {
+            assertThat(recording.length(), is(3));
+            RecordingKeyframe initial = recording.getKeyframe(0);
+            assertThat(initial.getTime(), is(0));
+            assertThat(initial.getIndividual(cells.indexOf(start)), is(sameInstance(i1)));
+            assertThat(recording.getKeyframe(1).getTime(), is(0));
+            assertThat(recording.getKeyframe(2).getTime(), is(2));
+            assertThat(recording.getKeyframe(2).getIndividual(cells.indexOf(exit)), is(sameInstance(i1)));
+            assertThat(recording.nextActions(), is(empty()));
+            assertThat(recording.nextActions(), is(empty()));
+            assertThat(recording.nextActions(), hasSize(1));
+        }
+    }
+
+    @Test
+    public void seek() throws IOException {
+        List<EvacCellInterface> cells = cells();
+        ExitCell exit = (ExitCell) cells.stream().filter(cell -> cell instanceof ExitCell).findFirst().get();
+        List<EvacCellInterface> others = new ArrayList<>(cells);
+        others.remove(exit);
+        EvacCellInterface start = others.get(1);
+        EvacCellInterface middle = others.get(0);
+        MutableEvacuationState es = new MutableEvacuationState(eca, Arrays.asList(i1, i2));
+        Path file = folder.newFile().toPath();
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file, eca, 2)) {
+            writer.writeStep(Collections.emptyList());
+            start.getState().setIndividual(i1);
+            writer.writeStep(Collections.emptyList(), new StateSnapshot(es, writer.getCells()));
+            start.getState().removeIndividual();
+            writer.writeStep(Collections.singletonList(new MoveAction(start, middle, i1, PropertyUpdate.forMove(2, 3).createUpdate())));
+            writer.writeStep(Arrays.asList(new MoveAction(middle, exit, i1, PropertyUpdate.forMove(3, 4).createUpdate()),
+                    new DynamicPotentialChangeAction(start, 5)));
+            writer.writeStep(Collections.singletonList(new ExitAction(exit, 4, i1)));
+        }
+
+        try (BinaryEvacuationRecording recording = open(file)) {
+            RecordingKeyframe afterMove = recording.seek(3);
+            assertThat(recording.getCurTime(), is(3));
+            assertThat(afterMove.getTime(), is(3));
+            assertThat(afterMove.getIndividual(cells.indexOf(start)) == null, is(true));
+            assertThat(afterMove.getIndividual(cells.indexOf(middle)) == null, is(true));
+            assertThat(afterMove.getIndividual(cells.indexOf(exit)), is(sameInstance(i1)));
+            assertThat(afterMove.getDynamicPotential(cells.indexOf(start)), is(closeTo(5, 1e-6)));
+            assertThat(afterMove.getDynamicPotential(cells.indexOf(middle)), is(closeTo(1, 1e-6)));
+
+            RecordingKeyframe atKeyframe = recording.seek(1);
+            assertThat(atKeyframe.getIndividual(cells.indexOf(start)), is(sameInstance(i1)));
+
+            RecordingKeyframe afterExit = recording.seek(4);
+            assertThat(afterExit.getIndividual(cells.indexOf(exit)) == null, is(true));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownCellRejected() throws IOException {
+        EvacCellInterface foreign = cells(getSmallExampleAutomaton()).get(0);
+        write(1, Collections.singletonList(new DynamicPotentialChangeAction(foreign, 1)));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedFileRejected() throws IOException {
+        Path file = write(2, Collections.singletonList(new DynamicPotentialChangeAction(cells().get(0), 7)));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4);
+        }
+        open(file).close();
+    }
+
+    @Test(timeout = 10000)
+    public void truncatedBlockRejected() throws IOException {
+        List<Action> step = new ArrayList<>();
+        for (int k = 0; k < 20; ++k) {
+            step.add(new DynamicPotentialChangeAction(cells().get(k % cells().size()), k));
+        }
+        Path file = write(2, step);
+        // shorten the compressed data of the first block
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            long position = BinaryRecordingWriter.HEADER_SIZE + 16;
+            channel.read(length, position);
+            length.flip();
+            int compressedLength = length.getInt();
+            length.clear();
+            length.putInt(compressedLength / 2).flip();
+            channel.write(length, position);
+        }
+
+        try (BinaryEvacuationRecording recording = open(file)) {
+            recording.nextActions();
+            fail("Truncated block not detected");
+        } catch (UncheckedIOException ex) {
+            assertThat(ex.getCause().getMessage(), is("Block 0 is corrupted."));
+        }
+    }
+
+    @SafeVarargs
+    private final Path write(int blockSteps, List<Action>... steps) throws IOException {
+        Path file = folder.newFile().toPath();
+        try (BinaryRecordingWriter writer = new BinaryRecordingWriter(file, eca, blockSteps)) {
+            for (List<Action> step : steps) {
+                writer.writeStep(step);
+            }
+            assertThat(writer.getStepCount(), is(steps.length));
+        }
+        return file;
+    }
+
+    private BinaryEvacuationRecording open(Path file) throws IOException {
+        InitialConfiguration config = new InitialConfiguration(Collections.emptyList(), eca.getRooms(),
+                Collections.emptyMap(), null, 1);
+        return new BinaryEvacuationRecording(file, config, Arrays.asList(i1, i2));
+    }
+
+    private List<EvacCellInterface> cells() {
+        return cells(eca);
+    }
+
+    private static List<EvacCellInterface> cells(MultiFloorEvacuationCellularAutomaton ca) {
+        List<EvacCellInterface> cells = new ArrayList<>();
+        for (Room room : ca.getRooms()) {
+            cells.addAll(room.getAllCells());
+        }
+        return cells;
+    }
+}
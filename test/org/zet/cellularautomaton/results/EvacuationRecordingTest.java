@@ -0,0 +1,42 @@
+package org.zet.cellularautomaton.results;
+
+import java.util.Arrays;
+import java.util.Vector;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class EvacuationRecordingTest {
+
+    @Test
+    public void filterAllActionsByType() {
+        DynamicPotentialChangeAction change1 = new DynamicPotentialChangeAction(null, 2);
+        DynamicPotentialChangeAction change2 = new DynamicPotentialChangeAction(null, 5);
+        Vector<Vector<Action>> actions = new Vector<>();
+        actions.add(new Vector<>(Arrays.asList(change1, VoidAction.VOID_ACTION)));
+        actions.add(new Vector<>());
+        actions.add(new Vector<>(Arrays.asList(VoidAction.VOID_ACTION, change2)));
+        EvacuationRecording recording = new EvacuationRecording(null, actions);
+
+        assertThat(recording.filterAllActions(DynamicPotentialChangeAction.class), contains(change1, change2));
+        assertThat(recording.filterAllActions(Action.class),
+                contains(change1, VoidAction.VOID_ACTION, VoidAction.VOID_ACTION, change2));
+        assertThat(recording.filterAllActions(MoveAction.class), is(empty()));
+        assertThat(recording.getMaxDynamicPotential(), is(5L));
+
+        actions.add(new Vector<>(Arrays.asList(new DynamicPotentialChangeAction(null, 1))));
+        assertThat(recording.filterAllActions(DynamicPotentialChangeAction.class).size(), is(3));
+
+        // actions appended to the last step without a new step
+        DynamicPotentialChangeAction change3 = new DynamicPotentialChangeAction(null, 7);
+        actions.lastElement().add(change3);
+        assertThat(recording.filterAllActions(DynamicPotentialChangeAction.class).size(), is(4));
+        assertThat(recording.filterAllActions(DynamicPotentialChangeAction.class).lastElement(), is(change3));
+    }
+}
@@ -0,0 +1,113 @@
+package org.zet.cellularautomaton.results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.InitialConfiguration;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import org.zet.cellularautomaton.Room;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallExampleAutomaton;
+import org.zet.cellularautomaton.algorithm.state.PropertyUpdate;
+import org.zet.cellularautomaton.potential.DynamicPotential;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class IndexedEvacuationRecordingTest {
+
+    private final Individual individual = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+
+    @Test
+    public void recordWithoutClone() {
+        MultiFloorEvacuationCellularAutomaton eca = getSmallExampleAutomaton();
+        List<EvacCellInterface> cells = cells(eca);
+        cells.get(2).getState().setIndividual(individual);
+
+        VisualResultsRecorder recorder = new VisualResultsRecorder();
+        recorder.setIndexedConfiguration(configuration(eca));
+        IndexedConfiguration snapshot = new IndexedConfiguration(recorder.getInitialConfiguration());
+        assertThat(snapshot.getCellCount(), is(cells.size()));
+        assertThat(snapshot.getInitialIndividual(2), is(sameInstance(individual)));
+        assertThat(snapshot.getInitialIndividual(1) == null, is(true));
+
+        recorder.startRecording();
+        recorder.recordAction(new MoveAction(cells.get(2), cells.get(1), individual,
+                PropertyUpdate.forMove(0, 1).createUpdate()));
+        recorder.nextTimestep();
+        recorder.nextTimestep();
+        recorder.recordAction(new SaveAction(individual, 2));
+
+        EvacuationRecording recording = recorder.getRecording();
+        assertThat(recording, is(instanceOf(IndexedEvacuationRecording.class)));
+        assertThat(recording.length(), is(3));
+        MoveAction move = (MoveAction) recording.nextActions().get(0);
+        assertThat(move.from(), is(sameInstance(cells.get(2))));
+        assertThat(move.to(), is(sameInstance(cells.get(1))));
+        assertThat(recording.nextActions(), is(empty()));
+        assertThat(recording.nextActions(), hasSize(1));
+        assertThat(recording.filterAllActions(MoveAction.class), hasSize(1));
+
+        MultiFloorEvacuationCellularAutomaton other = getSmallExampleAutomaton();
+        List<EvacCellInterface> otherCells = cells(other);
+        otherCells.get(2).getState().setIndividual(individual);
+        IndexedEvacuationRecording adopted = ((IndexedEvacuationRecording) recording)
+                .withConfiguration(new IndexedConfiguration(configuration(other)));
+        MoveAction adoptedMove = (MoveAction) adopted.nextActions().get(0);
+        assertThat(adoptedMove.from(), is(sameInstance(otherCells.get(2))));
+    }
+
+    @Test
+    public void replayStartsFromInitialState() {
+        MultiFloorEvacuationCellularAutomaton eca = getSmallExampleAutomaton();
+        List<EvacCellInterface> cells = cells(eca);
+        cells.get(2).getState().setIndividual(individual);
+        DynamicPotential dynamicPotential = new DynamicPotential();
+        dynamicPotential.setPotential(cells.get(0), 3);
+
+        VisualResultsRecorder recorder = new VisualResultsRecorder();
+        recorder.setIndexedConfiguration(new InitialConfiguration(Collections.emptyList(), eca.getRooms(), null,
+                dynamicPotential, 1));
+        recorder.startRecording();
+        recorder.recordAction(new MoveAction(cells.get(2), cells.get(1), individual,
+                PropertyUpdate.forMove(0, 1).createUpdate()));
+
+        cells.get(2).getState().removeIndividual();
+        cells.get(1).getState().setIndividual(individual);
+        dynamicPotential.setPotential(cells.get(0), 7);
+        dynamicPotential.setPotential(cells.get(1), 1);
+
+        InitialConfiguration initial = recorder.getInitialConfiguration();
+        assertThat(initial.getDynamicPotential().getPotential(cells.get(0)), is(3));
+        assertThat(initial.getDynamicPotential().getPotential(cells.get(1)), is(0));
+
+        EvacuationRecording recording = recorder.getRecording();
+        assertThat(recording.getInitialConfig(), is(sameInstance(initial)));
+        recording.rewind();
+        assertThat(cells.get(2).getState().getIndividual(), is(sameInstance(individual)));
+        assertThat(cells.get(1).getState().isEmpty(), is(true));
+        assertThat(cells.get(2).getRoom().getIndividuals(), contains(individual));
+    }
+
+    private static InitialConfiguration configuration(MultiFloorEvacuationCellularAutomaton eca) {
+        return new InitialConfiguration(Collections.emptyList(), eca.getRooms(), null, null, 1);
+    }
+
+    private static List<EvacCellInterface> cells(MultiFloorEvacuationCellularAutomaton ca) {
+        List<EvacCellInterface> cells = new ArrayList<>();
+        for (Room room : ca.getRooms()) {
+            cells.addAll(room.getAllCells());
+        }
+        return cells;
+    }
+}
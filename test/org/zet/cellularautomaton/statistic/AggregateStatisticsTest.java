@@ -0,0 +1,122 @@
+package org.zet.cellularautomaton.statistic;
+
+import java.util.Arrays;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.CounterBasedRandom;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallExampleAutomaton;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallProblem;
+import org.zet.cellularautomaton.algorithm.EvacuationCellularAutomatonAlgorithm;
+import org.zet.cellularautomaton.algorithm.EvacuationRuleSet;
+import org.zet.cellularautomaton.algorithm.EvacuationSimulationProblemImpl;
+import org.zet.cellularautomaton.algorithm.rule.EvacuateIndividualsRule;
+import org.zet.cellularautomaton.algorithm.rule.EvacuationRule;
+import org.zet.cellularautomaton.algorithm.rule.ICEM09SaveIndividualsRule;
+import org.zet.cellularautomaton.algorithm.rule.SaveIndividualsRule;
+import org.zet.cellularautomaton.algorithm.rule.SimpleMovementRule;
+import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class AggregateStatisticsTest {
+
+    private final MultiFloorEvacuationCellularAutomaton eca = getSmallExampleAutomaton();
+    private final Individual i1 = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual i2 = new Individual(1, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual i3 = new Individual(2, 0, 0, 0, 0, 0, 1, 0);
+    private final MutableEvacuationState es = new MutableEvacuationState(eca, Arrays.asList(i1, i2, i3));
+
+    @Test
+    public void levels() {
+        assertThat(StatisticLevel.OFF.createSink(es), is(sameInstance(StatisticLevel.OFF.createSink(es))));
+        assertThat(StatisticLevel.AGGREGATE.createSink(es), is(instanceOf(AggregateStatistics.class)));
+        assertThat(StatisticLevel.FULL.createSink(es), is(sameInstance(es.getStatisticWriter())));
+    }
+
+    @Test
+    public void safetyTimeHistogram() {
+        AggregateStatistics statistics = new AggregateStatistics(es);
+        assertThat(statistics.getSafetyTimeHistogram().length, is(0));
+        assertThat(Double.isNaN(statistics.getSafetyTime().getAverage()), is(true));
+
+        es.propertyFor(i1).setEvacuationTime(3);
+        es.propertyFor(i2).setEvacuationTime(100);
+        es.propertyFor(i3).setEvacuationTime(3);
+        statistics.addSafeIndividualToStatistic(i1);
+        statistics.addSafeIndividualToStatistic(i2);
+        statistics.addSafeIndividualToStatistic(i3);
+        statistics.addSafeIndividualToStatistic(i1);
+
+        assertThat(statistics.getSafeIndividuals(3), is(2));
+        assertThat(statistics.getSafeIndividuals(100), is(1));
+        assertThat(statistics.getSafeIndividuals(101), is(0));
+        assertThat(statistics.getSafetyTimeHistogram().length, is(101));
+        assertThat(statistics.getSafetyTime().getCount(), is(3));
+        assertThat(statistics.getSafetyTime().getMin(), is(closeTo(3, 1e-9)));
+        assertThat(statistics.getSafetyTime().getMax(), is(closeTo(100, 1e-9)));
+    }
+
+    @Test
+    public void runningValues() {
+        AggregateStatistics statistics = new AggregateStatistics(es);
+        statistics.addCurrentSpeedToStatistic(i1, 0, 1.5);
+        statistics.addCurrentSpeedToStatistic(i2, 0, 0.5);
+        statistics.addCurrentSpeedToStatistic(i1, 1, 1);
+        statistics.addWaitedTimeToStatistic(i1, 2);
+        statistics.addWaitedTimeToStatistic(i2, 2);
+
+        assertThat(statistics.getCurrentSpeed().getCount(), is(3));
+        assertThat(statistics.getCurrentSpeed().getSum(), is(closeTo(3, 1e-9)));
+        assertThat(statistics.getCurrentSpeed().getAverage(), is(closeTo(1, 1e-9)));
+        assertThat(statistics.getCurrentSpeed().getMin(), is(closeTo(0.5, 1e-9)));
+        assertThat(statistics.getWaitedTime(), is(2));
+        assertThat(statistics.getPanic().getCount(), is(0));
+    }
+
+    @Test
+    public void safetyTimeNotSetIgnored() {
+        AggregateStatistics statistics = new AggregateStatistics(es);
+        statistics.addSafeIndividualToStatistic(i1);
+        assertThat(statistics.getSafetyTime().getCount(), is(0));
+
+        es.propertyFor(i1).setEvacuationTime(2);
+        statistics.addSafeIndividualToStatistic(i1);
+        assertThat(statistics.getSafeIndividuals(2), is(1));
+    }
+
+    @Test
+    public void safetyTimesOfRun() {
+        for (EvacuationRule<?> saveRule : Arrays.asList(new SaveIndividualsRule(), new ICEM09SaveIndividualsRule())) {
+            EvacuationSimulationProblemImpl problem
+                    = (EvacuationSimulationProblemImpl) getSmallProblem(getSmallExampleAutomaton());
+            problem.ruleSet = new EvacuationRuleSet() {
+                {
+                    add(new SimpleMovementRule(), false, true);
+                    add(saveRule);
+                    add(new EvacuateIndividualsRule());
+                }
+            };
+            EvacuationCellularAutomatonAlgorithm algorithm = new EvacuationCellularAutomatonAlgorithm();
+            algorithm.setStatisticLevel(StatisticLevel.AGGREGATE);
+            algorithm.setRandom(new CounterBasedRandom(3));
+            algorithm.setProblem(problem);
+            algorithm.runAlgorithm();
+
+            AggregateStatistics statistics = (AggregateStatistics) algorithm.getStatisticSink();
+            Individual individual = problem.getIndividuals().get(0);
+            int time = algorithm.getEvacuationState().propertyFor(individual).getSafetyTime();
+            assertThat(time >= 0, is(true));
+            assertThat(statistics.getSafetyTime().getCount(), is(1));
+            assertThat(statistics.getSafeIndividuals(time), is(1));
+            assertThat(statistics.getSafetyTimeHistogram().length, is(time + 1));
+        }
+    }
+}
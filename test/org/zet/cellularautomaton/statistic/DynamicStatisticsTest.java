@@ -0,0 +1,200 @@
+package org.zet.cellularautomaton.statistic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.EvacCell;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.ExitCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import org.zet.cellularautomaton.Room;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallExampleAutomaton;
+import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+import org.zet.cellularautomaton.algorithm.state.PropertyUpdate;
+import org.zet.cellularautomaton.results.Action;
+import org.zet.cellularautomaton.results.ExitAction;
+import org.zet.cellularautomaton.results.MoveAction;
+import org.zetool.container.mapping.IntegerDoubleMapping;
+import org.zetool.statistic.Statistics;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class DynamicStatisticsTest {
+
+    private final MultiFloorEvacuationCellularAutomaton eca = getSmallExampleAutomaton();
+    private final Individual i1 = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final MutableEvacuationState es = new MutableEvacuationState(eca, Arrays.asList(i1));
+    private final AggregateStatistics aggregate = new AggregateStatistics(es);
+    private final DynamicStatistics statistics = new DynamicStatistics(es, aggregate);
+
+    @Test
+    public void cellFlows() {
+        List<EvacCellInterface> cells = cells();
+        EvacCellInterface from = cells.get(2);
+        EvacCellInterface to = cells.get(1);
+        from.getState().setIndividual(i1);
+        statistics.addStep(0, Collections.emptyList());
+        statistics.addStep(1, Collections.singletonList(move(from, to)));
+        statistics.addStep(2, Collections.emptyList());
+
+        IntegerDoubleMapping incoming = statistics.getIncomingRate(to);
+        assertThat(incoming.get(0), is(closeTo(0, 1e-9)));
+        assertThat(incoming.get(1), is(closeTo(1, 1e-9)));
+        assertThat(incoming.get(2), is(closeTo(0, 1e-9)));
+        assertThat(statistics.getOutgoingAmount(from).get(0), is(closeTo(0, 1e-9)));
+        assertThat(statistics.getOutgoingAmount(from).get(5), is(closeTo(1, 1e-9)));
+        assertThat(statistics.getIncomingAmount(from).get(5), is(closeTo(0, 1e-9)));
+        assertThat(statistics.getLastStep(), is(2));
+    }
+
+    @Test
+    public void exitCountedAsOutgoing() {
+        EvacCellInterface exit = cells().stream().filter(cell -> cell instanceof ExitCell).findFirst().get();
+        exit.getState().setIndividual(i1);
+        Action leave = new ExitAction((ExitCell) exit, 3);
+        exit.getState().removeIndividual();
+        statistics.addStep(3, Collections.singletonList(leave));
+
+        assertThat(statistics.getOutgoingRate(exit).get(3), is(closeTo(1, 1e-9)));
+        assertThat(statistics.getOutgoingAmount(exit).get(4), is(closeTo(1, 1e-9)));
+    }
+
+    @Test
+    public void accumulatorsUpdatedWhileRunning() {
+        EvacCellInterface cell = cells().get(1);
+        IntegerDoubleMapping blocked = statistics.getTimeBlocked(cell);
+        IntegerDoubleMapping waited = statistics.getWaitedTime(i1);
+        statistics.addCellToWaitingStatistic(cell, 1);
+        statistics.addWaitedTimeToStatistic(i1, 1);
+        statistics.addWaitedTimeToStatistic(i1, 2);
+
+        assertThat(statistics.getTimeBlocked(cell), is(sameInstance(blocked)));
+        assertThat(blocked.get(1), is(closeTo(1, 1e-9)));
+        assertThat(waited.get(2), is(closeTo(2, 1e-9)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void eventsOutOfOrderRejected() {
+        EvacCellInterface cell = cells().get(1);
+        statistics.addCellToWaitingStatistic(cell, 2);
+        statistics.addCellToWaitingStatistic(cell, 1);
+    }
+
+    @Test
+    public void blockedAndUtilization() {
+        EvacCellInterface cell = cells().get(1);
+        statistics.addCellToUtilizationStatistic(cell, 0);
+        statistics.addCellToUtilizationStatistic(cell, 1);
+        statistics.addCellToWaitingStatistic(cell, 1);
+        statistics.addCellToWaitingStatistic(cell, 2);
+        statistics.addStep(3, Collections.emptyList());
+
+        assertThat(statistics.getBlockedTimesteps(cell).get(0), is(closeTo(0, 1e-9)));
+        assertThat(statistics.getBlockedTimesteps(cell).get(2), is(closeTo(1, 1e-9)));
+        assertThat(statistics.getBlockedTimesteps(cell).get(3), is(closeTo(0, 1e-9)));
+        assertThat(statistics.getTimeBlocked(cell).get(1), is(closeTo(1, 1e-9)));
+        assertThat(statistics.getTimeBlocked(cell).get(3), is(closeTo(2, 1e-9)));
+        IntegerDoubleMapping utilization = statistics.getUtilization(cell);
+        assertThat(utilization.get(1), is(closeTo(1, 1e-9)));
+        assertThat(utilization.get(3), is(closeTo(0.5, 1e-9)));
+    }
+
+    @Test
+    public void individualSeries() {
+        statistics.addPanicToStatistic(i1, 0, 0.25);
+        statistics.addPanicToStatistic(i1, 4, 0.5);
+        statistics.addCoveredDistanceToStatistic(i1, 1, 0.4);
+        statistics.addCoveredDistanceToStatistic(i1, 2, 0.4);
+        statistics.addWaitedTimeToStatistic(i1, 3);
+        statistics.addCurrentSpeedToStatistic(i1, 2, 1.5);
+
+        assertThat(statistics.getPanic(i1).get(3), is(closeTo(0.25, 1e-6)));
+        assertThat(statistics.getPanic(i1).get(4), is(closeTo(0.5, 1e-6)));
+        assertThat(statistics.getCoveredDistance(i1).get(0), is(closeTo(0, 1e-6)));
+        assertThat(statistics.getCoveredDistance(i1).get(2), is(closeTo(0.8, 1e-6)));
+        assertThat(statistics.getWaitedTime(i1).get(2), is(closeTo(0, 1e-6)));
+        assertThat(statistics.getWaitedTime(i1).get(3), is(closeTo(1, 1e-6)));
+        assertThat(aggregate.getWaitedTime(), is(1));
+    }
+
+    @Test
+    public void distancesUpdatedOnMove() {
+        List<EvacCellInterface> cells = cells();
+        EvacCellInterface from = cells.get(2);
+        EvacCellInterface to = cells.get(1);
+        statistics.addMinDistancesToStatistic(i1, 7, 8);
+        from.getState().setIndividual(i1);
+        statistics.addStep(2, Collections.singletonList(move(from, to)));
+
+        double expected = eca.getPotentialFor(eca.getExits().get(0)).getPotentialDouble(to);
+        assertThat(statistics.getDistanceToNearestExit(i1).get(1), is(closeTo(7, 1e-6)));
+        assertThat(statistics.getDistanceToNearestExit(i1).get(2), is(closeTo(expected, 1e-6)));
+        assertThat(statistics.getDistanceToPlannedExit(i1).get(2), is(closeTo(8, 1e-6)));
+
+        es.propertyFor(i1).setStaticPotential(eca.getPotentialFor(eca.getExits().get(0)));
+        statistics.addStep(3, Collections.singletonList(move(to, from)));
+        expected = eca.getPotentialFor(eca.getExits().get(0)).getPotentialDouble(from);
+        assertThat(statistics.getDistanceToPlannedExit(i1).get(3), is(closeTo(expected, 1e-6)));
+    }
+
+    @Test
+    public void enumsUseRollup() {
+        EvacCell cell = (EvacCell) cells().get(1);
+        statistics.addCellToWaitingStatistic(cell, 0);
+        statistics.addExhaustionToStatistic(i1, 0, 0.75);
+        Statistics<CAData> data = new Statistics<>(new CAData(null, null, null, statistics));
+        assertThat(data.get(DynamicCellStatistic.TIME_BLOCKED, cell).get(0), is(closeTo(1, 1e-9)));
+        assertThat(data.get(DynamicIndividualStatistic.EXHAUSTION, i1).get(0), is(closeTo(0.75, 1e-6)));
+        assertThat(data.get(DynamicIndividualStatistic.EXHAUSTION, i1),
+                is(sameInstance(data.get(DynamicIndividualStatistic.EXHAUSTION, i1))));
+    }
+
+    @Test
+    public void cachedUtilizationExtendedWithSteps() {
+        EvacCell cell = (EvacCell) cells().get(1);
+        statistics.addCellToUtilizationStatistic(cell, 0);
+        statistics.addStep(0, Collections.emptyList());
+        Statistics<CAData> data = new Statistics<>(new CAData(null, null, null, statistics));
+        IntegerDoubleMapping utilization = data.get(DynamicCellStatistic.UTILISATION, cell);
+        assertThat(utilization.get(0), is(closeTo(1, 1e-9)));
+
+        statistics.addStep(1, Collections.emptyList());
+        statistics.addCellToUtilizationStatistic(cell, 2);
+        statistics.addStep(2, Collections.emptyList());
+        statistics.addStep(3, Collections.emptyList());
+
+        assertThat(data.get(DynamicCellStatistic.UTILISATION, cell), is(sameInstance(utilization)));
+        assertThat(utilization.get(1), is(closeTo(0.5, 1e-9)));
+        assertThat(utilization.get(2), is(closeTo(2 / 3.0, 1e-9)));
+        assertThat(utilization.get(3), is(closeTo(0.5, 1e-9)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void notCollected() {
+        new Statistics<>(new CAData(null, null, null)).get(DynamicIndividualStatistic.PANIC, i1);
+    }
+
+    private Action move(EvacCellInterface from, EvacCellInterface to) {
+        MoveAction move = new MoveAction(from, to, PropertyUpdate.forMove(0, 1).createUpdate());
+        from.getState().removeIndividual();
+        to.getState().setIndividual(i1);
+        return move;
+    }
+
+    private List<EvacCellInterface> cells() {
+        List<EvacCellInterface> cells = new ArrayList<>();
+        for (Room room : eca.getRooms()) {
+            cells.addAll(room.getAllCells());
+        }
+        return cells;
+    }
+}
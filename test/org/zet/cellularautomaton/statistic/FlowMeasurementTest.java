@@ -0,0 +1,130 @@
+package org.zet.cellularautomaton.statistic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.DoorCell;
+import org.zet.cellularautomaton.EvacCellInterface;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.Room;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallExampleAutomaton;
+import org.zet.cellularautomaton.algorithm.state.EvacuationStateController;
+import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class FlowMeasurementTest {
+
+    @Test
+    public void lineCrossings() {
+        RoomCell a = new RoomCell(0, 0);
+        RoomCell b = new RoomCell(1, 0);
+        RoomCell c = new RoomCell(2, 0);
+        FlowMeasurement flows = new FlowMeasurement(2);
+        int line = flows.addLine("line", 0.8, Arrays.asList(a), Arrays.asList(b));
+
+        flows.moved(a, b, 0);
+        flows.moved(a, b, 1);
+        flows.moved(b, a, 3);
+        flows.moved(b, c, 4);
+        flows.moved(c, a, 5);
+
+        assertThat(flows.getForwardCount(line), is(2L));
+        assertThat(flows.getBackwardCount(line), is(1L));
+        assertThat(flows.getBinCount(), is(2));
+        assertThat(flows.getForwardCounts(line), is(new int[]{2, 0}));
+        assertThat(flows.getBackwardCounts(line), is(new int[]{0, 1}));
+        double[] rates = flows.getFlowRates(line, 0.5);
+        assertThat(rates[0], is(closeTo(2 / 0.8, 1e-9)));
+        assertThat(rates[1], is(closeTo(-1 / 0.8, 1e-9)));
+    }
+
+    @Test
+    public void doorCrossings() {
+        DoorCell door1 = new DoorCell(0, 0);
+        DoorCell door2 = new DoorCell(1, 0);
+        RoomCell before = new RoomCell(0, 1);
+        RoomCell after = new RoomCell(1, 1);
+        FlowMeasurement flows = new FlowMeasurement();
+        int doors = flows.addDoors("doors", 1.6, Arrays.asList(door1, door2));
+        int line = flows.addLine("line", 0.4, Collections.singleton(door2), Collections.singleton(after));
+
+        flows.moved(before, door1, 0);
+        flows.moved(door1, door2, 1);
+        flows.moved(door2, after, 2);
+        flows.moved(before, door2, 40);
+        flows.moved(door2, before, 41);
+
+        assertThat(flows.getLineCount(), is(2));
+        assertThat(flows.getName(doors), is("doors"));
+        assertThat(flows.getForwardCount(doors), is(2L));
+        assertThat(flows.getBackwardCount(doors), is(0L));
+        assertThat(flows.getForwardCount(line), is(1L));
+        assertThat(flows.getBinCount(), is(42));
+        assertThat(flows.getForwardCounts(doors)[2], is(1));
+        assertThat(flows.getForwardCounts(doors)[40], is(0));
+        assertThat(flows.getForwardCounts(doors)[41], is(1));
+
+        flows.reset();
+        assertThat(flows.getForwardCount(doors), is(0L));
+        assertThat(flows.getBinCount(), is(0));
+    }
+
+    @Test
+    public void passThroughDoorHasPositiveFlow() {
+        DoorCell door = new DoorCell(0, 0);
+        RoomCell before = new RoomCell(0, 1);
+        RoomCell after = new RoomCell(1, 1);
+        FlowMeasurement flows = new FlowMeasurement(2);
+        int doors = flows.addDoors("door", 0.5, Collections.singleton(door));
+
+        flows.moved(before, door, 0);
+        flows.moved(door, after, 1);
+
+        double[] rates = flows.getFlowRates(doors, 0.5);
+        assertThat(rates.length, is(1));
+        assertThat(rates[0], is(closeTo(2, 1e-9)));
+    }
+
+    @Test
+    public void countedByController() {
+        MultiFloorEvacuationCellularAutomaton eca = getSmallExampleAutomaton();
+        Individual i1 = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+        Individual i2 = new Individual(1, 0, 0, 0, 0, 0, 1, 0);
+        MutableEvacuationState es = new MutableEvacuationState(eca, Arrays.asList(i1, i2));
+        List<EvacCellInterface> cells = new ArrayList<>();
+        for (Room room : eca.getRooms()) {
+            cells.addAll(room.getAllCells());
+        }
+        EvacCellInterface first = cells.get(1);
+        EvacCellInterface second = cells.get(2);
+        FlowMeasurement flows = new FlowMeasurement();
+        int line = flows.addLine("line", 0.4, Collections.singleton(second), Collections.singleton(first));
+        EvacuationStateController ec = new EvacuationStateController(es);
+        ec.setFlowMeasurement(flows);
+
+        place(es, i1, second);
+        ec.move(second, first);
+        assertThat(flows.getForwardCount(line), is(1L));
+
+        place(es, i2, second);
+        ec.swap(first, second);
+        assertThat(flows.getForwardCount(line), is(2L));
+        assertThat(flows.getBackwardCount(line), is(1L));
+    }
+
+    private static void place(MutableEvacuationState es, Individual individual, EvacCellInterface cell) {
+        es.propertyFor(individual).setCell(cell);
+        cell.getState().setIndividual(individual);
+        cell.getRoom().addIndividual(cell, individual);
+    }
+}
@@ -0,0 +1,87 @@
+package org.zet.cellularautomaton.statistic;
+
+import java.util.Arrays;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.Individual;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallExampleAutomaton;
+import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+import static org.zet.cellularautomaton.statistic.IndividualStatisticQuery.Metric.AVERAGE_SPEED;
+import static org.zet.cellularautomaton.statistic.IndividualStatisticQuery.Metric.COVERED_DISTANCE;
+import static org.zet.cellularautomaton.statistic.IndividualStatisticQuery.Metric.MAX_SPEED;
+import static org.zet.cellularautomaton.statistic.IndividualStatisticQuery.Metric.PANIC;
+import static org.zet.cellularautomaton.statistic.IndividualStatisticQuery.Metric.SAFETY_TIME;
+import static org.zet.cellularautomaton.statistic.IndividualStatisticQuery.Metric.WAITED_TIME;
+import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResultsForIndividuals;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class IndividualStatisticQueryTest {
+
+    private final Individual moving = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual safe = new Individual(1, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual caged = new Individual(2, 0, 0, 0, 0, 0, 1, 0);
+    private final List<Individual> individuals = Arrays.asList(moving, safe, caged);
+    private final MutableEvacuationState es = new MutableEvacuationState(getSmallExampleAutomaton(), individuals);
+    private final StoredCAStatisticResultsForIndividuals stored = new StoredCAStatisticResultsForIndividuals(es);
+
+    @Test
+    public void metricsInOnePass() {
+        stored.addCurrentSpeedToStatistic(moving, 1, 1);
+        stored.addCoveredDistanceToStatistic(moving, 1, 0.5);
+        stored.addCurrentSpeedToStatistic(moving, 3, 2);
+        stored.addCoveredDistanceToStatistic(moving, 3, 1);
+        stored.addWaitedTimeToStatistic(moving, 4);
+        stored.addCurrentSpeedToStatistic(moving, 4, 0);
+        stored.addPanicToStatistic(moving, 0, 0.25);
+
+        stored.addCurrentSpeedToStatistic(safe, 1, 3);
+        stored.addCoveredDistanceToStatistic(safe, 1, 2);
+        es.propertyFor(safe).setEvacuationTime(2);
+        stored.addSafeIndividualToStatistic(safe);
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            IndividualStatisticQuery.Result result = new IndividualStatisticQuery(stored).compute(individuals, 1, 5,
+                    parallel, AVERAGE_SPEED, MAX_SPEED, COVERED_DISTANCE, WAITED_TIME, PANIC, SAFETY_TIME);
+
+            double[] average = result.getValues(AVERAGE_SPEED);
+            assertThat(average[0], is(closeTo((1 * 2 + 2 * 1 + 0 * 1) / 4.0, 1e-9)));
+            assertThat(average[1], is(closeTo(3, 1e-9)));
+            assertThat(result.getStatus(AVERAGE_SPEED)[2], is(IndividualStatisticQuery.NO_VALUE));
+            assertThat(result.getValues(MAX_SPEED)[0], is(closeTo(2, 1e-9)));
+            assertThat(result.getValues(COVERED_DISTANCE)[0], is(closeTo(1, 1e-9)));
+            assertThat(result.getValues(WAITED_TIME)[0], is(closeTo(1, 1e-9)));
+            assertThat(result.getValues(WAITED_TIME)[2], is(closeTo(0, 1e-9)));
+            assertThat(result.getValues(PANIC)[0], is(closeTo(0.25, 1e-9)));
+            assertThat(result.getStatus(SAFETY_TIME)[0], is(IndividualStatisticQuery.NOT_SAFE));
+            assertThat(result.getValues(SAFETY_TIME)[1], is(closeTo(2, 1e-9)));
+
+            assertThat(result.count(AVERAGE_SPEED), is(2));
+            assertThat(result.average(AVERAGE_SPEED), is(closeTo(2, 1e-9)));
+            assertThat(result.max(COVERED_DISTANCE), is(closeTo(1, 1e-9)));
+            assertThat(result.min(COVERED_DISTANCE), is(closeTo(0, 1e-9)));
+        }
+    }
+
+    @Test
+    public void alreadySafe() {
+        stored.addCurrentSpeedToStatistic(safe, 1, 3);
+        es.propertyFor(safe).setEvacuationTime(2);
+        stored.addSafeIndividualToStatistic(safe);
+
+        IndividualStatisticQuery.Result result = new IndividualStatisticQuery(stored).compute(individuals, 2, 4, false,
+                MAX_SPEED);
+        assertThat(result.getStatus(MAX_SPEED)[1], is(IndividualStatisticQuery.ALREADY_SAFE));
+        assertThat(Double.isNaN(result.average(MAX_SPEED)), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void metricNotQueried() {
+        new IndividualStatisticQuery(stored).compute(individuals, 0, 1, false, PANIC).getValues(MAX_SPEED);
+    }
+}
@@ -0,0 +1,123 @@
+package org.zet.cellularautomaton.statistic;
+
+import java.util.Arrays;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.EvacCell;
+import org.zet.cellularautomaton.Individual;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import org.zet.cellularautomaton.Room;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallExampleAutomaton;
+import org.zet.cellularautomaton.algorithm.state.MutableEvacuationState;
+import org.zet.cellularautomaton.statistic.results.StoredCAStatisticResults;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class MultipleCycleAggregatorTest {
+
+    private final MultiFloorEvacuationCellularAutomaton eca = getSmallExampleAutomaton();
+    private final Room room = eca.getRooms().iterator().next();
+    private final List<EvacCell> cells = room.getAllCells();
+    private final Individual i1 = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual i2 = new Individual(1, 0, 0, 0, 0, 0, 1, 0);
+
+    @Test
+    public void momentsMerge() {
+        RunningMoments all = new RunningMoments();
+        RunningMoments first = new RunningMoments();
+        RunningMoments second = new RunningMoments();
+        double[] values = {3, 1, 4, 1, 5, 9, 2, 6};
+        for (int k = 0; k < values.length; ++k) {
+            all.add(values[k]);
+            (k < 3 ? first : second).add(values[k]);
+        }
+        first.merge(second);
+
+        assertThat(first.getCount(), is(8L));
+        assertThat(first.getMean(), is(closeTo(3.875, 1e-9)));
+        assertThat(first.getVariance(), is(closeTo(all.getVariance(), 1e-9)));
+        assertThat(all.getVariance(), is(closeTo(52.875 / 7, 1e-9)));
+        assertThat(first.getMin(), is(closeTo(1, 1e-9)));
+        assertThat(first.getMax(), is(closeTo(9, 1e-9)));
+        assertThat(Double.isNaN(new RunningMoments().getMean()), is(true));
+    }
+
+    @Test
+    public void storedCycles() {
+        MultipleCycleAggregator aggregator = new MultipleCycleAggregator(eca.getRooms());
+        aggregator.addCycle(cycle(4, 6, 2));
+        aggregator.addCycle(cycle(8, 10, 0));
+
+        assertThat(aggregator.getCycleCount(), is(2));
+        assertThat(aggregator.getEvacuationTime().getMean(), is(closeTo(8, 1e-9)));
+        assertThat(aggregator.getEvacuationTime().getMax(), is(closeTo(10, 1e-9)));
+        assertThat(aggregator.getAverageSafetyTime().getMean(), is(closeTo(7, 1e-9)));
+        assertThat(aggregator.getSafetyTimeQuantile(0.5), is(6));
+        assertThat(aggregator.getSafetyTimeQuantile(1), is(10));
+        assertThat(aggregator.getSafetyTimeQuantile(0), is(4));
+        assertThat(aggregator.getCellUtilization(cells.get(0)), is(closeTo(1, 1e-9)));
+        assertThat(aggregator.getCellWaitingTime(cells.get(1)), is(closeTo(1, 1e-9)));
+        assertThat(aggregator.getRoomUtilization(room), is(closeTo(2.0 / cells.size(), 1e-9)));
+        assertThat(aggregator.getWaitedTime().getMean(), is(closeTo(1, 1e-9)));
+    }
+
+    @Test
+    public void mergeEqualsSequential() {
+        MultipleCycleAggregator sequential = new MultipleCycleAggregator(eca.getRooms());
+        MultipleCycleAggregator first = new MultipleCycleAggregator(eca.getRooms());
+        MultipleCycleAggregator second = new MultipleCycleAggregator(eca.getRooms());
+        for (int k = 0; k < 5; ++k) {
+            StoredCAStatisticResults results = cycle(k, 2 * k + 1, k);
+            sequential.addCycle(results);
+            (k % 2 == 0 ? first : second).addCycle(results);
+        }
+        first.merge(second);
+
+        assertThat(first.getCycleCount(), is(5));
+        assertThat(first.getEvacuationTime().getVariance(),
+                is(closeTo(sequential.getEvacuationTime().getVariance(), 1e-9)));
+        assertThat(first.getSafetyTimeQuantile(0.75), is(sequential.getSafetyTimeQuantile(0.75)));
+        assertThat(first.getRoomWaitingTime(room), is(closeTo(sequential.getRoomWaitingTime(room), 1e-9)));
+    }
+
+    @Test
+    public void aggregateCycles() {
+        MutableEvacuationState es = new MutableEvacuationState(eca, Arrays.asList(i1, i2));
+        es.propertyFor(i1).setEvacuationTime(2);
+        es.propertyFor(i2).setEvacuationTime(5);
+        AggregateStatistics statistics = new AggregateStatistics(es);
+        statistics.addSafeIndividualToStatistic(i1);
+        statistics.addSafeIndividualToStatistic(i2);
+
+        MultipleCycleAggregator aggregator = new MultipleCycleAggregator(eca.getRooms());
+        aggregator.addCycle(statistics);
+
+        assertThat(aggregator.getEvacuationTime().getMean(), is(closeTo(5, 1e-9)));
+        assertThat(aggregator.getSafetyTimeQuantile(0.5), is(2));
+        assertThat(Double.isNaN(aggregator.getCellUtilization(cells.get(0))), is(true));
+    }
+
+    /**
+     * Creates the results of a cycle in which two individuals are safe at the given times. The first cell is occupied
+     * once and individuals wait on the second cell in the given number of time steps.
+     */
+    private StoredCAStatisticResults cycle(int safe1, int safe2, int waiting) {
+        MutableEvacuationState es = new MutableEvacuationState(eca, Arrays.asList(i1, i2));
+        es.propertyFor(i1).setEvacuationTime(safe1);
+        es.propertyFor(i2).setEvacuationTime(safe2);
+        StoredCAStatisticResults results = new StoredCAStatisticResults(es);
+        results.getStoredCAStatisticResultsForIndividuals().addSafeIndividualToStatistic(i1);
+        results.getStoredCAStatisticResultsForIndividuals().addSafeIndividualToStatistic(i2);
+        results.getStoredCAStatisticResultsForCells().addCellToUtilizationStatistic(cells.get(0), 1);
+        for (int t = 0; t < waiting; ++t) {
+            results.getStoredCAStatisticResultsForCells().addCellToUtilizationStatistic(cells.get(1), t);
+            results.getStoredCAStatisticResultsForCells().addCellToWaitingStatistic(cells.get(1), t);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,109 @@
+package org.zet.cellularautomaton.statistic.results;
+
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.EvacCell;
+import org.zet.cellularautomaton.MultiFloorEvacuationCellularAutomaton;
+import org.zet.cellularautomaton.Room;
+import org.zet.cellularautomaton.RoomCell;
+import org.zet.cellularautomaton.RoomImpl;
+import static org.zet.cellularautomaton.algorithm.TestEvacuationCellularAutomatonRun.getSmallExampleAutomaton;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class CellTimeSeriesTest {
+
+    private final MultiFloorEvacuationCellularAutomaton eca = getSmallExampleAutomaton();
+    private final Room room = eca.getRooms().iterator().next();
+    private final List<EvacCell> cells = room.getAllCells();
+
+    @Test
+    public void cellWindows() {
+        CellTimeSeries series = new CellTimeSeries();
+        series.add(cells.get(0), 1);
+        series.add(cells.get(0), 4);
+        series.add(cells.get(0), 2);
+        series.add(cells.get(1), 3);
+
+        assertThat(series.size(), is(4));
+        assertThat(series.getMaxCount(), is(3));
+        assertThat(series.getMaxTime(), is(4));
+        assertThat(series.contains(cells.get(2)), is(false));
+        assertThat(series.count(cells.get(0)), is(3));
+        assertThat(series.count(cells.get(0), 0), is(0));
+        assertThat(series.count(cells.get(0), 2), is(2));
+        assertThat(series.count(cells.get(0), 10), is(3));
+        assertThat(series.count(cells.get(0), 2, 4), is(2));
+        assertThat(series.count(cells.get(0), 3, 3), is(0));
+        assertThat(series.count(cells.get(0), 4, 2), is(0));
+        assertThat(series.count(cells.get(2), 0, 10), is(0));
+        assertThat(series.times(cells.get(0))[1], is(2));
+    }
+
+    @Test
+    public void roomWindows() {
+        CellTimeSeries series = new CellTimeSeries();
+        series.add(cells.get(0), 1);
+        series.add(cells.get(1), 1);
+        series.add(cells.get(2), 3);
+
+        assertThat(series.roomCellCount(room), is(cells.size()));
+        assertThat(series.roomCount(room, 0), is(0));
+        assertThat(series.roomCount(room, 1), is(2));
+        assertThat(series.roomCount(room, 7), is(3));
+        assertThat(series.roomCount(room, 2, 3), is(1));
+        assertThat(series.roomCount(room, -3, -1), is(0));
+
+        series.add(cells.get(1), 2);
+        assertThat(series.roomCount(room, 2, 3), is(2));
+    }
+
+    @Test
+    public void samePositionInDifferentRooms() {
+        RoomImpl first = new RoomImpl(2, 2, 0, 0, 0);
+        RoomImpl second = new RoomImpl(2, 2, 0, 5, 0);
+        EvacCell firstCell = new RoomCell(1, 1, 1, first);
+        EvacCell secondCell = new RoomCell(1, 1, 1, second);
+        first.setCell(firstCell);
+        second.setCell(secondCell);
+
+        CellTimeSeries series = new CellTimeSeries();
+        series.add(firstCell, 2);
+        series.add(firstCell, 3);
+        series.add(secondCell, 5);
+
+        assertThat(series.count(firstCell), is(2));
+        assertThat(series.count(secondCell), is(1));
+        assertThat(series.roomCount(first, 10), is(2));
+        assertThat(series.roomCount(second, 10), is(1));
+    }
+
+    @Test
+    public void eventsInOtherRoomKeepSeries() {
+        RoomImpl first = new RoomImpl(2, 2, 0, 0, 0);
+        RoomImpl second = new RoomImpl(2, 2, 0, 5, 0);
+        EvacCell firstCell = new RoomCell(1, 1, 1, first);
+        EvacCell secondCell = new RoomCell(1, 1, 1, second);
+        first.setCell(firstCell);
+        second.setCell(secondCell);
+
+        CellTimeSeries series = new CellTimeSeries();
+        series.add(firstCell, 2);
+        series.add(secondCell, 3);
+        assertThat(series.roomCount(first, 10), is(1));
+        assertThat(series.roomCount(second, 10), is(1));
+
+        series.add(secondCell, 20);
+        assertThat(series.roomCount(first, 30), is(1));
+        assertThat(series.roomCount(second, 30), is(2));
+
+        series.add(firstCell, 25);
+        assertThat(series.roomCount(first, 24), is(1));
+        assertThat(series.roomCount(first, 30), is(2));
+        assertThat(series.roomCount(second, 30), is(2));
+    }
+}
@@ -0,0 +1,66 @@
+package org.zet.cellularautomaton.statistic.results;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.closeTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+import org.zet.cellularautomaton.Individual;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class IndividualTimeSeriesTest {
+
+    private final Individual first = new Individual(0, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual second = new Individual(5, 0, 0, 0, 0, 0, 1, 0);
+    private final Individual missing = new Individual(2, 0, 0, 0, 0, 0, 1, 0);
+
+    @Test
+    public void recordsByIndividual() {
+        IndividualTimeSeries series = new IndividualTimeSeries();
+        series.add(first, 0, 1.5);
+        series.add(second, 1, 3);
+        series.add(first, 2, 2.5);
+        series.add(first, 4, 0.5);
+
+        assertThat(series.size(), is(4));
+        assertThat(series.contains(first), is(true));
+        assertThat(series.contains(missing), is(false));
+        assertThat(series.count(first), is(3));
+        assertThat(series.count(second), is(1));
+        assertThat(series.count(missing), is(0));
+        assertThat(series.time(first, 1), is(2));
+        assertThat(series.value(first, 2), is(closeTo(0.5, 1e-6)));
+        assertThat(series.value(second, 0), is(closeTo(3, 1e-6)));
+        assertThat(series.last(first, -1), is(closeTo(0.5, 1e-6)));
+        assertThat(series.last(missing, -1), is(closeTo(-1, 1e-6)));
+    }
+
+    @Test
+    public void searchLikeBinarySearch() {
+        IndividualTimeSeries series = new IndividualTimeSeries();
+        series.add(first, 1, 0);
+        series.add(first, 3, 0);
+        series.add(first, 6, 0);
+
+        assertThat(series.search(first, 3), is(1));
+        assertThat(series.search(first, 0), is(-1));
+        assertThat(series.search(first, 4), is(-3));
+        assertThat(series.search(first, 7), is(-4));
+        assertThat(series.search(missing, 2), is(-1));
+    }
+
+    @Test
+    public void indexUpdatedAfterAdd() {
+        IndividualTimeSeries series = new IndividualTimeSeries();
+        for (int t = 0; t < 100; ++t) {
+            series.add(t % 2 == 0 ? first : second, t, t);
+        }
+        assertThat(series.count(first), is(50));
+        series.add(first, 100, 100);
+        assertThat(series.count(first), is(51));
+        assertThat(series.time(first, 50), is(100));
+        assertThat(series.search(second, 99), is(49));
+    }
+}
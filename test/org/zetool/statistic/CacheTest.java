@@ -0,0 +1,235 @@
+package org.zetool.statistic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ *
+ * @author Jan-Philipp Kappmeier
+ */
+public class CacheTest {
+
+    /** Squares the data plus the object, counting the calculations. */
+    private static class Square implements Statistic<Integer, Integer, Integer> {
+
+        private final AtomicInteger calculations = new AtomicInteger();
+
+        @Override
+        public Integer calculate(Statistics<Integer> statistics, Integer object) {
+            calculations.incrementAndGet();
+            int value = statistics.getData() + (object == null ? 0 : object);
+            return value * value;
+        }
+
+        @Override
+        public Class<Integer> range() {
+            return Integer.class;
+        }
+    }
+
+    @Test
+    public void calculatedOnce() {
+        Square square = new Square();
+        Statistics<Integer> statistics = new Statistics<>(2);
+        assertThat(statistics.get(square, 1), is(9));
+        assertThat(statistics.get(square, 1), is(9));
+        assertThat(statistics.get(square), is(4));
+        assertThat(square.calculations.get(), is(2));
+        assertThat(statistics.getCache().getMissCount(square), is(2L));
+        assertThat(statistics.getCache().getHitCount(square), is(1L));
+    }
+
+    @Test
+    public void calculatedOnceConcurrently() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calculations = new AtomicInteger();
+        Cache cache = new Cache();
+        Square square = new Square();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int k = 0; k < 8; ++k) {
+                results.add(executor.submit(() -> cache.get(square, 3, () -> {
+                    calculations.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                    return 42;
+                })));
+            }
+            started.await(10, TimeUnit.SECONDS);
+            release.countDown();
+            for (Future<Integer> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS), is(42));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(calculations.get(), is(1));
+        assertThat(cache.getMissCount(square), is(1L));
+        assertThat(cache.getHitCount(square), is(7L));
+    }
+
+    @Test
+    public void nestedCalculations() {
+        Square square = new Square();
+        Statistic<Integer, Integer, Integer> sum = new Statistic<Integer, Integer, Integer>() {
+            @Override
+            public Integer calculate(Statistics<Integer> statistics, Integer object) {
+                return statistics.get(square, object) + statistics.get(square, object + 1);
+            }
+
+            @Override
+            public Class<Integer> range() {
+                return Integer.class;
+            }
+        };
+        Statistics<Integer> statistics = new Statistics<>(0);
+        assertThat(statistics.get(sum, 1), is(5));
+        assertThat(statistics.get(square, 2), is(4));
+        assertThat(square.calculations.get(), is(2));
+    }
+
+    @Test
+    public void sharedBetweenData() {
+        Square square = new Square();
+        Cache cache = new Cache();
+        Statistics<Integer> first = new Statistics<>(2, cache);
+        Statistics<Integer> second = new Statistics<>(3, cache);
+        assertThat(first.get(square, 1), is(9));
+        assertThat(second.get(square, 1), is(16));
+        assertThat(square.calculations.get(), is(2));
+
+        second.invalidate();
+        assertThat(cache.size(), is(1));
+        assertThat(first.get(square, 1), is(9));
+        assertThat(square.calculations.get(), is(2));
+    }
+
+    @Test(timeout = 10000)
+    public void cyclicCalculationAcrossThreadsRejected() throws Exception {
+        Cache cache = new Cache();
+        Square square = new Square();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> cache.get(square, 1, () -> {
+                firstStarted.countDown();
+                await(secondStarted);
+                return cache.get(square, 2, () -> 0) + 1;
+            }));
+            Future<Integer> second = executor.submit(() -> cache.get(square, 2, () -> {
+                secondStarted.countDown();
+                await(firstStarted);
+                return cache.get(square, 1, () -> 0) + 1;
+            }));
+            assertFailure(first);
+            assertFailure(second);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(cache.size(), is(0));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void assertFailure(Future<Integer> result) throws InterruptedException {
+        try {
+            result.get();
+            fail();
+        } catch (ExecutionException ex) {
+            assertThat(ex.getCause(), is(instanceOf(IllegalStateException.class)));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recursionRejected() {
+        Cache cache = new Cache();
+        Square square = new Square();
+        cache.get(square, 1, () -> cache.get(square, 1, () -> 1));
+    }
+
+    @Test
+    public void failureNotCached() {
+        Cache cache = new Cache();
+        Square square = new Square();
+        try {
+            cache.get(square, 1, () -> {
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException ex) {
+        }
+        assertThat(cache.size(), is(0));
+        assertThat(cache.get(square, 1, () -> 7), is(7));
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() {
+        Cache cache = new Cache(2);
+        Square square = new Square();
+        cache.get(square, 1, () -> 1);
+        cache.get(square, 2, () -> 2);
+        cache.get(square, 1, () -> 0);
+        cache.get(square, 3, () -> 3);
+        assertThat(cache.size(), is(2));
+        assertThat(cache.contains(square, 1), is(true));
+        assertThat(cache.contains(square, 2), is(false));
+        assertThat(cache.contains(square, 3), is(true));
+        assertThat(cache.getEvictionCount(square), is(1L));
+    }
+
+    @Test
+    public void weightBounded() {
+        Cache cache = new Cache(10, (statistic, object, value) -> (Integer) value);
+        Square square = new Square();
+        cache.get(square, 1, () -> 4);
+        cache.get(square, 2, () -> 5);
+        assertThat(cache.getWeight(), is(9L));
+        cache.get(square, 3, () -> 6);
+        assertThat(cache.getWeight(), is(6L));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void invalidation() {
+        Square square = new Square();
+        Square other = new Square();
+        Cache cache = new Cache();
+        cache.put(square, 1, 1);
+        cache.put(square, 2, 4);
+        cache.put(other, 1, 1);
+        cache.invalidate(square, 1);
+        assertThat(cache.contains(square, 1), is(false));
+        assertThat(cache.get(square, 2), is(4));
+        cache.invalidate(square);
+        assertThat(cache.contains(square, 2), is(false));
+        assertThat(cache.contains(other, 1), is(true));
+        cache.invalidate();
+        assertThat(cache.size(), is(0));
+        assertThat(cache.getWeight(), is(0L));
+    }
+}